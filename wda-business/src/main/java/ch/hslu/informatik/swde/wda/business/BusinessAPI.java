@@ -8,21 +8,39 @@
 
 package ch.hslu.informatik.swde.wda.business;
 
+import ch.hslu.informatik.swde.wda.business.feed.ChangeFeed;
+import ch.hslu.informatik.swde.wda.business.gap.GapReport;
+import ch.hslu.informatik.swde.wda.business.job.JobStatus;
+import ch.hslu.informatik.swde.wda.business.refresh.RefreshSummary;
+import ch.hslu.informatik.swde.wda.business.stats.StatsMetrics;
+import ch.hslu.informatik.swde.wda.business.stats.StatsWindow;
 import ch.hslu.informatik.swde.wda.domain.City;
 import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherBucket;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.TreeMap;
+import java.util.function.Consumer;
 
 public interface BusinessAPI {
 
     /**
-     * Fügt alle Städte zur Datenbank hinzu.
+     * Fügt alle Städte aus dem Katalog des Wetterdienstes zur Datenbank hinzu.
+     * Das Land der neuen Städte wird im Hintergrund nachgeladen.
      */
     void addAllCities();
 
+    /**
+     * Lädt das Land aller Städte nach, deren Land noch nicht bekannt ist, und speichert es in der Datenbank.
+     *
+     * @return Die Anzahl Städte, deren Land ergänzt wurde.
+     */
+    int enrichMissingCountries();
+
     /**
      * Fügt das aktuelle Wetter einer bestimmten Stadt zur Datenbank hinzu.
      *
@@ -130,6 +148,16 @@ public interface BusinessAPI {
      */
     TreeMap<LocalDateTime, Weather> getWeatherByCityAndTimeSpan(String cityName, LocalDateTime von, LocalDateTime bis);
 
+    /**
+     * Holt die Wetterdaten einer Stadt in einem Zeitraum als spaltenweise Zeitreihe für Auswertungen.
+     *
+     * @param cityName Der Name der Stadt.
+     * @param von      Anfang des Zeitraums.
+     * @param bis      Ende des Zeitraums.
+     * @return Die nach Zeitpunkt sortierte Zeitreihe; leer, wenn die Stadt unbekannt ist oder keine Daten vorhanden sind.
+     */
+    WeatherSeries getWeatherSeriesOfCity(String cityName, LocalDateTime von, LocalDateTime bis);
+
     /**
      * Retrieves the minimum and maximum weather data of a city from a given TreeMap of Weather data.
      * <p>
@@ -145,31 +173,193 @@ public interface BusinessAPI {
     String getWeatherMinMaxDataOfCity(TreeMap<LocalDateTime, Weather> weatherMap);
 
     /**
-     * Retrieves the mean temperature, pressure, and humidity data of a city from a given TreeMap of Weather data.
+     * Retrieves the mean temperature, pressure, humidity and wind speed of a city from a given TreeMap of Weather data.
      * <p>
-     * This method is used to fetch the mean temperature, pressure, and humidity data for a city.
+     * This method is used to fetch the mean temperature, pressure, humidity and wind speed for a city.
      * The TreeMap provided as an argument should contain the timestamp of the weather data as the key and the corresponding Weather entity as the value.
-     * The method will iterate through the TreeMap and calculate the mean temperature, pressure, and humidity data.
-     * The result is returned as a JSON String, which contains the mean values for temperature, pressure, and humidity.
-     * For example, the result could be a formatted String like "{"Temperature":{"mean":15.0},"Pressure":{"mean":1010.0},"Humidity":{"mean":90.0}}".
+     * The method will iterate through the TreeMap once and calculate the mean of every measurement.
+     * The result is returned as a JSON String, which contains the mean values for temperature, pressure, humidity and wind speed.
+     * For example, the result could be a formatted String like "{"Temperature":{"mean":15.0},"Pressure":{"mean":1010.0},"Humidity":{"mean":90.0},"WindSpeed":{"mean":3.5}}".
      *
      * @param weatherMap a TreeMap containing the timestamp as the key and the corresponding Weather entity as the value
-     * @return a JSON String representing the mean temperature, pressure, and humidity data of a city
+     * @return a JSON String representing the mean temperature, pressure, humidity and wind speed of a city
      * @throws RuntimeException if there is an error while converting the data map to a JSON string
      */
     String getWeatherMeanDataOfCity(TreeMap<LocalDateTime, Weather> weatherMap);
 
+    /**
+     * Berechnet Kennzahlen der Wetterdaten einer Stadt in einem Zeitfenster.
+     * Die Ergebnisse werden zwischengespeichert, bis neue Wetterdaten der Stadt im Zeitfenster gespeichert werden.
+     *
+     * @param cityName Der Name der Stadt.
+     * @param window   Das Zeitfenster.
+     * @param metrics  Die Kennzahlen.
+     * @return Die Kennzahlen als JSON-String wie bei getWeatherMinMaxDataOfCity und getWeatherMeanDataOfCity,
+     * bei der Verteilung mit Durchschnitt, Standardabweichung und Perzentilen pro Messgrösse,
+     * oder ein leerer String, falls keine Wetterdaten vorhanden sind.
+     */
+    String getWeatherStatisticsOfCity(String cityName, StatsWindow window, StatsMetrics metrics);
+
+    /**
+     * Fasst die Wetterdaten einer Stadt in einem Zeitraum pro Stunde, Tag, Woche oder Monat zusammen,
+     * mit Anzahl, Minimum, Maximum, Durchschnitt und Standardabweichung pro Intervall und Messgrösse.
+     *
+     * @param cityName    Der Name der Stadt.
+     * @param von         Der Beginn des Zeitraums, inklusiv, in der Zeitzone zone.
+     * @param bis         Das Ende des Zeitraums, exklusiv, in der Zeitzone zone.
+     * @param granularity Die Länge der Intervalle.
+     * @param zone        Die Zeitzone der Intervalle, null für die Zeitzone der gespeicherten Wetterdaten.
+     * @return Die Intervalle als JSON-Array, oder ein leerer String, falls keine Wetterdaten vorhanden sind.
+     * @throws IllegalArgumentException falls der Zeitraum leer ist.
+     */
+    String getWeatherBucketsOfCity(String cityName, LocalDateTime von, LocalDateTime bis, WeatherBucket.Granularity granularity, ZoneId zone);
+
     /**
      * Initializes the Weather Data Application (WDA) by adding all cities and their current year's weather data.
      * <p>
-     * This method first calls the addAllCities method of the service object,
-     * which is an instance of the BusinessAPI interface, to add all cities to the WDA.
-     * It then retrieves a list of all cities from the service object,
-     * and for each city in the list,
-     * it calls the addWeatherOfCityByYear method of the service object with the city's name and the current year.
+     * This method starts the init job, or joins the one already running, and waits until it is finished.
+     *
+     * @return false if the init was executed, true if the WDA was already initialized
      */
     boolean init();
 
+    /**
+     * Startet die Initialisierung der Applikation im Hintergrund, falls sie noch nicht initialisiert ist.
+     * Läuft bereits eine Initialisierung, wird keine zweite gestartet.
+     *
+     * @return Der Status der laufenden Initialisierung, oder null, falls die Applikation bereits initialisiert ist.
+     */
+    JobStatus startInit();
+
+    /**
+     * Gibt den Status der zuletzt gestarteten Initialisierung zurück.
+     *
+     * @return Der Status mit Fortschritt, Durchsatz und geschätzter Restdauer, oder null, falls keine gestartet wurde.
+     */
+    JobStatus getInitStatus();
+
+    /**
+     * Startet das Nachladen der Wetterdaten mehrerer Städte und Jahre im Hintergrund, das neueste Jahr zuerst.
+     * Der Fortschritt wird pro Stadt und Jahr in der Datenbank gespeichert, bereits geladene Jahre werden übersprungen.
+     *
+     * @param cityNames Die Namen der Städte, oder eine leere Liste für alle Städte.
+     * @param fromYear  Das erste Jahr.
+     * @param toYear    Das letzte Jahr.
+     * @return Der Status des laufenden Backfill-Jobs.
+     */
+    JobStatus startBackfill(List<String> cityNames, int fromYear, int toYear);
+
+    /**
+     * Setzt alle nicht abgeschlossenen Backfill-Jobs fort, zum Beispiel nach einem Neustart.
+     *
+     * @return Der Status des laufenden Backfill-Jobs, oder null, falls nichts fortzusetzen ist.
+     */
+    JobStatus resumeBackfill();
+
+    /**
+     * Gibt den Status des zuletzt gestarteten Backfill-Jobs zurück.
+     *
+     * @return Der Status mit Fortschritt, Durchsatz und geschätzter Restdauer, oder null, falls keiner gestartet wurde.
+     */
+    JobStatus getBackfillStatus();
+
+    /**
+     * Aktualisiert das aktuelle Wetter mehrerer Städte auf einmal. Die Abfragen beim Wetterdienst laufen parallel,
+     * die neuen Wetterdaten werden in einer Transaktion gespeichert.
+     *
+     * @param cityNames Die Namen der Städte, oder eine leere Liste für alle Städte.
+     * @return Eine Zusammenfassung mit dem Ergebnis pro Stadt.
+     */
+    RefreshSummary refreshCurrentWeather(List<String> cityNames);
+
+    /**
+     * Sucht Lücken in den gespeicherten Wetterdaten mehrerer Städte in einem Jahr, ohne etwas zu ändern.
+     *
+     * @param cityNames Die Namen der Städte, oder eine leere Liste für alle Städte.
+     * @param year      Das Jahr.
+     * @return Der Bericht mit den Lücken pro Stadt.
+     */
+    GapReport findGaps(List<String> cityNames, int year);
+
+    /**
+     * Sucht Lücken in den gespeicherten Wetterdaten mehrerer Städte in einem Jahr und lädt nur die fehlenden Wetterdaten nach.
+     *
+     * @param cityNames Die Namen der Städte, oder eine leere Liste für alle Städte.
+     * @param year      Das Jahr.
+     * @return Der Bericht mit den gefundenen Lücken und den nachgeladenen Wetterdaten pro Stadt.
+     */
+    GapReport repairGaps(List<String> cityNames, int year);
+
+    /**
+     * Lädt den Index der gespeicherten Wetterdaten, der vor dem Speichern neuer Wetterdaten abgefragt wird.
+     * Städte, deren Index nicht zur Datenbank passt, werden aus der Datenbank neu aufgebaut.
+     *
+     * @return Die Anzahl der Städte, die neu aufgebaut wurden.
+     */
+    int loadObservationIndex();
+
+    /**
+     * Speichert den Index der gespeicherten Wetterdaten in seine Datei.
+     */
+    void saveObservationIndex();
+
+    /**
+     * Startet die regelmässige Abfrage des aktuellen Wetters aller Städte im Hintergrund.
+     * Läuft die Abfrage bereits, passiert nichts.
+     *
+     * @return true, falls die Abfrage gestartet wurde, false, falls sie bereits lief.
+     */
+    boolean startPolling();
+
+    /**
+     * Stoppt die regelmässige Abfrage des aktuellen Wetters und speichert die bereits abgefragten Messungen.
+     *
+     * @return true, falls die Abfrage gestoppt wurde, false, falls sie nicht lief.
+     */
+    boolean stopPolling();
+
+    /**
+     * Abonniert die ab jetzt gespeicherten Wetterdaten. Der Empfänger wird auf einem eigenen Thread
+     * mit den gespeicherten Wetterdaten in Batches aufgerufen.
+     *
+     * @param name         Der Name des Abonnenten, für seinen Thread und seine Metriken.
+     * @param consumer     Der Empfänger der gespeicherten Wetterdaten.
+     * @param backpressure BLOCK, um das Speichern zu bremsen, solange der Empfänger im Rückstand ist, DROP, um stattdessen Wetterdaten zu überspringen.
+     * @return Das Abonnement, das Schliessen beendet die Zustellung.
+     */
+    ChangeFeed.Subscription subscribeToObservations(String name, Consumer<List<Weather>> consumer, ChangeFeed.Backpressure backpressure);
+
+    /**
+     * Startet den Abgleich mit den anderen Instanzen, die dieselbe Datenbank verwenden.
+     * Läuft der Abgleich bereits, passiert nichts.
+     *
+     * @return true, falls der Abgleich gestartet wurde, false, falls er bereits lief.
+     */
+    boolean startClusterSync();
+
+    /**
+     * Stoppt den Abgleich mit den anderen Instanzen und sendet die bereits gesammelten Ereignisse.
+     *
+     * @return true, falls der Abgleich gestoppt wurde, false, falls er nicht lief.
+     */
+    boolean stopClusterSync();
+
+    /**
+     * Tritt der gemeinsamen Warteschlange aller Instanzen bei, die dieselbe Datenbank verwenden.
+     * Danach gestartete Ladeaufträge und die Abfrage des aktuellen Wetters werden mit den anderen Instanzen aufgeteilt.
+     * Läuft die Warteschlange bereits, passiert nichts.
+     *
+     * @return true, falls die Warteschlange gestartet wurde, false, falls sie bereits lief.
+     */
+    boolean startWorkQueue();
+
+    /**
+     * Verlässt die gemeinsame Warteschlange und gibt die reservierten Aufgaben an die anderen Instanzen frei.
+     *
+     * @return true, falls die Warteschlange gestoppt wurde, false, falls sie nicht lief.
+     */
+    boolean stopWorkQueue();
+
     /**
      * Destroys all tables in the database.
      * <p>
@@ -8,30 +8,87 @@
 
 package ch.hslu.informatik.swde.wda.business;
 
+import ch.hslu.informatik.swde.wda.business.cluster.ClusterChannel;
+import ch.hslu.informatik.swde.wda.business.cluster.ClusterEvent;
+import ch.hslu.informatik.swde.wda.business.cluster.ClusterSettings;
+import ch.hslu.informatik.swde.wda.business.dedupe.ObservationIndex;
+import ch.hslu.informatik.swde.wda.business.feed.ChangeFeed;
+import ch.hslu.informatik.swde.wda.business.gap.CityGaps;
+import ch.hslu.informatik.swde.wda.business.gap.Gap;
+import ch.hslu.informatik.swde.wda.business.gap.GapAnalyzer;
+import ch.hslu.informatik.swde.wda.business.gap.GapReport;
+import ch.hslu.informatik.swde.wda.business.job.CheckpointListener;
+import ch.hslu.informatik.swde.wda.business.job.JobStatus;
+import ch.hslu.informatik.swde.wda.business.job.LoadPipeline;
+import ch.hslu.informatik.swde.wda.business.job.PipelineSettings;
+import ch.hslu.informatik.swde.wda.business.job.Slice;
+import ch.hslu.informatik.swde.wda.business.job.SliceListener;
+import ch.hslu.informatik.swde.wda.business.job.SliceSource;
+import ch.hslu.informatik.swde.wda.business.lock.CityLocks;
+import ch.hslu.informatik.swde.wda.business.poll.CityOwnership;
+import ch.hslu.informatik.swde.wda.business.poll.CurrentWeatherPoller;
+import ch.hslu.informatik.swde.wda.business.poll.PollerSettings;
+import ch.hslu.informatik.swde.wda.business.queue.CityLeases;
+import ch.hslu.informatik.swde.wda.business.queue.QueueSettings;
+import ch.hslu.informatik.swde.wda.business.queue.QueueSliceSource;
+import ch.hslu.informatik.swde.wda.business.queue.WorkQueue;
+import ch.hslu.informatik.swde.wda.business.refresh.CityRefresh;
+import ch.hslu.informatik.swde.wda.business.refresh.RefreshSummary;
+import ch.hslu.informatik.swde.wda.business.stats.PastWindows;
+import ch.hslu.informatik.swde.wda.business.stats.StatsCache;
+import ch.hslu.informatik.swde.wda.business.stats.StatsMetrics;
+import ch.hslu.informatik.swde.wda.business.stats.StatsWindow;
 import ch.hslu.informatik.swde.wda.calc.Calc;
 import ch.hslu.informatik.swde.wda.calc.CalcImpl;
+import ch.hslu.informatik.swde.wda.calc.Measure;
+import ch.hslu.informatik.swde.wda.calc.MeasureStats;
+import ch.hslu.informatik.swde.wda.calc.WeatherStats;
+import ch.hslu.informatik.swde.wda.calc.online.OnlineStats;
+import ch.hslu.informatik.swde.wda.domain.BackfillCheckpoint;
 import ch.hslu.informatik.swde.wda.domain.City;
 import ch.hslu.informatik.swde.wda.domain.Init;
 import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherBucket;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+import ch.hslu.informatik.swde.wda.persister.DAO.CheckpointDAO;
 import ch.hslu.informatik.swde.wda.persister.DAO.CityDAO;
 import ch.hslu.informatik.swde.wda.persister.DAO.GenericDAO;
+import ch.hslu.informatik.swde.wda.persister.DAO.NotificationDAO;
 import ch.hslu.informatik.swde.wda.persister.DAO.WeatherDAO;
+import ch.hslu.informatik.swde.wda.persister.DAO.WorkQueueDAO;
+import ch.hslu.informatik.swde.wda.persister.impl.CheckpointDAOImpl;
 import ch.hslu.informatik.swde.wda.persister.impl.CityDAOImpl;
 import ch.hslu.informatik.swde.wda.persister.impl.GenericDAOImpl;
+import ch.hslu.informatik.swde.wda.persister.impl.NotificationDAOImpl;
 import ch.hslu.informatik.swde.wda.persister.impl.WeatherDAOImpl;
+import ch.hslu.informatik.swde.wda.persister.impl.WorkQueueDAOImpl;
 import ch.hslu.informatik.swde.wda.reader.ApiReader;
 import ch.hslu.informatik.swde.wda.reader.ApiReaderImpl;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.Year;
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class BusinessImpl implements BusinessAPI {
 
@@ -40,28 +97,72 @@ public class BusinessImpl implements BusinessAPI {
     private final CityDAO daoC;
     private final WeatherDAO daoW;
     private final GenericDAO<Init> daoI;
+    private final CheckpointDAO daoCP;
+    private final NotificationDAO daoN;
+    private final WorkQueueDAO daoQ;
     private static final ApiReader reader = new ApiReaderImpl();
 
     private static final Calc calc = new CalcImpl();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ExecutorService ENRICHMENT_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "wda-country-enrichment");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final AtomicBoolean ENRICHMENT_RUNNING = new AtomicBoolean();
+
+    private static final StatsCache STATS_CACHE = new StatsCache();
+    private static final PastWindows PAST_WINDOWS = new PastWindows();
+    private static final ChangeFeed FEED = new ChangeFeed();
+    private static final int FEED_MAX_BATCH = Integer.getInteger("wda.feed.maxBatch", 512);
+    private static final CityLocks CITY_LOCKS = new CityLocks(64);
+    private static final Object REFRESH_LOCK = new Object();
+    private static final ObservationIndex OBSERVATIONS = new ObservationIndex();
+    private static final GapAnalyzer GAP_ANALYZER = new GapAnalyzer(1.5);
+    private static final Path OBSERVATIONS_FILE = Path.of(System.getProperty("wda.dedupe.indexFile",
+            Path.of(System.getProperty("user.home"), ".wda", "observations.idx").toString()));
+
+    private static final LocalDateTime OPEN_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final Duration CURRENT_MAX_AGE = Duration.ofMillis(Long.getLong("wda.current.maxAgeMs", 600_000L));
+    private static final ZoneId DATA_ZONE = ZoneId.of(System.getProperty("wda.dataZone", "Europe/Zurich"));
+    private static final Duration BUCKETS_PUSHDOWN = Duration.ofDays(Long.getLong("wda.buckets.pushdownDays", 92L));
+    private static final Map<Integer, LocalDateTime> LATEST_STAMPS = new ConcurrentHashMap<>();
+    private static final ExecutorService WRITE_THROUGH_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "wda-write-through");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final AtomicReference<LoadPipeline> INIT_JOB = new AtomicReference<>();
+    private static final AtomicReference<LoadPipeline> BACKFILL_JOB = new AtomicReference<>();
+    private static final AtomicReference<CurrentWeatherPoller> POLLER = new AtomicReference<>();
+    private static final AtomicReference<ClusterChannel> CLUSTER = new AtomicReference<>();
+    private static final AtomicReference<WorkQueue> WORK_QUEUE = new AtomicReference<>();
+    private static final AtomicReference<CityLeases> CITY_LEASES = new AtomicReference<>();
 
     public BusinessImpl(String persistenceUnitName) {
         this.daoC = new CityDAOImpl(persistenceUnitName);
         this.daoW = new WeatherDAOImpl(persistenceUnitName);
         this.daoI = new GenericDAOImpl<>(Init.class, persistenceUnitName);
+        this.daoCP = new CheckpointDAOImpl(persistenceUnitName);
+        this.daoN = new NotificationDAOImpl(persistenceUnitName);
+        this.daoQ = new WorkQueueDAOImpl(persistenceUnitName);
     }
 
     /**
      * Adds all cities to the database.
      * <p>
-     * This method reads city details from an external source using the ApiReader.
-     * It then checks if the number of cities read is different from the number of cities currently in the database.
-     * If the numbers are different, it means there are new cities to be added, so it saves all the cities read into the database.
+     * This method reads the city catalog from an external source using the ApiReader, which needs a single request.
+     * It then checks which of the cities are not yet in the database and saves only these.
+     * The country of the new cities is not part of the catalog,
+     * it is loaded in the background by enrichMissingCountries, so this method returns as soon as the catalog is saved.
      */
     @Override
     public void addAllCities() {
 
-        // Read city details from an external source
-        LinkedHashMap<Integer, City> cityRes = reader.readCities();
+        // Read the city catalog from an external source
+        LinkedHashMap<Integer, City> cityRes = reader.readCityCatalog();
         Set<String> existingCities = daoC.allCityNames();
 
         // Check if the City already exist
@@ -71,8 +172,80 @@ public class BusinessImpl implements BusinessAPI {
         }
 
         daoC.saveAllCities(citiesToSave);
+        if (!citiesToSave.isEmpty()) {
+            ClusterChannel cluster = CLUSTER.get();
+            if (cluster != null) {
+                cluster.citiesWritten();
+            }
+        }
+
+        enrichMissingCountriesInBackground();
     }
 
+    /**
+     * Loads the country of all cities whose country is not known yet.
+     * <p>
+     * This method finds all cities without country using the CityDAO
+     * and reads their countries concurrently using the ApiReader.
+     * The adaptive limiter of the reader bounds the number of requests in flight.
+     * All countries that could be read are saved in one transaction.
+     * Once saved, the country of a city is never requested again.
+     *
+     * @return the number of cities whose country was added
+     */
+    @Override
+    public int enrichMissingCountries() {
+
+        List<City> withoutCountry = daoC.findCitiesWithoutCountry();
+        if (withoutCountry.isEmpty()) {
+            return 0;
+        }
+
+        Map<Integer, String> countryByCityId = new HashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            List<Future<String>> countries = new ArrayList<>();
+            for (City c : withoutCountry) {
+                countries.add(executor.submit(() -> reader.readCityCountry(c.getName())));
+            }
+
+            for (int i = 0; i < withoutCountry.size(); i++) {
+                try {
+                    String country = countries.get(i).get();
+                    if (country != null) {
+                        countryByCityId.put(withoutCountry.get(i).getId(), country);
+                    }
+                } catch (ExecutionException e) {
+                    LOG.info("Country of " + withoutCountry.get(i).getName() + " could not be read: " + e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        daoC.updateCountries(countryByCityId);
+        return countryByCityId.size();
+    }
+
+    /**
+     * Starts enrichMissingCountries on the background thread, unless a run is already in progress.
+     */
+    private void enrichMissingCountriesInBackground() {
+        if (!ENRICHMENT_RUNNING.compareAndSet(false, true)) {
+            return;
+        }
+        ENRICHMENT_EXECUTOR.execute(() -> {
+            try {
+                int count = enrichMissingCountries();
+                LOG.info("Country added to " + count + " cities");
+            } catch (Exception e) {
+                LOG.error("Error while adding countries: ", e);
+            } finally {
+                ENRICHMENT_RUNNING.set(false);
+            }
+        });
+    }
 
     /**
      * Adds the current weather of a specified city to the database.
@@ -80,11 +253,18 @@ public class BusinessImpl implements BusinessAPI {
      * This method first finds the ID of the city by its name using the CityDAO.
      * If the city ID is not 0, it calls the private method addCurrentWeatherOfCity with the city ID and city name as parameters.
      * This private method retrieves the latest weather data of the city from both the database and an external API.
+     * All writes of a city hold the lock of the city, so concurrent calls cannot insert the same rows twice.
+     * A call for a city whose current weather is already being added waits for that call instead of adding it again.
      *
      * @param cityName the name of the city for which the current weather data is to be added
      */
     @Override
     public void addCurrentWeatherOfCity(String cityName) {
+        CITY_LOCKS.coalesce(cityName, "current", () ->
+                addCurrentWeatherOfCity(findOrAddCityId(cityName), reader.readCurrentWeatherByCity(cityName)));
+    }
+
+    private int findOrAddCityId(String cityName) {
 
         int cityId = daoC.findCityIdByName(cityName);
         if (cityId == 0) {
@@ -92,7 +272,7 @@ public class BusinessImpl implements BusinessAPI {
             daoC.speichern(city);
             cityId = daoC.findCityIdByName(cityName);
         }
-        addCurrentWeatherOfCity(cityId, reader.readCurrentWeatherByCity(cityName));
+        return cityId;
     }
 
     /**
@@ -116,7 +296,9 @@ public class BusinessImpl implements BusinessAPI {
 
             // If there is no existing weather data in the database for the city, save the current weather data from the API to the database
             currentWeatherREADER.setCityId(cityId);
+            OBSERVATIONS.add(List.of(currentWeatherREADER));
             daoW.speichern(currentWeatherREADER);
+            committed(List.of(currentWeatherREADER));
 
         } else if (currentWeatherREADER != null && !latestWeatherDAO.getDTstamp().isEqual(currentWeatherREADER.getDTstamp())) {
 
@@ -128,7 +310,9 @@ public class BusinessImpl implements BusinessAPI {
 
                 // If the time difference is less than 40 minutes, save the current weather data from the API to the database
                 currentWeatherREADER.setCityId(cityId);
+                OBSERVATIONS.add(List.of(currentWeatherREADER));
                 daoW.speichern(currentWeatherREADER);
+                committed(List.of(currentWeatherREADER));
 
             } else {
 
@@ -147,48 +331,51 @@ public class BusinessImpl implements BusinessAPI {
      * This private method retrieves the weather data of the city for the specified year from an external API and the latest weather data of the city from the database.
      * If the size of the weather data retrieved from the API is different from the number of weather data in the database for the city, it means there are new weather data to be added.
      * So, it sets the city ID for each of the new weather data and saves them all to the database as a batch.
+     * Like addCurrentWeatherOfCity, it holds the lock of the city and concurrent calls for the same city and year are coalesced.
      *
      * @param cityName the name of the city for which the weather data is to be added
      * @param year     the year for which the weather data is to be added
      */
     @Override
     public void addWeatherOfCityByYear(String cityName, int year) {
-
-        int cityId = daoC.findCityIdByName(cityName);
-        if (cityId == 0) {
-            City city = reader.readCityDetails(cityName);
-            daoC.speichern(city);
-            cityId = daoC.findCityIdByName(cityName);
-        }
-        addWeatherOfCityByYear(cityId, reader.readWeatherByCityAndYear(cityName, year), year);
+        CITY_LOCKS.coalesce(cityName, "year:" + year, () ->
+                addWeatherOfCityByYear(findOrAddCityId(cityName), reader.readWeatherByCityAndYear(cityName, year), year));
     }
 
     /**
      * Adds the weather data of a specified city for a specific year to the database.
      * <p>
-     * This method first checks if there are any existing weather data in the database for the specified city.
-     * If there is no existing weather data, it adds the current weather data of the city to the database.
-     * It then retrieves the weather data of the city for the specified year from an external API and the latest weather data of the city from the database.
-     * If the size of the weather data retrieved from the API is different from the number of weather data in the database for the city, it means there are new weather data to be added.
-     * So, it sets the city ID for each of the new weather data and saves them all to the database as a batch.
+     * This method first asks the observation index which of the given weather data are definitely not stored yet.
+     * Only if some of them are probably stored already, it loads the timestamps of the city in the specified year from the database
+     * and compares these weather data with them, otherwise no query is needed.
+     * It then sets the city ID for each of the new weather data, adds them to the index and saves them all to the database as a batch.
      *
      * @param cityId the id of the city for which the weather data is to be added
      */
     private void addWeatherOfCityByYear(int cityId, TreeMap<LocalDateTime, Weather> weatherMap, int year) {
 
-        TreeMap<LocalDateTime, Weather> weatherRes = getWeatherOfCityByYear(year, cityId);
+        ObservationIndex.Split split = OBSERVATIONS.split(cityId, weatherMap.values());
+        TreeMap<LocalDateTime, Weather> weatherToSave = new TreeMap<>();
 
-        if (weatherRes.size() != weatherMap.size() || !weatherRes.lastKey().isEqual(weatherMap.lastKey())) {
-            TreeMap<LocalDateTime, Weather> weatherToSave = new TreeMap<>();
+        for (Weather w : split.newRows()) {
+            weatherToSave.put(w.getDTstamp(), w);
+        }
 
-            for (Weather w : weatherMap.values()) {
-                if (!weatherRes.containsKey(w.getDTstamp())) {
-                    w.setCityId(cityId);
+        if (!split.candidates().isEmpty()) {
+            // Only rows the index cannot rule out are compared with the timestamps in the database
+            Set<LocalDateTime> existing = new HashSet<>(daoW.findWeatherDateFromCityByYear(year, cityId));
+            for (Weather w : split.candidates()) {
+                if (!existing.contains(w.getDTstamp())) {
                     weatherToSave.put(w.getDTstamp(), w);
                 }
             }
+        }
 
+        if (!weatherToSave.isEmpty()) {
+            weatherToSave.values().forEach(w -> w.setCityId(cityId));
+            OBSERVATIONS.add(weatherToSave.values());
             daoW.saveAllWeather(weatherToSave);
+            committed(weatherToSave.values());
         }
 
 //        if (weatherMap.size() != daoW.getNumberOfWeatherByCity(cityId)) {
@@ -210,6 +397,7 @@ public class BusinessImpl implements BusinessAPI {
      * Retrieves a city object by its name.
      * <p>
      * This method uses the CityDAO to find a city by its name in the database.
+     * If the country of the city is not known yet, it is read using the ApiReader and saved.
      * It returns the city object if found, otherwise it returns null.
      *
      * @param name the name of the city to be retrieved
@@ -217,7 +405,17 @@ public class BusinessImpl implements BusinessAPI {
      */
     @Override
     public City getCityByName(String name) {
-        return daoC.findCityByName(name);
+        City city = daoC.findCityByName(name);
+
+        // Load the country lazily if the background enrichment did not reach this city yet
+        if (city != null && (city.getCountry() == null || city.getCountry().isEmpty())) {
+            String country = reader.readCityCountry(name);
+            if (country != null) {
+                daoC.updateCountries(Map.of(city.getId(), country));
+                city.setCountry(country);
+            }
+        }
+        return city;
     }
 
     /**
@@ -252,9 +450,15 @@ public class BusinessImpl implements BusinessAPI {
     /**
      * Retrieves the current weather of a specified city by its ID and name.
      * <p>
-     * This method first retrieves the latest weather data of the city by its ID from the database and the current weather data of the city by its name from an external API.
-     * If the timestamps of the two weather data are the same, it returns the weather data from the database.
-     * If the timestamps are different, it adds the current weather data of the city to the database and retrieves it again.
+     * This method serves the latest weather data from the database as long as it is not older than the configured maximum age
+     * ({@code -Dwda.current.maxAgeMs}, 10 minutes by default), without calling the external API.
+     * Which cities have fresh data is remembered from the previous requests, so the database lookup is only done alone
+     * if the data of the city is expected to be fresh.
+     * Otherwise the database lookup and the call to the external API run at the same time on virtual threads.
+     * If the API returns a newer reading, it is returned immediately and saved to the database in the background
+     * by addCurrentWeatherOfCity, which also loads readings missed in between.
+     * If the API call fails, the data from the database is returned.
+     * So a request needs at most two database lookups and one API call, the write is not part of the request.
      *
      * @param cityId   the ID of the city for which the current weather is to be retrieved
      * @param cityName the name of the city for which the current weather is to be retrieved
@@ -262,15 +466,63 @@ public class BusinessImpl implements BusinessAPI {
      */
     private Weather getCurrentWeatherOfCity(int cityId, String cityName) {
 
-        Weather daoWeather = daoW.findLatestWeatherByCity(cityId);
-        Weather readerWeather = reader.readCurrentWeatherByCity(cityName);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime knownStamp = LATEST_STAMPS.get(cityId);
 
-        if (daoWeather.getDTstamp().isEqual(readerWeather.getDTstamp())) {
+        if (isFresh(knownStamp, now)) {
+            Weather daoWeather = daoW.findLatestWeatherByCity(cityId);
+            if (daoWeather != null && isFresh(daoWeather.getDTstamp(), now)) {
+                Metrics.counter("business.current.fresh").increment();
+                return daoWeather;
+            }
+        }
+
+        Weather daoWeather;
+        Weather readerWeather;
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Weather> daoFuture = scope.submit(() -> daoW.findLatestWeatherByCity(cityId));
+            Future<Weather> readerFuture = scope.submit(() -> reader.readCurrentWeatherByCity(cityName));
+
+            daoWeather = daoFuture.get();
+            try {
+                readerWeather = readerFuture.get();
+            } catch (ExecutionException e) {
+                LOG.info("Current weather of " + cityName + " could not be read, serving the stored weather: " + e.getCause().getMessage());
+                readerWeather = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        Metrics.counter("business.current.fetched").increment();
+
+        if (readerWeather == null || readerWeather.getDTstamp() == null
+                || (daoWeather != null && !readerWeather.getDTstamp().isAfter(daoWeather.getDTstamp()))) {
+            if (daoWeather != null) {
+                LATEST_STAMPS.put(cityId, daoWeather.getDTstamp());
+            }
             return daoWeather;
-        } else {
-            addCurrentWeatherOfCity(cityName);
-            return getCurrentWeatherOfCity(cityName);
         }
+
+        readerWeather.setCityId(cityId);
+        LATEST_STAMPS.put(cityId, readerWeather.getDTstamp());
+
+        Weather current = readerWeather;
+        WRITE_THROUGH_EXECUTOR.execute(() -> {
+            try {
+                CITY_LOCKS.run(cityName, () -> addCurrentWeatherOfCity(cityId, current));
+            } catch (Exception e) {
+                LATEST_STAMPS.remove(cityId);
+                LOG.error("Error while saving the current weather of " + cityName + ": ", e);
+            }
+        });
+        return readerWeather;
+    }
+
+    private static boolean isFresh(LocalDateTime stamp, LocalDateTime now) {
+        return stamp != null && stamp.isAfter(now.minus(CURRENT_MAX_AGE));
     }
 
     /**
@@ -476,81 +728,289 @@ public class BusinessImpl implements BusinessAPI {
     }
 
     /**
-     * Retrieves the minimum and maximum temperature, pressure, and humidity data of a city from a given TreeMap of Weather data.
+     * Retrieves the weather data of a specified city within a specific time span as a column-oriented series.
      * <p>
-     * This method is used to fetch the minimum and maximum temperature, pressure, and humidity data for a city.
+     * This method first finds the ID of the city by its name using the CityDAO.
+     * If the city ID is not 0, it reads the timestamps and measurements of the city within the time span, both included,
+     * using the WeatherDAO, which stores them in primitive arrays without creating Weather entities.
+     * The series can be sliced in O(log n) and aggregated by the Calc without the overhead of a TreeMap.
+     *
+     * @param cityName the name of the city for which the weather data is to be retrieved
+     * @param von      the start of the time span
+     * @param bis      the end of the time span
+     * @return the series sorted by timestamp, or an empty series if the city is unknown or there is no weather data
+     */
+    @Override
+    public WeatherSeries getWeatherSeriesOfCity(String cityName, LocalDateTime von, LocalDateTime bis) {
+        int cityId = daoC.findCityIdByName(cityName);
+        return cityId != 0 ? daoW.findWeatherSeriesFromCityByTimeSpan(cityId, von, bis) : WeatherSeries.empty();
+    }
+
+    /**
+     * Retrieves the minimum and maximum temperature, pressure, humidity and wind speed of a city from a given TreeMap of Weather data.
+     * <p>
+     * This method is used to fetch the minimum and maximum weather data for a city.
      * The TreeMap provided as an argument should contain the timestamp of the weather data as the key and the corresponding Weather entity as the value.
-     * The method will iterate through the TreeMap and find the minimum and maximum temperature, pressure, and humidity data.
-     * The result is returned as a JSON String, which contains the minimum and maximum values for temperature, pressure, and humidity.
-     * For example, the result could be a formatted String like "{"Temperature":{"max":20.0,"min":10.0},"Pressure":{"max":1013.0,"min":1007.0},"Humidity":{"max":93.0,"min":87.0}}".
+     * The statistics of all measurements are computed by the Calc in a single pass over the TreeMap.
+     * The result is returned as a JSON String, which contains the minimum and maximum values of every measurement.
+     * For example, the result could be a formatted String like "{"Temperature":{"max":20.0,"min":10.0},"Pressure":{"max":1013.0,"min":1007.0},...}".
      *
      * @param weatherMap a TreeMap containing the timestamp as the key and the corresponding Weather entity as the value
-     * @return a JSON String representing the minimum and maximum temperature, pressure, and humidity data of a city
-     * @throws RuntimeException if there is an error while converting the data map to a JSON string
+     * @return a JSON String representing the minimum and maximum weather data of a city
+     * @throws RuntimeException if there is an error while converting the statistics to a JSON string
      */
     @Override
     public String getWeatherMinMaxDataOfCity(TreeMap<LocalDateTime, Weather> weatherMap) {
-        Map<String, Map<String, Double>> data = new HashMap<>();
+        return toJson(calc.getStatistics(weatherMap.values()), StatsMetrics.MIN_MAX);
+    }
 
-        Map<String, Double> temperature = new HashMap<>();
-        temperature.put("max", calc.getMaxForTemperature(weatherMap));
-        temperature.put("min", calc.getMinForTemperature(weatherMap));
-        data.put("Temperature", temperature);
+    /**
+     * Retrieves the mean temperature, pressure, humidity and wind speed of a city from a given TreeMap of Weather data.
+     * <p>
+     * This method is used to fetch the mean weather data for a city.
+     * The TreeMap
+     * provided as an argument should contain the timestamp of the weather data as the key and the corresponding Weather entity as the value.
+     * The statistics of all measurements are computed by the Calc in a single pass over the TreeMap.
+     * The result is returned as a JSON String, which contains the mean value of every measurement, rounded to two decimal places.
+     * For example,
+     * the result could be a formatted String like "{"Temperature":{"mean":15.0},"Pressure":{"mean":1010.0},...}".
+     *
+     * @param weatherMap a TreeMap containing the timestamp as the key and the corresponding Weather entity as the value
+     * @return a JSON String representing the mean weather data of a city
+     * @throws RuntimeException if there is an error while converting the statistics to a JSON string
+     */
+    @Override
+    public String getWeatherMeanDataOfCity(TreeMap<LocalDateTime, Weather> weatherMap) {
+        return toJson(calc.getStatistics(weatherMap.values()), StatsMetrics.MEAN);
+    }
 
-        Map<String, Double> pressure = new HashMap<>();
-        pressure.put("max", calc.getMaxForPressure(weatherMap));
-        pressure.put("min", calc.getMinForPressure(weatherMap));
-        data.put("Pressure", pressure);
+    /**
+     * Writes statistics as JSON, one object per measurement with either its minimum and maximum or its mean.
+     * Measurements without values have null aggregates, as in the bucket JSON.
+     */
+    private static String toJson(WeatherStats stats, StatsMetrics metrics) {
+
+        ObjectNode data = MAPPER.createObjectNode();
+        for (Measure measure : Measure.values()) {
+            MeasureStats values = stats.get(measure);
+            ObjectNode node = data.putObject(measure.label());
+            if (metrics == StatsMetrics.MIN_MAX) {
+                putValue(node, "max", values.max());
+                putValue(node, "min", values.min());
+            } else {
+                putValue(node, "mean", round(values.mean()));
+            }
+        }
 
-        Map<String, Double> humidity = new HashMap<>();
-        humidity.put("max", calc.getMaxForHumidity(weatherMap));
-        humidity.put("min", calc.getMinForHumidity(weatherMap));
-        data.put("Humidity", humidity);
+        try {
+            return MAPPER.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-        ObjectMapper mapper = new ObjectMapper();
+    /**
+     * Writes the distribution as JSON, one object per measurement with its mean, standard deviation and percentiles.
+     * Measurements without values have null aggregates.
+     */
+    private static String toJson(OnlineStats stats) {
+
+        ObjectNode data = MAPPER.createObjectNode();
+        for (Measure measure : Measure.values()) {
+            ObjectNode node = data.putObject(measure.label());
+            putValue(node, "mean", round(stats.moments(measure).mean()));
+            putValue(node, "stdDev", round(stats.moments(measure).stdDev()));
+            putValue(node, "p50", round(stats.quantile(measure, 0.5)));
+            putValue(node, "p90", round(stats.quantile(measure, 0.9)));
+            putValue(node, "p99", round(stats.quantile(measure, 0.99)));
+        }
 
         try {
-            return mapper.writeValueAsString(data);
+            return MAPPER.writeValueAsString(data);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Retrieves the mean temperature, pressure, and humidity data of a city from a given TreeMap of Weather data.
+     * Rounds to two decimal places, NaN stays NaN.
+     */
+    private static double round(double value) {
+        return Double.isNaN(value) ? value : (double) Math.round(value * 100) / 100;
+    }
+
+    /**
+     * Puts a value, or null if it is NaN, i.e. the measurement has no values.
+     */
+    private static void putValue(ObjectNode node, String field, double value) {
+        if (Double.isNaN(value)) {
+            node.putNull(field);
+        } else {
+            node.put(field, value);
+        }
+    }
+
+    /**
+     * Computes statistics of the weather data of a city within a window.
      * <p>
-     * This method is used to fetch the mean temperature, pressure, and humidity data for a city.
-     * The TreeMap
-     * provided as an argument should contain the timestamp of the weather data as the key and the corresponding Weather entity as the value.
-     * The method will iterate through the TreeMap and calculate the mean temperature, pressure, and humidity data.
-     * The result is returned as a JSON String, which contains the mean values for temperature, pressure, and humidity.
-     * For example,
-     * the result could be a formatted String like "{"Temperature":{"mean":15.0},"Pressure":{"mean":1010.0},"Humidity":{"mean":90.0}}".
+     * For the minimum and maximum or the mean of the past days, this method answers from a sliding window kept in memory
+     * per city and number of days. The first request reads the weather data of the window once, afterwards committed weather data
+     * is appended to the window and readings that fell out of it are dropped, so a request does not access the database anymore.
+     * For other windows, this method first looks the result up in the statistics cache, so repeated requests for the same city,
+     * window and metric set do not read the weather data from the database again.
+     * Otherwise it reads the weather data of the window as a WeatherSeries using the WeatherDAO, so no Weather entities are created,
+     * computes the statistics of all measurements with the Calc and stores the result in the cache.
+     * For the distribution, the Calc accumulates the mean and variance of every measurement and estimates the percentiles
+     * with a t-digest, so the percentiles are approximate, within 0.1 percent of the rank.
+     * The window includes its first timestamp and ends before the start of the next window.
+     * Results of closed windows stay in the cache until weather data in the window is written,
+     * results of open windows also expire after a short time.
+     * If the city is unknown, the number of past days is not between 1 and 365 or there is no weather data in the window,
+     * it returns an empty String.
      *
-     * @param weatherMap a TreeMap containing the timestamp as the key and the corresponding Weather entity as the value
-     * @return a JSON String representing the mean temperature, pressure, and humidity data of a city
-     * @throws RuntimeException if there is an error while converting the data map to a JSON string
+     * @param cityName the name of the city
+     * @param window   the window
+     * @param metrics  the metric set
+     * @return the statistics as JSON String, or an empty String if there is no weather data
      */
     @Override
-    public String getWeatherMeanDataOfCity(TreeMap<LocalDateTime, Weather> weatherMap) {
-        Map<String, Map<String, Double>> data = new HashMap<>();
+    public String getWeatherStatisticsOfCity(String cityName, StatsWindow window, StatsMetrics metrics) {
+
+        if (window.kind() == StatsWindow.Kind.DAYS && !isValidDay(window.value())) {
+            return "";
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (window.kind() == StatsWindow.Kind.DAYS && metrics != StatsMetrics.DISTRIBUTION) {
+            return getPastStatisticsOfCity(cityName, window, metrics, now);
+        }
+
+        String cached = STATS_CACHE.get(cityName, window, metrics, now);
+        if (cached != null) {
+            return cached;
+        }
+
+        int cityId = daoC.findCityIdByName(cityName);
+        if (cityId == 0) {
+            return "";
+        }
+
+        long version = STATS_CACHE.version(cityId);
+        LocalDateTime end = window.end(now);
+        WeatherSeries series = daoW.findWeatherSeriesFromCityByWindow(cityId, window.start(now),
+                end.equals(LocalDateTime.MAX) ? OPEN_END : end);
+
+        String res;
+        if (series.isEmpty()) {
+            res = "";
+        } else if (metrics == StatsMetrics.DISTRIBUTION) {
+            res = toJson(calc.getOnlineStatistics(series));
+        } else {
+            res = toJson(calc.getStatistics(series), metrics);
+        }
+
+        STATS_CACHE.put(cityName, cityId, window, metrics, version, res, now);
+        return res;
+    }
+
+    private String getPastStatisticsOfCity(String cityName, StatsWindow window, StatsMetrics metrics, LocalDateTime now) {
+
+        WeatherStats stats = PAST_WINDOWS.get(cityName, window.value(), now);
+        if (stats == null) {
+            int cityId = daoC.findCityIdByName(cityName);
+            if (cityId == 0) {
+                return "";
+            }
+
+            long version = PAST_WINDOWS.version(cityId);
+            WeatherSeries series = daoW.findWeatherSeriesFromCityByTimeSpan(cityId, window.start(now), OPEN_END);
+            stats = PAST_WINDOWS.put(cityName, cityId, window.value(), version, series, now);
+        }
+
+        return stats.count() == 0 ? "" : toJson(stats, metrics);
+    }
+
+    /**
+     * Aggregates the weather data of a city within a time span per hour, day, week or month.
+     * <p>
+     * This method converts the time span from the requested time zone to the time zone of the stored weather data,
+     * which is set with {@code -Dwda.dataZone} and defaults to Europe/Zurich.
+     * Spans up to {@code -Dwda.buckets.pushdownDays} (92 days by default) are read as a WeatherSeries and bucketed by the Calc
+     * in a single pass over the sorted readings. Longer spans are bucketed by the database, so only one row per bucket is transferred.
+     * Both follow the wall clock of the requested time zone, so a day has 23 or 25 hours when daylight saving time starts or ends.
+     * The result is a JSON array with one object per bucket that has readings, with its start and end as ISO date and time with offset,
+     * its number of readings and the count, minimum, maximum, mean and standard deviation of every measurement,
+     * for example "[{"start":"2024-03-31T00:00+01:00","end":"2024-04-01T00:00+02:00","count":23,"Temperature":{...},...}]".
+     * If the city is unknown or there is no weather data in the span, it returns an empty String.
+     *
+     * @param cityName    the name of the city
+     * @param von         the start of the span, included, local time of the requested time zone
+     * @param bis         the end of the span, excluded, local time of the requested time zone
+     * @param granularity the length of the buckets
+     * @param zone        the time zone the buckets are formed in, or null for the time zone of the stored weather data
+     * @return the buckets as JSON String, or an empty String if there is no weather data
+     * @throws IllegalArgumentException if the span is empty
+     */
+    @Override
+    public String getWeatherBucketsOfCity(String cityName, LocalDateTime von, LocalDateTime bis, WeatherBucket.Granularity granularity, ZoneId zone) {
+
+        if (von == null || bis == null || granularity == null || !von.isBefore(bis)) {
+            throw new IllegalArgumentException("A span with von before bis and a granularity are required");
+        }
+        ZoneId target = zone != null ? zone : DATA_ZONE;
 
-        Map<String, Double> temperature = new HashMap<>();
-        temperature.put("mean", calc.getMeanForTemperature(weatherMap));
-        data.put("Temperature", temperature);
+        int cityId = daoC.findCityIdByName(cityName);
+        if (cityId == 0) {
+            return "";
+        }
 
-        Map<String, Double> pressure = new HashMap<>();
-        pressure.put("mean", calc.getMeanForPressure(weatherMap));
-        data.put("Pressure", pressure);
+        // The stored timestamps are local time of the data zone, the bounds are local time of the requested zone
+        LocalDateTime from = von.atZone(target).withZoneSameInstant(DATA_ZONE).toLocalDateTime();
+        LocalDateTime to = bis.atZone(target).withZoneSameInstant(DATA_ZONE).toLocalDateTime();
 
-        Map<String, Double> humidity = new HashMap<>();
-        humidity.put("mean", calc.getMeanForHumidity(weatherMap));
-        data.put("Humidity", humidity);
+        List<WeatherBucket> buckets;
+        if (Duration.between(von, bis).compareTo(BUCKETS_PUSHDOWN) > 0) {
+            Metrics.counter("buckets.database").increment();
+            buckets = daoW.findWeatherBucketsFromCityByTimeSpan(cityId, from, to, granularity, DATA_ZONE, target);
+        } else {
+            Metrics.counter("buckets.memory").increment();
+            buckets = calc.getBuckets(daoW.findWeatherSeriesFromCityByWindow(cityId, from, to), granularity, DATA_ZONE, target);
+        }
 
-        ObjectMapper mapper = new ObjectMapper();
+        return buckets.isEmpty() ? "" : toJson(buckets, target);
+    }
+
+    /**
+     * Writes buckets as JSON array, measurements without values have null aggregates.
+     */
+    private static String toJson(List<WeatherBucket> buckets, ZoneId zone) {
+
+        ArrayNode data = MAPPER.createArrayNode();
+        for (WeatherBucket bucket : buckets) {
+            ObjectNode node = data.addObject();
+            node.put("start", bucket.start().atZone(zone).toOffsetDateTime().toString());
+            node.put("end", bucket.end().atZone(zone).toOffsetDateTime().toString());
+            node.put("count", bucket.count());
+            for (Measure measure : Measure.values()) {
+                WeatherBucket.Stats stats = bucket.get(measure.column());
+                ObjectNode values = node.putObject(measure.label());
+                values.put("count", stats.count());
+                if (stats.count() == 0) {
+                    values.putNull("min");
+                    values.putNull("max");
+                    values.putNull("mean");
+                    values.putNull("stdDev");
+                } else {
+                    values.put("min", stats.min());
+                    values.put("max", stats.max());
+                    values.put("mean", round(stats.mean()));
+                    values.put("stdDev", round(stats.stdDev()));
+                }
+            }
+        }
 
         try {
-            return mapper.writeValueAsString(data);
+            return MAPPER.writeValueAsString(data);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
@@ -559,37 +1019,800 @@ public class BusinessImpl implements BusinessAPI {
     /**
      * Initializes the Weather Data Application (WDA) by adding all cities and their current year's weather data.
      * <p>
-     * This method first calls the addAllCities method of the service object,
-     * which is an instance of the BusinessAPI interface, to add all cities to the WDA.
-     * It then retrieves a list of all cities from the service object,
-     * and for each city in the list,
-     * it calls the addWeatherOfCityByYear method of the service object with the city's name and the current year.
+     * This method first checks if the WDA is already initialized.
+     * If not, it starts the init job, or joins the one already running, and waits until it is finished.
+     * The init job adds all cities to the WDA and loads the current year's weather data of all cities
+     * through the staged LoadPipeline, so downloading, decoding and writing overlap across cities.
+     * If the job fails, a RuntimeException with the error of the job is thrown.
+     *
+     * @return false if the init was executed, true if the WDA was already initialized
      */
     @Override
     public boolean init() {
 
-        boolean status = daoI.ifTableExist();
+        if (daoI.ifTableExist()) {
+            return true;
+        }
+
+        try {
+            JobStatus status = startInitJob().await();
+            if (status.state() == JobStatus.State.FAILED) {
+                throw new RuntimeException("Init failed: " + status.error());
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Starts the initialization of the Weather Data Application (WDA) in the background.
+     * <p>
+     * This method first checks if the WDA is already initialized, in this case it returns null.
+     * Otherwise it starts the init job on a background thread and returns its status immediately.
+     * If an init job is already running, no second job is started and the status of the running job is returned,
+     * so the method can safely be called several times.
+     *
+     * @return the status of the running init job, or null if the WDA is already initialized
+     */
+    @Override
+    public JobStatus startInit() {
+
+        if (daoI.ifTableExist()) {
+            return null;
+        }
+        return startInitJob().status();
+    }
+
+    /**
+     * Retrieves the status of the init job started last.
+     * <p>
+     * The status contains the number of cities done, the rows written per second and the estimated remaining time.
+     * It is kept after the job has finished, until the next job is started.
+     *
+     * @return the status of the init job started last, or null if no job was started since the application started
+     */
+    @Override
+    public JobStatus getInitStatus() {
+        LoadPipeline job = INIT_JOB.get();
+        return job != null ? job.status() : null;
+    }
+
+    private LoadPipeline startInitJob() {
+        int year = LocalDateTime.now().getYear();
+        return startJob(INIT_JOB, "init", SliceListener.NONE,
+                () -> {
+                    addAllCities();
+                    return getAllCities().stream().map(c -> new Slice(c, year)).toList();
+                },
+                () -> daoI.speichern(new Init()));
+    }
+
+    /**
+     * Starts a job on a background thread, unless a job of the same kind is already running.
+     * If the work queue is started, the slices are shared through the queue with the other nodes running the same job.
+     *
+     * @return the started job, or the job that is already running
+     */
+    private LoadPipeline startJob(AtomicReference<LoadPipeline> holder, String name, SliceListener listener,
+                                  Callable<List<Slice>> plan, Runnable onSuccess) {
+
+        while (true) {
+            LoadPipeline current = holder.get();
+            if (current != null && !current.status().isFinished()) {
+                return current;
+            }
+
+            WorkQueue queue = WORK_QUEUE.get();
+            QueueSliceSource shared = queue != null ? new QueueSliceSource(queue, name, plan, daoC::findById, listener) : null;
+            SliceSource source = shared != null ? shared : SliceSource.of(plan);
+            SliceListener inner = shared != null ? shared : listener;
+
+            LoadPipeline job = new LoadPipeline(name, reader, daoW, PipelineSettings.fromSystemProperties(), OBSERVATIONS, CITY_LOCKS, new SliceListener() {
+                @Override
+                public void onCommitted(Map<Slice, Integer> rowsBySlice) {
+                    inner.onCommitted(rowsBySlice);
+                }
+
+                @Override
+                public void onRowsCommitted(List<Weather> rows) {
+                    committed(rows);
+                    inner.onRowsCommitted(rows);
+                }
+
+                @Override
+                public void onFailed(Slice slice, Exception e) {
+                    inner.onFailed(slice, e);
+                }
+            });
+            if (holder.compareAndSet(current, job)) {
+                Thread.ofPlatform().name("wda-" + name + "-job").daemon(true).start(() -> job.execute(source, onSuccess));
+                return job;
+            }
+        }
+    }
+
+    /**
+     * Starts loading the weather data of several cities and years in the background.
+     * <p>
+     * This method first checks the year range, both years must lie between year 1 and the current year.
+     * It then starts the backfill job on a background thread and returns its status immediately.
+     * The job creates a checkpoint for every combination of city and year that has none yet,
+     * and loads all combinations whose checkpoint is not DONE, the most recent year first.
+     * Every combination is marked as DONE as soon as its weather data is saved,
+     * so a job that is stopped by a crash or a restart can be continued with resumeBackfill
+     * without loading the completed combinations again.
+     * If a backfill job is already running, no second job is started and the status of the running job is returned.
+     *
+     * @param cityNames the names of the cities, or an empty list for all cities
+     * @param fromYear  the first year to load
+     * @param toYear    the last year to load
+     * @return the status of the running backfill job
+     * @throws IllegalArgumentException if the year range is not valid
+     */
+    @Override
+    public JobStatus startBackfill(List<String> cityNames, int fromYear, int toYear) {
+
+        if (!isValidYear(fromYear) || !isValidYear(toYear) || fromYear > toYear) {
+            throw new IllegalArgumentException("Invalid year range: " + fromYear + " - " + toYear);
+        }
+
+        CheckpointListener checkpoints = new CheckpointListener(daoCP);
+        return startJob(BACKFILL_JOB, "backfill", checkpoints,
+                () -> planBackfill(cityNames, fromYear, toYear, checkpoints), () -> {
+                }).status();
+    }
+
+    /**
+     * Continues all backfill jobs that were not finished, e.g. because the application was stopped.
+     * <p>
+     * This method loads all checkpoints that are not DONE.
+     * If there are none, it returns null without starting a job.
+     * Otherwise it starts the backfill job on a background thread with these checkpoints, the most recent year first,
+     * and returns its status immediately.
+     * If a backfill job is already running, the status of the running job is returned.
+     *
+     * @return the status of the running backfill job, or null if there is nothing to continue
+     */
+    @Override
+    public JobStatus resumeBackfill() {
+
+        if (daoCP.findUnfinishedCheckpoints().isEmpty()) {
+            return null;
+        }
+
+        CheckpointListener checkpoints = new CheckpointListener(daoCP);
+        return startJob(BACKFILL_JOB, "backfill", checkpoints, () -> planResume(checkpoints), () -> {
+        }).status();
+    }
+
+    /**
+     * Retrieves the status of the backfill job started last.
+     *
+     * @return the status of the backfill job started last, or null if no job was started since the application started
+     */
+    @Override
+    public JobStatus getBackfillStatus() {
+        LoadPipeline job = BACKFILL_JOB.get();
+        return job != null ? job.status() : null;
+    }
+
+    /**
+     * Refreshes the current weather of several cities at once.
+     * <p>
+     * This method loads all cities with one query and picks the requested ones, unknown names are reported as UNKNOWN_CITY.
+     * It then reads the latest weather of all these cities from the database with one query
+     * and fetches the current weather of every city from the external API at the same time, on virtual threads.
+     * A city whose current weather is newer than its latest weather in the database gets the new reading,
+     * if 40 minutes or more are missing, the missed readings of the current year are fetched as well, like addCurrentWeatherOfCity does.
+     * All new readings are saved in one transaction, so the refresh needs two queries and one insert instead of several queries per city.
+     * Only one refresh runs at a time, a second call waits for the first one. The comparison with the stored readings
+     * is repeated and the new readings are saved while holding the locks of the cities, like every other write of a city,
+     * so a reading saved in the meantime by another request is not saved twice.
+     *
+     * @param cityNames the names of the cities, or an empty list for all cities
+     * @return a summary with the result per city
+     */
+    @Override
+    public RefreshSummary refreshCurrentWeather(List<String> cityNames) {
 
-        if (!status) {
+        synchronized (REFRESH_LOCK) {
+            long start = System.nanoTime();
+
+            Map<String, City> citiesByName = new HashMap<>();
+            for (City city : getAllCities()) {
+                citiesByName.put(city.getName(), city);
+            }
+
+            List<String> names = new ArrayList<>();
+            if (cityNames == null || cityNames.isEmpty()) {
+                names.addAll(citiesByName.keySet());
+                Collections.sort(names);
+            } else {
+                names.addAll(new LinkedHashSet<>(cityNames));
+            }
+
+            List<Integer> cityIds = new ArrayList<>();
+            for (String name : names) {
+                City city = citiesByName.get(name);
+                if (city != null) {
+                    cityIds.add(city.getId());
+                }
+            }
+            Map<Integer, Weather> latest = daoW.findLatestWeatherOfCities(cityIds);
+
+            int year = Year.now().getValue();
+            Map<String, Future<List<Weather>>> fetched = new HashMap<>();
+            try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (String name : names) {
+                    City city = citiesByName.get(name);
+                    if (city != null) {
+                        fetched.put(name, scope.submit(() -> readNewWeather(city, latest.get(city.getId()), year)));
+                    }
+                }
+            }
+
+            Map<String, List<Weather>> newWeather = new HashMap<>();
+            Map<String, String> errors = new HashMap<>();
+            for (Map.Entry<String, Future<List<Weather>>> entry : fetched.entrySet()) {
+                try {
+                    newWeather.put(entry.getKey(), new ArrayList<>(entry.getValue().get()));
+                } catch (ExecutionException e) {
+                    errors.put(entry.getKey(), e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
 
+            String saveError = null;
             try {
-                addAllCities();
+                CITY_LOCKS.runAll(newWeather.keySet(), () -> saveRefreshedWeather(citiesByName, newWeather));
+            } catch (RuntimeException e) {
+                LOG.error("Error while saving the refreshed weather: ", e);
+                saveError = e.getMessage();
+            }
+
+            List<CityRefresh> results = new ArrayList<>();
+            int updated = 0;
+            int unchanged = 0;
+            int rowsWritten = 0;
+            for (String name : names) {
+                City city = citiesByName.get(name);
+                List<Weather> rows = newWeather.get(name);
+                Weather stored = city != null ? latest.get(city.getId()) : null;
+                String storedStamp = stored != null ? stored.getDTstamp().toString() : null;
+
+                if (city == null) {
+                    results.add(new CityRefresh(name, CityRefresh.Status.UNKNOWN_CITY, null, 0, null));
+                } else if (rows == null) {
+                    results.add(new CityRefresh(name, CityRefresh.Status.FAILED, storedStamp, 0, errors.get(name)));
+                } else if (rows.isEmpty()) {
+                    unchanged++;
+                    results.add(new CityRefresh(name, CityRefresh.Status.UNCHANGED, storedStamp, 0, null));
+                } else if (saveError != null) {
+                    results.add(new CityRefresh(name, CityRefresh.Status.FAILED, storedStamp, 0, saveError));
+                } else {
+                    LocalDateTime newest = rows.get(rows.size() - 1).getDTstamp();
+                    LATEST_STAMPS.put(city.getId(), newest);
+                    updated++;
+                    rowsWritten += rows.size();
+                    results.add(new CityRefresh(name, CityRefresh.Status.UPDATED, newest.toString(), rows.size(), null));
+                }
+            }
+
+            long durationMillis = (System.nanoTime() - start) / 1_000_000;
+            LOG.info("Refreshed the current weather of " + names.size() + " cities in " + durationMillis + " ms: "
+                    + updated + " updated, " + rowsWritten + " rows written");
+            return new RefreshSummary(names.size(), updated, unchanged, names.size() - updated - unchanged,
+                    rowsWritten, durationMillis, results);
+        }
+    }
 
-                List<City> cityList = getAllCities();
+    /**
+     * Compares the fetched readings with the latest stored readings again and saves the newer ones in one transaction.
+     * The caller holds the locks of the cities, so readings saved since the first lookup by a concurrent request
+     * or by the write-through of getCurrentWeather are removed instead of being saved twice.
+     */
+    private void saveRefreshedWeather(Map<String, City> citiesByName, Map<String, List<Weather>> newWeather) {
 
-                for (City c : cityList) {
-                    addWeatherOfCityByYear(c.getName(), LocalDateTime.now().getYear());
+        List<Integer> cityIds = new ArrayList<>();
+        for (String name : newWeather.keySet()) {
+            cityIds.add(citiesByName.get(name).getId());
+        }
+        Map<Integer, Weather> stored = daoW.findLatestWeatherOfCities(cityIds);
+
+        List<Weather> toSave = new ArrayList<>();
+        for (Map.Entry<String, List<Weather>> entry : newWeather.entrySet()) {
+            Weather latest = stored.get(citiesByName.get(entry.getKey()).getId());
+            if (latest != null) {
+                entry.getValue().removeIf(w -> !w.getDTstamp().isAfter(latest.getDTstamp()));
+            }
+            toSave.addAll(entry.getValue());
+        }
+
+        OBSERVATIONS.add(toSave);
+        daoW.saveWeatherBatch(toSave);
+        committed(toSave);
+    }
+
+    /**
+     * Fetches the readings of a city that are newer than its latest reading in the database, sorted by time.
+     */
+    private List<Weather> readNewWeather(City city, Weather latest, int year) {
+
+        Weather current = reader.readCurrentWeatherByCity(city.getName());
+        if (current == null || current.getDTstamp() == null) {
+            throw new IllegalStateException("No current weather received for " + city.getName());
+        }
+
+        List<Weather> rows = new ArrayList<>();
+        if (latest != null && !current.getDTstamp().isAfter(latest.getDTstamp())) {
+            return rows;
+        }
+
+        if (latest != null && Duration.between(latest.getDTstamp(), current.getDTstamp()).toMinutes() >= 40) {
+            // Readings were missed, read all readings after the latest one
+            for (Weather w : reader.readWeatherByCityAndFilterByLatestWeather(city.getName(), year, latest.getDTstamp()).values()) {
+                if (w.getDTstamp().isAfter(latest.getDTstamp()) && w.getDTstamp().isBefore(current.getDTstamp())) {
+                    rows.add(w);
                 }
+            }
+        }
+        rows.add(current);
+
+        rows.forEach(w -> w.setCityId(city.getId()));
+        return rows;
+    }
 
-                daoI.speichern(new Init());
+    /**
+     * Finds the gaps in the weather data of several cities in a year, without changing anything.
+     * <p>
+     * See repairGaps for how the gaps are found.
+     *
+     * @param cityNames the names of the cities, or an empty list for all cities
+     * @param year      the year to analyze
+     * @return the report with the gaps per city
+     * @throws IllegalArgumentException if the year is not valid
+     */
+    @Override
+    public GapReport findGaps(List<String> cityNames, int year) {
+        return gaps(cityNames, year, false);
+    }
 
-                return false;
-            } catch (Exception e) {
+    /**
+     * Finds the gaps in the weather data of several cities in a year and loads the missing weather data.
+     * <p>
+     * For every city this method loads only the timestamps of the stored weather data of the year from the database
+     * and learns the interval between two readings as the median distance.
+     * Every distance of more than 1.5 intervals is a gap, as well as the time after the last reading
+     * until now, or until the end of the year for past years.
+     * Only the cities with gaps are loaded from the external API, once for the year,
+     * and only the readings inside the gaps that are not stored yet are saved, in one transaction per city.
+     * The cities are processed at the same time, every city while holding its lock.
+     *
+     * @param cityNames the names of the cities, or an empty list for all cities
+     * @param year      the year to repair
+     * @return the report with the gaps found and the readings saved per city
+     * @throws IllegalArgumentException if the year is not valid
+     */
+    @Override
+    public GapReport repairGaps(List<String> cityNames, int year) {
+        return gaps(cityNames, year, true);
+    }
+
+    private GapReport gaps(List<String> cityNames, int year, boolean repair) {
+
+        if (!isValidYear(year)) {
+            throw new IllegalArgumentException("Invalid year: " + year);
+        }
+
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime end = year == now.getYear() ? now : LocalDateTime.of(year + 1, 1, 1, 0, 0);
+
+        List<City> cities = new ArrayList<>();
+        List<CityGaps> unknown = new ArrayList<>();
+        if (cityNames == null || cityNames.isEmpty()) {
+            cities.addAll(getAllCities());
+        } else {
+            for (String cityName : new LinkedHashSet<>(cityNames)) {
+                City city = daoC.findCityByName(cityName);
+                if (city != null) {
+                    cities.add(city);
+                } else {
+                    unknown.add(new CityGaps(cityName, 0, List.of(), 0, "Unknown city"));
+                }
+            }
+        }
+        cities.sort(Comparator.comparing(City::getName));
+
+        List<Future<CityGaps>> futures = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(PipelineSettings.fromSystemProperties().downloadConcurrency())) {
+            for (City city : cities) {
+                futures.add(pool.submit(() -> {
+                    CityGaps[] result = new CityGaps[1];
+                    CITY_LOCKS.run(city.getName(), () -> result[0] = gapsOfCity(city, year, end, repair));
+                    return result[0];
+                }));
+            }
+        }
+
+        List<CityGaps> results = new ArrayList<>();
+        for (int i = 0; i < cities.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                LOG.error("Error while analyzing the gaps of " + cities.get(i).getName() + ": ", e.getCause());
+                results.add(new CityGaps(cities.get(i).getName(), 0, List.of(), 0, e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 throw new RuntimeException(e);
             }
+        }
+
+        int citiesWithGaps = 0;
+        int gapsFound = 0;
+        long expectedMissing = 0;
+        long rowsFilled = 0;
+        List<CityGaps> reported = new ArrayList<>(unknown);
+        for (CityGaps cityGaps : results) {
+            if (!cityGaps.gaps().isEmpty()) {
+                citiesWithGaps++;
+            }
+            if (!cityGaps.gaps().isEmpty() || cityGaps.error() != null) {
+                reported.add(cityGaps);
+            }
+            gapsFound += cityGaps.gaps().size();
+            expectedMissing += cityGaps.gaps().stream().mapToLong(Gap::expectedMissing).sum();
+            rowsFilled += cityGaps.rowsFilled();
+        }
+
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        LOG.info((repair ? "Repaired" : "Analyzed") + " the gaps of " + cities.size() + " cities in " + year + ": "
+                + gapsFound + " gaps in " + citiesWithGaps + " cities, " + rowsFilled + " rows filled in " + durationMillis + " ms");
+        return new GapReport(year, repair, cities.size(), citiesWithGaps, gapsFound, expectedMissing, rowsFilled, durationMillis, reported);
+    }
+
+    private CityGaps gapsOfCity(City city, int year, LocalDateTime end, boolean repair) {
+
+        List<LocalDateTime> stamps = new ArrayList<>(daoW.findWeatherDateFromCityByYear(year, city.getId()));
+        Collections.sort(stamps);
+
+        Duration interval = GAP_ANALYZER.interval(stamps);
+        List<GapAnalyzer.Interval> found = GAP_ANALYZER.findGaps(stamps, interval, end);
+        long intervalMinutes = interval != null ? interval.toMinutes() : 0;
+        int[] filled = new int[found.size()];
+
+        List<Weather> rows = new ArrayList<>();
+        if (repair && !found.isEmpty()) {
+            Set<LocalDateTime> existing = new HashSet<>(stamps);
+            int gap = 0;
+            for (Weather w : reader.readWeatherByCityAndYear(city.getName(), year).values()) {
+                while (gap < found.size() && !w.getDTstamp().isBefore(found.get(gap).before())) {
+                    gap++;
+                }
+                if (gap == found.size()) {
+                    break;
+                }
+                if (found.get(gap).contains(w.getDTstamp()) && !existing.contains(w.getDTstamp())) {
+                    w.setCityId(city.getId());
+                    rows.add(w);
+                    filled[gap]++;
+                }
+            }
+
+            OBSERVATIONS.add(rows);
+            daoW.saveWeatherBatch(rows);
+            committed(rows);
+        }
+
+        List<Gap> gaps = new ArrayList<>();
+        for (int i = 0; i < found.size(); i++) {
+            GapAnalyzer.Interval g = found.get(i);
+            gaps.add(new Gap(g.after().toString(), g.before().toString(), g.expectedMissing(), filled[i]));
+        }
+        return new CityGaps(city.getName(), intervalMinutes, gaps, rows.size(), null);
+    }
+
+    /**
+     * Loads the index of the stored observations, which is consulted before the database when new weather data is saved.
+     * <p>
+     * This method reads the index from the file {@code -Dwda.dedupe.indexFile} ({@code ~/.wda/observations.idx} by default)
+     * and rebuilds the cities whose number of weather data differs from the database, e.g. because the file is missing.
+     * Until this method was called, all weather data is compared with the database as before.
+     * It should be called at startup before weather data is written.
+     *
+     * @return the number of cities rebuilt from the database
+     */
+    @Override
+    public int loadObservationIndex() {
+        return OBSERVATIONS.load(OBSERVATIONS_FILE, daoW);
+    }
+
+    /**
+     * Saves the index of the stored observations to its file, so the next start does not have to rebuild it.
+     */
+    @Override
+    public void saveObservationIndex() {
+        OBSERVATIONS.save(OBSERVATIONS_FILE);
+    }
+
+    /**
+     * Starts polling the current weather of all cities in the background.
+     * <p>
+     * This method creates a CurrentWeatherPoller with the settings from the system properties and starts it.
+     * The poller learns the update interval of every city from the timestamps of the readings and polls a city
+     * shortly after its next reading is expected, new readings are saved in batches.
+     * If the work queue is started, the cities are leased from the queue and shared fairly with the other polling nodes,
+     * so every city is polled by one node only.
+     * There is at most one poller per application, if it is already running, this method does nothing.
+     *
+     * @return true if the poller was started, false if it was already running
+     */
+    @Override
+    public boolean startPolling() {
+
+        WorkQueue queue = WORK_QUEUE.get();
+        CityLeases leases = queue != null ? new CityLeases(queue, daoC) : null;
+        CurrentWeatherPoller poller = new CurrentWeatherPoller(reader, daoC, daoW, PollerSettings.fromSystemProperties(),
+                OBSERVATIONS, CITY_LOCKS, BusinessImpl::committed, leases != null ? leases : CityOwnership.ALL);
+        if (!POLLER.compareAndSet(null, poller)) {
+            return false;
+        }
+        if (leases != null) {
+            CITY_LEASES.set(leases);
+            leases.start();
+        }
+        poller.start();
+        return true;
+    }
+
+    /**
+     * Stops polling the current weather.
+     * <p>
+     * This method stops the running poller and saves the readings it has collected but not yet written.
+     *
+     * @return true if the poller was stopped, false if it was not running
+     */
+    @Override
+    public boolean stopPolling() {
+
+        CurrentWeatherPoller poller = POLLER.getAndSet(null);
+        if (poller == null) {
+            return false;
+        }
+        poller.close();
+        CityLeases leases = CITY_LEASES.getAndSet(null);
+        if (leases != null) {
+            leases.close();
+        }
+        return true;
+    }
+
+    /**
+     * Joins the work queue shared by all nodes that use the same database.
+     * <p>
+     * This method creates a WorkQueue with the settings from the system properties and starts it, which registers this node
+     * and renews its leases with a heartbeat. Load and backfill jobs started afterwards lease their slices from the queue,
+     * and a poller started afterwards leases its share of the cities, so no city is loaded or polled twice across the nodes.
+     * There is at most one queue per application, if it is already running, this method does nothing.
+     *
+     * @return true if the queue was started, false if it was already running
+     */
+    @Override
+    public boolean startWorkQueue() {
+
+        WorkQueue queue = new WorkQueue(daoQ, QueueSettings.fromSystemProperties());
+        if (!WORK_QUEUE.compareAndSet(null, queue)) {
+            return false;
+        }
+        queue.start();
+        return true;
+    }
+
+    /**
+     * Leaves the work queue.
+     * <p>
+     * This method releases the items leased by this node, so the other nodes take them over immediately, and deregisters the node.
+     * It should be called after the poller and the jobs were stopped.
+     *
+     * @return true if the queue was stopped, false if it was not running
+     */
+    @Override
+    public boolean stopWorkQueue() {
+
+        WorkQueue queue = WORK_QUEUE.getAndSet(null);
+        if (queue == null) {
+            return false;
+        }
+        queue.close();
+        return true;
+    }
+
+    /**
+     * Subscribes to the weather data saved from now on.
+     * <p>
+     * This method registers the consumer at the in-process change feed, which every write path of this class publishes to
+     * after the weather data was committed: the current weather, the weather of a year, the load and backfill jobs,
+     * the bulk refresh, the gap repair and the poller. The consumer is called on its own thread with batches of at most
+     * {@code -Dwda.feed.maxBatch} rows (512 by default), so it can react to new weather data without querying the database.
+     *
+     * @param name         the name of the subscriber, used for its thread and its metrics
+     * @param consumer     receives the saved weather data in batches
+     * @param backpressure BLOCK to slow down writes while the consumer is behind, DROP to skip weather data instead
+     * @return the subscription, closing it stops the delivery
+     */
+    @Override
+    public ChangeFeed.Subscription subscribeToObservations(String name, Consumer<List<Weather>> consumer, ChangeFeed.Backpressure backpressure) {
+        return FEED.subscribe(name, consumer, backpressure, FEED_MAX_BATCH);
+    }
+
+    /**
+     * Starts informing the other nodes that use the same database about the data written by this node, and vice versa.
+     * <p>
+     * This method creates a ClusterChannel with the settings from the system properties and starts it.
+     * The channel sends the weather data published to the change feed, coalesced into one time range per city and interval,
+     * and added cities as PostgreSQL notifications. Events of other nodes are applied by applyClusterEvent,
+     * so the caches of this node stay consistent with the database without short expiry times.
+     * There is at most one channel per application, if it is already running, this method does nothing.
+     * Since events of other nodes arrive only after their coalescing interval, the observation index is marked as shared
+     * from now on and no longer skips the comparison with the database, otherwise rows another node has just written
+     * would be considered new and saved twice. It stays shared after the channel is stopped, as the other nodes keep writing.
+     *
+     * @return true if the channel was started, false if it was already running
+     */
+    @Override
+    public boolean startClusterSync() {
+
+        ClusterChannel channel = new ClusterChannel(daoN, FEED,
+                ClusterSettings.fromSystemProperties(), this::applyClusterEvent);
+        if (!CLUSTER.compareAndSet(null, channel)) {
+            return false;
+        }
+        OBSERVATIONS.setShared(true);
+        channel.start();
+        return true;
+    }
+
+    /**
+     * Stops the cluster channel after sending the events collected so far.
+     *
+     * @return true if the channel was stopped, false if it was not running
+     */
+    @Override
+    public boolean stopClusterSync() {
+
+        ClusterChannel channel = CLUSTER.getAndSet(null);
+        if (channel == null) {
+            return false;
+        }
+        channel.close();
+        return true;
+    }
+
+    /**
+     * Applies an event of another node to the caches of this node.
+     * <p>
+     * For written weather data, the cached statistics overlapping the time range are invalidated, the rows of the range
+     * are appended to the past-days windows of the city, the latest known timestamp of the city is advanced
+     * and the stored timestamps of the range are added to the observation index,
+     * otherwise the index would report the rows of the other node as new. For added cities, the poller checks for new cities.
+     * For a reset, e.g. after the other node deleted the data or after notifications were lost, the statistics,
+     * the past-days windows and the latest timestamps are discarded and the observation index is compared with the database again.
+     */
+    private void applyClusterEvent(ClusterEvent event) {
+
+        switch (event.kind()) {
+            case WEATHER -> {
+                STATS_CACHE.invalidate(event.cityId(), event.from(), event.to());
+                if (PAST_WINDOWS.contains(event.cityId())) {
+                    PAST_WINDOWS.append(event.cityId(), daoW.findWeatherSeriesFromCityByTimeSpan(event.cityId(), event.from(), event.to()),
+                            LocalDateTime.now());
+                } else {
+                    PAST_WINDOWS.invalidate(event.cityId());
+                }
+                LATEST_STAMPS.merge(event.cityId(), event.to(), (a, b) -> a.isAfter(b) ? a : b);
+                if (OBSERVATIONS.isReady()) {
+                    OBSERVATIONS.add(event.cityId(), daoW.findWeatherDatesFromCityBetween(event.cityId(), event.from(), event.to()));
+                }
+            }
+            case CITIES -> {
+                CurrentWeatherPoller poller = POLLER.get();
+                if (poller != null) {
+                    poller.refreshCitiesNow();
+                }
+            }
+            case RESET -> {
+                STATS_CACHE.clear();
+                PAST_WINDOWS.clear();
+                LATEST_STAMPS.clear();
+                if (OBSERVATIONS.isReady()) {
+                    OBSERVATIONS.load(OBSERVATIONS_FILE, daoW);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called after weather data was committed: invalidates the cached statistics, appends the rows to the past-days windows
+     * and publishes the rows to the change feed.
+     */
+    private static void committed(Collection<Weather> rows) {
+        STATS_CACHE.invalidate(rows);
+        PAST_WINDOWS.append(rows, LocalDateTime.now());
+        FEED.publish(rows);
+    }
+
+    private List<Slice> planBackfill(List<String> cityNames, int fromYear, int toYear, CheckpointListener checkpoints) {
+
+        List<City> cities = new ArrayList<>();
+        if (cityNames == null || cityNames.isEmpty()) {
+            if (daoC.getNumberOfCities() == 0) {
+                addAllCities();
+            }
+            cities.addAll(getAllCities());
         } else {
-            return true;
+            for (String cityName : cityNames) {
+                City city = daoC.findCityByName(cityName);
+                if (city != null) {
+                    cities.add(city);
+                } else {
+                    LOG.info("Backfill: unknown city " + cityName);
+                }
+            }
+        }
+        cities.sort(Comparator.comparing(City::getName));
+
+        Map<String, BackfillCheckpoint> existing = new HashMap<>();
+        for (BackfillCheckpoint checkpoint : daoCP.findCheckpointsByYearRange(fromYear, toYear)) {
+            existing.put(checkpoint.getCityId() + ":" + checkpoint.getYear(), checkpoint);
+        }
+
+        // Most recent year first, within a year in the order of the city names
+        List<BackfillCheckpoint> created = new ArrayList<>();
+        List<Slice> slices = new ArrayList<>();
+        for (int year = toYear; year >= fromYear; year--) {
+            for (City city : cities) {
+                BackfillCheckpoint checkpoint = existing.get(city.getId() + ":" + year);
+                if (checkpoint == null) {
+                    checkpoint = new BackfillCheckpoint(city.getId(), year);
+                    created.add(checkpoint);
+                }
+                if (checkpoint.getState() != BackfillCheckpoint.State.DONE) {
+                    Slice slice = new Slice(city, year);
+                    checkpoints.track(slice, checkpoint);
+                    slices.add(slice);
+                }
+            }
         }
+        daoCP.saveCheckpoints(created);
+
+        LOG.info("Backfill " + fromYear + " - " + toYear + ": " + slices.size() + " of "
+                + cities.size() * (toYear - fromYear + 1) + " slices to load");
+        return slices;
+    }
+
+    private List<Slice> planResume(CheckpointListener checkpoints) {
+
+        Map<Integer, City> citiesById = new HashMap<>();
+        for (City city : getAllCities()) {
+            citiesById.put(city.getId(), city);
+        }
+
+        List<Slice> slices = new ArrayList<>();
+        for (BackfillCheckpoint checkpoint : daoCP.findUnfinishedCheckpoints()) {
+            City city = citiesById.get(checkpoint.getCityId());
+            if (city != null) {
+                Slice slice = new Slice(city, checkpoint.getYear());
+                checkpoints.track(slice, checkpoint);
+                slices.add(slice);
+            }
+        }
+
+        LOG.info("Backfill resumed: " + slices.size() + " slices to load");
+        return slices;
     }
 
     /**
@@ -606,9 +1829,17 @@ public class BusinessImpl implements BusinessAPI {
      */
     @Override
     public boolean destroy() {
-        List<GenericDAO<?>> daoList = Arrays.asList(daoI, daoW, daoC);
+        List<GenericDAO<?>> daoList = Arrays.asList(daoI, daoCP, daoQ, daoW, daoC);
 
         daoList.forEach(GenericDAO::deleteTable);
+        LATEST_STAMPS.clear();
+        STATS_CACHE.clear();
+        PAST_WINDOWS.clear();
+        OBSERVATIONS.clear();
+        ClusterChannel cluster = CLUSTER.get();
+        if (cluster != null) {
+            cluster.reset();
+        }
 
         return !daoI.ifTableExist() && !daoW.ifTableExist() && !daoC.ifTableExist();
     }
@@ -0,0 +1,301 @@
+/**
+ * Diese Klasse informiert alle Instanzen der Applikation, die dieselbe Datenbank verwenden, über neu gespeicherte
+ * Städte und Wetterdaten, damit deren zwischengespeicherte Daten aktuell bleiben.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.cluster;
+
+import ch.hslu.informatik.swde.wda.business.feed.ChangeFeed;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.persister.DAO.NotificationDAO;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cluster notification channel on top of PostgreSQL LISTEN/NOTIFY.
+ * <p>
+ * Local writes are received from the {@link ChangeFeed} and not sent one by one: the written weather data is coalesced per city into one time range,
+ * and all events collected during the interval are sent together as few notifications as possible.
+ * A burst of writes of one city therefore costs one event per interval, independent of the number of rows.
+ * PostgreSQL delivers a notification only after its transaction commits and to all listening connections,
+ * so when a node receives an event, the written data is visible to it.
+ * <p>
+ * Every payload starts with the ID of the sending node, so a node ignores its own events.
+ * If the listening connection breaks, events sent in the meantime are lost and a {@link ClusterEvent#reset()} is delivered locally,
+ * so the receiver discards what may have become stale.
+ * <p>
+ * Metrics: the counters {@code cluster.events.sent}, {@code cluster.notifications.sent}, {@code cluster.events.received}
+ * and {@code cluster.send.failed}.
+ */
+public class ClusterChannel implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClusterChannel.class);
+
+    /**
+     * PostgreSQL accepts payloads below 8000 bytes.
+     */
+    static final int MAX_PAYLOAD_BYTES = 7_900;
+
+    private static final String SEPARATOR = "|";
+
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * A decoded payload.
+     *
+     * @param nodeId the ID of the sending node
+     * @param events the events
+     */
+    record Message(String nodeId, List<ClusterEvent> events) {
+    }
+
+    private final NotificationDAO dao;
+    private final ChangeFeed feed;
+    private final ClusterSettings settings;
+    private final Consumer<ClusterEvent> onRemoteEvent;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<Integer, LocalDateTime[]> pendingWeather = new HashMap<>();
+    private boolean pendingCities;
+    private boolean pendingReset;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "wda-cluster");
+        t.setDaemon(true);
+        return t;
+    });
+    private AutoCloseable listener;
+    private ChangeFeed.Subscription subscription;
+
+    /**
+     * Creates a channel, it is started with {@link #start()}.
+     *
+     * @param dao           the DAO to send and receive the notifications with
+     * @param feed          the feed of the weather data written by this node
+     * @param settings      the channel name and the coalescing interval
+     * @param onRemoteEvent called on the listener thread with every event of another node
+     */
+    public ClusterChannel(NotificationDAO dao, ChangeFeed feed, ClusterSettings settings, Consumer<ClusterEvent> onRemoteEvent) {
+        this.dao = dao;
+        this.feed = feed;
+        this.settings = settings;
+        this.onRemoteEvent = onRemoteEvent;
+    }
+
+    /**
+     * Starts listening and sending.
+     */
+    public void start() {
+        listener = dao.listen(settings.channel(), this::receive, () -> onRemoteEvent.accept(ClusterEvent.reset()));
+        subscription = feed.subscribe("cluster", this::weatherWritten, ChangeFeed.Backpressure.BLOCK, 4096);
+        long interval = settings.interval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        LOG.info("Cluster channel " + settings.channel() + " started as node " + nodeId);
+    }
+
+    /**
+     * Stops listening and sends the events collected so far.
+     * <p>
+     * The weather data already published to the feed is collected first, otherwise rows written just before closing
+     * would never be announced. Then the periodic flush is stopped and the last flush is sent before the listener is closed.
+     */
+    @Override
+    public void close() {
+        if (subscription != null) {
+            try {
+                if (!subscription.drainAndClose(CLOSE_TIMEOUT)) {
+                    LOG.info("Cluster channel " + settings.channel() + " closed before all written weather data was collected");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                subscription.close();
+            }
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        try {
+            if (listener != null) {
+                listener.close();
+            }
+        } catch (Exception e) {
+            LOG.error("Error while closing the cluster listener: ", e);
+        }
+        LOG.info("Cluster channel " + settings.channel() + " stopped");
+    }
+
+    /*----------------------------------------------SENDING---------------------------------------------*/
+
+    /**
+     * Collects written weather data, it is sent with the next flush as one time range per city.
+     *
+     * @param written the weather data written, with the ID of its city set
+     */
+    public synchronized void weatherWritten(Collection<Weather> written) {
+        for (Weather w : written) {
+            LocalDateTime[] range = pendingWeather.computeIfAbsent(w.getCityId(), id -> new LocalDateTime[]{w.getDTstamp(), w.getDTstamp()});
+            if (w.getDTstamp().isBefore(range[0])) {
+                range[0] = w.getDTstamp();
+            }
+            if (w.getDTstamp().isAfter(range[1])) {
+                range[1] = w.getDTstamp();
+            }
+        }
+    }
+
+    /**
+     * Collects that cities were added, it is sent with the next flush.
+     */
+    public synchronized void citiesWritten() {
+        pendingCities = true;
+    }
+
+    /**
+     * Collects that all data was deleted, it is sent with the next flush and replaces the weather events collected so far.
+     */
+    public synchronized void reset() {
+        pendingReset = true;
+        pendingWeather.clear();
+    }
+
+    /**
+     * Sends the collected events. If sending fails, they are collected again and sent with the next flush.
+     */
+    private void flush() {
+
+        List<ClusterEvent> events = drain();
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<String> payloads = encode(nodeId, events);
+            dao.notify(settings.channel(), payloads);
+            Metrics.counter("cluster.events.sent").add(events.size());
+            Metrics.counter("cluster.notifications.sent").add(payloads.size());
+        } catch (Exception e) {
+            Metrics.counter("cluster.send.failed").increment();
+            LOG.error("Error while sending " + events.size() + " cluster events, retrying with the next flush: ", e);
+            requeue(events);
+        }
+    }
+
+    private synchronized List<ClusterEvent> drain() {
+
+        List<ClusterEvent> events = new ArrayList<>();
+        if (pendingReset) {
+            events.add(ClusterEvent.reset());
+        }
+        if (pendingCities) {
+            events.add(ClusterEvent.cities());
+        }
+        pendingWeather.forEach((cityId, range) -> events.add(ClusterEvent.weather(cityId, range[0], range[1])));
+
+        pendingReset = false;
+        pendingCities = false;
+        pendingWeather.clear();
+        return events;
+    }
+
+    private synchronized void requeue(List<ClusterEvent> events) {
+        for (ClusterEvent e : events) {
+            switch (e.kind()) {
+                case RESET -> pendingReset = true;
+                case CITIES -> pendingCities = true;
+                case WEATHER -> pendingWeather.merge(e.cityId(), new LocalDateTime[]{e.from(), e.to()}, (a, b) -> new LocalDateTime[]{
+                        a[0].isBefore(b[0]) ? a[0] : b[0], a[1].isAfter(b[1]) ? a[1] : b[1]});
+            }
+        }
+    }
+
+    /*----------------------------------------------RECEIVING---------------------------------------------*/
+
+    private void receive(String payload) {
+
+        Message message = decode(payload);
+        if (message == null || message.nodeId().equals(nodeId)) {
+            return;
+        }
+
+        Metrics.counter("cluster.events.received").add(message.events().size());
+        for (ClusterEvent event : message.events()) {
+            onRemoteEvent.accept(event);
+        }
+    }
+
+    /*----------------------------------------------ENCODING---------------------------------------------*/
+
+    /**
+     * Encodes events as payloads of at most {@link #MAX_PAYLOAD_BYTES} bytes, e.g. {@code <node>|R|C|W,12,1704067200,1704069000}.
+     * Timestamps are sent as epoch seconds of the local date and time.
+     */
+    static List<String> encode(String nodeId, List<ClusterEvent> events) {
+
+        List<String> payloads = new ArrayList<>();
+        StringBuilder sb = new StringBuilder(nodeId);
+
+        for (ClusterEvent e : events) {
+            String token = switch (e.kind()) {
+                case RESET -> "R";
+                case CITIES -> "C";
+                case WEATHER -> "W," + e.cityId() + "," + e.from().toEpochSecond(ZoneOffset.UTC) + "," + e.to().toEpochSecond(ZoneOffset.UTC);
+            };
+            if (sb.length() > nodeId.length() && sb.length() + 1 + token.length() > MAX_PAYLOAD_BYTES) {
+                payloads.add(sb.toString());
+                sb = new StringBuilder(nodeId);
+            }
+            sb.append(SEPARATOR).append(token);
+        }
+        payloads.add(sb.toString());
+        return payloads;
+    }
+
+    /**
+     * Decodes a payload written by {@link #encode}.
+     *
+     * @return the message, or null if the payload is not valid
+     */
+    static Message decode(String payload) {
+
+        if (payload == null) {
+            return null;
+        }
+
+        String[] tokens = payload.split("\\" + SEPARATOR);
+        List<ClusterEvent> events = new ArrayList<>();
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                String[] parts = tokens[i].split(",");
+                switch (parts[0]) {
+                    case "R" -> events.add(ClusterEvent.reset());
+                    case "C" -> events.add(ClusterEvent.cities());
+                    case "W" -> events.add(ClusterEvent.weather(Integer.parseInt(parts[1]),
+                            LocalDateTime.ofEpochSecond(Long.parseLong(parts[2]), 0, ZoneOffset.UTC),
+                            LocalDateTime.ofEpochSecond(Long.parseLong(parts[3]), 0, ZoneOffset.UTC)));
+                    default -> LOG.info("Unknown cluster event ignored: " + tokens[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.info("Invalid cluster notification ignored: " + payload);
+            return null;
+        }
+        return new Message(tokens[0], events);
+    }
+}
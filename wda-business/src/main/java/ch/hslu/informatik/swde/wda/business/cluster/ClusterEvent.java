@@ -0,0 +1,61 @@
+/**
+ * Diese Klasse beschreibt ein Ereignis, das eine Instanz der Applikation an alle anderen Instanzen sendet,
+ * damit diese ihre zwischengespeicherten Daten aktualisieren.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.cluster;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event sent between the nodes of the cluster.
+ *
+ * @param kind   what was written
+ * @param cityId the ID of the city whose weather data was written, 0 for the other kinds
+ * @param from   the earliest timestamp written, null for the other kinds
+ * @param to     the latest timestamp written, null for the other kinds
+ */
+public record ClusterEvent(Kind kind, int cityId, LocalDateTime from, LocalDateTime to) {
+
+    /**
+     * The kinds of events.
+     */
+    public enum Kind {
+        /**
+         * Weather data of a city was written.
+         */
+        WEATHER,
+        /**
+         * Cities were added.
+         */
+        CITIES,
+        /**
+         * The data was deleted, or events may have been lost, all cached data has to be discarded.
+         */
+        RESET
+    }
+
+    /**
+     * @return an event for weather data of a city written in a time range
+     */
+    public static ClusterEvent weather(int cityId, LocalDateTime from, LocalDateTime to) {
+        return new ClusterEvent(Kind.WEATHER, cityId, from, to);
+    }
+
+    /**
+     * @return an event for added cities
+     */
+    public static ClusterEvent cities() {
+        return new ClusterEvent(Kind.CITIES, 0, null, null);
+    }
+
+    /**
+     * @return an event to discard all cached data
+     */
+    public static ClusterEvent reset() {
+        return new ClusterEvent(Kind.RESET, 0, null, null);
+    }
+}
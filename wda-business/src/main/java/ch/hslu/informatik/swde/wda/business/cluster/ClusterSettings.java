@@ -0,0 +1,37 @@
+/**
+ * Diese Klasse enthält die Einstellungen des Kanals, über den sich mehrere Instanzen der Applikation
+ * gegenseitig über gespeicherte Daten informieren.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.cluster;
+
+import java.time.Duration;
+
+/**
+ * Settings of the cluster channel.
+ *
+ * @param enabled  true to start the channel together with the server
+ * @param channel  the name of the PostgreSQL notification channel, the same on all nodes
+ * @param interval the time events are collected and coalesced before they are sent
+ */
+public record ClusterSettings(boolean enabled, String channel, Duration interval) {
+
+    private static final String PREFIX = "wda.cluster.";
+
+    /**
+     * Reads the settings from the system properties with the prefix {@code wda.cluster.},
+     * e.g. {@code -Dwda.cluster.enabled=true} or {@code -Dwda.cluster.intervalMs=500}.
+     * Missing properties fall back to the defaults, the channel is disabled by default.
+     *
+     * @return the settings
+     */
+    public static ClusterSettings fromSystemProperties() {
+        return new ClusterSettings(
+                Boolean.parseBoolean(System.getProperty(PREFIX + "enabled", "false")),
+                System.getProperty(PREFIX + "channel", "wda_changes"),
+                Duration.ofMillis(Long.parseLong(System.getProperty(PREFIX + "intervalMs", "1000"))));
+    }
+}
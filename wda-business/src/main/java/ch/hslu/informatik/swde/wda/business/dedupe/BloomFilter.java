@@ -0,0 +1,129 @@
+/**
+ * Diese Klasse ist ein Bloom-Filter über 64-Bit-Schlüssel. Er kann mit wenig Speicher sicher sagen,
+ * dass ein Schlüssel nicht enthalten ist.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.dedupe;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Fixed-size Bloom filter over long keys using double hashing.
+ * <p>
+ * {@link #mightContain(long)} returning false means the key was never added, true means it probably was.
+ * Sized for a capacity and a false positive rate, the rate grows once more keys than the capacity are added.
+ * Not thread-safe, the {@link ObservationIndex} synchronizes the access.
+ */
+class BloomFilter {
+
+    private final long[] words;
+    private final int bits;
+    private final int hashes;
+    private final int capacity;
+    private int count;
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param capacity          the number of keys the filter is sized for
+     * @param falsePositiveRate the false positive rate at the capacity, e.g. 0.01
+     */
+    BloomFilter(int capacity, double falsePositiveRate) {
+        this.capacity = Math.max(1, capacity);
+        long m = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new long[(int) Math.max(1, (m + 63) / 64)];
+        this.bits = words.length * 64;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / this.capacity * Math.log(2)));
+    }
+
+    private BloomFilter(long[] words, int hashes, int capacity, int count) {
+        this.words = words;
+        this.bits = words.length * 64;
+        this.hashes = hashes;
+        this.capacity = capacity;
+        this.count = count;
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key the key
+     */
+    void put(long key) {
+        long h = mix(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            words[bit >>> 6] |= 1L << bit;
+        }
+        count++;
+    }
+
+    /**
+     * @param key the key
+     * @return false if the key was definitely never added, true if it probably was
+     */
+    boolean mightContain(long key) {
+        long h = mix(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if as many keys as the capacity were added
+     */
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long sizeInBytes() {
+        return words.length * 8L;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(capacity);
+        out.writeInt(count);
+        out.writeInt(hashes);
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    static BloomFilter readFrom(DataInput in) throws IOException {
+        int capacity = in.readInt();
+        int count = in.readInt();
+        int hashes = in.readInt();
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return new BloomFilter(words, hashes, capacity, count);
+    }
+
+    /**
+     * SplitMix64 finalizer, spreads keys that differ only in a few bits over the whole 64 bits.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,360 @@
+/**
+ * Diese Klasse merkt sich pro Stadt in einem Bloom-Filter, welche Wetterdaten bereits gespeichert sind,
+ * damit beim Speichern neuer Wetterdaten die Datenbank nur noch für möglicherweise doppelte Zeilen abgefragt wird.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.dedupe;
+
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.persister.DAO.WeatherDAO;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Probabilistic index of the stored observations, one scalable Bloom filter per city over (cityId, DTstamp).
+ * <p>
+ * {@link #split} divides incoming rows into rows that are definitely not stored yet and candidates that probably are.
+ * Only the candidates have to be compared with the database, if there are none, the comparison query is skipped.
+ * A Bloom filter cannot prove that a row is stored, so a batch of candidates still needs one query;
+ * with a false positive rate of at most 2% per city almost all new rows are recognized without the database.
+ * <p>
+ * The index has to see every write, otherwise it would report stored rows as new.
+ * Rows are therefore added with {@link #add} before they are written: if the write fails,
+ * the rows only become false positives, which costs a query but never a duplicate.
+ * <p>
+ * Every city has a chain of filters, when the last one is full a new one with twice the capacity is added.
+ * A key is a false positive if any filter of the chain reports it, so the rates of the filters add up:
+ * the first filter is sized for 1%, every further one for half the rate of the previous one,
+ * so the rate of the whole chain stays below 1% * (1 + 1/2 + 1/4 + ...) = 2% however large a city grows.
+ * The index is saved to a file with {@link #save} and loaded at startup with {@link #load},
+ * cities whose number of rows differs from the database are rebuilt from the stored timestamps.
+ * As long as the index is not loaded, {@link #isReady()} is false and all rows are candidates.
+ * <p>
+ * Metrics: the counters {@code dedupe.rows.new} and {@code dedupe.rows.candidates},
+ * {@code dedupe.queries.skipped} and the gauge {@code dedupe.bloom.bytes}, registered by {@link #load}.
+ */
+public class ObservationIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ObservationIndex.class);
+
+    private static final int MAGIC = 0x57444142;
+    private static final int FORMAT = 1;
+    private static final int MIN_CAPACITY = 16_384;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    /**
+     * Filters of one city, newest last, with the number of rows added.
+     */
+    private static final class Chain {
+        private final List<BloomFilter> filters = new ArrayList<>();
+        private long rows;
+    }
+
+    /**
+     * The result of {@link #split}.
+     *
+     * @param newRows    rows that are definitely not stored yet
+     * @param candidates rows that are probably stored and have to be compared with the database
+     */
+    public record Split(List<Weather> newRows, List<Weather> candidates) {
+    }
+
+    private volatile Map<Integer, Chain> chains = new ConcurrentHashMap<>();
+    private volatile Map<Integer, Chain> loading;
+    private volatile boolean ready;
+    private volatile boolean shared;
+
+    /**
+     * Creates an empty index that is not ready yet.
+     */
+    public ObservationIndex() {
+    }
+
+    /**
+     * @return true if the index was loaded and sees all writes
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Tells the index whether other nodes write to the same database.
+     * Rows of another node reach the index only with its cluster notification, a coalescing interval after they were committed,
+     * so until then the index would report them as new and they would be saved again. A shared index therefore does not
+     * skip the comparison with the database, all rows are candidates.
+     *
+     * @param shared true if other nodes write to the same database
+     */
+    public void setShared(boolean shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * Divides rows of one city into definitely new rows and candidates.
+     * If the index is not ready or shared with other nodes, all rows are candidates.
+     *
+     * @param cityId the ID of the city
+     * @param rows   the incoming rows
+     * @return the new rows and the candidates
+     */
+    public Split split(int cityId, Collection<Weather> rows) {
+
+        if (!ready || shared) {
+            return new Split(List.of(), new ArrayList<>(rows));
+        }
+
+        List<Weather> newRows = new ArrayList<>();
+        List<Weather> candidates = new ArrayList<>();
+        Chain chain = chains.get(cityId);
+
+        if (chain == null) {
+            newRows.addAll(rows);
+        } else {
+            synchronized (chain) {
+                for (Weather w : rows) {
+                    (mightContain(chain, key(cityId, w.getDTstamp())) ? candidates : newRows).add(w);
+                }
+            }
+        }
+
+        Metrics.counter("dedupe.rows.new").add(newRows.size());
+        Metrics.counter("dedupe.rows.candidates").add(candidates.size());
+        if (candidates.isEmpty()) {
+            Metrics.counter("dedupe.queries.skipped").increment();
+        }
+        return new Split(newRows, candidates);
+    }
+
+    /**
+     * Adds rows that are about to be written. The city ID of the rows has to be set.
+     *
+     * @param rows the rows
+     */
+    public void add(Collection<Weather> rows) {
+        for (Weather w : rows) {
+            add(w.getCityId(), w.getDTstamp());
+        }
+    }
+
+    /**
+     * Adds the timestamps of rows of one city that were written by another node.
+     *
+     * @param cityId the ID of the city
+     * @param stamps the timestamps of the rows
+     */
+    public void add(int cityId, Collection<LocalDateTime> stamps) {
+        for (LocalDateTime stamp : stamps) {
+            add(cityId, stamp);
+        }
+    }
+
+    private void add(int cityId, LocalDateTime stamp) {
+
+        // Read the map being loaded first: if it is already swapped in, both are the same map
+        Map<Integer, Chain> next = loading;
+        Map<Integer, Chain> current = chains;
+        add(current, cityId, stamp);
+        if (next != null && next != current) {
+            add(next, cityId, stamp);
+        }
+    }
+
+    private static void add(Map<Integer, Chain> chains, int cityId, LocalDateTime stamp) {
+
+        Chain chain = chains.computeIfAbsent(cityId, id -> new Chain());
+        synchronized (chain) {
+            if (chain.filters.isEmpty() || chain.filters.get(chain.filters.size() - 1).isFull()) {
+                int capacity = chain.filters.isEmpty() ? MIN_CAPACITY : chain.filters.get(chain.filters.size() - 1).capacity() * 2;
+                double rate = FALSE_POSITIVE_RATE * Math.pow(TIGHTENING_RATIO, chain.filters.size());
+                chain.filters.add(new BloomFilter(capacity, rate));
+            }
+            chain.filters.get(chain.filters.size() - 1).put(key(cityId, stamp));
+            chain.rows++;
+        }
+    }
+
+    /**
+     * Loads the index from a file and rebuilds the cities that do not match the database.
+     * <p>
+     * This method counts the rows of all cities with one query. A city from the file is kept if its number of rows
+     * is equal to the count in the database, all other cities are rebuilt from their stored timestamps.
+     * A missing or unreadable file means all cities are rebuilt. Afterwards the index is ready.
+     * <p>
+     * The index is built into a new map that replaces the current one at the end, so it can be loaded again while rows are written,
+     * e.g. after a cluster reset. During the reload the index is not ready, so every row is compared with the database,
+     * and rows added in the meantime are added to both maps. If the reload fails, the index stays not ready.
+     * The gauge {@code dedupe.bloom.bytes} is registered here and not in the constructor, so it reports the index
+     * of the application and not the last one created, e.g. by a pipeline test, and short-lived indexes are not kept reachable.
+     *
+     * @param file the file written by {@link #save}
+     * @param daoW the DAO to read the stored rows with
+     * @return the number of cities rebuilt from the database
+     */
+    public synchronized int load(Path file, WeatherDAO daoW) {
+
+        Map<Integer, Chain> fresh = new ConcurrentHashMap<>();
+        ready = false;
+        loading = fresh;
+
+        Map<Integer, Long> counts;
+        int rebuilt = 0;
+        try {
+            Map<Integer, Chain> loaded = read(file);
+            counts = daoW.countWeatherPerCity();
+
+            for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+                int cityId = entry.getKey();
+                Chain chain = loaded.get(cityId);
+                if (chain != null && chain.rows == entry.getValue()) {
+                    keep(fresh, cityId, chain);
+                } else {
+                    for (LocalDateTime stamp : daoW.findWeatherDatesFromCity(cityId)) {
+                        add(fresh, cityId, stamp);
+                    }
+                    rebuilt++;
+                }
+            }
+            chains = fresh;
+        } finally {
+            loading = null;
+        }
+
+        ready = true;
+        Metrics.gauge("dedupe.bloom.bytes", this::sizeInBytes);
+        LOG.info("Observation index ready: " + counts.size() + " cities, " + rebuilt + " rebuilt from the database, "
+                + sizeInBytes() / 1024 + " KiB");
+        return rebuilt;
+    }
+
+    /**
+     * Writes the index to a file, first to a temporary file that then replaces the file.
+     *
+     * @param file the file
+     */
+    public void save(Path file) {
+
+        if (!ready) {
+            return;
+        }
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(chains.size());
+                for (Map.Entry<Integer, Chain> entry : chains.entrySet()) {
+                    Chain chain = entry.getValue();
+                    synchronized (chain) {
+                        out.writeInt(entry.getKey());
+                        out.writeLong(chain.rows);
+                        out.writeInt(chain.filters.size());
+                        for (BloomFilter filter : chain.filters) {
+                            filter.writeTo(out);
+                        }
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.error("Error while saving the observation index to " + file + ": ", e);
+        }
+    }
+
+    /**
+     * Removes all entries, e.g. after the database was deleted. The index stays ready, since it is consistent with the empty database.
+     */
+    public void clear() {
+        chains.clear();
+    }
+
+    /**
+     * Puts a chain read from the file into the map being loaded. If rows of the city were added during the reload,
+     * their chain stays the one rows are added to and gets the filters of the file in front.
+     */
+    private static void keep(Map<Integer, Chain> fresh, int cityId, Chain chain) {
+        Chain concurrent = fresh.putIfAbsent(cityId, chain);
+        if (concurrent != null) {
+            synchronized (concurrent) {
+                concurrent.filters.addAll(0, chain.filters);
+                concurrent.rows += chain.rows;
+            }
+        }
+    }
+
+    private static Map<Integer, Chain> read(Path file) {
+
+        Map<Integer, Chain> loaded = new ConcurrentHashMap<>();
+        if (!Files.exists(file)) {
+            return loaded;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                LOG.info("Observation index " + file + " has an unknown format, rebuilding");
+                return loaded;
+            }
+            int cities = in.readInt();
+            for (int i = 0; i < cities; i++) {
+                int cityId = in.readInt();
+                Chain chain = new Chain();
+                chain.rows = in.readLong();
+                int filters = in.readInt();
+                for (int f = 0; f < filters; f++) {
+                    chain.filters.add(BloomFilter.readFrom(in));
+                }
+                loaded.put(cityId, chain);
+            }
+        } catch (IOException e) {
+            LOG.info("Observation index " + file + " could not be read, rebuilding: " + e.getMessage());
+            loaded.clear();
+        }
+        return loaded;
+    }
+
+    private static boolean mightContain(Chain chain, long key) {
+        for (BloomFilter filter : chain.filters) {
+            if (filter.mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long key(int cityId, LocalDateTime stamp) {
+        return stamp.toEpochSecond(ZoneOffset.UTC) * 1_000_003L + cityId;
+    }
+
+    private long sizeInBytes() {
+        long bytes = 0;
+        for (Chain chain : chains.values()) {
+            synchronized (chain) {
+                for (BloomFilter filter : chain.filters) {
+                    bytes += filter.sizeInBytes();
+                }
+            }
+        }
+        return bytes;
+    }
+}
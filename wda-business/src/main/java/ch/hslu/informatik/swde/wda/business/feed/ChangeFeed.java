@@ -0,0 +1,277 @@
+/**
+ * Diese Klasse verteilt neu gespeicherte Wetterdaten innerhalb der Applikation an interessierte Empfänger,
+ * zum Beispiel Caches oder Live-Clients, ohne dass diese die Datenbank abfragen müssen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.feed;
+
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe feed of committed observations.
+ * <p>
+ * Published observations go into a ring buffer. A producer claims a sequence number with one atomic increment,
+ * marks the slot as unpublished, writes it and marks it as published with the sequence number, so producers never take a lock.
+ * A subscriber accepts a slot only if it carries the expected sequence number before and after reading it.
+ * Every subscriber has its own thread and its own position in the ring. It reads all published slots after its position
+ * and delivers them to its consumer as one list of at most {@code maxBatch} observations, so a consumer is called
+ * once per burst of writes and not once per row.
+ * <p>
+ * Backpressure is chosen per subscriber:
+ * <ul>
+ *     <li>{@link Backpressure#BLOCK}: producers wait until the subscriber has consumed the slot they want to reuse,
+ *     for consumers that must not miss anything. A slow blocking consumer slows down the ingest.</li>
+ *     <li>{@link Backpressure#DROP}: producers overwrite the slot, the subscriber skips to the oldest observation still in the ring
+ *     and counts the skipped ones, for consumers like live clients that only need recent data.</li>
+ * </ul>
+ * A new subscriber only receives observations published after it subscribed.
+ * <p>
+ * Metrics: the counters {@code feed.published} and {@code feed.producer.waits}, and per subscriber the counters
+ * {@code feed.<name>.delivered} and {@code feed.<name>.dropped} and the gauge {@code feed.<name>.lag}.
+ */
+public class ChangeFeed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeFeed.class);
+
+    private static final long IDLE_PARK_NANOS = 50_000_000L;
+
+    /**
+     * What happens when a subscriber falls behind by the capacity of the ring.
+     */
+    public enum Backpressure {
+        BLOCK,
+        DROP
+    }
+
+    private final int mask;
+    private final AtomicReferenceArray<Weather> slots;
+    private final AtomicLongArray published;
+    private final AtomicLong cursor = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a feed with the capacity from {@code -Dwda.feed.capacity}, 65536 by default.
+     */
+    public ChangeFeed() {
+        this(Integer.getInteger("wda.feed.capacity", 65_536));
+    }
+
+    /**
+     * Creates a feed.
+     *
+     * @param capacity the number of observations in the ring, rounded up to a power of two
+     */
+    public ChangeFeed(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Publishes committed observations to all subscribers.
+     *
+     * @param observations the observations, after they were committed
+     */
+    public void publish(Collection<Weather> observations) {
+
+        if (observations.isEmpty() || subscriptions.isEmpty()) {
+            return;
+        }
+
+        for (Weather w : observations) {
+            long seq = cursor.getAndIncrement();
+            awaitBlockingSubscribers(seq);
+            int index = (int) (seq & mask);
+            // Unpublish the slot first, otherwise a dropping subscriber still at the old sequence number could read
+            // the new observation between the two writes and deliver it under the old sequence number
+            published.set(index, -1);
+            slots.set(index, w);
+            published.set(index, seq);
+        }
+        Metrics.counter("feed.published").add(observations.size());
+
+        for (Subscription s : subscriptions) {
+            LockSupport.unpark(s.thread);
+        }
+    }
+
+    /**
+     * Subscribes a consumer. The consumer is called on a thread of the subscription, never concurrently with itself.
+     *
+     * @param name         the name of the subscriber, used for the thread and the metrics
+     * @param consumer     receives the observations in batches in the order they were published
+     * @param backpressure what happens if the consumer falls behind
+     * @param maxBatch     the maximum number of observations per call
+     * @return the subscription, closing it stops the delivery
+     */
+    public Subscription subscribe(String name, Consumer<List<Weather>> consumer, Backpressure backpressure, int maxBatch) {
+        Subscription s = new Subscription(name, consumer, backpressure, Math.max(1, maxBatch), cursor.get());
+        subscriptions.add(s);
+        s.thread.start();
+        return s;
+    }
+
+    /**
+     * Waits until no blocking subscriber still needs the slot the sequence number will overwrite.
+     */
+    private void awaitBlockingSubscribers(long seq) {
+        for (Subscription s : subscriptions) {
+            if (s.backpressure == Backpressure.BLOCK && !s.closed) {
+                boolean waited = false;
+                while (seq - s.next.get() > mask && !s.closed) {
+                    if (!waited) {
+                        Metrics.counter("feed.producer.waits").increment();
+                        waited = true;
+                    }
+                    LockSupport.unpark(s.thread);
+                    LockSupport.parkNanos(100_000L);
+                }
+            }
+        }
+    }
+
+    /**
+     * A subscription of one consumer to the feed.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final String name;
+        private final Consumer<List<Weather>> consumer;
+        private final Backpressure backpressure;
+        private final int maxBatch;
+        private final AtomicLong next;
+        private final LongAdder delivered;
+        private final LongAdder dropped;
+        private final Thread thread;
+        private volatile boolean closed;
+        private volatile boolean draining;
+
+        private Subscription(String name, Consumer<List<Weather>> consumer, Backpressure backpressure, int maxBatch, long start) {
+            this.name = name;
+            this.consumer = consumer;
+            this.backpressure = backpressure;
+            this.maxBatch = maxBatch;
+            this.next = new AtomicLong(start);
+            this.delivered = Metrics.counter("feed." + name + ".delivered");
+            this.dropped = Metrics.counter("feed." + name + ".dropped");
+            this.thread = Thread.ofPlatform().name("wda-feed-" + name).daemon(true).unstarted(this::run);
+            Metrics.gauge("feed." + name + ".lag", this::lag);
+        }
+
+        /**
+         * @return the number of published observations not delivered yet
+         */
+        public long lag() {
+            return Math.max(0, cursor.get() - next.get());
+        }
+
+        /**
+         * @return the number of observations skipped because the subscriber fell behind
+         */
+        public long dropped() {
+            return dropped.sum();
+        }
+
+        /**
+         * Stops the delivery, the observations not delivered yet are discarded.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+            LockSupport.unpark(thread);
+        }
+
+        /**
+         * Delivers the observations published so far and stops the delivery.
+         * If the consumer does not catch up within the timeout, the observations not delivered yet are discarded.
+         *
+         * @param timeout the maximum time to wait for the consumer
+         * @return true if all observations were delivered
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public boolean drainAndClose(Duration timeout) throws InterruptedException {
+            draining = true;
+            LockSupport.unpark(thread);
+            boolean drained = thread.join(timeout);
+            close();
+            return drained;
+        }
+
+        private void run() {
+            while (!closed) {
+                List<Weather> batch = poll();
+                if (batch.isEmpty()) {
+                    if (draining) {
+                        return;
+                    }
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+                try {
+                    consumer.accept(batch);
+                } catch (RuntimeException e) {
+                    LOG.error("Subscriber " + name + " of the change feed failed: ", e);
+                }
+                delivered.add(batch.size());
+            }
+        }
+
+        /**
+         * Reads the published observations after the position of the subscriber.
+         */
+        private List<Weather> poll() {
+
+            List<Weather> batch = new ArrayList<>();
+            long seq = next.get();
+
+            while (batch.size() < maxBatch) {
+                int index = (int) (seq & mask);
+                long stamp = published.get(index);
+
+                if (stamp < seq) {
+                    // Not published yet
+                    break;
+                }
+                if (stamp == seq) {
+                    Weather w = slots.get(index);
+                    if (published.get(index) == seq) {
+                        batch.add(w);
+                        seq++;
+                        continue;
+                    }
+                }
+
+                // Overwritten, only possible for dropping subscribers: continue with the oldest observation in the ring
+                long oldest = Math.max(seq + 1, cursor.get() - mask);
+                dropped.add(oldest - seq);
+                seq = oldest;
+            }
+
+            next.set(seq);
+            return batch;
+        }
+    }
+}
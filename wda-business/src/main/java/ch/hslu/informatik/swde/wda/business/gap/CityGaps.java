@@ -0,0 +1,26 @@
+/**
+ * Diese Klasse enthält die Lücken in den Wetterdaten einer Stadt in einem Jahr.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.gap;
+
+import java.util.List;
+
+/**
+ * Gaps of one city in one year.
+ *
+ * @param city            the name of the city
+ * @param intervalMinutes the interval between two readings of the city, learned from the stored readings
+ * @param gaps            the gaps, oldest first
+ * @param rowsFilled      the number of missing readings saved
+ * @param error           the error message if the city could not be analyzed or repaired, otherwise null
+ */
+public record CityGaps(String city,
+                       long intervalMinutes,
+                       List<Gap> gaps,
+                       int rowsFilled,
+                       String error) {
+}
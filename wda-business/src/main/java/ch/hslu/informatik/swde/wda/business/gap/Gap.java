@@ -0,0 +1,22 @@
+/**
+ * Diese Klasse beschreibt eine Lücke in den Wetterdaten einer Stadt.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.gap;
+
+/**
+ * A hole in the series of a city: the readings between two stored readings are missing.
+ *
+ * @param after           the timestamp of the stored reading before the gap as ISO date time
+ * @param before          the timestamp of the stored reading after the gap, or the time of the analysis if the series ends with the gap
+ * @param expectedMissing the number of readings expected in the gap according to the interval of the city
+ * @param filled          the number of missing readings that were loaded and saved, 0 if the gap was only analyzed
+ */
+public record Gap(String after,
+                  String before,
+                  int expectedMissing,
+                  int filled) {
+}
@@ -0,0 +1,104 @@
+/**
+ * Diese Klasse findet Lücken in den Zeitpunkten der gespeicherten Wetterdaten einer Stadt.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.gap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds missing intervals in the sorted timestamps of one city.
+ * <p>
+ * The interval of the city is the median of the distances between consecutive readings, so single holes
+ * do not distort it. A distance of more than {@code tolerance} times the interval is a gap.
+ * If the series ends more than that before {@code now}, the end of the series is a gap as well,
+ * which covers a poller that was stopped. Missing readings before the first stored one are not reported,
+ * since the provider may not have older readings of the city.
+ */
+public final class GapAnalyzer {
+
+    /**
+     * A gap found in the timestamps.
+     *
+     * @param after           the last stored timestamp before the gap
+     * @param before          the first stored timestamp after the gap, or now
+     * @param expectedMissing the number of readings expected in the gap
+     */
+    public record Interval(LocalDateTime after, LocalDateTime before, int expectedMissing) {
+
+        /**
+         * @param stamp a timestamp
+         * @return true if the timestamp lies strictly inside the gap
+         */
+        public boolean contains(LocalDateTime stamp) {
+            return stamp.isAfter(after) && stamp.isBefore(before);
+        }
+    }
+
+    private final double tolerance;
+
+    /**
+     * @param tolerance the factor of the interval above which a distance is a gap, e.g. 1.5
+     */
+    public GapAnalyzer(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Returns the interval between two readings as the median distance.
+     *
+     * @param stamps the sorted timestamps
+     * @return the interval, or null if there are less than two timestamps
+     */
+    public Duration interval(List<LocalDateTime> stamps) {
+
+        if (stamps.size() < 2) {
+            return null;
+        }
+
+        long[] seconds = new long[stamps.size() - 1];
+        for (int i = 1; i < stamps.size(); i++) {
+            seconds[i - 1] = Duration.between(stamps.get(i - 1), stamps.get(i)).getSeconds();
+        }
+        Arrays.sort(seconds);
+        return Duration.ofSeconds(Math.max(1, seconds[seconds.length / 2]));
+    }
+
+    /**
+     * Finds the gaps in the timestamps.
+     *
+     * @param stamps   the sorted timestamps
+     * @param interval the interval between two readings
+     * @param end      the end of the analyzed range, e.g. now or the end of the year
+     * @return the gaps, oldest first
+     */
+    public List<Interval> findGaps(List<LocalDateTime> stamps, Duration interval, LocalDateTime end) {
+
+        List<Interval> gaps = new ArrayList<>();
+        if (stamps.isEmpty() || interval == null) {
+            return gaps;
+        }
+
+        long limit = (long) (interval.getSeconds() * tolerance);
+        for (int i = 1; i < stamps.size(); i++) {
+            addIfGap(gaps, stamps.get(i - 1), stamps.get(i), interval, limit);
+        }
+        addIfGap(gaps, stamps.get(stamps.size() - 1), end, interval, limit);
+        return gaps;
+    }
+
+    private static void addIfGap(List<Interval> gaps, LocalDateTime after, LocalDateTime before, Duration interval, long limit) {
+        long distance = Duration.between(after, before).getSeconds();
+        if (distance > limit) {
+            int missing = (int) Math.max(1, Math.round((double) distance / interval.getSeconds()) - 1);
+            gaps.add(new Interval(after, before, missing));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * Diese Klasse fasst die Analyse und Reparatur der Lücken in den Wetterdaten mehrerer Städte zusammen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.gap;
+
+import java.util.List;
+
+/**
+ * Report of a gap analysis or repair.
+ *
+ * @param year            the analyzed year
+ * @param repaired        true if the missing readings were loaded, false for an analysis only
+ * @param citiesScanned   the number of cities analyzed
+ * @param citiesWithGaps  the number of cities with at least one gap
+ * @param gapsFound       the number of gaps found
+ * @param expectedMissing the number of readings expected in all gaps
+ * @param rowsFilled      the number of missing readings saved
+ * @param durationMillis  the duration of the analysis or repair
+ * @param cities          the cities with gaps or errors, in the order of their names
+ */
+public record GapReport(int year,
+                        boolean repaired,
+                        int citiesScanned,
+                        int citiesWithGaps,
+                        int gapsFound,
+                        long expectedMissing,
+                        long rowsFilled,
+                        long durationMillis,
+                        List<CityGaps> cities) {
+}
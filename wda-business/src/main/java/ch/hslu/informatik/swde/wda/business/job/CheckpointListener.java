@@ -0,0 +1,106 @@
+/**
+ * Diese Klasse speichert den Fortschritt eines Backfill-Jobs als Checkpoints in der Datenbank,
+ * damit ein abgebrochener Job fortgesetzt werden kann.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.job;
+
+import ch.hslu.informatik.swde.wda.domain.BackfillCheckpoint;
+import ch.hslu.informatik.swde.wda.persister.DAO.CheckpointDAO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Slice listener that marks the checkpoint of a slice as DONE once its rows are committed,
+ * or as FAILED with the error if it could not be loaded.
+ * <p>
+ * The checkpoint is updated after the rows of the slice are committed, in a separate transaction.
+ * If the application stops in between, the slice is loaded again when the backfill is resumed,
+ * which only costs time, since the pipeline does not save rows that are already in the database.
+ * <p>
+ * Slices that were not tracked, e.g. because another node planned them and this node leased them from the work queue,
+ * are looked up in the database with the first event.
+ */
+public class CheckpointListener implements SliceListener {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final CheckpointDAO daoCP;
+    private final Map<Slice, BackfillCheckpoint> checkpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a listener without tracked slices.
+     *
+     * @param daoCP the DAO to update the checkpoints with
+     */
+    public CheckpointListener(CheckpointDAO daoCP) {
+        this.daoCP = daoCP;
+    }
+
+    /**
+     * Registers the checkpoint of a slice, events of slices without a checkpoint in the database are ignored.
+     *
+     * @param slice      the slice
+     * @param checkpoint the persisted checkpoint of the slice
+     */
+    public void track(Slice slice, BackfillCheckpoint checkpoint) {
+        checkpoints.put(slice, checkpoint);
+    }
+
+    @Override
+    public void onCommitted(Map<Slice, Integer> rowsBySlice) {
+
+        List<BackfillCheckpoint> done = new ArrayList<>();
+        for (Map.Entry<Slice, Integer> entry : rowsBySlice.entrySet()) {
+            BackfillCheckpoint checkpoint = checkpoint(entry.getKey());
+            if (checkpoint != null) {
+                checkpoint.setState(BackfillCheckpoint.State.DONE);
+                checkpoint.setRowsWritten(entry.getValue());
+                checkpoint.setAttempts(checkpoint.getAttempts() + 1);
+                checkpoint.setLastError(null);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                done.add(checkpoint);
+            }
+        }
+        daoCP.updateCheckpoints(done);
+    }
+
+    @Override
+    public void onFailed(Slice slice, Exception e) {
+
+        BackfillCheckpoint checkpoint = checkpoint(slice);
+        if (checkpoint == null) {
+            return;
+        }
+
+        String message = e.getMessage() != null ? e.getMessage() : e.toString();
+        checkpoint.setState(BackfillCheckpoint.State.FAILED);
+        checkpoint.setAttempts(checkpoint.getAttempts() + 1);
+        checkpoint.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        daoCP.updateCheckpoints(List.of(checkpoint));
+    }
+
+    private BackfillCheckpoint checkpoint(Slice slice) {
+
+        BackfillCheckpoint checkpoint = checkpoints.get(slice);
+        if (checkpoint != null) {
+            return checkpoint;
+        }
+
+        for (BackfillCheckpoint c : daoCP.findCheckpointsByYearRange(slice.year(), slice.year())) {
+            if (c.getCityId() == slice.city().getId()) {
+                track(slice, c);
+                return c;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Diese Klasse repräsentiert den Zustand eines Jobs, der im Hintergrund läuft,
+ * zum Beispiel der Initialisierung der Applikation.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.job;
+
+/**
+ * Immutable snapshot of the progress of a background job.
+ *
+ * @param id             the ID of the job
+ * @param name           the kind of job, e.g. {@code init} or {@code backfill}
+ * @param state          the state of the job
+ * @param stage          a short description of what the job is currently doing
+ * @param slicesTotal    the number of slices (one city in one year) the job processes, 0 as long as it is not known yet
+ * @param slicesDone     the number of slices whose weather data is completely saved
+ * @param slicesFailed   the number of slices that could not be processed
+ * @param rowsDownloaded the number of weather rows downloaded and decoded
+ * @param rowsWritten    the number of new weather rows saved to the database
+ * @param rowsPerSecond  the average number of rows saved per second since the start
+ * @param etaSeconds     the estimated number of seconds until the job is finished, -1 if not known yet
+ * @param startedAt      the start time of the job as ISO date time
+ * @param finishedAt     the end time of the job as ISO date time, or null while it is running
+ * @param error          the error message if the job failed, otherwise null
+ */
+public record JobStatus(String id,
+                        String name,
+                        State state,
+                        String stage,
+                        int slicesTotal,
+                        int slicesDone,
+                        int slicesFailed,
+                        long rowsDownloaded,
+                        long rowsWritten,
+                        double rowsPerSecond,
+                        long etaSeconds,
+                        String startedAt,
+                        String finishedAt,
+                        String error) {
+
+    /**
+     * The states of a job.
+     */
+    public enum State {
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    /**
+     * @return true if the job is not running anymore
+     */
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+}
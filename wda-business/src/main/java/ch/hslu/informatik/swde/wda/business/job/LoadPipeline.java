@@ -0,0 +1,499 @@
+/**
+ * Diese Klasse lädt die Wetterdaten vieler Städte und Jahre herunter und speichert sie
+ * in einer Pipeline aus mehreren Stufen, die gleichzeitig arbeiten.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.job;
+
+import ch.hslu.informatik.swde.wda.business.dedupe.ObservationIndex;
+import ch.hslu.informatik.swde.wda.business.lock.CityLocks;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.persister.DAO.WeatherDAO;
+import ch.hslu.informatik.swde.wda.reader.ApiReader;
+import ch.hslu.informatik.swde.wda.reader.metrics.LatencyTimer;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import ch.hslu.informatik.swde.wda.reader.transport.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Staged pipeline that loads the weather data of many slices (one city in one year) into the database.
+ * <p>
+ * Every slice passes four stages, connected by bounded queues:
+ * <ol>
+ *     <li>download: fetches the raw response of the provider, on virtual threads</li>
+ *     <li>decode: turns the response into Weather objects, on a few platform threads</li>
+ *     <li>dedupe: keeps only the new rows, the timestamps in the database are only loaded
+ *     if the {@link ObservationIndex} reports that some rows are probably stored already</li>
+ *     <li>write: collects the new rows of several slices and saves them in one transaction per batch</li>
+ * </ol>
+ * The database has no unique constraint on the city and the timestamp, so the write stage holds the {@link CityLocks}
+ * of the cities in the batch, like every other write of weather data, and compares the rows with the database again
+ * under the locks. Rows another writer saved since the dedupe stage are dropped there.
+ * Every stage has its own concurrency, so while one slice is written the next ones are already
+ * downloaded and decoded. The bounded queues keep a fast stage from running far ahead of a slow one,
+ * which bounds the memory to a few slices per queue. The slices enter the pipeline in the order the {@link SliceSource} delivers them.
+ * <p>
+ * A slice that fails in one of the first three stages is logged, counted and reported to the {@link SliceListener},
+ * the other slices continue. A failed write aborts the whole pipeline, since the database is most likely not usable.
+ * Because only rows that are not in the database yet are written, running a slice again is harmless.
+ * The progress is available at any time with {@link #status()}.
+ */
+public class LoadPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadPipeline.class);
+
+    private static final LatencyTimer WRITE = Metrics.timer("pipeline.write");
+    private static final String[] QUEUES = {"downloaded", "decoded", "deduped"};
+
+    /**
+     * The queues of the running pipeline of every name, empty while none is running. The queue gauges of a name are
+     * registered once and read the queues from here, so a finished run is not kept reachable by its gauges.
+     */
+    private static final Map<String, AtomicReference<List<BlockingQueue<?>>>> RUNNING = new ConcurrentHashMap<>();
+
+    /**
+     * The work of one slice as it is passed from stage to stage.
+     * An item without a slice marks the end of the stream.
+     */
+    private record Item(Slice slice, ResponseBody body, TreeMap<LocalDateTime, Weather> weather, List<Weather> newRows) {
+
+        private static final Item END = new Item(null, null, null, null);
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String name;
+    private final ApiReader reader;
+    private final WeatherDAO daoW;
+    private final PipelineSettings settings;
+    private final ObservationIndex index;
+    private final CityLocks locks;
+    private final SliceListener listener;
+
+    private final AtomicInteger slicesDone = new AtomicInteger();
+    private final AtomicInteger slicesFailed = new AtomicInteger();
+    private final AtomicLong rowsDownloaded = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private volatile JobStatus.State state = JobStatus.State.RUNNING;
+    private volatile String stage = "pending";
+    private volatile String error;
+    private volatile int slicesTotal;
+    private volatile LocalDateTime startedAt = LocalDateTime.now();
+    private volatile LocalDateTime finishedAt;
+    private volatile long startNanos = System.nanoTime();
+    private volatile long finishNanos;
+
+    /**
+     * Creates a pipeline, it is started with {@link #execute(Callable, Runnable)}.
+     *
+     * @param name     the kind of job, e.g. {@code init}, used in the status and the log
+     * @param reader   the reader to download the weather data with
+     * @param daoW     the DAO to read the existing and to save the new weather data with
+     * @param settings the concurrency, queue and batch settings
+     * @param index    the index of the stored observations, consulted before the database and updated before every write
+     * @param locks    the locks of the cities, held while a batch is compared with the database and written
+     * @param listener is informed about committed and failed slices
+     */
+    public LoadPipeline(String name, ApiReader reader, WeatherDAO daoW, PipelineSettings settings, ObservationIndex index,
+                        CityLocks locks, SliceListener listener) {
+        this.name = name;
+        this.reader = reader;
+        this.daoW = daoW;
+        this.settings = settings;
+        this.index = index;
+        this.locks = locks;
+        this.listener = listener;
+    }
+
+    /**
+     * Runs the job in the calling thread with the slices of a plan.
+     *
+     * @param plan      returns the slices to load
+     * @param onSuccess is called after the weather data of all slices was saved
+     * @return the final status of the job
+     * @see #execute(SliceSource, Runnable)
+     */
+    public JobStatus execute(Callable<List<Slice>> plan, Runnable onSuccess) {
+        return execute(SliceSource.of(plan), onSuccess);
+    }
+
+    /**
+     * Runs the job in the calling thread.
+     * <p>
+     * This method first opens the source, which plans the slices to load.
+     * It then runs the slices through the pipeline as the source delivers them, until the source has no more slices.
+     * If all slices were loaded, the success step is called, e.g. to mark the application as initialized.
+     * If the source, the pipeline or the success step fails, or if a slice could not be loaded,
+     * the job ends in the state FAILED and the error message is part of the status.
+     * The source is closed in any case.
+     *
+     * @param source    delivers the slices to load
+     * @param onSuccess is called after the weather data of all slices was saved
+     * @return the final status of the job
+     */
+    public JobStatus execute(SliceSource source, Runnable onSuccess) {
+
+        startedAt = LocalDateTime.now();
+        startNanos = System.nanoTime();
+
+        try {
+            stage = "planning";
+            slicesTotal = source.open();
+
+            stage = "loading";
+            run(source);
+
+            if (slicesFailed.get() > 0) {
+                throw new IllegalStateException(slicesFailed.get() + " of " + slicesTotal + " slices could not be loaded");
+            }
+
+            stage = "finishing";
+            onSuccess.run();
+
+            finish(JobStatus.State.SUCCEEDED, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(JobStatus.State.FAILED, "Interrupted");
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            LOG.error(label() + " failed: ", cause);
+            finish(JobStatus.State.FAILED, cause.getMessage() != null ? cause.getMessage() : cause.toString());
+        } finally {
+            source.close();
+        }
+
+        return status();
+    }
+
+    private void finish(JobStatus.State finalState, String message) {
+        finishedAt = LocalDateTime.now();
+        finishNanos = System.nanoTime();
+        error = message;
+        stage = "done";
+        state = finalState;
+        finished.countDown();
+
+        JobStatus status = status();
+        LOG.info(label() + " " + finalState + ": " + status.slicesDone() + "/" + status.slicesTotal() + " slices, "
+                + status.rowsWritten() + " rows, " + Math.round(status.rowsPerSecond()) + " rows/s");
+    }
+
+    private String label() {
+        return "Job " + name + " " + id;
+    }
+
+    /**
+     * @return the ID of the job
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Waits until the job is finished.
+     *
+     * @return the final status of the job
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public JobStatus await() throws InterruptedException {
+        finished.await();
+        return status();
+    }
+
+    /**
+     * Returns a snapshot of the progress.
+     * <p>
+     * The throughput is the number of rows written divided by the time since the start.
+     * The remaining time is extrapolated from the average time per slice processed so far.
+     *
+     * @return the current status of the job
+     */
+    public JobStatus status() {
+
+        long endNanos = state != JobStatus.State.RUNNING ? finishNanos : System.nanoTime();
+        double seconds = Math.max(1e-3, (endNanos - startNanos) / 1e9);
+
+        int done = slicesDone.get();
+        int failed = slicesFailed.get();
+        int processed = done + failed;
+        long eta = -1;
+        if (state != JobStatus.State.RUNNING) {
+            eta = 0;
+        } else if (processed > 0 && slicesTotal > 0) {
+            eta = Math.round(seconds / processed * Math.max(0, slicesTotal - processed));
+        }
+
+        return new JobStatus(id, name, state, stage, slicesTotal, done, failed,
+                rowsDownloaded.get(), rowsWritten.get(), rowsWritten.get() / seconds, eta,
+                startedAt.toString(), finishedAt != null ? finishedAt.toString() : null, error);
+    }
+
+    /*----------------------------------------------PIPELINE---------------------------------------------*/
+
+    private void run(SliceSource source) throws InterruptedException, ExecutionException {
+
+        int downloaders = settings.downloadConcurrency();
+        int decoders = settings.decodeThreads();
+        int dedupers = settings.dedupeThreads();
+
+        BlockingQueue<Item> pending = new ArrayBlockingQueue<>(downloaders);
+
+        BlockingQueue<Item> downloaded = new ArrayBlockingQueue<>(settings.queueCapacity());
+        BlockingQueue<Item> decoded = new ArrayBlockingQueue<>(settings.queueCapacity());
+        BlockingQueue<Item> deduped = new ArrayBlockingQueue<>(settings.queueCapacity());
+
+        AtomicReference<List<BlockingQueue<?>>> running = queueGauges(name);
+        List<BlockingQueue<?>> queues = List.of(downloaded, decoded, deduped);
+        running.set(queues);
+
+        ExecutorService downloadPool = Executors.newVirtualThreadPerTaskExecutor();
+        ExecutorService decodePool = Executors.newFixedThreadPool(decoders, threadFactory("wda-" + name + "-decode-"));
+        ExecutorService dedupePool = Executors.newFixedThreadPool(dedupers, threadFactory("wda-" + name + "-dedupe-"));
+        ExecutorService writePool = Executors.newSingleThreadExecutor(threadFactory("wda-" + name + "-write-"));
+        List<ExecutorService> pools = List.of(downloadPool, decodePool, dedupePool, writePool);
+
+        try {
+            List<Future<?>> stages = new ArrayList<>();
+            stages.add(downloadPool.submit(() -> {
+                feed(source, pending, downloaders);
+                return null;
+            }));
+            stages.addAll(stage(downloadPool, downloaders, pending, downloaded, decoders, "download", this::download));
+            stages.addAll(stage(decodePool, decoders, downloaded, decoded, dedupers, "decode", this::decode));
+            stages.addAll(stage(dedupePool, dedupers, decoded, deduped, 1, "dedupe", this::dedupe));
+            Future<?> writer = writePool.submit(() -> {
+                write(deduped);
+                return null;
+            });
+
+            // The writer ends last, a failed write is seen here first and stops the stages blocked on the full queues.
+            // The stages are read from the last to the first for the same reason: a worker that died of an Error
+            // still ended the stages after it, while the stages before it may be blocked on its full input queue
+            writer.get();
+            for (int i = stages.size() - 1; i >= 0; i--) {
+                stages.get(i).get();
+            }
+        } finally {
+            pools.forEach(ExecutorService::shutdownNow);
+            running.compareAndSet(queues, List.of());
+        }
+    }
+
+    /**
+     * Registers the queue gauges of a pipeline name on first use.
+     *
+     * @return the reference the gauges read the queues of the running pipeline from
+     */
+    private static AtomicReference<List<BlockingQueue<?>>> queueGauges(String name) {
+        return RUNNING.computeIfAbsent(name, n -> {
+            AtomicReference<List<BlockingQueue<?>>> running = new AtomicReference<>(List.of());
+            for (int i = 0; i < QUEUES.length; i++) {
+                int queue = i;
+                Metrics.gauge("pipeline." + n + ".queue." + QUEUES[i], () -> {
+                    List<BlockingQueue<?>> queues = running.get();
+                    return queues.isEmpty() ? 0 : queues.get(queue).size();
+                });
+            }
+            return running;
+        });
+    }
+
+    /**
+     * Passes the slices of the source to the download stage, at most as many at a time as there are downloaders,
+     * so a source that leases its slices does not take more than the pipeline is about to work on.
+     * The end markers are passed on even if the source fails, so the stages still end.
+     */
+    private void feed(SliceSource source, BlockingQueue<Item> pending, int downloaders) throws Exception {
+        try {
+            for (List<Slice> next = source.next(downloaders); !next.isEmpty(); next = source.next(downloaders)) {
+                for (Slice slice : next) {
+                    pending.put(new Item(slice, null, null, null));
+                }
+            }
+        } finally {
+            for (int i = 0; i < downloaders; i++) {
+                pending.put(Item.END);
+            }
+        }
+    }
+
+    /**
+     * Starts the workers of one stage.
+     * Every worker takes items until it receives an end marker. The last worker of a stage
+     * to finish passes one end marker per worker to the next stage, even if a worker died of an Error,
+     * which is then rethrown when the future of the worker is read.
+     */
+    private List<Future<?>> stage(ExecutorService pool, int workers, BlockingQueue<Item> in, BlockingQueue<Item> out,
+                                  int downstreamWorkers, String stageName, Function<Item, Item> work) {
+
+        AtomicInteger running = new AtomicInteger(workers);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < workers; i++) {
+            futures.add(pool.submit(() -> {
+                try {
+                    for (Item item = in.take(); item != Item.END; item = in.take()) {
+
+                        Item result;
+                        try {
+                            result = work.apply(item);
+                        } catch (RuntimeException e) {
+                            LOG.error(label() + ": " + stageName + " of " + item.slice() + " failed: ", e);
+                            slicesFailed.incrementAndGet();
+                            notifyFailed(item.slice(), e);
+                            continue;
+                        }
+                        out.put(result);
+                    }
+                } finally {
+                    // Also on an Error like an OutOfMemoryError, otherwise the next stage waits forever for its end markers
+                    if (running.decrementAndGet() == 0) {
+                        for (int j = 0; j < downstreamWorkers; j++) {
+                            out.put(Item.END);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        return futures;
+    }
+
+    private void notifyFailed(Slice slice, Exception e) {
+        try {
+            listener.onFailed(slice, e);
+        } catch (RuntimeException listenerError) {
+            // A worker must never die, otherwise the end marker of its stage is never passed on
+            LOG.error(label() + ": listener failed for " + slice + ": ", listenerError);
+        }
+    }
+
+    private Item download(Item item) {
+        Slice slice = item.slice();
+        ResponseBody body = reader.fetchWeatherByCityAndYear(slice.city().getName(), slice.year());
+        return new Item(slice, body, null, null);
+    }
+
+    private Item decode(Item item) {
+        TreeMap<LocalDateTime, Weather> weather = reader.decodeWeather(item.body());
+        rowsDownloaded.addAndGet(weather.size());
+        return new Item(item.slice(), null, weather, null);
+    }
+
+    private Item dedupe(Item item) {
+        return new Item(item.slice(), null, null, unsaved(item.slice(), item.weather().values()));
+    }
+
+    /**
+     * Returns the rows of a slice that are not in the database, sorted by their timestamp and with the ID of the city set.
+     * Only rows the index cannot rule out are compared with the database.
+     */
+    private List<Weather> unsaved(Slice slice, Collection<Weather> rows) {
+
+        int cityId = slice.city().getId();
+        ObservationIndex.Split split = index.split(cityId, rows);
+
+        List<Weather> newRows = new ArrayList<>(split.newRows());
+        if (!split.candidates().isEmpty()) {
+            Set<LocalDateTime> existing = new HashSet<>(daoW.findWeatherDateFromCityByYear(slice.year(), cityId));
+            for (Weather w : split.candidates()) {
+                if (!existing.contains(w.getDTstamp())) {
+                    newRows.add(w);
+                }
+            }
+        }
+
+        newRows.forEach(w -> w.setCityId(cityId));
+        newRows.sort(Comparator.comparing(Weather::getDTstamp));
+        return newRows;
+    }
+
+    /**
+     * Collects the new rows of several slices until the batch size is reached and saves them in one transaction.
+     * A slice counts as done as soon as the batch containing its rows is committed.
+     */
+    private void write(BlockingQueue<Item> in) throws InterruptedException {
+
+        Map<Slice, List<Weather>> batch = new LinkedHashMap<>();
+        int size = 0;
+
+        for (Item item = in.take(); item != Item.END; item = in.take()) {
+            batch.merge(item.slice(), item.newRows(), (a, b) -> {
+                List<Weather> merged = new ArrayList<>(a);
+                merged.addAll(b);
+                return merged;
+            });
+            size += item.newRows().size();
+
+            if (size >= settings.batchSize()) {
+                flush(batch);
+                batch = new LinkedHashMap<>();
+                size = 0;
+            }
+        }
+        flush(batch);
+    }
+
+    /**
+     * Saves the rows of a batch while holding the locks of its cities. The rows are compared with the database again
+     * under the locks, so rows another writer saved since the dedupe stage, e.g. a request adding the weather of the same city, are dropped.
+     */
+    private void flush(Map<Slice, List<Weather>> slices) {
+
+        long start = System.nanoTime();
+        Set<String> cityNames = new HashSet<>();
+        for (Slice slice : slices.keySet()) {
+            cityNames.add(slice.city().getName());
+        }
+
+        List<Weather> batch = new ArrayList<>();
+        Map<Slice, Integer> slicesInBatch = new LinkedHashMap<>();
+        locks.runAll(cityNames, () -> {
+            for (Map.Entry<Slice, List<Weather>> entry : slices.entrySet()) {
+                List<Weather> rows = entry.getValue().isEmpty() ? List.of() : unsaved(entry.getKey(), entry.getValue());
+                batch.addAll(rows);
+                slicesInBatch.put(entry.getKey(), rows.size());
+            }
+            index.add(batch);
+            daoW.saveWeatherBatch(batch);
+        });
+        WRITE.record(System.nanoTime() - start);
+
+        Metrics.counter("pipeline.rows.written").add(batch.size());
+        rowsWritten.addAndGet(batch.size());
+        int done = slicesDone.addAndGet(slicesInBatch.size());
+
+        if (!batch.isEmpty()) {
+            listener.onRowsCommitted(batch);
+        }
+        if (!slicesInBatch.isEmpty()) {
+            listener.onCommitted(slicesInBatch);
+
+            JobStatus status = status();
+            LOG.info(label() + ": " + done + "/" + slicesTotal + " slices, " + status.rowsWritten() + " rows, "
+                    + Math.round(status.rowsPerSecond()) + " rows/s, ETA " + status.etaSeconds() + " s");
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Diese Klasse enthält die Einstellungen der Pipeline, welche die Wetterdaten
+ * beim Initialisieren der Applikation herunterlädt und speichert.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.job;
+
+/**
+ * Settings of the init pipeline.
+ *
+ * @param downloadConcurrency the number of cities downloaded at the same time, the adaptive limiter of the reader bounds it further
+ * @param decodeThreads       the number of threads decoding the provider responses
+ * @param dedupeThreads       the number of threads comparing the downloaded weather data with the database
+ * @param queueCapacity       the capacity of the queues between the stages, in cities
+ * @param batchSize           the number of rows written to the database in one transaction
+ */
+public record PipelineSettings(int downloadConcurrency,
+                               int decodeThreads,
+                               int dedupeThreads,
+                               int queueCapacity,
+                               int batchSize) {
+
+    private static final String PREFIX = "wda.init.";
+
+    /**
+     * Reads the settings from the system properties with the prefix {@code wda.init.},
+     * e.g. {@code -Dwda.init.downloadConcurrency=16} or {@code -Dwda.init.batchSize=10000}.
+     * Missing properties fall back to the defaults.
+     *
+     * @return the settings
+     */
+    public static PipelineSettings fromSystemProperties() {
+        return new PipelineSettings(
+                Math.max(1, intValue("downloadConcurrency", 8)),
+                Math.max(1, intValue("decodeThreads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2))),
+                Math.max(1, intValue("dedupeThreads", 2)),
+                Math.max(1, intValue("queueCapacity", 4)),
+                Math.max(1, intValue("batchSize", 5_000)));
+    }
+
+    private static int intValue(String key, int defaultValue) {
+        return Integer.parseInt(System.getProperty(PREFIX + key, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Diese Klasse repräsentiert die Wetterdaten einer Stadt in einem bestimmten Jahr,
+ * die als Einheit heruntergeladen und gespeichert werden.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.job;
+
+import ch.hslu.informatik.swde.wda.domain.City;
+
+/**
+ * The weather data of one city in one year, the unit of work of the {@link LoadPipeline}.
+ *
+ * @param city the city, its ID must be set
+ * @param year the year
+ */
+public record Slice(City city, int year) {
+
+    @Override
+    public String toString() {
+        return city.getName() + " " + year;
+    }
+}
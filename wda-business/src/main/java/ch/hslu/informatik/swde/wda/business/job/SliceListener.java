@@ -0,0 +1,53 @@
+/**
+ * Diese Schnittstelle wird über den Fortschritt der einzelnen Slices einer Pipeline informiert,
+ * zum Beispiel um Checkpoints zu speichern.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.job;
+
+import ch.hslu.informatik.swde.wda.domain.Weather;
+
+import java.util.List;
+import java.util.Map;
+
+public interface SliceListener {
+
+    /**
+     * Listener that ignores all events.
+     */
+    SliceListener NONE = new SliceListener() {
+        @Override
+        public void onCommitted(Map<Slice, Integer> rowsBySlice) {
+        }
+
+        @Override
+        public void onFailed(Slice slice, Exception e) {
+        }
+    };
+
+    /**
+     * Wird aufgerufen, nachdem die neuen Wetterdaten der Slices in der Datenbank gespeichert wurden.
+     *
+     * @param rowsBySlice Die Slices mit der Anzahl neu gespeicherter Zeilen.
+     */
+    void onCommitted(Map<Slice, Integer> rowsBySlice);
+
+    /**
+     * Wird mit allen Zeilen eines Batches aufgerufen, nachdem sie in der Datenbank gespeichert wurden.
+     *
+     * @param rows Die gespeicherten Wetterdaten.
+     */
+    default void onRowsCommitted(List<Weather> rows) {
+    }
+
+    /**
+     * Wird aufgerufen, wenn ein Slice nicht heruntergeladen, dekodiert oder abgeglichen werden konnte.
+     *
+     * @param slice Der Slice.
+     * @param e     Der aufgetretene Fehler.
+     */
+    void onFailed(Slice slice, Exception e);
+}
@@ -0,0 +1,65 @@
+/**
+ * Diese Schnittstelle liefert einer Pipeline die Slices, die sie laden soll, entweder aus einer festen Liste
+ * oder nach und nach aus einer Warteschlange, die sich mehrere Instanzen der Applikation teilen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.job;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+public interface SliceSource {
+
+    /**
+     * Plant die zu ladenden Slices.
+     *
+     * @return Die erwartete Anzahl Slices, für die Fortschrittsanzeige.
+     * @throws Exception Falls die Planung fehlschlägt.
+     */
+    int open() throws Exception;
+
+    /**
+     * Liefert die nächsten Slices.
+     *
+     * @param max Die maximale Anzahl Slices.
+     * @return Die nächsten Slices; leer, wenn keine mehr zu laden sind.
+     * @throws Exception Falls die Slices nicht geliefert werden können.
+     */
+    List<Slice> next(int max) throws Exception;
+
+    /**
+     * Wird aufgerufen, nachdem die Pipeline beendet wurde, auch wenn sie fehlgeschlagen ist.
+     */
+    default void close() {
+    }
+
+    /**
+     * Erzeugt eine Quelle, die die Slices eines Plans in dessen Reihenfolge liefert.
+     *
+     * @param plan Liefert die zu ladenden Slices.
+     * @return Die Quelle.
+     */
+    static SliceSource of(Callable<List<Slice>> plan) {
+        return new SliceSource() {
+
+            private List<Slice> slices = List.of();
+            private int position;
+
+            @Override
+            public int open() throws Exception {
+                slices = plan.call();
+                return slices.size();
+            }
+
+            @Override
+            public List<Slice> next(int max) {
+                List<Slice> next = slices.subList(position, Math.min(slices.size(), position + max));
+                position += next.size();
+                return next;
+            }
+        };
+    }
+}
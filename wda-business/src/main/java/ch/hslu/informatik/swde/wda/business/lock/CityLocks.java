@@ -0,0 +1,173 @@
+/**
+ * Diese Klasse stellt sicher, dass Wetterdaten derselben Stadt nicht gleichzeitig von mehreren Anfragen
+ * gespeichert werden. Gleiche gleichzeitige Anfragen werden zu einer zusammengefasst, verschiedene Städte
+ * werden weiterhin parallel verarbeitet.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.lock;
+
+import ch.hslu.informatik.swde.wda.reader.metrics.LatencyTimer;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped per-city locks with coalescing of identical operations.
+ * <p>
+ * Every city name is mapped to one of a fixed number of locks, so all writes of a city are serialized
+ * while writes of cities on different stripes run in parallel. Two cities can share a stripe, which only costs some waiting.
+ * <p>
+ * An operation started with {@link #coalesce} while the same operation of the same city is already running is not run again,
+ * the caller waits for the running operation and gets its outcome.
+ * <p>
+ * Metrics: the timer {@code business.lock.wait} (time spent waiting for a stripe), the counters {@code business.lock.contended}
+ * (acquisitions that had to wait) and {@code business.lock.coalesced} (operations joined instead of run).
+ */
+public class CityLocks {
+
+    private static final LatencyTimer WAIT = Metrics.timer("business.lock.wait");
+
+    private final ReentrantLock[] stripes;
+    private final Map<String, CompletableFuture<Void>> running = new ConcurrentHashMap<>();
+    private final Runnable onCoalesced;
+
+    /**
+     * Creates the locks.
+     *
+     * @param stripes the number of stripes, rounded up to a power of two
+     */
+    public CityLocks(int stripes) {
+        this(stripes, () -> {
+        });
+    }
+
+    /**
+     * Creates the locks with a callback, so tests can wait until callers joined a running operation.
+     *
+     * @param stripes     the number of stripes, rounded up to a power of two
+     * @param onCoalesced called by every caller that joins a running operation, before it waits for the operation
+     */
+    CityLocks(int stripes, Runnable onCoalesced) {
+        this.onCoalesced = onCoalesced;
+        int n = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Runs an operation while holding the lock of the city.
+     *
+     * @param cityName  the name of the city
+     * @param operation the operation
+     */
+    public void run(String cityName, Runnable operation) {
+
+        ReentrantLock lock = stripes[index(cityName)];
+        lock(lock);
+        try {
+            operation.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs an operation while holding the locks of several cities, e.g. to write the weather data of all of them in one transaction.
+     * The stripes are locked in ascending order, so two calls for overlapping cities cannot deadlock.
+     *
+     * @param cityNames the names of the cities
+     * @param operation the operation
+     */
+    public void runAll(Collection<String> cityNames, Runnable operation) {
+
+        SortedSet<Integer> indexes = new TreeSet<>();
+        for (String cityName : cityNames) {
+            indexes.add(index(cityName));
+        }
+
+        Deque<ReentrantLock> held = new ArrayDeque<>();
+        try {
+            for (int i : indexes) {
+                lock(stripes[i]);
+                held.push(stripes[i]);
+            }
+            operation.run();
+        } finally {
+            while (!held.isEmpty()) {
+                held.pop().unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs an operation while holding the lock of the city, unless the same operation of the city is already running.
+     * In that case this method waits until the running operation is finished and rethrows its exception, if any.
+     *
+     * @param cityName  the name of the city
+     * @param key       identifies the operation, e.g. {@code current} or {@code year:2024}
+     * @param operation the operation
+     */
+    public void coalesce(String cityName, String key, Runnable operation) {
+
+        String id = normalize(cityName) + "|" + key;
+        CompletableFuture<Void> own = new CompletableFuture<>();
+        CompletableFuture<Void> other = running.putIfAbsent(id, own);
+
+        if (other != null) {
+            Metrics.counter("business.lock.coalesced").increment();
+            onCoalesced.run();
+            try {
+                other.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+            }
+            return;
+        }
+
+        try {
+            run(cityName, operation);
+            own.complete(null);
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(id, own);
+        }
+    }
+
+    private static void lock(ReentrantLock lock) {
+        if (!lock.tryLock()) {
+            Metrics.counter("business.lock.contended").increment();
+            long start = System.nanoTime();
+            lock.lock();
+            WAIT.record(System.nanoTime() - start);
+        }
+    }
+
+    private int index(String cityName) {
+        int h = normalize(cityName).hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    private static String normalize(String cityName) {
+        return cityName == null ? "" : cityName.trim().toLowerCase(Locale.ROOT);
+    }
+}
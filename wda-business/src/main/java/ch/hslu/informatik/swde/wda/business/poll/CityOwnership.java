@@ -0,0 +1,47 @@
+/**
+ * Diese Schnittstelle gibt vor, welche Städte eine Instanz der Applikation abfragt, wenn mehrere Instanzen
+ * dieselbe Datenbank verwenden.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.poll;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface CityOwnership {
+
+    /**
+     * Ownership of a single node, which polls all cities.
+     */
+    CityOwnership ALL = new CityOwnership() {
+        @Override
+        public boolean owns(int cityId) {
+            return true;
+        }
+
+        @Override
+        public Set<Integer> confirm(Collection<Integer> cityIds) {
+            return Set.copyOf(cityIds);
+        }
+    };
+
+    /**
+     * Prüft ohne Datenbankzugriff, ob diese Instanz eine Stadt abfragt. Das Ergebnis kann veraltet sein,
+     * wenn die Stadt seit der letzten Prüfung an eine andere Instanz übergeben wurde.
+     *
+     * @param cityId Die ID der Stadt.
+     * @return true, wenn diese Instanz die Stadt abfragt.
+     */
+    boolean owns(int cityId);
+
+    /**
+     * Prüft in der Datenbank, welche der Städte diese Instanz noch abfragt, zum Beispiel unmittelbar vor dem Speichern.
+     *
+     * @param cityIds Die IDs der Städte.
+     * @return Die IDs der Städte, die diese Instanz noch abfragt.
+     */
+    Set<Integer> confirm(Collection<Integer> cityIds);
+}
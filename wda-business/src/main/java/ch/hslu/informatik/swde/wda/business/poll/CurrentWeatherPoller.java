@@ -0,0 +1,356 @@
+/**
+ * Diese Klasse fragt das aktuelle Wetter aller Städte im Hintergrund ab, jeweils kurz nachdem
+ * der Wetterdienst eine neue Messung erwartungsgemäss veröffentlicht hat, und speichert die neuen Messungen gesammelt ab.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.poll;
+
+import ch.hslu.informatik.swde.wda.business.dedupe.ObservationIndex;
+import ch.hslu.informatik.swde.wda.business.lock.CityLocks;
+import ch.hslu.informatik.swde.wda.domain.City;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.persister.DAO.CityDAO;
+import ch.hslu.informatik.swde.wda.persister.DAO.WeatherDAO;
+import ch.hslu.informatik.swde.wda.reader.ApiReader;
+import ch.hslu.informatik.swde.wda.reader.metrics.LatencyTimer;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Polls the current weather of all cities with an adaptive cadence per city.
+ * <p>
+ * For every city an {@link UpdateCadence} learns the update interval and the publication lag of the provider
+ * from the timestamps of the readings, so a city is polled shortly after its next reading is expected
+ * instead of on a fixed timer. A poll that returns no new reading counts as wasted and is retried with a growing delay.
+ * If a new reading is more than 40 minutes after the previous one, readings were missed
+ * and the missing ones are read from the current year, as addCurrentWeatherOfCity does.
+ * <p>
+ * New readings are not written one by one, they are collected and saved in one transaction every flush interval.
+ * If a write fails, the readings are kept and written with the next flush. The database has no unique constraint
+ * on the city and the timestamp, so a flush holds the {@link CityLocks} of its cities, like every other write of weather data,
+ * while it reads the latest saved readings and writes the new ones.
+ * <p>
+ * If several nodes poll, every city is polled by one node only. The cities of other nodes are skipped and checked again
+ * after the minimum retry delay; when a city is taken over, its latest reading is read from the database first,
+ * so the readings the other node saved are not saved again. As the ownership may have changed since the city was polled,
+ * e.g. because this node paused longer than its lease, every flush confirms the ownership of its cities in the database
+ * and reads their latest readings. Readings of cities owned by another node and readings not newer than the latest
+ * saved reading are dropped.
+ * <p>
+ * Metrics: the counters {@code poller.calls.useful}, {@code poller.calls.wasted}, {@code poller.calls.failed}, {@code poller.calls.skipped},
+ * {@code poller.rows.written} and {@code poller.rows.dropped}, the timer {@code poller.lag} (time from the timestamp of a reading until it was fetched)
+ * and the gauges {@code poller.cities}, {@code poller.pending}, {@code poller.staleness.max.seconds}
+ * and {@code poller.staleness.mean.seconds} (age of the latest reading per city).
+ */
+public class CurrentWeatherPoller implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CurrentWeatherPoller.class);
+
+    private static final LatencyTimer LAG = Metrics.timer("poller.lag");
+
+    private static final Duration GAP = Duration.ofMinutes(40);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ApiReader reader;
+    private final CityDAO daoC;
+    private final WeatherDAO daoW;
+    private final PollerSettings settings;
+    private final ObservationIndex index;
+    private final CityLocks locks;
+    private final Consumer<List<Weather>> onWritten;
+    private final CityOwnership ownership;
+
+    private final Map<Integer, UpdateCadence> cadences = new ConcurrentHashMap<>();
+    private final Map<Integer, String> cityNames = new ConcurrentHashMap<>();
+    private final BlockingQueue<Weather> pending = new LinkedBlockingQueue<>();
+    private final Set<Integer> foreign = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "wda-poller");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService fetchers = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates a poller, it is started with {@link #start()}.
+     *
+     * @param reader    the reader to fetch the current weather with
+     * @param daoC      the DAO to find the cities with
+     * @param daoW      the DAO to read the latest and to save the new weather data with
+     * @param settings  the cadence and flush settings
+     * @param index     the index of the stored observations, updated before every write
+     * @param locks     the locks of the cities, held while the readings are compared with the database and written
+     * @param onWritten called with every batch of readings after it was saved
+     * @param ownership tells which cities this node polls, the other cities are polled by other nodes
+     */
+    public CurrentWeatherPoller(ApiReader reader, CityDAO daoC, WeatherDAO daoW, PollerSettings settings,
+                                ObservationIndex index, CityLocks locks, Consumer<List<Weather>> onWritten, CityOwnership ownership) {
+        this.reader = reader;
+        this.daoC = daoC;
+        this.daoW = daoW;
+        this.settings = settings;
+        this.index = index;
+        this.locks = locks;
+        this.onWritten = onWritten;
+        this.ownership = ownership;
+    }
+
+    /**
+     * Starts polling. New cities are picked up every city refresh interval.
+     */
+    public void start() {
+        Metrics.gauge("poller.cities", cadences::size);
+        Metrics.gauge("poller.pending", pending::size);
+        Metrics.gauge("poller.staleness.max.seconds", () -> staleness(true));
+        Metrics.gauge("poller.staleness.mean.seconds", () -> staleness(false));
+
+        scheduler.scheduleWithFixedDelay(this::refreshCities, 0, settings.cityRefresh().toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::flush, settings.flushInterval().toMillis(), settings.flushInterval().toMillis(), TimeUnit.MILLISECONDS);
+        LOG.info("Current weather poller started");
+    }
+
+    /**
+     * Stops polling and writes the readings collected so far.
+     * Fetches in flight are awaited for at most the close timeout, so their readings are written as well.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        fetchers.shutdown();
+        try {
+            long deadline = System.nanoTime() + CLOSE_TIMEOUT.toNanos();
+            if (!scheduler.awaitTermination(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                    || !fetchers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                LOG.info("Current weather poller did not stop within " + CLOSE_TIMEOUT.toSeconds() + " s, writing the readings collected so far");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fetchers.shutdownNow();
+        flush();
+        LOG.info("Current weather poller stopped");
+    }
+
+    /**
+     * Checks for new cities now instead of with the next city refresh, e.g. after another node added cities.
+     */
+    public void refreshCitiesNow() {
+        try {
+            scheduler.execute(this::refreshCities);
+        } catch (RejectedExecutionException e) {
+            // The poller is stopped
+        }
+    }
+
+    /*----------------------------------------------SCHEDULING---------------------------------------------*/
+
+    private void refreshCities() {
+        try {
+            for (City city : daoC.alle()) {
+                if (!cadences.containsKey(city.getId())) {
+                    UpdateCadence cadence = new UpdateCadence(settings.defaultInterval(), settings.margin(), settings.minRetry());
+                    Weather latest = daoW.findLatestWeatherByCity(city.getId());
+                    cadence.seed(latest != null ? latest.getDTstamp() : null);
+                    cityNames.put(city.getId(), city.getName());
+                    cadences.put(city.getId(), cadence);
+                    schedule(city, cadence);
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Error while refreshing the cities of the poller: ", e);
+        }
+    }
+
+    private void schedule(City city, UpdateCadence cadence) {
+
+        LocalDateTime next;
+        synchronized (cadence) {
+            next = cadence.nextPollAt(LocalDateTime.now());
+        }
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), next).toMillis());
+
+        try {
+            scheduler.schedule(() -> fetchers.execute(() -> poll(city, cadence)), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The poller is stopped
+        }
+    }
+
+    /**
+     * Fetches the current weather of one city and schedules the next poll of the city.
+     */
+    private void poll(City city, UpdateCadence cadence) {
+
+        if (!ownership.owns(city.getId())) {
+            // Another node polls the city, check again later in case it is handed over
+            foreign.add(city.getId());
+            Metrics.counter("poller.calls.skipped").increment();
+            try {
+                scheduler.schedule(() -> fetchers.execute(() -> poll(city, cadence)), settings.minRetry().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // The poller is stopped
+            }
+            return;
+        }
+
+        try {
+            if (foreign.remove(city.getId())) {
+                // Taken over from another node, continue after the latest reading it saved
+                Weather latest = daoW.findLatestWeatherByCity(city.getId());
+                synchronized (cadence) {
+                    cadence.seed(latest != null ? latest.getDTstamp() : null);
+                }
+            }
+
+            Weather current = reader.readCurrentWeatherByCity(city.getName());
+            LocalDateTime now = LocalDateTime.now();
+
+            if (current == null || current.getDTstamp() == null) {
+                Metrics.counter("poller.calls.failed").increment();
+                return;
+            }
+
+            LocalDateTime previous;
+            boolean isNew;
+            synchronized (cadence) {
+                previous = cadence.lastStamp();
+                isNew = cadence.observe(current.getDTstamp(), now);
+            }
+
+            if (!isNew) {
+                Metrics.counter("poller.calls.wasted").increment();
+                return;
+            }
+
+            Metrics.counter("poller.calls.useful").increment();
+            LAG.record(Math.max(0, Duration.between(current.getDTstamp(), now).toNanos()));
+
+            if (previous != null && Duration.between(previous, current.getDTstamp()).compareTo(GAP) >= 0) {
+                // Readings were missed, read all readings after the previous one
+                int year = Year.now().getValue();
+                TreeMap<LocalDateTime, Weather> missed = reader.readWeatherByCityAndFilterByLatestWeather(city.getName(), year, previous);
+                for (Weather w : missed.values()) {
+                    if (w.getDTstamp().isAfter(previous) && !w.getDTstamp().isAfter(current.getDTstamp())) {
+                        w.setCityId(city.getId());
+                        pending.add(w);
+                    }
+                }
+                if (!missed.containsKey(current.getDTstamp())) {
+                    current.setCityId(city.getId());
+                    pending.add(current);
+                }
+            } else {
+                current.setCityId(city.getId());
+                pending.add(current);
+            }
+        } catch (Exception e) {
+            Metrics.counter("poller.calls.failed").increment();
+            LOG.info("Polling the current weather of " + city.getName() + " failed: " + e.getMessage());
+        } finally {
+            schedule(city, cadence);
+        }
+    }
+
+    /*----------------------------------------------WRITING---------------------------------------------*/
+
+    /**
+     * Saves all collected readings in one transaction while holding the locks of their cities.
+     * If the write fails, the readings are queued again.
+     */
+    private void flush() {
+
+        List<Weather> batch = new ArrayList<>();
+        pending.drainTo(batch);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Set<String> names = new HashSet<>();
+        for (Weather w : batch) {
+            names.add(cityNames.get(w.getCityId()));
+        }
+
+        List<Weather> rows = new ArrayList<>();
+        try {
+            locks.runAll(names, () -> {
+                rows.addAll(fence(batch));
+                if (!rows.isEmpty()) {
+                    index.add(rows);
+                    daoW.saveWeatherBatch(rows);
+                }
+            });
+        } catch (Exception e) {
+            LOG.error("Error while saving " + batch.size() + " polled readings, retrying with the next flush: ", e);
+            pending.addAll(batch);
+            return;
+        }
+
+        Metrics.counter("poller.rows.written").add(rows.size());
+        Metrics.counter("poller.rows.dropped").add(batch.size() - rows.size());
+        if (!rows.isEmpty()) {
+            onWritten.accept(rows);
+        }
+    }
+
+    /**
+     * Keeps the readings of the cities this node still owns according to the database, that are newer than the latest saved reading of their city.
+     * As the locks of the cities are held, no other writer can save a reading of them until the batch is written.
+     */
+    private List<Weather> fence(List<Weather> batch) {
+
+        Set<Integer> cityIds = new HashSet<>();
+        for (Weather w : batch) {
+            cityIds.add(w.getCityId());
+        }
+
+        Set<Integer> owned = ownership.confirm(cityIds);
+        Map<Integer, Weather> latest = owned.isEmpty() ? Map.of() : daoW.findLatestWeatherOfCities(owned);
+
+        List<Weather> rows = new ArrayList<>();
+        for (Weather w : batch) {
+            Weather saved = latest.get(w.getCityId());
+            if (owned.contains(w.getCityId()) && (saved == null || w.getDTstamp().isAfter(saved.getDTstamp()))) {
+                rows.add(w);
+            }
+        }
+        return rows;
+    }
+
+    private double staleness(boolean max) {
+
+        LocalDateTime now = LocalDateTime.now();
+        long sum = 0;
+        long maxSeconds = 0;
+        int n = 0;
+
+        for (UpdateCadence cadence : cadences.values()) {
+            LocalDateTime stamp;
+            synchronized (cadence) {
+                stamp = cadence.lastStamp();
+            }
+            if (stamp != null) {
+                long seconds = Math.max(0, Duration.between(stamp, now).getSeconds());
+                sum += seconds;
+                maxSeconds = Math.max(maxSeconds, seconds);
+                n++;
+            }
+        }
+
+        if (max) {
+            return maxSeconds;
+        }
+        return n > 0 ? (double) sum / n : 0;
+    }
+}
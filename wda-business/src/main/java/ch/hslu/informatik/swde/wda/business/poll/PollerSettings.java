@@ -0,0 +1,53 @@
+/**
+ * Diese Klasse enthält die Einstellungen des Dienstes, der das aktuelle Wetter
+ * aller Städte regelmässig abfragt.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.poll;
+
+import java.time.Duration;
+
+/**
+ * Settings of the current weather poller.
+ *
+ * @param enabled         true to start the poller together with the server, false by default
+ * @param defaultInterval the update interval assumed for a city until it is learned from the data
+ * @param margin          the time added to the expected publication of a new reading before it is fetched
+ * @param minRetry        the retry delay of an overdue reading, doubled for every poll that did not return a new reading
+ * @param flushInterval   the time between two batched writes of the new readings
+ * @param cityRefresh     the time between two checks for new cities
+ */
+public record PollerSettings(boolean enabled,
+                             Duration defaultInterval,
+                             Duration margin,
+                             Duration minRetry,
+                             Duration flushInterval,
+                             Duration cityRefresh) {
+
+    private static final String PREFIX = "wda.poller.";
+
+    /**
+     * Reads the settings from the system properties with the prefix {@code wda.poller.},
+     * e.g. {@code -Dwda.poller.enabled=true} or {@code -Dwda.poller.marginMs=60000}.
+     * Missing properties fall back to the defaults. The poller is not started unless it is enabled,
+     * as it polls every city from the provider in the background.
+     *
+     * @return the settings
+     */
+    public static PollerSettings fromSystemProperties() {
+        return new PollerSettings(
+                Boolean.parseBoolean(System.getProperty(PREFIX + "enabled", "false")),
+                Duration.ofMillis(millis("defaultIntervalMs", 30 * 60_000)),
+                Duration.ofMillis(millis("marginMs", 30_000)),
+                Duration.ofMillis(millis("minRetryMs", 60_000)),
+                Duration.ofMillis(millis("flushIntervalMs", 5_000)),
+                Duration.ofMillis(millis("cityRefreshMs", 10 * 60_000)));
+    }
+
+    private static long millis(String key, long defaultValue) {
+        return Long.parseLong(System.getProperty(PREFIX + key, String.valueOf(defaultValue)));
+    }
+}
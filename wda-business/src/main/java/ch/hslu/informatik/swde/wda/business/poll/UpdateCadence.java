@@ -0,0 +1,154 @@
+/**
+ * Diese Klasse lernt, in welchem Takt der Wetterdienst neue Messungen einer Stadt veröffentlicht,
+ * und berechnet daraus den Zeitpunkt der nächsten Abfrage.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.poll;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Learns the update interval of one city from the timestamps (DTstamp) of its readings.
+ * <p>
+ * The interval is the median of the last eight differences between two consecutive readings,
+ * differences of more than three intervals are gaps and ignored. In addition the publication lag is learned,
+ * i.e. how long after its timestamp a reading is available at the provider: it drops to the smallest lag seen
+ * and otherwise drifts up slowly, like the baseline of the adaptive limiter of the reader.
+ * <p>
+ * The next poll is planned at {@code last timestamp + interval + lag + margin}.
+ * If the expected reading is overdue, the next poll follows after the minimum retry delay, doubled for every poll
+ * since the latest new reading that returned no new reading, so the first retry after a wasted poll waits twice
+ * the minimum retry delay. The delay is capped at the interval.
+ * <p>
+ * The class is not thread safe, the poller synchronizes on the instance.
+ */
+public class UpdateCadence {
+
+    private static final int SAMPLES = 8;
+    private static final int LAG_DRIFT_PERCENT = 10;
+
+    private final Duration defaultInterval;
+    private final Duration margin;
+    private final Duration minRetry;
+
+    private final long[] deltaSeconds = new long[SAMPLES];
+    private int deltaCount;
+
+    private LocalDateTime lastStamp;
+    private Duration lag;
+    private int misses;
+    private boolean polled;
+
+    /**
+     * Creates a cadence without observations.
+     *
+     * @param defaultInterval the interval assumed until at least two deltas were observed
+     * @param margin          the time added to the expected publication
+     * @param minRetry        the retry delay of an overdue reading, doubled for every wasted poll
+     */
+    public UpdateCadence(Duration defaultInterval, Duration margin, Duration minRetry) {
+        this.defaultInterval = defaultInterval;
+        this.margin = margin;
+        this.minRetry = minRetry;
+    }
+
+    /**
+     * Sets the timestamp of the latest reading already known, e.g. from the database, without learning from it.
+     *
+     * @param stamp the timestamp of the latest known reading, may be null
+     */
+    public void seed(LocalDateTime stamp) {
+        lastStamp = stamp;
+    }
+
+    /**
+     * Records the result of a poll.
+     *
+     * @param stamp the timestamp of the reading returned by the provider
+     * @param now   the time of the poll
+     * @return true if the reading is new, false if the poll was wasted
+     */
+    public boolean observe(LocalDateTime stamp, LocalDateTime now) {
+
+        polled = true;
+        if (lastStamp != null && !stamp.isAfter(lastStamp)) {
+            misses++;
+            return false;
+        }
+
+        if (lastStamp != null) {
+            long delta = Duration.between(lastStamp, stamp).getSeconds();
+            if (delta <= 3 * interval().getSeconds()) {
+                deltaSeconds[deltaCount % SAMPLES] = delta;
+                deltaCount++;
+            }
+        }
+
+        Duration sample = Duration.between(stamp, now);
+        if (!sample.isNegative()) {
+            if (lag == null || sample.compareTo(lag) < 0) {
+                lag = sample;
+            } else {
+                lag = lag.plus(sample.minus(lag).multipliedBy(LAG_DRIFT_PERCENT).dividedBy(100));
+            }
+        }
+
+        lastStamp = stamp;
+        misses = 0;
+        return true;
+    }
+
+    /**
+     * @return the learned update interval, or the default interval as long as less than two deltas were observed
+     */
+    public Duration interval() {
+        if (deltaCount < 2) {
+            return defaultInterval;
+        }
+        int n = Math.min(deltaCount, SAMPLES);
+        long[] sorted = Arrays.copyOf(deltaSeconds, n);
+        Arrays.sort(sorted);
+        return Duration.ofSeconds(Math.max(1, sorted[n / 2]));
+    }
+
+    /**
+     * @return the learned publication lag, zero as long as no reading was observed
+     */
+    public Duration lag() {
+        return lag != null ? lag : Duration.ZERO;
+    }
+
+    /**
+     * @return the timestamp of the latest known reading, or null
+     */
+    public LocalDateTime lastStamp() {
+        return lastStamp;
+    }
+
+    /**
+     * Returns the time of the next poll.
+     *
+     * @param now the current time
+     * @return the expected publication of the next reading plus the margin, or a retry time if it is overdue,
+     * or now if the city was never polled
+     */
+    public LocalDateTime nextPollAt(LocalDateTime now) {
+
+        if (lastStamp == null || !polled) {
+            return now;
+        }
+
+        LocalDateTime expected = lastStamp.plus(interval()).plus(lag()).plus(margin);
+        if (expected.isAfter(now)) {
+            return expected;
+        }
+
+        Duration retry = minRetry.multipliedBy(1L << Math.min(misses, 10));
+        return now.plus(retry.compareTo(interval()) < 0 ? retry : interval());
+    }
+}
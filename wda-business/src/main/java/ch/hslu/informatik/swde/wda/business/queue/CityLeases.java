@@ -0,0 +1,156 @@
+/**
+ * Diese Klasse teilt die Städte, deren aktuelles Wetter regelmässig abgefragt wird, gleichmässig
+ * auf alle laufenden Instanzen der Applikation auf, damit keine Stadt mehrfach abgefragt wird.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.queue;
+
+import ch.hslu.informatik.swde.wda.business.poll.CityOwnership;
+import ch.hslu.informatik.swde.wda.domain.City;
+import ch.hslu.informatik.swde.wda.domain.WorkItem;
+import ch.hslu.informatik.swde.wda.persister.DAO.CityDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Leases of the cities this node polls, one work item {@code poll} per city that is never completed.
+ * <p>
+ * Every heartbeat interval the node computes its fair share, the number of cities divided by the number of live nodes,
+ * rounded up. It releases the cities above its share and leases open cities up to its share,
+ * so a node that joins gets its share as soon as the others release theirs, and the cities of a node that
+ * stopped or crashed are taken over when its leases are released or expire.
+ * <p>
+ * The owned cities known to {@link #owns} are only refreshed every heartbeat interval, and a node that paused
+ * longer than the lease still believes it owns cities another node has taken over. Before writing, the poller therefore
+ * confirms the cities with {@link #confirm}, which reads the leases of this node from the database.
+ */
+public class CityLeases implements CityOwnership, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CityLeases.class);
+
+    static final String TASK = "poll";
+
+    private final WorkQueue queue;
+    private final CityDAO daoC;
+
+    private volatile Set<Integer> owned = Set.of();
+    private long knownCities = -1;
+    private ScheduledFuture<?> refresher;
+
+    /**
+     * Creates the leases, they are acquired with {@link #start()}.
+     *
+     * @param queue the queue of this node
+     * @param daoC  the DAO to find the cities with
+     */
+    public CityLeases(WorkQueue queue, CityDAO daoC) {
+        this.queue = queue;
+        this.daoC = daoC;
+    }
+
+    /**
+     * Starts acquiring and rebalancing the leases every heartbeat interval.
+     */
+    public void start() {
+        refresher = queue.every(this::refresh);
+    }
+
+    /**
+     * @param cityId the ID of a city
+     * @return true if this node polled the city at the last rebalancing
+     */
+    @Override
+    public boolean owns(int cityId) {
+        return owned.contains(cityId);
+    }
+
+    /**
+     * Reads the cities this node still holds the lease of from the database, and updates the owned cities with them.
+     *
+     * @param cityIds the IDs of the cities
+     * @return the IDs of the given cities this node still holds the lease of
+     */
+    @Override
+    public Set<Integer> confirm(Collection<Integer> cityIds) {
+
+        Set<Integer> held = new HashSet<>();
+        for (WorkItem item : queue.leased(TASK)) {
+            held.add(item.getCityId());
+        }
+        owned = Set.copyOf(held);
+
+        held.retainAll(cityIds);
+        return held;
+    }
+
+    /**
+     * Stops rebalancing and releases the cities to the other nodes.
+     */
+    @Override
+    public void close() {
+        if (refresher != null) {
+            refresher.cancel(false);
+        }
+        owned = Set.of();
+        try {
+            queue.release(queue.leased(TASK).stream().map(WorkItem::getId).toList());
+        } catch (Exception e) {
+            LOG.error("Error while releasing the polled cities, their leases expire: ", e);
+        }
+    }
+
+    /**
+     * Computes the number of cities a node polls.
+     *
+     * @param cities the number of cities
+     * @param nodes  the number of live nodes
+     * @return the number of cities divided by the number of nodes, rounded up
+     */
+    static int fairShare(long cities, long nodes) {
+        long n = Math.max(1, nodes);
+        return (int) ((cities + n - 1) / n);
+    }
+
+    void refresh() {
+        try {
+            long cities = daoC.getNumberOfCities();
+            if (cities != knownCities) {
+                List<WorkItem> items = new ArrayList<>();
+                for (City city : daoC.alle()) {
+                    items.add(new WorkItem(city.getId(), TASK));
+                }
+                queue.enqueue(items);
+                knownCities = cities;
+            }
+
+            int share = fairShare(cities, queue.nodes());
+            List<WorkItem> held = new ArrayList<>(queue.leased(TASK));
+
+            if (held.size() > share) {
+                List<WorkItem> extra = held.subList(share, held.size());
+                queue.release(extra.stream().map(WorkItem::getId).toList());
+                extra.clear();
+            } else if (held.size() < share) {
+                held.addAll(queue.claim(TASK, share - held.size()));
+            }
+
+            Set<Integer> ids = new HashSet<>();
+            for (WorkItem item : held) {
+                ids.add(item.getCityId());
+            }
+            owned = Set.copyOf(ids);
+        } catch (Exception e) {
+            LOG.error("Error while rebalancing the polled cities: ", e);
+        }
+    }
+}
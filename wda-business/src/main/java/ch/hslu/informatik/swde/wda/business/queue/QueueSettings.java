@@ -0,0 +1,38 @@
+/**
+ * Diese Klasse enthält die Einstellungen der Warteschlange, über die mehrere Instanzen der Applikation
+ * das Laden der Wetterdaten untereinander aufteilen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.queue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the work queue.
+ *
+ * @param enabled   true to share the jobs and the polling with the other nodes through the queue
+ * @param lease     the time a node holds a work item without renewing it, afterwards another node may take it over
+ * @param heartbeat the time between two renewals of the leases, well below the lease
+ */
+public record QueueSettings(boolean enabled, Duration lease, Duration heartbeat) {
+
+    private static final String PREFIX = "wda.queue.";
+
+    /**
+     * Reads the settings from the system properties with the prefix {@code wda.queue.},
+     * e.g. {@code -Dwda.queue.enabled=true} or {@code -Dwda.queue.leaseMs=60000}.
+     * Missing properties fall back to the defaults, the heartbeat defaults to a third of the lease.
+     *
+     * @return the settings
+     */
+    public static QueueSettings fromSystemProperties() {
+        long lease = Long.parseLong(System.getProperty(PREFIX + "leaseMs", "120000"));
+        return new QueueSettings(
+                Boolean.parseBoolean(System.getProperty(PREFIX + "enabled", "false")),
+                Duration.ofMillis(lease),
+                Duration.ofMillis(Long.parseLong(System.getProperty(PREFIX + "heartbeatMs", String.valueOf(lease / 3)))));
+    }
+}
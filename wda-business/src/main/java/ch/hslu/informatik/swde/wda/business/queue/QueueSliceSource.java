@@ -0,0 +1,202 @@
+/**
+ * Diese Klasse liefert einer Pipeline die Slices aus der gemeinsamen Warteschlange, damit mehrere Instanzen
+ * der Applikation einen Ladeauftrag gemeinsam abarbeiten, ohne eine Stadt doppelt zu laden.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.queue;
+
+import ch.hslu.informatik.swde.wda.business.job.Slice;
+import ch.hslu.informatik.swde.wda.business.job.SliceListener;
+import ch.hslu.informatik.swde.wda.business.job.SliceSource;
+import ch.hslu.informatik.swde.wda.domain.City;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WorkItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Slice source and listener backed by the work queue, one work item {@code <job>:<year>} per city.
+ * <p>
+ * When the job is opened, the slices of the plan are enqueued. The source only claims and counts the items
+ * of the tasks of the planned years, so items of other years left over from earlier runs are not picked up. Every node running the same job enqueues the same items,
+ * which exist only once, so it does not matter which node plans first. The pipeline then leases a few slices at a time,
+ * as many as it is about to download, so the slices spread over all nodes running the job.
+ * A slice is completed in the queue once its rows are committed, or marked as failed.
+ * <p>
+ * When there are no open items left, the source waits until the items leased by other nodes are completed as well,
+ * because their leases may expire and the items return to the queue. So the job ends on every node when
+ * the whole job is done, and fails if a slice of the plan failed on any node.
+ * Items still leased when the pipeline ends, e.g. because a write failed, are released to the other nodes.
+ */
+public class QueueSliceSource implements SliceSource, SliceListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueueSliceSource.class);
+
+    private static final Duration MAX_WAIT = Duration.ofSeconds(5);
+
+    private final WorkQueue queue;
+    private final String job;
+    private final Callable<List<Slice>> plan;
+    private final IntFunction<City> cities;
+    private final SliceListener listener;
+
+    private final Map<String, Slice> planned = new ConcurrentHashMap<>();
+    private final Set<Integer> years = ConcurrentHashMap.newKeySet();
+    private final Map<Slice, Long> leased = new ConcurrentHashMap<>();
+    private final AtomicInteger ownFailures = new AtomicInteger();
+
+    /**
+     * Creates a source.
+     *
+     * @param queue    the queue of this node
+     * @param job      the kind of job, e.g. {@code init}, the first part of the task of the items
+     * @param plan     returns the slices this node would load on its own
+     * @param cities   finds a city by its ID, for slices planned by another node
+     * @param listener is informed about committed and failed slices
+     */
+    public QueueSliceSource(WorkQueue queue, String job, Callable<List<Slice>> plan, IntFunction<City> cities, SliceListener listener) {
+        this.queue = queue;
+        this.job = job;
+        this.plan = plan;
+        this.cities = cities;
+        this.listener = listener;
+    }
+
+    @Override
+    public int open() throws Exception {
+
+        List<Slice> slices = plan.call();
+        List<WorkItem> items = new ArrayList<>();
+        for (Slice slice : slices) {
+            planned.put(key(slice.city().getId(), slice.year()), slice);
+            years.add(slice.year());
+            items.add(new WorkItem(slice.city().getId(), task(slice.year())));
+        }
+        queue.enqueue(items);
+        return slices.size();
+    }
+
+    @Override
+    public List<Slice> next(int max) throws InterruptedException {
+
+        while (true) {
+            List<Slice> slices = new ArrayList<>();
+            for (int year : new TreeSet<>(years)) {
+                if (slices.size() == max) {
+                    break;
+                }
+                for (WorkItem item : queue.claim(task(year), max - slices.size())) {
+                    Slice slice = slice(item, year);
+                    if (slice != null) {
+                        leased.put(slice, item.getId());
+                        slices.add(slice);
+                    }
+                }
+            }
+            if (!slices.isEmpty()) {
+                return slices;
+            }
+
+            long open = 0;
+            for (int year : years) {
+                Map<WorkItem.State, Long> counts = queue.countByState(task(year));
+                open += counts.getOrDefault(WorkItem.State.PENDING, 0L) + counts.getOrDefault(WorkItem.State.LEASED, 0L);
+            }
+            if (open == 0) {
+                checkFailures();
+                return List.of();
+            }
+
+            // Other nodes are still working, their items return to the queue if their leases expire
+            Thread.sleep(Math.min(MAX_WAIT.toMillis(), queue.settings().heartbeat().toMillis()));
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            queue.release(new ArrayList<>(leased.values()));
+        } catch (Exception e) {
+            LOG.error("Error while releasing the slices of job " + job + ", their leases expire: ", e);
+        }
+        leased.clear();
+    }
+
+    @Override
+    public void onCommitted(Map<Slice, Integer> rowsBySlice) {
+        for (Slice slice : rowsBySlice.keySet()) {
+            Long id = leased.remove(slice);
+            if (id != null) {
+                queue.complete(id, null);
+            }
+        }
+        listener.onCommitted(rowsBySlice);
+    }
+
+    @Override
+    public void onRowsCommitted(List<Weather> rows) {
+        listener.onRowsCommitted(rows);
+    }
+
+    @Override
+    public void onFailed(Slice slice, Exception e) {
+        ownFailures.incrementAndGet();
+        Long id = leased.remove(slice);
+        if (id != null) {
+            queue.complete(id, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+        listener.onFailed(slice, e);
+    }
+
+    /**
+     * Fails the job if slices of the plan failed on other nodes, the failures of this node are reported by the pipeline.
+     * Only the items of the planned slices count: failed items of other cities are left over from earlier runs,
+     * failed items of the planned cities were reopened when the job was opened.
+     */
+    private void checkFailures() {
+        long failed = 0;
+        for (int year : years) {
+            for (WorkItem item : queue.failed(task(year))) {
+                if (planned.containsKey(key(item.getCityId(), year))) {
+                    failed++;
+                }
+            }
+        }
+        if (failed > ownFailures.get()) {
+            throw new IllegalStateException((failed - ownFailures.get()) + " slices of job " + job + " failed on other nodes");
+        }
+    }
+
+    private Slice slice(WorkItem item, int year) {
+
+        Slice slice = planned.get(key(item.getCityId(), year));
+        if (slice != null) {
+            return slice;
+        }
+
+        City city = cities.apply(item.getCityId());
+        if (city == null) {
+            queue.complete(item.getId(), "Unknown city " + item.getCityId());
+            return null;
+        }
+        return new Slice(city, year);
+    }
+
+    private String task(int year) {
+        return job + ":" + year;
+    }
+
+    private static String key(int cityId, int year) {
+        return cityId + ":" + year;
+    }
+}
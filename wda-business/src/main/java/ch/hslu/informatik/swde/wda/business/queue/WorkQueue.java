@@ -0,0 +1,232 @@
+/**
+ * Diese Klasse verbindet eine Instanz der Applikation mit der Warteschlange in der Datenbank: Sie übernimmt Aufgaben,
+ * hält deren Reservation mit regelmässigen Lebenszeichen aufrecht und meldet die Instanz bei den anderen an.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.queue;
+
+import ch.hslu.informatik.swde.wda.domain.WorkItem;
+import ch.hslu.informatik.swde.wda.persister.DAO.WorkQueueDAO;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The view of one node on the database-backed work queue.
+ * <p>
+ * Work items are leased with {@link #claim}: the database hands every open item to exactly one node,
+ * concurrent claims of other nodes skip the locked rows instead of waiting for them.
+ * A lease expires after {@link QueueSettings#lease()}, so the items of a crashed node are taken over by the others.
+ * While the node is alive, a heartbeat renews all its leases every {@link QueueSettings#heartbeat()}.
+ * <p>
+ * Every node also holds a presence item {@code node:<owner>}, renewed by the same heartbeat,
+ * so the number of live nodes is known and work like the polling of the cities can be shared fairly.
+ * <p>
+ * Metrics: the counters {@code queue.claimed}, {@code queue.completed}, {@code queue.failed}, {@code queue.lost}
+ * (items completed after another node took them over) and {@code queue.heartbeat.failed}.
+ */
+public class WorkQueue implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WorkQueue.class);
+
+    private static final String NODE_TASK = "node:";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final WorkQueueDAO dao;
+    private final QueueSettings settings;
+    private final String owner = hostName() + "-" + ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "wda-queue");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Creates the queue of this node, it is started with {@link #start()}.
+     *
+     * @param dao      the DAO of the work items
+     * @param settings the lease and heartbeat settings
+     */
+    public WorkQueue(WorkQueueDAO dao, QueueSettings settings) {
+        this.dao = dao;
+        this.settings = settings;
+    }
+
+    /**
+     * Registers the node and starts the heartbeat. Presence items of nodes that stopped without deregistering are removed.
+     */
+    public void start() {
+        dao.delete(NODE_TASK, true);
+        register();
+        long heartbeat = settings.heartbeat().toMillis();
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        LOG.info("Work queue started as node " + owner);
+    }
+
+    /**
+     * Stops the heartbeat, releases the items of this node to the other nodes and deregisters the node.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            release(dao.findLeased(owner, "").stream().map(WorkItem::getId).toList());
+            dao.delete(NODE_TASK + owner, false);
+        } catch (Exception e) {
+            LOG.error("Error while leaving the work queue, the leases of " + owner + " expire: ", e);
+        }
+        LOG.info("Work queue stopped");
+    }
+
+    /**
+     * @return the ID of this node
+     */
+    public String owner() {
+        return owner;
+    }
+
+    /**
+     * @return the settings
+     */
+    public QueueSettings settings() {
+        return settings;
+    }
+
+    /**
+     * Adds work items that do not exist yet, failed items are reopened.
+     *
+     * @param items the items
+     */
+    public void enqueue(List<WorkItem> items) {
+        dao.enqueue(items);
+    }
+
+    /**
+     * Leases open work items to this node.
+     *
+     * @param taskPrefix the beginning of the task of the items
+     * @param limit      the maximum number of items
+     * @return the leased items, or an empty list if there are no open items
+     */
+    public List<WorkItem> claim(String taskPrefix, int limit) {
+        List<WorkItem> items = dao.claim(taskPrefix, owner, limit, settings.lease());
+        Metrics.counter("queue.claimed").add(items.size());
+        return items;
+    }
+
+    /**
+     * Completes a work item of this node.
+     *
+     * @param id    the ID of the item
+     * @param error null if the item was done, otherwise the error it failed with
+     * @return true if the item was completed, false if another node took it over in the meantime
+     */
+    public boolean complete(long id, String error) {
+
+        String message = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        boolean completed = dao.complete(id, owner, error == null ? WorkItem.State.DONE : WorkItem.State.FAILED, message);
+
+        if (!completed) {
+            Metrics.counter("queue.lost").increment();
+            LOG.info("Lease of work item " + id + " was lost, it was completed by another node");
+        } else {
+            Metrics.counter(error == null ? "queue.completed" : "queue.failed").increment();
+        }
+        return completed;
+    }
+
+    /**
+     * Releases work items of this node, so other nodes can lease them immediately.
+     *
+     * @param ids the IDs of the items
+     */
+    public void release(Collection<Long> ids) {
+        dao.release(owner, ids);
+    }
+
+    /**
+     * @param taskPrefix the beginning of the task of the items
+     * @return the items this node holds the lease of
+     */
+    public List<WorkItem> leased(String taskPrefix) {
+        return dao.findLeased(owner, taskPrefix);
+    }
+
+    /**
+     * @param taskPrefix the beginning of the task of the items
+     * @return the items that failed
+     */
+    public List<WorkItem> failed(String taskPrefix) {
+        return dao.findByState(taskPrefix, WorkItem.State.FAILED);
+    }
+
+    /**
+     * @param taskPrefix the beginning of the task of the items
+     * @return the number of items per state
+     */
+    public Map<WorkItem.State, Long> countByState(String taskPrefix) {
+        return dao.countByState(taskPrefix);
+    }
+
+    /**
+     * @return the number of live nodes, at least 1
+     */
+    public long nodes() {
+        return Math.max(1, dao.countActiveLeases(NODE_TASK));
+    }
+
+    /**
+     * Runs a task every heartbeat interval on the thread of the queue, starting now.
+     *
+     * @param task the task
+     * @return the future to cancel the task with
+     */
+    public ScheduledFuture<?> every(Runnable task) {
+        return scheduler.scheduleWithFixedDelay(task, 0, settings.heartbeat().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Renews all leases of this node. If the presence item was lost, e.g. because the node paused longer than the lease,
+     * the node registers again.
+     */
+    private void heartbeat() {
+        try {
+            dao.heartbeat(owner, settings.lease());
+            if (dao.findLeased(owner, NODE_TASK).isEmpty()) {
+                LOG.info("Presence of node " + owner + " was lost, registering again");
+                register();
+            }
+        } catch (Exception e) {
+            Metrics.counter("queue.heartbeat.failed").increment();
+            LOG.error("Heartbeat of node " + owner + " failed: ", e);
+        }
+    }
+
+    private void register() {
+        dao.enqueue(List.of(new WorkItem(0, NODE_TASK + owner)));
+        dao.claim(NODE_TASK + owner, owner, 1, settings.lease());
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * Diese Klasse beschreibt das Ergebnis der Aktualisierung des aktuellen Wetters einer Stadt.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.refresh;
+
+/**
+ * Result of refreshing the current weather of one city.
+ *
+ * @param city        the name of the city
+ * @param status      the outcome
+ * @param latest      the timestamp of the latest reading of the city after the refresh as ISO date time, or null if there is none
+ * @param rowsWritten the number of readings saved for the city
+ * @param error       the error message if the refresh failed, otherwise null
+ */
+public record CityRefresh(String city,
+                          Status status,
+                          String latest,
+                          int rowsWritten,
+                          String error) {
+
+    /**
+     * The outcomes of a refresh.
+     */
+    public enum Status {
+        UPDATED,
+        UNCHANGED,
+        UNKNOWN_CITY,
+        FAILED
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Diese Klasse fasst die Aktualisierung des aktuellen Wetters mehrerer Städte zusammen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.refresh;
+
+import java.util.List;
+
+/**
+ * Summary of refreshing the current weather of several cities.
+ *
+ * @param cities         the number of cities requested
+ * @param updated        the number of cities with new readings
+ * @param unchanged      the number of cities without new readings
+ * @param failed         the number of cities that are unknown or could not be refreshed
+ * @param rowsWritten    the number of readings saved
+ * @param durationMillis the duration of the refresh
+ * @param results        the result per city, in the order of the city names
+ */
+public record RefreshSummary(int cities,
+                             int updated,
+                             int unchanged,
+                             int failed,
+                             int rowsWritten,
+                             long durationMillis,
+                             List<CityRefresh> results) {
+}
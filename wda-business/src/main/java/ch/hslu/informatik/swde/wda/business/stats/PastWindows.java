@@ -0,0 +1,252 @@
+/**
+ * Diese Klasse hält die Kennzahlen der letzten Tage pro Stadt und Anzahl Tage im Speicher nach,
+ * damit Abfragen wie die letzten 30 Tage nach dem ersten Zugriff ohne Datenbank beantwortet werden.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.stats;
+
+import ch.hslu.informatik.swde.wda.calc.WeatherStats;
+import ch.hslu.informatik.swde.wda.calc.window.SlidingWindow;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Sliding windows of the past days, keyed by city and number of days.
+ * <p>
+ * The first request for a city and number of days reads the weather data of the window once and builds a SlidingWindow,
+ * see {@link #put}. Afterwards, committed weather data is appended to the windows of its city with {@link #append},
+ * and every request only drops the readings that fell out of the window before it returns the statistics,
+ * so a request costs amortized O(1) instead of reading and computing the whole window again.
+ * <p>
+ * Readings older than the start of a window are ignored. A reading with the timestamp of the newest reading of a window
+ * is already in it, e.g. because the window was read from the database after the reading was committed, and is skipped.
+ * A reading older than the newest reading of a window, e.g. from a backfill or a range of another node the window
+ * already partly contains, cannot be appended without possibly counting it twice, so the window is dropped
+ * and built again by the next request.
+ * A window built while weather data of its city was written is not stored, see {@link #version(int)}.
+ * At most {@code -Dwda.stats.maxPastWindows} windows are kept, the least recently used are evicted first.
+ * <p>
+ * Metrics: the counters {@code stats.window.hit}, {@code stats.window.miss} and {@code stats.window.dropped}
+ * and the gauge {@code stats.window.open}.
+ */
+public class PastWindows {
+
+    private record Key(String cityName, int days) {
+    }
+
+    private record Entry(int cityId, SlidingWindow window) {
+    }
+
+    private final int maxWindows;
+
+    private final LinkedHashMap<Key, Entry> windows = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, Long> versions = new HashMap<>();
+    private long clears;
+
+    /**
+     * Creates the windows with the settings from the system properties.
+     */
+    public PastWindows() {
+        this(Integer.getInteger("wda.stats.maxPastWindows", 256));
+    }
+
+    /**
+     * Creates the windows.
+     *
+     * @param maxWindows the maximum number of windows
+     */
+    public PastWindows(int maxWindows) {
+        this.maxWindows = maxWindows;
+
+        Metrics.gauge("stats.window.open", this::size);
+    }
+
+    /**
+     * Returns the statistics of the past days from the window in memory.
+     *
+     * @param cityName the name of the city
+     * @param days     the number of past days
+     * @param now      the current time
+     * @return the statistics, or null if there is no window yet
+     */
+    public synchronized WeatherStats get(String cityName, int days, LocalDateTime now) {
+
+        Entry entry = windows.get(new Key(cityName, days));
+        Metrics.counter(entry != null ? "stats.window.hit" : "stats.window.miss").increment();
+        if (entry == null) {
+            return null;
+        }
+
+        entry.window().evict(now);
+        return entry.window().stats();
+    }
+
+    /**
+     * Returns the version of the weather data of a city. It has to be read before the window is read from the database
+     * and passed to {@link #put}, so a window missing data written in the meantime is not stored.
+     *
+     * @param cityId the ID of the city
+     * @return the version of the weather data of the city
+     */
+    public synchronized long version(int cityId) {
+        return clears + versions.getOrDefault(cityId, 0L);
+    }
+
+    /**
+     * Builds a window from the weather data of the past days and stores it,
+     * unless the weather data of the city was written since the version was read.
+     *
+     * @param cityName the name of the city
+     * @param cityId   the ID of the city
+     * @param days     the number of past days
+     * @param version  the version of the weather data of the city read before the series was read
+     * @param series   the weather data from the start of the window
+     * @param now      the current time
+     * @return the statistics of the window
+     */
+    public WeatherStats put(String cityName, int cityId, int days, long version, WeatherSeries series, LocalDateTime now) {
+
+        SlidingWindow window = SlidingWindow.of(series, Duration.ofDays(days));
+        window.evict(now);
+
+        synchronized (this) {
+            if (version == version(cityId)) {
+                windows.put(new Key(cityName, days), new Entry(cityId, window));
+                Iterator<Entry> eldest = windows.values().iterator();
+                while (windows.size() > maxWindows && eldest.hasNext()) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+            return window.stats();
+        }
+    }
+
+    /**
+     * @param cityId the ID of a city
+     * @return true if there is a window of the city
+     */
+    public synchronized boolean contains(int cityId) {
+        for (Entry entry : windows.values()) {
+            if (entry.cityId() == cityId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends committed weather data to the windows of its cities.
+     *
+     * @param written the weather data written, with the ID of its city set
+     * @param now     the current time
+     */
+    public synchronized void append(Collection<Weather> written, LocalDateTime now) {
+
+        Map<Integer, List<Weather>> byCity = new HashMap<>();
+        for (Weather w : written) {
+            byCity.computeIfAbsent(w.getCityId(), id -> new ArrayList<>()).add(w);
+        }
+
+        byCity.forEach((cityId, rows) -> {
+            rows.sort(Comparator.comparing(Weather::getDTstamp));
+            apply(cityId, window -> {
+                long start = start(window, now);
+                for (Weather w : rows) {
+                    long stamp = w.getDTstamp().toEpochSecond(ZoneOffset.UTC);
+                    if (stamp >= start && stamp != window.lastEpochSecond() && !window.add(w)) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        });
+    }
+
+    /**
+     * Appends weather data written by another node to the windows of its city.
+     *
+     * @param cityId the ID of the city
+     * @param series the weather data written
+     * @param now    the current time
+     */
+    public synchronized void append(int cityId, WeatherSeries series, LocalDateTime now) {
+
+        apply(cityId, window -> {
+            long start = start(window, now);
+            for (int i = 0; i < series.size(); i++) {
+                long stamp = series.epochSecond(i);
+                if (stamp >= start && stamp != window.lastEpochSecond() && !window.add(stamp,
+                        series.get(WeatherSeries.Column.TEMPERATURE, i), series.get(WeatherSeries.Column.PRESSURE, i),
+                        series.get(WeatherSeries.Column.HUMIDITY, i), series.get(WeatherSeries.Column.WIND_SPEED, i))) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Drops all windows of a city, e.g. after its weather data was deleted.
+     *
+     * @param cityId the ID of the city
+     */
+    public synchronized void invalidate(int cityId) {
+        apply(cityId, window -> false);
+    }
+
+    /**
+     * Removes all windows, e.g. after the database was deleted.
+     */
+    public synchronized void clear() {
+        windows.clear();
+        clears++;
+    }
+
+    private synchronized int size() {
+        return windows.size();
+    }
+
+    /**
+     * Applies written weather data to every window of a city and drops the windows it could not be applied to.
+     */
+    private void apply(int cityId, Predicate<SlidingWindow> appender) {
+
+        versions.merge(cityId, 1L, Long::sum);
+
+        int dropped = 0;
+        Iterator<Entry> it = windows.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.cityId() == cityId && !appender.test(entry.window())) {
+                it.remove();
+                dropped++;
+            }
+        }
+        Metrics.counter("stats.window.dropped").add(dropped);
+    }
+
+    /**
+     * @return the first timestamp of the window in epoch seconds, readings before it fall out of the window anyway
+     */
+    private static long start(SlidingWindow window, LocalDateTime now) {
+        return now.toEpochSecond(ZoneOffset.UTC) - window.length().toSeconds();
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * Diese Klasse speichert berechnete Kennzahlen pro Stadt, Zeitfenster und Kennzahlen zwischen,
+ * damit wiederholte Abfragen nicht jedes Mal die Datenbank lesen. Neue Wetterdaten einer Stadt
+ * verwerfen die betroffenen Einträge.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.stats;
+
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of statistics results keyed by city, window and metric set.
+ * <p>
+ * Results of closed windows (an earlier month or week of the current year) are pinned:
+ * they do not expire and are not evicted, because new readings do not arrive in them anymore.
+ * Results of open windows expire after a time to live ({@code -Dwda.stats.openTtlMs}, 5 minutes by default),
+ * because the past-days windows move with the time, and at most {@code -Dwda.stats.maxOpenEntries} of them are kept,
+ * the least recently used are evicted first.
+ * <p>
+ * Every write of weather data of a city invalidates the results of this city whose window overlaps the written time range,
+ * so backfilled readings also invalidate pinned results.
+ * A result computed while a write happened is not stored, see {@link #version(int)}.
+ * <p>
+ * Metrics: the counters {@code stats.cache.hit}, {@code stats.cache.miss} and {@code stats.cache.invalidated}
+ * and the gauges {@code stats.cache.pinned} and {@code stats.cache.open}.
+ */
+public class StatsCache {
+
+    private record Key(String cityName, int year, StatsWindow window, StatsMetrics metrics) {
+    }
+
+    private record Entry(int cityId, String value, LocalDateTime start, LocalDateTime end, LocalDateTime expiresAt) {
+    }
+
+    private final Duration openTtl;
+    private final int maxOpenEntries;
+
+    private final Map<Key, Entry> pinned = new HashMap<>();
+    private final LinkedHashMap<Key, Entry> open = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, Long> versions = new HashMap<>();
+    private long clears;
+
+    /**
+     * Creates a cache with the settings from the system properties.
+     */
+    public StatsCache() {
+        this(Duration.ofMillis(Long.getLong("wda.stats.openTtlMs", 300_000L)),
+                Integer.getInteger("wda.stats.maxOpenEntries", 10_000));
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param openTtl        the time results of open windows are kept
+     * @param maxOpenEntries the maximum number of results of open windows
+     */
+    public StatsCache(Duration openTtl, int maxOpenEntries) {
+        this.openTtl = openTtl;
+        this.maxOpenEntries = maxOpenEntries;
+
+        Metrics.gauge("stats.cache.pinned", this::pinnedSize);
+        Metrics.gauge("stats.cache.open", this::openSize);
+    }
+
+    /**
+     * Returns a cached result.
+     *
+     * @param cityName the name of the city
+     * @param window   the window
+     * @param metrics  the metric set
+     * @param now      the current time
+     * @return the cached result, or null if there is none or it expired
+     */
+    public synchronized String get(String cityName, StatsWindow window, StatsMetrics metrics, LocalDateTime now) {
+
+        Key key = new Key(cityName, now.getYear(), window, metrics);
+        Entry entry = pinned.get(key);
+        if (entry == null) {
+            entry = open.get(key);
+            if (entry != null && !entry.expiresAt().isAfter(now)) {
+                open.remove(key);
+                entry = null;
+            }
+        }
+
+        Metrics.counter(entry != null ? "stats.cache.hit" : "stats.cache.miss").increment();
+        return entry != null ? entry.value() : null;
+    }
+
+    /**
+     * Returns the version of the weather data of a city. It has to be read before the data is read from the database
+     * and passed to {@link #put}, so a result computed from data that was changed in the meantime is not stored.
+     *
+     * @param cityId the ID of the city
+     * @return the version of the weather data of the city
+     */
+    public synchronized long version(int cityId) {
+        return clears + versions.getOrDefault(cityId, 0L);
+    }
+
+    /**
+     * Stores a result, unless the weather data of the city was written since the version was read.
+     *
+     * @param cityName the name of the city
+     * @param cityId   the ID of the city
+     * @param window   the window
+     * @param metrics  the metric set
+     * @param version  the version of the weather data of the city read before the result was computed
+     * @param value    the result
+     * @param now      the current time
+     */
+    public synchronized void put(String cityName, int cityId, StatsWindow window, StatsMetrics metrics, long version, String value, LocalDateTime now) {
+
+        if (version != version(cityId)) {
+            return;
+        }
+
+        Key key = new Key(cityName, now.getYear(), window, metrics);
+        if (window.isClosed(now)) {
+            pinned.put(key, new Entry(cityId, value, window.start(now), window.end(now), LocalDateTime.MAX));
+        } else {
+            open.put(key, new Entry(cityId, value, window.start(now), window.end(now), now.plus(openTtl)));
+            Iterator<Entry> eldest = open.values().iterator();
+            while (open.size() > maxOpenEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Invalidates all results of a city whose window overlaps the time range of written weather data.
+     *
+     * @param cityId the ID of the city whose weather data was written
+     * @param from   the earliest timestamp written
+     * @param to     the latest timestamp written
+     */
+    public synchronized void invalidate(int cityId, LocalDateTime from, LocalDateTime to) {
+
+        versions.merge(cityId, 1L, Long::sum);
+
+        int removed = 0;
+        for (Map<Key, Entry> entries : List.of(pinned, open)) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.cityId() == cityId && !entry.start().isAfter(to) && entry.end().isAfter(from)) {
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+        Metrics.counter("stats.cache.invalidated").add(removed);
+    }
+
+    /**
+     * Invalidates all results of a city for a year, e.g. after the weather data of the year was loaded.
+     *
+     * @param cityId the ID of the city
+     * @param year   the year
+     */
+    public void invalidate(int cityId, int year) {
+        LocalDateTime start = Year.of(year).atDay(1).atStartOfDay();
+        invalidate(cityId, start, start.plusYears(1));
+    }
+
+    /**
+     * Invalidates the results overlapping written weather data, per city.
+     *
+     * @param written the weather data written, with the ID of its city set
+     */
+    public void invalidate(Collection<Weather> written) {
+
+        Map<Integer, LocalDateTime[]> ranges = new HashMap<>();
+        for (Weather w : written) {
+            LocalDateTime[] range = ranges.computeIfAbsent(w.getCityId(), id -> new LocalDateTime[]{w.getDTstamp(), w.getDTstamp()});
+            if (w.getDTstamp().isBefore(range[0])) {
+                range[0] = w.getDTstamp();
+            }
+            if (w.getDTstamp().isAfter(range[1])) {
+                range[1] = w.getDTstamp();
+            }
+        }
+        ranges.forEach((cityId, range) -> invalidate(cityId, range[0], range[1]));
+    }
+
+    /**
+     * Removes all results, e.g. after the database was deleted.
+     */
+    public synchronized void clear() {
+        pinned.clear();
+        open.clear();
+        clears++;
+    }
+
+    private synchronized int pinnedSize() {
+        return pinned.size();
+    }
+
+    private synchronized int openSize() {
+        return open.size();
+    }
+}
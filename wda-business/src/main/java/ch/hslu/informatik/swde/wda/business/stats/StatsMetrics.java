@@ -0,0 +1,29 @@
+/**
+ * Diese Aufzählung enthält die Kennzahlen, die für ein Zeitfenster berechnet werden können.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.stats;
+
+/**
+ * The sets of statistics computed together for a window.
+ */
+public enum StatsMetrics {
+
+    /**
+     * Minimum and maximum of temperature, pressure and humidity.
+     */
+    MIN_MAX,
+
+    /**
+     * Mean of temperature, pressure and humidity.
+     */
+    MEAN,
+
+    /**
+     * Mean, standard deviation and the 50th, 90th and 99th percentile of every measurement.
+     */
+    DISTRIBUTION
+}
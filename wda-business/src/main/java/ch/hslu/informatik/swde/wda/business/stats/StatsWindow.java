@@ -0,0 +1,91 @@
+/**
+ * Diese Klasse beschreibt das Zeitfenster, für welches Kennzahlen berechnet werden,
+ * zum Beispiel ein Monat oder eine Woche des aktuellen Jahres oder die letzten Tage.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.business.stats;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A half-open window {@code [start, end)} of weather data of one city, in the year of the given current time.
+ * <p>
+ * A month window covers the whole last day of the month, the month query of the WeatherDAO instead ends
+ * at 00:00 of the last day. The statistics are therefore read with findWeatherSeriesFromCityByWindow.
+ *
+ * @param kind  the kind of window
+ * @param value the month (1 - 12), the week (1 - 53) or the number of past days
+ */
+public record StatsWindow(Kind kind, int value) {
+
+    /**
+     * The kinds of windows.
+     */
+    public enum Kind {
+        MONTH,
+        WEEK,
+        DAYS
+    }
+
+    /**
+     * @param month the month of the current year
+     * @return the window of the month
+     */
+    public static StatsWindow month(int month) {
+        return new StatsWindow(Kind.MONTH, month);
+    }
+
+    /**
+     * @param week the week of the current year
+     * @return the window of the week
+     */
+    public static StatsWindow week(int week) {
+        return new StatsWindow(Kind.WEEK, week);
+    }
+
+    /**
+     * @param days the number of past days
+     * @return the window of the past days
+     */
+    public static StatsWindow days(int days) {
+        return new StatsWindow(Kind.DAYS, days);
+    }
+
+    /**
+     * @param now the current time, its year is the year of a month or week window
+     * @return the first timestamp in the window
+     */
+    public LocalDateTime start(LocalDateTime now) {
+        return switch (kind) {
+            case MONTH -> LocalDate.of(now.getYear(), value, 1).atStartOfDay();
+            case WEEK -> LocalDate.of(now.getYear(), 1, 1).plusWeeks(value - 1).atStartOfDay();
+            case DAYS -> now.minusDays(value);
+        };
+    }
+
+    /**
+     * @param now the current time
+     * @return the first timestamp after the window, {@link LocalDateTime#MAX} if the window ends in the future
+     */
+    public LocalDateTime end(LocalDateTime now) {
+        return switch (kind) {
+            case MONTH -> start(now).plusMonths(1);
+            case WEEK -> start(now).plusWeeks(1);
+            case DAYS -> LocalDateTime.MAX;
+        };
+    }
+
+    /**
+     * A window is closed if it ends before now, no new readings are expected in it.
+     *
+     * @param now the current time
+     * @return true if the window is closed
+     */
+    public boolean isClosed(LocalDateTime now) {
+        return !end(now).isAfter(now);
+    }
+}
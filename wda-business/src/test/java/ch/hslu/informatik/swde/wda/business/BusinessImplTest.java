@@ -3,6 +3,7 @@ package ch.hslu.informatik.swde.wda.business;
 import ch.hslu.informatik.swde.wda.domain.City;
 import ch.hslu.informatik.swde.wda.domain.Weather;
 import ch.hslu.informatik.swde.wda.business.util.Util;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
 import org.junit.jupiter.api.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -187,4 +188,61 @@ class BusinessImplTest {
         );
 
     }
-}
\ No newline at end of file
+
+    @Tag("integration")
+    @Test
+    void getCurrentWeatherOfCity_shouldServeFreshWeatherWithoutApiCall() {
+
+        final BusinessAPI serviceAPI = new BusinessImpl(puTEST);
+
+        // Newer than any reading of the provider and within wda.current.maxAgeMs
+        LocalDateTime stamp = LocalDateTime.now().plusMinutes(1).withNano(0);
+        Util.saveDummyWeather(stamp);
+
+        assertEquals(stamp, serviceAPI.getCurrentWeatherOfCity("Davos").getDTstamp(), "Gespeicherte Wetterdaten sind neuer");
+
+        long fresh = Metrics.counter("business.current.fresh").sum();
+        long fetched = Metrics.counter("business.current.fetched").sum();
+
+        assertEquals(stamp, serviceAPI.getCurrentWeatherOfCity("Davos").getDTstamp(), "Gespeicherte Wetterdaten erwartet");
+        assertEquals(fresh + 1, Metrics.counter("business.current.fresh").sum(), "Frische Wetterdaten wurden nicht aus der Datenbank geliefert");
+        assertEquals(fetched, Metrics.counter("business.current.fetched").sum(), "API wurde trotz frischer Wetterdaten aufgerufen");
+    }
+
+    @Tag("integration")
+    @Test
+    void getCurrentWeatherOfCity_shouldWriteNewerWeatherThrough() throws InterruptedException {
+
+        final BusinessAPI serviceAPI = new BusinessImpl(puTEST);
+
+        // Older than wda.current.maxAgeMs
+        Util.saveDummyWeather();
+        LocalDateTime stored = Util.findLatestWeather("Davos").getDTstamp();
+
+        long fetched = Metrics.counter("business.current.fetched").sum();
+        Weather current = serviceAPI.getCurrentWeatherOfCity("Davos");
+
+        assertEquals(fetched + 1, Metrics.counter("business.current.fetched").sum(), "API wurde nicht aufgerufen");
+        assertTrue(current.getDTstamp().isAfter(stored), "Neuere Wetterdaten der API erwartet");
+
+        // The write happens in the background
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!current.getDTstamp().equals(Util.findLatestWeather("Davos").getDTstamp()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(current.getDTstamp(), Util.findLatestWeather("Davos").getDTstamp(), "Wetterdaten der API wurden nicht gespeichert");
+    }
+
+    @Tag("integration")
+    @Test
+    void getCurrentWeatherOfCity_shouldReturnNullWithoutAnyWeather() {
+
+        final BusinessAPI serviceAPI = new BusinessImpl(puTEST);
+
+        // Known in the database, but unknown to the provider and without stored weather
+        Util.saveDummyCity(9999, "Atlantis");
+
+        assertNull(serviceAPI.getCurrentWeatherOfCity("Atlantis"), "Ohne Wetterdaten muss null geliefert werden (404)");
+        assertNull(serviceAPI.getCurrentWeatherOfCity("Nirgendwo").getDTstamp(), "Unbekannte Stadt darf keine Wetterdaten liefern");
+    }
+}
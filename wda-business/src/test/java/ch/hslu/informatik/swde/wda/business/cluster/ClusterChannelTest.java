@@ -0,0 +1,155 @@
+package ch.hslu.informatik.swde.wda.business.cluster;
+
+import ch.hslu.informatik.swde.wda.business.feed.ChangeFeed;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.persister.DAO.NotificationDAO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterChannelTest {
+
+    private static final LocalDateTime FIRST = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private Consumer<String> deliver;
+    private Runnable reconnect;
+
+    /**
+     * DAO that records the sent payloads and keeps the callbacks of the listener, so the test can deliver payloads.
+     */
+    private NotificationDAO dao() {
+        return new NotificationDAO() {
+            @Override
+            public void notify(String channel, List<String> payloads) {
+                sent.addAll(payloads);
+            }
+
+            @Override
+            public AutoCloseable listen(String channel, Consumer<String> onPayload, Runnable onReconnect) {
+                deliver = onPayload;
+                reconnect = onReconnect;
+                return () -> {
+                };
+            }
+        };
+    }
+
+    /**
+     * Settings with an interval that never elapses during a test, events are only sent when the channel is closed.
+     */
+    private static ClusterSettings settings() {
+        return new ClusterSettings(true, "wda_test", Duration.ofHours(1));
+    }
+
+    private static List<Weather> rows(int cityId, int fromHour, int toHour) {
+        List<Weather> rows = new ArrayList<>();
+        for (int h = fromHour; h < toHour; h++) {
+            Weather w = new Weather();
+            w.setCityId(cityId);
+            w.setDTstamp(FIRST.plusHours(h));
+            rows.add(w);
+        }
+        return rows;
+    }
+
+    private List<ClusterEvent> sentEvents() {
+        List<ClusterEvent> events = new ArrayList<>();
+        for (String payload : sent) {
+            events.addAll(ClusterChannel.decode(payload).events());
+        }
+        return events;
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Close_ShouldSendWrittenRowsCoalescedPerCity() {
+
+        ChangeFeed feed = new ChangeFeed(16);
+        ClusterChannel channel = new ClusterChannel(dao(), feed, settings(), e -> {
+        });
+        channel.start();
+
+        // More rows than the ring holds, the feed blocks until the channel has collected them
+        feed.publish(rows(1, 5, 40));
+        feed.publish(rows(2, 0, 3));
+        feed.publish(rows(1, 0, 5));
+        channel.close();
+
+        List<ClusterEvent> events = sentEvents();
+        assertEquals(2, events.size(), "Pro Stadt soll ein Ereignis gesendet werden");
+        assertTrue(events.contains(ClusterEvent.weather(1, FIRST, FIRST.plusHours(39))), "Zeitraum von Stadt 1 stimmt nicht");
+        assertTrue(events.contains(ClusterEvent.weather(2, FIRST, FIRST.plusHours(2))), "Zeitraum von Stadt 2 stimmt nicht");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Receive_ShouldApplyOnlyEventsOfOtherNodes() {
+
+        List<ClusterEvent> applied = new CopyOnWriteArrayList<>();
+        ChangeFeed feed = new ChangeFeed(16);
+        ClusterChannel channel = new ClusterChannel(dao(), feed, settings(), applied::add);
+        channel.start();
+
+        channel.citiesWritten();
+        channel.close();
+        assertEquals(1, sent.size(), "Ereignis wurde nicht gesendet");
+
+        // The own notification comes back from the database and must be ignored
+        deliver.accept(sent.get(0));
+        assertTrue(applied.isEmpty(), "Eigene Ereignisse dürfen nicht angewendet werden");
+
+        ClusterEvent remote = ClusterEvent.weather(7, FIRST, FIRST.plusHours(1));
+        deliver.accept(ClusterChannel.encode("node-b", List.of(remote)).get(0));
+        assertEquals(List.of(remote), applied, "Ereignis eines anderen Knotens wurde nicht angewendet");
+
+        reconnect.run();
+        assertEquals(ClusterEvent.reset(), applied.get(applied.size() - 1), "Nach einem Verbindungsunterbruch muss zurückgesetzt werden");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Encode_ShouldRoundTripEvents() {
+
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 10, 0);
+        List<ClusterEvent> events = List.of(ClusterEvent.reset(), ClusterEvent.cities(),
+                ClusterEvent.weather(12, from, from.plusMinutes(90)));
+
+        List<String> payloads = ClusterChannel.encode("node-a", events);
+        assertEquals(1, payloads.size(), "Wenige Ereignisse sollen in eine Benachrichtigung passen");
+
+        ClusterChannel.Message message = ClusterChannel.decode(payloads.get(0));
+        assertNotNull(message, "Benachrichtigung konnte nicht gelesen werden");
+        assertEquals("node-a", message.nodeId(), "Falscher Absender");
+        assertEquals(events, message.events(), "Ereignisse stimmen nicht überein");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Encode_ShouldSplitLargeBatchesBelowPayloadLimit() {
+
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 10, 0);
+        List<ClusterEvent> events = new ArrayList<>();
+        for (int cityId = 1; cityId <= 2000; cityId++) {
+            events.add(ClusterEvent.weather(cityId, from, from.plusHours(1)));
+        }
+
+        List<String> payloads = ClusterChannel.encode("node-a", events);
+        assertTrue(payloads.size() > 1, "Grosse Batches sollen aufgeteilt werden");
+
+        List<ClusterEvent> decoded = new ArrayList<>();
+        for (String payload : payloads) {
+            assertTrue(payload.length() <= ClusterChannel.MAX_PAYLOAD_BYTES, "Benachrichtigung ist zu gross");
+            decoded.addAll(ClusterChannel.decode(payload).events());
+        }
+        assertEquals(events, decoded, "Ereignisse gingen beim Aufteilen verloren");
+    }
+}
@@ -0,0 +1,158 @@
+package ch.hslu.informatik.swde.wda.business.dedupe;
+
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.persister.DAO.WeatherDAO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObservationIndexTest {
+
+    private static final LocalDateTime FIRST = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger rebuiltCities = new AtomicInteger();
+
+    /**
+     * DAO with 1000 hourly readings of city 1.
+     */
+    private WeatherDAO dao() {
+        return dao(() -> {
+        });
+    }
+
+    /**
+     * DAO with 1000 hourly readings of city 1, that runs the given action while the city is rebuilt.
+     */
+    private WeatherDAO dao(Runnable whileRebuilding) {
+        return (WeatherDAO) Proxy.newProxyInstance(WeatherDAO.class.getClassLoader(), new Class<?>[]{WeatherDAO.class}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "countWeatherPerCity" -> Map.of(1, 1000L);
+                    case "findWeatherDatesFromCity" -> {
+                        rebuiltCities.incrementAndGet();
+                        whileRebuilding.run();
+                        List<LocalDateTime> stamps = new ArrayList<>();
+                        for (int h = 0; h < 1000; h++) {
+                            stamps.add(FIRST.plusHours(h));
+                        }
+                        yield stamps;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static List<Weather> hourly(int cityId, int fromHour, int toHour) {
+        List<Weather> rows = new ArrayList<>();
+        for (int h = fromHour; h < toHour; h++) {
+            Weather w = new Weather();
+            w.setCityId(cityId);
+            w.setDTstamp(FIRST.plusHours(h));
+            rows.add(w);
+        }
+        return rows;
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Split_ShouldSeparateStoredAndNewRows() {
+
+        ObservationIndex index = new ObservationIndex();
+        assertEquals(10, index.split(1, hourly(1, 0, 10)).candidates().size(), "Ohne geladenen Index sollten alle Zeilen Kandidaten sein");
+
+        index.load(dir.resolve("missing.idx"), dao());
+        assertTrue(index.isReady(), "Index sollte bereit sein");
+
+        ObservationIndex.Split stored = index.split(1, hourly(1, 0, 1000));
+        assertEquals(1000, stored.candidates().size(), "Gespeicherte Zeilen müssen Kandidaten sein");
+
+        ObservationIndex.Split fresh = index.split(1, hourly(1, 1000, 2000));
+        assertTrue(fresh.newRows().size() > 950, "Fast alle neuen Zeilen sollten ohne Datenbank erkannt werden");
+
+        assertEquals(5, index.split(2, hourly(2, 0, 5)).newRows().size(), "Zeilen einer unbekannten Stadt sind neu");
+
+        index.add(hourly(2, 0, 5));
+        assertEquals(5, index.split(2, hourly(2, 0, 5)).candidates().size(), "Hinzugefügte Zeilen müssen Kandidaten sein");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Load_ShouldOnlyRebuildCitiesThatDoNotMatch() {
+
+        Path file = dir.resolve("observations.idx");
+
+        ObservationIndex first = new ObservationIndex();
+        assertEquals(1, first.load(file, dao()), "Ohne Datei sollte die Stadt neu aufgebaut werden");
+        first.save(file);
+
+        ObservationIndex second = new ObservationIndex();
+        assertEquals(0, second.load(file, dao()), "Passende Stadt sollte aus der Datei geladen werden");
+        assertEquals(1, rebuiltCities.get(), "Datenbank sollte nur einmal gelesen werden");
+        assertEquals(1000, second.split(1, hourly(1, 0, 1000)).candidates().size(), "Geladener Index muss alle Zeilen kennen");
+
+        second.add(hourly(1, 1000, 1001));
+        second.save(file);
+        assertEquals(1, new ObservationIndex().load(file, dao()), "Abweichende Stadt sollte neu aufgebaut werden");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Load_ShouldKeepRowsAddedDuringReload() {
+
+        ObservationIndex index = new ObservationIndex();
+        index.load(dir.resolve("missing.idx"), dao());
+        index.add(hourly(2, 0, 5));
+
+        boolean[] readyDuringReload = new boolean[1];
+        index.load(dir.resolve("missing.idx"), dao(() -> {
+            readyDuringReload[0] = index.isReady();
+            index.add(hourly(1, 2000, 2010));
+        }));
+
+        assertFalse(readyDuringReload[0], "Während dem Neuladen darf der Index nicht bereit sein");
+        assertTrue(index.isReady(), "Index sollte nach dem Neuladen bereit sein");
+        assertEquals(10, index.split(1, hourly(1, 2000, 2010)).candidates().size(), "Während dem Neuladen hinzugefügte Zeilen gingen verloren");
+        assertEquals(5, index.split(2, hourly(2, 0, 5)).newRows().size(), "Zeilen, die nicht in der Datenbank sind, sollten nach dem Neuladen fehlen");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Split_ShouldTreatAllRowsAsCandidatesWhenShared() {
+
+        ObservationIndex index = new ObservationIndex();
+        index.load(dir.resolve("missing.idx"), dao());
+        index.setShared(true);
+
+        ObservationIndex.Split split = index.split(2, hourly(2, 0, 5));
+        assertTrue(split.newRows().isEmpty(), "Geteilter Index darf keine Zeile ohne Datenbank als neu melden");
+        assertEquals(5, split.candidates().size(), "Alle Zeilen müssen Kandidaten sein");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Split_ShouldKeepFalsePositiveRateBoundedForLongChains() {
+
+        ObservationIndex index = new ObservationIndex();
+        index.load(dir.resolve("empty.idx"), (WeatherDAO) Proxy.newProxyInstance(WeatherDAO.class.getClassLoader(), new Class<?>[]{WeatherDAO.class},
+                (proxy, method, args) -> Map.of()));
+
+        // Fills a chain of four filters: 16384 + 32768 + 65536 + 131072 rows
+        index.add(hourly(1, 0, 245_760));
+
+        ObservationIndex.Split split = index.split(1, hourly(1, 300_000, 400_000));
+        double rate = split.candidates().size() / 100_000.0;
+
+        assertTrue(rate < 0.02, "Falsch-positiv-Rate der Kette zu hoch: " + rate);
+    }
+}
@@ -0,0 +1,98 @@
+package ch.hslu.informatik.swde.wda.business.feed;
+
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+
+    @Test
+    @Tag("unittest")
+    void test_Publish_ShouldDeliverAllRowsInOrderAndInBatches() throws InterruptedException {
+
+        ChangeFeed feed = new ChangeFeed(16);
+        List<Weather> received = new CopyOnWriteArrayList<>();
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(100);
+
+        try (ChangeFeed.Subscription ignored = feed.subscribe("test-block", batch -> {
+            batchSizes.add(batch.size());
+            received.addAll(batch);
+            batch.forEach(w -> done.countDown());
+        }, ChangeFeed.Backpressure.BLOCK, 8)) {
+
+            List<Weather> rows = rows(100);
+            for (int i = 0; i < rows.size(); i += 10) {
+                feed.publish(rows.subList(i, i + 10));
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS), "Nicht alle Wetterdaten wurden zugestellt");
+            assertEquals(rows, received, "Wetterdaten wurden nicht in der Reihenfolge zugestellt");
+            assertTrue(batchSizes.stream().allMatch(n -> n <= 8), "Batch ist grösser als erlaubt");
+        }
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Publish_ShouldDropRowsOfSlowDroppingSubscriber() throws InterruptedException {
+
+        ChangeFeed feed = new ChangeFeed(16);
+        CountDownLatch stuck = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch caughtUp = new CountDownLatch(1);
+        List<Weather> received = new CopyOnWriteArrayList<>();
+        List<Weather> burst = rows(100);
+
+        try (ChangeFeed.Subscription subscription = feed.subscribe("test-drop", batch -> {
+            stuck.countDown();
+            await(release);
+            received.addAll(batch);
+            if (batch.contains(burst.get(burst.size() - 1))) {
+                caughtUp.countDown();
+            }
+        }, ChangeFeed.Backpressure.DROP, 4)) {
+
+            feed.publish(rows(4));
+            assertTrue(stuck.await(5, TimeUnit.SECONDS), "Erster Batch wurde nicht zugestellt");
+
+            // The subscriber is stuck in its first batch, the producer must not wait for it
+            feed.publish(burst);
+            release.countDown();
+
+            // The newest row is never dropped, once it is delivered the subscriber has caught up
+            assertTrue(caughtUp.await(5, TimeUnit.SECONDS), "Abonnent hat nicht aufgeholt");
+            assertEquals(0, subscription.lag(), "Abonnent hat nicht aufgeholt");
+            assertTrue(subscription.dropped() > 0, "Keine Wetterdaten wurden übersprungen");
+            assertEquals(104, received.size() + subscription.dropped(), "Zugestellte und übersprungene Wetterdaten stimmen nicht");
+        }
+    }
+
+    private static List<Weather> rows(int n) {
+        List<Weather> rows = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < n; i++) {
+            Weather w = new Weather();
+            w.setCityId(1);
+            w.setDTstamp(start.plusMinutes(30L * i));
+            rows.add(w);
+        }
+        return rows;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
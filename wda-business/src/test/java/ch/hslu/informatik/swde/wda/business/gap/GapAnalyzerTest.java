@@ -0,0 +1,60 @@
+package ch.hslu.informatik.swde.wda.business.gap;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GapAnalyzerTest {
+
+    private static final LocalDateTime FIRST = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    private static List<LocalDateTime> hourlyWithout(int hours, int fromMissing, int toMissing) {
+        List<LocalDateTime> stamps = new ArrayList<>();
+        for (int h = 0; h < hours; h++) {
+            if (h < fromMissing || h >= toMissing) {
+                stamps.add(FIRST.plusHours(h));
+            }
+        }
+        return stamps;
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_FindGaps_ShouldFindMissingHours() {
+
+        GapAnalyzer analyzer = new GapAnalyzer(1.5);
+        List<LocalDateTime> stamps = hourlyWithout(48, 10, 15);
+
+        Duration interval = analyzer.interval(stamps);
+        assertEquals(Duration.ofHours(1), interval, "Intervall sollte eine Stunde sein");
+
+        List<GapAnalyzer.Interval> gaps = analyzer.findGaps(stamps, interval, FIRST.plusHours(48));
+        assertEquals(1, gaps.size(), "Es sollte genau eine Lücke geben");
+        assertEquals(FIRST.plusHours(9), gaps.get(0).after(), "Lücke beginnt nach der falschen Messung");
+        assertEquals(FIRST.plusHours(15), gaps.get(0).before(), "Lücke endet vor der falschen Messung");
+        assertEquals(5, gaps.get(0).expectedMissing(), "Anzahl fehlender Messungen ist falsch");
+        assertTrue(gaps.get(0).contains(FIRST.plusHours(12)), "Fehlende Messung liegt nicht in der Lücke");
+        assertFalse(gaps.get(0).contains(FIRST.plusHours(15)), "Gespeicherte Messung liegt in der Lücke");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_FindGaps_ShouldReportMissingEnd() {
+
+        GapAnalyzer analyzer = new GapAnalyzer(1.5);
+        List<LocalDateTime> stamps = hourlyWithout(24, 24, 24);
+
+        List<GapAnalyzer.Interval> gaps = analyzer.findGaps(stamps, analyzer.interval(stamps), FIRST.plusHours(30));
+        assertEquals(1, gaps.size(), "Fehlendes Ende sollte eine Lücke sein");
+        assertEquals(6, gaps.get(0).expectedMissing(), "Anzahl fehlender Messungen ist falsch");
+
+        assertTrue(analyzer.findGaps(stamps, analyzer.interval(stamps), FIRST.plusHours(24)).isEmpty(), "Vollständige Reihe sollte keine Lücke haben");
+        assertTrue(analyzer.findGaps(List.of(FIRST), null, FIRST.plusDays(1)).isEmpty(), "Ohne Intervall sollte es keine Lücke geben");
+    }
+}
@@ -0,0 +1,197 @@
+package ch.hslu.informatik.swde.wda.business.job;
+
+import ch.hslu.informatik.swde.wda.business.dedupe.ObservationIndex;
+import ch.hslu.informatik.swde.wda.business.lock.CityLocks;
+import ch.hslu.informatik.swde.wda.domain.City;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.persister.DAO.WeatherDAO;
+import ch.hslu.informatik.swde.wda.reader.ApiReader;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import ch.hslu.informatik.swde.wda.reader.transport.ResponseBody;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadPipelineTest {
+
+    private static final int YEAR = 2023;
+    private static final LocalDateTime FIRST = LocalDateTime.of(YEAR, 1, 1, 0, 0);
+
+    private final List<Weather> saved = Collections.synchronizedList(new ArrayList<>());
+    private final Set<LocalDateTime> savedOfCity1 = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger reads = new AtomicInteger();
+    private final CityLocks locks = new CityLocks(4);
+
+    /**
+     * Reader that returns three readings per city, the city "Broken" cannot be decoded and decoding "Overflow" kills the worker.
+     */
+    private static ApiReader reader() {
+        return (ApiReader) Proxy.newProxyInstance(ApiReader.class.getClassLoader(), new Class<?>[]{ApiReader.class}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "fetchWeatherByCityAndYear" -> ResponseBody.of((String) args[0]);
+                    case "decodeWeather" -> {
+                        String body = ((ResponseBody) args[0]).text();
+                        if ("Broken".equals(body)) {
+                            throw new IllegalArgumentException("invalid JSON");
+                        }
+                        if ("Overflow".equals(body)) {
+                            throw new StackOverflowError();
+                        }
+                        TreeMap<LocalDateTime, Weather> weather = new TreeMap<>();
+                        for (int h = 0; h < 3; h++) {
+                            Weather w = new Weather();
+                            w.setDTstamp(FIRST.plusHours(h));
+                            weather.put(w.getDTstamp(), w);
+                        }
+                        yield weather;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * DAO in which the first reading of city 1 is already saved.
+     */
+    private WeatherDAO dao() {
+        savedOfCity1.add(FIRST);
+        return (WeatherDAO) Proxy.newProxyInstance(WeatherDAO.class.getClassLoader(), new Class<?>[]{WeatherDAO.class}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "findWeatherDateFromCityByYear" -> {
+                        List<LocalDateTime> stamps = (int) args[1] == 1 ? List.copyOf(savedOfCity1) : List.of();
+                        reads.incrementAndGet();
+                        yield stamps;
+                    }
+                    case "saveWeatherBatch" -> {
+                        @SuppressWarnings("unchecked")
+                        List<Weather> batch = (List<Weather>) args[0];
+                        saved.addAll(batch);
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Slice slice(int id, String name) {
+        City city = new City();
+        city.setId(id);
+        city.setName(name);
+        return new Slice(city, YEAR);
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Execute_ShouldSaveOnlyNewRows() {
+
+        List<Slice> slices = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            slices.add(slice(i, "City" + i));
+        }
+        boolean[] success = new boolean[1];
+
+        JobStatus status = new LoadPipeline("test", reader(), dao(), new PipelineSettings(4, 2, 2, 1, 5), new ObservationIndex(), locks, SliceListener.NONE)
+                .execute(() -> slices, () -> success[0] = true);
+
+        assertEquals(JobStatus.State.SUCCEEDED, status.state());
+        assertTrue(success[0], "Abschluss muss nach erfolgreichem Job ausgeführt werden");
+        assertEquals(10, status.slicesDone());
+        assertEquals(29, status.rowsWritten(), "Bereits gespeicherte Zeile darf nicht erneut gespeichert werden");
+        assertEquals(29, saved.size());
+        assertEquals(2, saved.stream().filter(w -> w.getCityId() == 1).count());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Execute_ShouldReleaseQueuesOfFinishedRunFromGauges() {
+
+        LoadPipeline pipeline = new LoadPipeline("gauges", reader(), dao(), new PipelineSettings(2, 1, 1, 1, 5), new ObservationIndex(), locks, SliceListener.NONE);
+
+        for (int run = 0; run < 2; run++) {
+            assertEquals(JobStatus.State.SUCCEEDED, pipeline.execute(() -> List.of(slice(1, "City1"), slice(2, "City2")), () -> { }).state());
+        }
+
+        Map<String, Object> metrics = Metrics.snapshot();
+        for (String queue : List.of("downloaded", "decoded", "deduped")) {
+            assertEquals(0, metrics.get("pipeline.gauges.queue." + queue), "Nach dem Lauf darf keine Warteschlange mehr gemessen werden");
+        }
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Execute_ShouldReportCommittedAndFailedSlices() {
+
+        boolean[] success = new boolean[1];
+        Map<Slice, Integer> committed = new ConcurrentHashMap<>();
+        List<Slice> failed = new CopyOnWriteArrayList<>();
+        SliceListener listener = new SliceListener() {
+            @Override
+            public void onCommitted(Map<Slice, Integer> rowsBySlice) {
+                committed.putAll(rowsBySlice);
+            }
+
+            @Override
+            public void onFailed(Slice slice, Exception e) {
+                failed.add(slice);
+            }
+        };
+        Slice broken = slice(3, "Broken");
+
+        JobStatus status = new LoadPipeline("test", reader(), dao(), new PipelineSettings(2, 1, 1, 1, 100), new ObservationIndex(), locks, listener)
+                .execute(() -> List.of(slice(1, "City1"), broken, slice(4, "City4")), () -> success[0] = true);
+
+        assertEquals(JobStatus.State.FAILED, status.state());
+        assertFalse(success[0], "Abschluss darf bei fehlgeschlagenem Slice nicht ausgeführt werden");
+        assertEquals(1, status.slicesFailed());
+        assertEquals(2, status.slicesDone(), "Die übrigen Slices müssen trotzdem gespeichert werden");
+        assertEquals(List.of(broken), failed);
+        assertEquals(2, committed.size());
+        assertTrue(committed.containsValue(2), "Für Stadt 1 sind nur zwei Zeilen neu");
+        assertNotNull(status.error());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Execute_ShouldFailInsteadOfHangingWhenWorkerDiesOfError() throws Exception {
+
+        LoadPipeline pipeline = new LoadPipeline("test", reader(), dao(), new PipelineSettings(2, 1, 1, 1, 100), new ObservationIndex(), locks, SliceListener.NONE);
+        Thread job = new Thread(() -> pipeline.execute(() -> List.of(slice(1, "City1"), slice(2, "Overflow"), slice(4, "City4")), () -> {
+        }));
+        job.start();
+        job.join(10_000);
+
+        assertFalse(job.isAlive(), "Die Pipeline darf nicht auf die Endmarkierung des abgestürzten Workers warten");
+        assertEquals(JobStatus.State.FAILED, pipeline.status().state());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Execute_ShouldNotSaveRowsWrittenByAnotherWriterSinceDedupe() throws Exception {
+
+        JobStatus[] status = new JobStatus[1];
+        Thread job = new Thread(() -> status[0] = new LoadPipeline("test", reader(), dao(), new PipelineSettings(1, 1, 1, 1, 100),
+                new ObservationIndex(), locks, SliceListener.NONE).execute(() -> List.of(slice(1, "City1")), () -> {
+        }));
+
+        // Another writer holds the lock of the city and saves the second reading after the dedupe stage read the database
+        locks.run("City1", () -> {
+            job.start();
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (reads.get() == 0 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            savedOfCity1.add(FIRST.plusHours(1));
+        });
+        job.join(10_000);
+
+        assertEquals(JobStatus.State.SUCCEEDED, status[0].state());
+        assertEquals(1, saved.size(), "Vom anderen Schreiber gespeicherte Zeile darf nicht erneut gespeichert werden");
+        assertEquals(FIRST.plusHours(2), saved.get(0).getDTstamp());
+    }
+}
@@ -0,0 +1,102 @@
+package ch.hslu.informatik.swde.wda.business.lock;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityLocksTest {
+
+    @Test
+    @Tag("unittest")
+    void test_Coalesce_ShouldRunConcurrentIdenticalOperationsOnce() throws InterruptedException {
+
+        CountDownLatch joined = new CountDownLatch(5);
+        CityLocks locks = new CityLocks(16, joined::countDown);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread first = Thread.ofVirtual().start(() -> locks.coalesce("Davos", "current", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS), "Erste Operation wurde nicht gestartet");
+
+        List<Thread> joiners = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            joiners.add(Thread.ofVirtual().start(() -> locks.coalesce("davos", "current", runs::incrementAndGet)));
+        }
+        assertTrue(joined.await(5, TimeUnit.SECONDS), "Gleiche Operationen haben nicht auf die laufende gewartet");
+        release.countDown();
+
+        first.join();
+        for (Thread t : joiners) {
+            t.join();
+        }
+        assertEquals(1, runs.get(), "Gleiche Operationen wurden mehrfach ausgeführt");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Run_ShouldNotBlockOtherCities() throws InterruptedException {
+
+        CityLocks locks = new CityLocks(1024);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        Thread davos = Thread.ofVirtual().start(() -> locks.run("Davos", () -> {
+            started.countDown();
+            await(release);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS), "Operation wurde nicht gestartet");
+
+        AtomicInteger runs = new AtomicInteger();
+        Thread chur = Thread.ofVirtual().start(() -> locks.run("Chur", runs::incrementAndGet));
+        chur.join(5_000);
+        assertEquals(1, runs.get(), "Andere Stadt wurde blockiert");
+
+        release.countDown();
+        davos.join();
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_RunAll_ShouldHoldLocksOfAllCities() throws InterruptedException {
+
+        CityLocks locks = new CityLocks(1024);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        Thread refresh = Thread.ofVirtual().start(() -> locks.runAll(List.of("Davos", "Chur", "davos"), () -> {
+            started.countDown();
+            await(release);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS), "Operation wurde nicht gestartet");
+
+        AtomicInteger runs = new AtomicInteger();
+        Thread chur = Thread.ofVirtual().start(() -> locks.run("Chur", runs::incrementAndGet));
+        chur.join(200);
+        assertEquals(0, runs.get(), "Stadt wurde während der gemeinsamen Operation geschrieben");
+
+        release.countDown();
+        refresh.join();
+        chur.join();
+        assertEquals(1, runs.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ch.hslu.informatik.swde.wda.business.poll;
+
+import ch.hslu.informatik.swde.wda.business.dedupe.ObservationIndex;
+import ch.hslu.informatik.swde.wda.business.lock.CityLocks;
+import ch.hslu.informatik.swde.wda.domain.City;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.persister.DAO.CityDAO;
+import ch.hslu.informatik.swde.wda.persister.DAO.WeatherDAO;
+import ch.hslu.informatik.swde.wda.reader.ApiReader;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurrentWeatherPollerTest {
+
+    private static final LocalDateTime STAMP = LocalDateTime.now().withNano(0).minusMinutes(5);
+
+    private final List<Weather> saved = new CopyOnWriteArrayList<>();
+    private final CountDownLatch polled = new CountDownLatch(3);
+
+    private static City city(int id) {
+        City city = new City();
+        city.setId(id);
+        city.setName("City" + id);
+        return city;
+    }
+
+    /**
+     * Reader that returns a reading of five minutes ago for every city.
+     */
+    private ApiReader reader() {
+        return (ApiReader) Proxy.newProxyInstance(ApiReader.class.getClassLoader(), new Class<?>[]{ApiReader.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("readCurrentWeatherByCity")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            Weather w = new Weather();
+            w.setDTstamp(STAMP);
+            polled.countDown();
+            return w;
+        });
+    }
+
+    private static CityDAO cities() {
+        return (CityDAO) Proxy.newProxyInstance(CityDAO.class.getClassLoader(), new Class<?>[]{CityDAO.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("alle")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return List.of(city(1), city(2), city(3));
+        });
+    }
+
+    /**
+     * DAO in which the reading of city 2 was already saved by another node.
+     */
+    private WeatherDAO weather() {
+        return (WeatherDAO) Proxy.newProxyInstance(WeatherDAO.class.getClassLoader(), new Class<?>[]{WeatherDAO.class}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "findLatestWeatherByCity" -> null;
+                    case "findLatestWeatherOfCities" -> {
+                        Weather w = new Weather();
+                        w.setCityId(2);
+                        w.setDTstamp(STAMP);
+                        @SuppressWarnings("unchecked")
+                        Collection<Integer> cityIds = (Collection<Integer>) args[0];
+                        yield cityIds.contains(2) ? Map.of(2, w) : Map.of();
+                    }
+                    case "saveWeatherBatch" -> {
+                        @SuppressWarnings("unchecked")
+                        List<Weather> batch = (List<Weather>) args[0];
+                        saved.addAll(batch);
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Close_ShouldNotSaveReadingsOfCitiesHandedOver() throws InterruptedException {
+
+        // City 1 was handed over to another node after it was polled, the cached ownership does not know it yet
+        CityOwnership ownership = new CityOwnership() {
+            @Override
+            public boolean owns(int cityId) {
+                return true;
+            }
+
+            @Override
+            public Set<Integer> confirm(Collection<Integer> cityIds) {
+                Set<Integer> owned = new HashSet<>(cityIds);
+                owned.remove(1);
+                return owned;
+            }
+        };
+        List<Weather> written = new CopyOnWriteArrayList<>();
+        PollerSettings settings = new PollerSettings(true, Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofHours(1),
+                Duration.ofHours(1), Duration.ofHours(1));
+
+        CurrentWeatherPoller poller = new CurrentWeatherPoller(reader(), cities(), weather(), settings, new ObservationIndex(), new CityLocks(4), written::addAll, ownership);
+        poller.start();
+        assertTrue(polled.await(5, TimeUnit.SECONDS), "Nicht alle Städte wurden abgefragt");
+        poller.close();
+
+        assertEquals(1, saved.size(), "Nur die Messung von Stadt 3 ist neu");
+        assertEquals(3, saved.get(0).getCityId(), "Falsche Stadt gespeichert");
+        assertEquals(saved, written, "Nur gespeicherte Messungen dürfen weitergegeben werden");
+    }
+}
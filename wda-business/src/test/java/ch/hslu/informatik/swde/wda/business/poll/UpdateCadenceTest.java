@@ -0,0 +1,68 @@
+package ch.hslu.informatik.swde.wda.business.poll;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateCadenceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private static UpdateCadence cadence() {
+        return new UpdateCadence(Duration.ofMinutes(30), Duration.ofSeconds(30), Duration.ofMinutes(1));
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Observe_ShouldLearnIntervalAndLag() {
+
+        UpdateCadence cadence = cadence();
+
+        // Readings every 20 minutes, fetched 2 minutes after their timestamp
+        for (int i = 0; i < 4; i++) {
+            LocalDateTime stamp = START.plusMinutes(20L * i);
+            assertTrue(cadence.observe(stamp, stamp.plusMinutes(2)), "Neue Messung wurde nicht erkannt");
+        }
+
+        assertEquals(Duration.ofMinutes(20), cadence.interval(), "Intervall wurde nicht gelernt");
+        assertEquals(Duration.ofMinutes(2), cadence.lag(), "Verzögerung wurde nicht gelernt");
+
+        LocalDateTime last = START.plusMinutes(60);
+        assertEquals(last.plusMinutes(22).plusSeconds(30), cadence.nextPollAt(last.plusMinutes(2)),
+                "Nächste Abfrage ist nicht kurz nach der erwarteten Messung");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Observe_ShouldBackOffOnWastedPolls() {
+
+        UpdateCadence cadence = cadence();
+        cadence.observe(START, START.plusMinutes(1));
+
+        LocalDateTime overdue = START.plusMinutes(40);
+        assertFalse(cadence.observe(START, overdue), "Alte Messung wurde als neu erkannt");
+        assertEquals(overdue.plusMinutes(2), cadence.nextPollAt(overdue), "Erste Wiederholung ist falsch");
+
+        assertFalse(cadence.observe(START, overdue), "Alte Messung wurde als neu erkannt");
+        assertEquals(overdue.plusMinutes(4), cadence.nextPollAt(overdue), "Wiederholung wurde nicht verlängert");
+
+        for (int i = 0; i < 10; i++) {
+            cadence.observe(START, overdue);
+        }
+        assertEquals(overdue.plusMinutes(30), cadence.nextPollAt(overdue), "Wiederholung ist länger als das Intervall");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_NextPollAt_ShouldPollImmediatelyIfNeverPolled() {
+
+        UpdateCadence cadence = cadence();
+        cadence.seed(START);
+
+        assertEquals(START.plusHours(2), cadence.nextPollAt(START.plusHours(2)), "Stadt wurde nicht sofort abgefragt");
+    }
+}
@@ -0,0 +1,72 @@
+package ch.hslu.informatik.swde.wda.business.queue;
+
+import ch.hslu.informatik.swde.wda.domain.City;
+import ch.hslu.informatik.swde.wda.persister.DAO.CityDAO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityLeasesTest {
+
+    /**
+     * DAO with the cities 1 and 2.
+     */
+    private static CityDAO cities() {
+        return (CityDAO) Proxy.newProxyInstance(CityDAO.class.getClassLoader(), new Class<?>[]{CityDAO.class}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "getNumberOfCities" -> 2L;
+                    case "alle" -> {
+                        City first = new City();
+                        first.setId(1);
+                        City second = new City();
+                        second.setId(2);
+                        yield List.of(first, second);
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_FairShare_ShouldCoverAllCities() {
+
+        assertEquals(34, CityLeases.fairShare(100, 3), "Der Anteil muss aufgerundet werden");
+        assertTrue(CityLeases.fairShare(100, 3) * 3 >= 100, "Alle Städte müssen abgedeckt sein");
+        assertEquals(50, CityLeases.fairShare(100, 2));
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_FairShare_ShouldTakeAllCitiesWithoutOtherNodes() {
+
+        assertEquals(100, CityLeases.fairShare(100, 1));
+        assertEquals(100, CityLeases.fairShare(100, 0), "Ohne bekannte Instanzen muss eine Instanz alle Städte abfragen");
+        assertEquals(0, CityLeases.fairShare(0, 4));
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Confirm_ShouldDetectCitiesTakenOverByAnotherNode() {
+
+        InMemoryWorkQueueDAO dao = new InMemoryWorkQueueDAO();
+        // The leases of the first node expire immediately, as if it paused longer than its lease
+        CityLeases paused = new CityLeases(new WorkQueue(dao, new QueueSettings(true, Duration.ZERO, Duration.ofMinutes(1))), cities());
+        CityLeases other = new CityLeases(new WorkQueue(dao, new QueueSettings(true, Duration.ofMinutes(5), Duration.ofMinutes(1))), cities());
+
+        paused.refresh();
+        assertTrue(paused.owns(1) && paused.owns(2), "Ohne andere Instanzen muss eine Instanz alle Städte abfragen");
+
+        other.refresh();
+        assertEquals(Set.of(1, 2), other.confirm(List.of(1, 2)), "Abgelaufene Reservationen müssen übernommen werden");
+
+        assertTrue(paused.owns(1), "Ohne Datenbankzugriff kennt die pausierte Instanz die Übergabe noch nicht");
+        assertEquals(Set.of(), paused.confirm(List.of(1, 2)), "Übernommene Städte dürfen nicht bestätigt werden");
+        assertFalse(paused.owns(1), "Nach der Bestätigung muss die Übergabe bekannt sein");
+    }
+}
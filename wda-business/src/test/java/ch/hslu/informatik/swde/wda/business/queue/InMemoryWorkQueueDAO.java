@@ -0,0 +1,193 @@
+package ch.hslu.informatik.swde.wda.business.queue;
+
+import ch.hslu.informatik.swde.wda.domain.WorkItem;
+import ch.hslu.informatik.swde.wda.persister.DAO.WorkQueueDAO;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Work queue DAO that keeps the items in memory, with the semantics of the database queries.
+ * Several WorkQueue instances sharing one DAO behave like nodes sharing one database.
+ */
+class InMemoryWorkQueueDAO implements WorkQueueDAO {
+
+    private final List<WorkItem> items = new ArrayList<>();
+    private long nextId = 1;
+
+    @Override
+    public synchronized void enqueue(List<WorkItem> newItems) {
+        for (WorkItem item : newItems) {
+            WorkItem existing = find(item.getCityId(), item.getTask());
+            if (existing == null) {
+                setId(item, nextId++);
+                items.add(item);
+            } else if (existing.getState() == WorkItem.State.FAILED) {
+                existing.setState(WorkItem.State.PENDING);
+                existing.setOwner(null);
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<WorkItem> claim(String taskPrefix, String owner, int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        List<WorkItem> claimed = new ArrayList<>();
+        for (WorkItem item : items) {
+            if (claimed.size() == limit) {
+                break;
+            }
+            boolean open = item.getState() == WorkItem.State.PENDING
+                    || item.getState() == WorkItem.State.LEASED && !item.getLeaseUntil().isAfter(now);
+            if (open && item.getTask().startsWith(taskPrefix)) {
+                item.setState(WorkItem.State.LEASED);
+                item.setOwner(owner);
+                item.setLeaseUntil(now.plus(lease));
+                item.setAttempts(item.getAttempts() + 1);
+                claimed.add(item);
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public synchronized int heartbeat(String owner, Duration lease) {
+        int n = 0;
+        for (WorkItem item : leased(owner, "")) {
+            item.setLeaseUntil(LocalDateTime.now().plus(lease));
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized boolean complete(long id, String owner, WorkItem.State state, String error) {
+        for (WorkItem item : leased(owner, "")) {
+            if (item.getId() == id) {
+                item.setState(state);
+                item.setLastError(error);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized int release(String owner, Collection<Long> ids) {
+        int n = 0;
+        for (WorkItem item : leased(owner, "")) {
+            if (ids.contains(item.getId())) {
+                item.setState(WorkItem.State.PENDING);
+                item.setOwner(null);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized List<WorkItem> findLeased(String owner, String taskPrefix) {
+        return leased(owner, taskPrefix);
+    }
+
+    @Override
+    public synchronized List<WorkItem> findByState(String taskPrefix, WorkItem.State state) {
+        return items.stream().filter(item -> item.getState() == state && item.getTask().startsWith(taskPrefix)).toList();
+    }
+
+    @Override
+    public synchronized Map<WorkItem.State, Long> countByState(String taskPrefix) {
+        Map<WorkItem.State, Long> counts = new EnumMap<>(WorkItem.State.class);
+        for (WorkItem item : items) {
+            if (item.getTask().startsWith(taskPrefix)) {
+                counts.merge(item.getState(), 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public synchronized long countActiveLeases(String taskPrefix) {
+        LocalDateTime now = LocalDateTime.now();
+        return items.stream().filter(item -> item.getTask().startsWith(taskPrefix) && item.getState() == WorkItem.State.LEASED
+                && item.getLeaseUntil().isAfter(now)).count();
+    }
+
+    @Override
+    public synchronized int delete(String taskPrefix, boolean expiredOnly) {
+        LocalDateTime now = LocalDateTime.now();
+        int before = items.size();
+        items.removeIf(item -> item.getTask().startsWith(taskPrefix)
+                && (!expiredOnly || item.getLeaseUntil() != null && !item.getLeaseUntil().isAfter(now)));
+        return before - items.size();
+    }
+
+    @Override
+    public void speichern(WorkItem obj) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void loeschen(int id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void aktualisieren(WorkItem obj) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem findById(int id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WorkItem findEntityByFieldAndString(String fieldName, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public synchronized List<WorkItem> alle() {
+        return new ArrayList<>(items);
+    }
+
+    @Override
+    public boolean ifTableExist() {
+        return true;
+    }
+
+    @Override
+    public synchronized void deleteTable() {
+        items.clear();
+    }
+
+    private List<WorkItem> leased(String owner, String taskPrefix) {
+        return items.stream().filter(item -> item.getState() == WorkItem.State.LEASED && owner.equals(item.getOwner())
+                && item.getTask().startsWith(taskPrefix)).toList();
+    }
+
+    private WorkItem find(int cityId, String task) {
+        for (WorkItem item : items) {
+            if (item.getCityId() == cityId && item.getTask().equals(task)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The ID is generated by the database, there is no setter.
+     */
+    private static void setId(WorkItem item, long id) {
+        try {
+            Field field = WorkItem.class.getDeclaredField("id");
+            field.setAccessible(true);
+            field.setLong(item, id);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ch.hslu.informatik.swde.wda.business.queue;
+
+import ch.hslu.informatik.swde.wda.business.job.Slice;
+import ch.hslu.informatik.swde.wda.business.job.SliceListener;
+import ch.hslu.informatik.swde.wda.domain.City;
+import ch.hslu.informatik.swde.wda.domain.WorkItem;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueSliceSourceTest {
+
+    private static final int YEAR = 2023;
+
+    private final InMemoryWorkQueueDAO dao = new InMemoryWorkQueueDAO();
+
+    private static City city(int id) {
+        City city = new City();
+        city.setId(id);
+        city.setName("City" + id);
+        return city;
+    }
+
+    /**
+     * Source of one node for a job with one slice for each of the cities 1 to 3.
+     */
+    private QueueSliceSource node() {
+        WorkQueue queue = new WorkQueue(dao, new QueueSettings(true, Duration.ofMinutes(5), Duration.ofMillis(10)));
+        return new QueueSliceSource(queue, "init", () -> List.of(new Slice(city(1), YEAR), new Slice(city(2), YEAR), new Slice(city(3), YEAR)),
+                QueueSliceSourceTest::city, SliceListener.NONE);
+    }
+
+    private static Map<Slice, Integer> committed(List<Slice> slices) {
+        Map<Slice, Integer> rows = new HashMap<>();
+        for (Slice slice : slices) {
+            rows.put(slice, 1);
+        }
+        return rows;
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Next_ShouldShareSlicesBetweenNodes() throws Exception {
+
+        QueueSliceSource first = node();
+        QueueSliceSource second = node();
+        assertEquals(3, first.open());
+        assertEquals(3, second.open());
+        assertEquals(3, dao.countByState("init:").get(WorkItem.State.PENDING), "Slices dürfen nur einmal eingereiht werden");
+
+        List<Slice> ofFirst = first.next(2);
+        List<Slice> ofSecond = second.next(2);
+        assertEquals(2, ofFirst.size());
+        assertEquals(1, ofSecond.size(), "Die zweite Instanz darf nur den übrigen Slice erhalten");
+
+        Set<Integer> cityIds = new HashSet<>();
+        List<Slice> all = new ArrayList<>(ofFirst);
+        all.addAll(ofSecond);
+        for (Slice slice : all) {
+            cityIds.add(slice.city().getId());
+        }
+        assertEquals(Set.of(1, 2, 3), cityIds, "Jeder Slice muss genau einmal geladen werden");
+
+        first.onCommitted(committed(ofFirst));
+        second.onCommitted(committed(ofSecond));
+        assertTrue(first.next(2).isEmpty(), "Nach Abschluss aller Slices muss der Job enden");
+        assertTrue(second.next(2).isEmpty(), "Nach Abschluss aller Slices muss der Job enden");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Close_ShouldHandOverLeasedSlices() throws Exception {
+
+        QueueSliceSource first = node();
+        QueueSliceSource second = node();
+        first.open();
+        second.open();
+
+        assertEquals(3, first.next(3).size());
+        first.close();
+
+        List<Slice> handedOver = second.next(3);
+        assertEquals(3, handedOver.size(), "Freigegebene Slices müssen von der anderen Instanz übernommen werden");
+        second.onCommitted(committed(handedOver));
+        assertTrue(second.next(3).isEmpty());
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Next_ShouldFailJobIfSliceFailedOnOtherNode() throws Exception {
+
+        QueueSliceSource first = node();
+        QueueSliceSource second = node();
+        first.open();
+        second.open();
+
+        List<Slice> slices = first.next(3);
+        first.onFailed(slices.get(0), new IllegalArgumentException("invalid JSON"));
+        first.onCommitted(committed(slices.subList(1, 3)));
+
+        assertTrue(first.next(3).isEmpty(), "Der eigene Fehler wird von der Pipeline gemeldet");
+        assertThrows(IllegalStateException.class, () -> second.next(3), "Fehler einer anderen Instanz müssen den Job scheitern lassen");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Next_ShouldIgnoreItemsOutsideThePlanOfThisRun() throws Exception {
+
+        // Left over from earlier runs: an open item of another year and a failed item of a city no longer planned
+        WorkQueue old = new WorkQueue(dao, new QueueSettings(true, Duration.ofMinutes(5), Duration.ofMillis(10)));
+        dao.enqueue(List.of(new WorkItem(1, "init:" + (YEAR - 1)), new WorkItem(9, "init:" + YEAR)));
+        WorkItem stale = old.claim("init:" + YEAR, 1).get(0);
+        old.complete(stale.getId(), "invalid JSON");
+
+        QueueSliceSource source = node();
+        source.open();
+
+        List<Slice> slices = source.next(10);
+        assertEquals(3, slices.size(), "Nur die geplanten Slices dürfen übernommen werden");
+        slices.forEach(slice -> assertEquals(YEAR, slice.year(), "Offene Aufgabe eines anderen Jahres wurde übernommen"));
+
+        source.onCommitted(committed(slices));
+        assertTrue(source.next(10).isEmpty(), "Alte Fehler ausserhalb des Plans dürfen den Job nicht scheitern lassen");
+        assertEquals(1, dao.countByState("init:" + (YEAR - 1)).get(WorkItem.State.PENDING), "Aufgabe eines anderen Jahres wurde verändert");
+    }
+}
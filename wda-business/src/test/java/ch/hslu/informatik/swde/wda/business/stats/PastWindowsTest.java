@@ -0,0 +1,109 @@
+package ch.hslu.informatik.swde.wda.business.stats;
+
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PastWindowsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 10, 12, 0);
+
+    /**
+     * Hourly readings of the last hours before NOW, the oldest first.
+     */
+    private static WeatherSeries hourly(int hours) {
+        WeatherSeries.Builder builder = WeatherSeries.builder(hours);
+        for (int h = hours; h > 0; h--) {
+            builder.add(NOW.minusHours(h), h, 1000, 50, 5);
+        }
+        return builder.build();
+    }
+
+    private static Weather reading(int cityId, LocalDateTime stamp) {
+        Weather w = new Weather();
+        w.setCityId(cityId);
+        w.setDTstamp(stamp);
+        w.setCurrTempCelsius(20);
+        w.setPressure(1000);
+        w.setHumidity(50);
+        w.setWindSpeed(5);
+        return w;
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Put_ShouldNotStoreWindowReadBeforeWrite() {
+
+        PastWindows windows = new PastWindows(10);
+        long version = windows.version(1);
+
+        // Written while the window was read from the database
+        windows.append(List.of(reading(1, NOW.minusMinutes(5))), NOW);
+
+        assertEquals(24, windows.put("Davos", 1, 1, version, hourly(24), NOW).count(), "Statistik des gelesenen Fensters erwartet");
+        assertNull(windows.get("Davos", 1, NOW), "Veraltetes Fenster wurde gespeichert");
+
+        windows.put("Davos", 1, 1, windows.version(1), hourly(24), NOW);
+        assertNotNull(windows.get("Davos", 1, NOW), "Aktuelles Fenster wurde nicht gespeichert");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Put_ShouldEvictLeastRecentlyUsedWindow() {
+
+        PastWindows windows = new PastWindows(2);
+        windows.put("Davos", 1, 1, windows.version(1), hourly(24), NOW);
+        windows.put("Chur", 2, 1, windows.version(2), hourly(24), NOW);
+
+        assertNotNull(windows.get("Davos", 1, NOW), "Fenster wurde nicht gespeichert");
+        windows.put("Bern", 3, 1, windows.version(3), hourly(24), NOW);
+
+        assertNotNull(windows.get("Davos", 1, NOW), "Zuletzt verwendetes Fenster wurde verdrängt");
+        assertNull(windows.get("Chur", 1, NOW), "Am längsten nicht verwendetes Fenster wurde nicht verdrängt");
+        assertNotNull(windows.get("Bern", 1, NOW), "Neues Fenster wurde nicht gespeichert");
+        assertFalse(windows.contains(2), "Verdrängtes Fenster ist noch vorhanden");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Append_ShouldDropWindowOnOlderReading() {
+
+        PastWindows windows = new PastWindows(10);
+        windows.put("Davos", 1, 1, windows.version(1), hourly(24), NOW);
+
+        windows.append(List.of(reading(1, NOW.minusMinutes(5))), NOW);
+        assertEquals(25, windows.get("Davos", 1, NOW).count(), "Neue Messung wurde nicht angehängt");
+
+        // A backfilled reading between two readings of the window
+        windows.append(List.of(reading(1, NOW.minusMinutes(90))), NOW);
+        assertNull(windows.get("Davos", 1, NOW), "Fenster mit älterer Messung wurde nicht verworfen");
+        assertFalse(windows.contains(1), "Verworfenes Fenster ist noch vorhanden");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Append_ShouldNotCountReadingsOfTheWindowTwice() {
+
+        PastWindows windows = new PastWindows(10);
+        windows.put("Davos", 1, 1, windows.version(1), hourly(24), NOW);
+
+        // The window already contains the newest reading, e.g. it was read after another node committed it
+        windows.append(1, WeatherSeries.builder(1).add(NOW.minusHours(1), 1, 1000, 50, 5).build(), NOW);
+        assertEquals(24, windows.get("Davos", 1, NOW).count(), "Messung des Fensters wurde doppelt gezählt");
+
+        windows.append(List.of(reading(1, NOW.minusHours(1))), NOW);
+        assertEquals(24, windows.get("Davos", 1, NOW).count(), "Messung des Fensters wurde doppelt gezählt");
+
+        // A range of another node the window partly contains cannot be appended without counting twice
+        WeatherSeries range = WeatherSeries.builder(2).add(NOW.minusHours(2), 2, 1000, 50, 5)
+                .add(NOW.minusMinutes(5), 20, 1000, 50, 5).build();
+        windows.append(1, range, NOW);
+        assertNull(windows.get("Davos", 1, NOW), "Teilweise enthaltener Bereich hätte das Fenster verwerfen sollen");
+    }
+}
@@ -0,0 +1,61 @@
+package ch.hslu.informatik.swde.wda.business.stats;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsCacheTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Test
+    @Tag("unittest")
+    void test_Invalidate_ShouldOnlyRemoveOverlappingWindows() {
+
+        StatsCache cache = new StatsCache(Duration.ofMinutes(5), 100);
+        StatsWindow past = StatsWindow.days(7);
+        StatsWindow other = StatsWindow.days(30);
+
+        cache.put("Davos", 1, past, StatsMetrics.MIN_MAX, cache.version(1), "davos", NOW);
+        cache.put("Davos", 1, other, StatsMetrics.MEAN, cache.version(1), "davos-mean", NOW);
+        cache.put("Chur", 2, past, StatsMetrics.MIN_MAX, cache.version(2), "chur", NOW);
+
+        assertEquals("davos", cache.get("Davos", past, StatsMetrics.MIN_MAX, NOW), "Ergebnis wurde nicht gespeichert");
+
+        // A reading of Davos 10 days ago only overlaps the 30 day window
+        cache.invalidate(1, NOW.minusDays(10), NOW.minusDays(10));
+        assertEquals("davos", cache.get("Davos", past, StatsMetrics.MIN_MAX, NOW), "Nicht betroffenes Fenster wurde verworfen");
+        assertNull(cache.get("Davos", other, StatsMetrics.MEAN, NOW), "Betroffenes Fenster wurde nicht verworfen");
+
+        cache.invalidate(1, NOW, NOW);
+        assertNull(cache.get("Davos", past, StatsMetrics.MIN_MAX, NOW), "Betroffenes Fenster wurde nicht verworfen");
+        assertEquals("chur", cache.get("Chur", past, StatsMetrics.MIN_MAX, NOW), "Fenster einer anderen Stadt wurde verworfen");
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Put_ShouldPinClosedWindowsAndSkipStaleResults() {
+
+        StatsCache cache = new StatsCache(Duration.ofMinutes(5), 100);
+        StatsWindow open = StatsWindow.days(7);
+        StatsWindow closed = StatsWindow.week(1);
+        LocalDateTime now = closed.end(NOW).plusDays(1);
+
+        cache.put("Davos", 1, closed, StatsMetrics.MIN_MAX, cache.version(1), "week", now);
+        cache.put("Davos", 1, open, StatsMetrics.MIN_MAX, cache.version(1), "days", now);
+
+        LocalDateTime later = now.plusHours(1);
+        assertEquals("week", cache.get("Davos", closed, StatsMetrics.MIN_MAX, later), "Geschlossenes Fenster ist abgelaufen");
+        assertNull(cache.get("Davos", open, StatsMetrics.MIN_MAX, later), "Offenes Fenster ist nicht abgelaufen");
+
+        // A write between reading the version and storing the result
+        long version = cache.version(1);
+        cache.invalidate(1, now, now);
+        cache.put("Davos", 1, open, StatsMetrics.MIN_MAX, version, "stale", now);
+        assertNull(cache.get("Davos", open, StatsMetrics.MIN_MAX, now), "Veraltetes Ergebnis wurde gespeichert");
+    }
+}
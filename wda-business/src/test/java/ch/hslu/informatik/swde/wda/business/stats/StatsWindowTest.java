@@ -0,0 +1,26 @@
+package ch.hslu.informatik.swde.wda.business.stats;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsWindowTest {
+
+    @Test
+    @Tag("unittest")
+    void test_Start_ShouldUseYearOfNow() {
+
+        LocalDateTime now = LocalDateTime.of(2023, 12, 31, 23, 59, 59);
+
+        assertEquals(LocalDateTime.of(2023, 2, 1, 0, 0), StatsWindow.month(2).start(now), "Monat muss im Jahr von now liegen");
+        assertEquals(LocalDateTime.of(2023, 3, 1, 0, 0), StatsWindow.month(2).end(now), "Monat muss den ganzen letzten Tag enthalten");
+        assertEquals(LocalDateTime.of(2023, 1, 8, 0, 0), StatsWindow.week(2).start(now), "Woche muss im Jahr von now liegen");
+        assertFalse(StatsWindow.month(12).isClosed(now), "Dezember ist vor Neujahr offen");
+
+        // After New Year the window refers to the new year
+        assertEquals(LocalDateTime.of(2024, 12, 1, 0, 0), StatsWindow.month(12).start(now.plusSeconds(1)));
+    }
+}
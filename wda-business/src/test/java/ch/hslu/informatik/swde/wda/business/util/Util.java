@@ -30,6 +30,8 @@ public class Util {
         em.createQuery("DELETE FROM Weather e").executeUpdate();
         em.createQuery("DELETE FROM City e").executeUpdate();
         em.createQuery("DELETE FROM Init e").executeUpdate();
+        em.createQuery("DELETE FROM BackfillCheckpoint e").executeUpdate();
+        em.createQuery("DELETE FROM WorkItem e").executeUpdate();
 
         em.getTransaction().commit();
 
@@ -38,11 +40,24 @@ public class Util {
     }
 
     public static void saveDummyWeather() {
+        saveDummyWeather(LocalDateTime.now().minusDays(1));
+    }
 
-        City dummyCity = new City(7270, "Davos", "CH");
-        daoC.speichern(dummyCity);
+    public static void saveDummyWeather(LocalDateTime dtstamp) {
+
+        saveDummyCity(7270, "Davos");
 
-        Weather dummyWeather = new Weather(daoC.findCityIdByName("Davos"), LocalDateTime.now().minusDays(1), "DUMMY", "DUMMY", 69.69, 69.69, 69.69, 69.69, 69.69);
+        Weather dummyWeather = new Weather(daoC.findCityIdByName("Davos"), dtstamp, "DUMMY", "DUMMY", 69.69, 69.69, 69.69, 69.69, 69.69);
         daoW.speichern(dummyWeather);
     }
+
+    public static void saveDummyCity(int zip, String name) {
+
+        City dummyCity = new City(zip, name, "CH");
+        daoC.speichern(dummyCity);
+    }
+
+    public static Weather findLatestWeather(String cityName) {
+        return daoW.findLatestWeatherByCity(daoC.findCityIdByName(cityName));
+    }
 }
\ No newline at end of file
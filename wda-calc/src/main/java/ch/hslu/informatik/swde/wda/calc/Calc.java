@@ -1,9 +1,12 @@
 package ch.hslu.informatik.swde.wda.calc;
 
+import ch.hslu.informatik.swde.wda.calc.online.OnlineStats;
 import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherBucket;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
 
-import java.time.LocalDateTime;
-import java.util.TreeMap;
+import java.time.ZoneId;
+import java.util.List;
 
 /**
  * Diese Schnittstelle gibt die Funktionalitäten vor, die für die
@@ -16,74 +19,39 @@ import java.util.TreeMap;
 public interface Calc {
 
     /**
-     * Berechnet den Durchschnittswert der Temperatur aus einer Liste von Wetterdaten.
+     * Berechnet Anzahl, Minimum, Maximum, Summe und Durchschnitt aller Messgrössen in einem Durchlauf.
      *
-     * @param weatherMap Eine Liste von Wetter-Objekten.
-     * @return Den Durchschnittswert der Temperatur, gerundet auf zwei Dezimalstellen.
+     * @param weather Die Wetterdaten, z.B. die Werte einer TreeMap.
+     * @return Die Kennzahlen aller Messgrössen.
      */
-    double getMeanForTemperature(TreeMap<LocalDateTime, Weather> weatherMap);
+    WeatherStats getStatistics(Iterable<Weather> weather);
 
     /**
-     * Berechnet den Durchschnittswert des Luftdrucks aus einer Liste von Wetterdaten.
+     * Berechnet Anzahl, Minimum, Maximum, Summe und Durchschnitt aller Messgrössen einer Zeitreihe.
      *
-     * @param weatherMap Eine Liste von Wetter-Objekten.
-     * @return Den Durchschnittswert des Luftdrucks, gerundet auf zwei Dezimalstellen.
+     * @param series Die Zeitreihe.
+     * @return Die Kennzahlen aller Messgrössen.
      */
-    double getMeanForPressure(TreeMap<LocalDateTime, Weather> weatherMap);
+    WeatherStats getStatistics(WeatherSeries series);
 
     /**
-     * Berechnet den Durchschnittswert der Luftfeuchtigkeit aus einer Liste von Wetterdaten.
+     * Berechnet Durchschnitt, Standardabweichung, Quantile und Histogramme aller Messgrössen einer Zeitreihe
+     * mit Akkumulatoren, die mit weiteren Werten ergänzt und mit anderen zusammengeführt werden können.
      *
-     * @param weatherMap Eine Liste von Wetter-Objekten.
-     * @return Den Durchschnittswert der Luftfeuchtigkeit, gerundet auf zwei Dezimalstellen.
+     * @param series Die Zeitreihe.
+     * @return Die Akkumulatoren aller Messgrössen.
      */
-    double getMeanForHumidity(TreeMap<LocalDateTime, Weather> weatherMap);
+    OnlineStats getOnlineStatistics(WeatherSeries series);
 
     /**
-     * Ermittelt den höchsten Temperaturwert aus einer Liste von Wetterdaten.
+     * Fasst die Messungen einer Zeitreihe in einem Durchlauf in Kalender-Intervallen zusammen,
+     * mit Anzahl, Minimum, Maximum, Durchschnitt und Standardabweichung pro Intervall und Messgrösse.
      *
-     * @param weatherMap Eine Liste von Wetter-Objekten.
-     * @return Den höchsten Temperaturwert.
+     * @param series      Die Zeitreihe.
+     * @param granularity Die Länge der Intervalle, z.B. ein Tag.
+     * @param source      Die Zeitzone der Zeitstempel der Zeitreihe.
+     * @param zone        Die Zeitzone, in der die Intervalle gebildet werden.
+     * @return Die Intervalle mit Messungen, aufsteigend sortiert.
      */
-    double getMaxForTemperature(TreeMap<LocalDateTime, Weather> weatherMap);
-
-    /**
-     * Ermittelt den niedrigsten Temperaturwert aus einer Liste von Wetterdaten.
-     *
-     * @param weatherMap Eine Liste von Wetter-Objekten.
-     * @return Den niedrigsten Temperaturwert.
-     */
-    double getMinForTemperature(TreeMap<LocalDateTime, Weather> weatherMap);
-
-    /**
-     * Ermittelt den höchsten Luftdruckwert aus einer Liste von Wetterdaten.
-     *
-     * @param weatherMap Eine Liste von Wetter-Objekten.
-     * @return Den höchsten Luftdruckwert.
-     */
-    double getMaxForPressure(TreeMap<LocalDateTime, Weather> weatherMap);
-
-    /**
-     * Ermittelt den niedrigsten Luftdruckwert aus einer Liste von Wetterdaten.
-     *
-     * @param weatherMap Eine Liste von Wetter-Objekten.
-     * @return Den niedrigsten Luftdruckwert.
-     */
-    double getMinForPressure(TreeMap<LocalDateTime, Weather> weatherMap);
-
-    /**
-     * Ermittelt den höchsten Luftfeuchtigkeitswert aus einer Liste von Wetterdaten.
-     *
-     * @param weatherMap Eine Liste von Wetter-Objekten.
-     * @return Den höchsten Luftfeuchtigkeitswert.
-     */
-    double getMaxForHumidity(TreeMap<LocalDateTime, Weather> weatherMap);
-
-    /**
-     * Ermittelt den niedrigsten Luftfeuchtigkeitswert aus einer Liste von Wetterdaten.
-     *
-     * @param weatherMap Eine Liste von Wetter-Objekten.
-     * @return Den niedrigsten Luftfeuchtigkeitswert.
-     */
-    double getMinForHumidity(TreeMap<LocalDateTime, Weather> weatherMap);
+    List<WeatherBucket> getBuckets(WeatherSeries series, WeatherBucket.Granularity granularity, ZoneId source, ZoneId zone);
 }
@@ -0,0 +1,53 @@
+package ch.hslu.informatik.swde.wda.calc;
+
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Diese Aufzählung beschreibt die Messgrössen eines Wetter-Objekts, für die Kennzahlen berechnet werden.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public enum Measure {
+
+    TEMPERATURE("Temperature", Weather::getCurrTempCelsius, WeatherSeries.Column.TEMPERATURE),
+    PRESSURE("Pressure", Weather::getPressure, WeatherSeries.Column.PRESSURE),
+    HUMIDITY("Humidity", Weather::getHumidity, WeatherSeries.Column.HUMIDITY),
+    WIND_SPEED("WindSpeed", Weather::getWindSpeed, WeatherSeries.Column.WIND_SPEED);
+
+    private final String label;
+    private final ToDoubleFunction<Weather> value;
+    private final WeatherSeries.Column column;
+
+    Measure(String label, ToDoubleFunction<Weather> value, WeatherSeries.Column column) {
+        this.label = label;
+        this.value = value;
+        this.column = column;
+    }
+
+    /**
+     * @return Den Namen der Messgrösse in den JSON-Antworten, z.B. "Temperature".
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * @param weather Ein Wetter-Objekt.
+     * @return Den Wert der Messgrösse im Wetter-Objekt.
+     */
+    public double of(Weather weather) {
+        return value.applyAsDouble(weather);
+    }
+
+    /**
+     * @return Die Spalte der Messgrösse in einer Zeitreihe.
+     */
+    public WeatherSeries.Column column() {
+        return column;
+    }
+}
@@ -0,0 +1,22 @@
+package ch.hslu.informatik.swde.wda.calc;
+
+/**
+ * Diese Klasse enthält die Kennzahlen einer Messgrösse.
+ *
+ * @param count Die Anzahl Werte.
+ * @param min   Den niedrigsten Wert, NaN ohne Werte.
+ * @param max   Den höchsten Wert, NaN ohne Werte.
+ * @param sum   Die Summe der Werte.
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public record MeasureStats(long count, double min, double max, double sum) {
+
+    /**
+     * @return Den Durchschnittswert, NaN ohne Werte.
+     */
+    public double mean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+}
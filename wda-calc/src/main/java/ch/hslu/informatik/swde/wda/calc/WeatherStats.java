@@ -0,0 +1,133 @@
+package ch.hslu.informatik.swde.wda.calc;
+
+import ch.hslu.informatik.swde.wda.calc.kernel.Kernels;
+import ch.hslu.informatik.swde.wda.calc.kernel.SeriesKernels;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+
+import java.util.Arrays;
+
+/**
+ * Diese Klasse enthält die Kennzahlen aller Messgrössen einer Menge von Wetterdaten.
+ * <p>
+ * Die Kennzahlen werden in einem einzigen Durchlauf über die Wetterdaten berechnet, bei einer Zeitreihe
+ * in einem Durchlauf pro Spalte über die primitiven Arrays, wenn möglich mit SIMD-Instruktionen. Minimum und Maximum starten
+ * beim ersten Wert, so stimmen sie auch für Werte, die alle negativ sind. NaN steht für einen fehlenden Messwert
+ * und wird übersprungen, die Anzahl Werte wird daher pro Messgrösse gezählt.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public final class WeatherStats {
+
+    private static final Measure[] MEASURES = Measure.values();
+
+    private final long count;
+    private final MeasureStats[] stats;
+
+    private WeatherStats(long count, MeasureStats[] stats) {
+        this.count = count;
+        this.stats = stats;
+    }
+
+    /**
+     * Erstellt die Kennzahlen aus bereits berechneten Kennzahlen pro Messgrösse, z.B. aus einem gleitenden Zeitfenster.
+     *
+     * @param count    Die Anzahl Wetter-Objekte.
+     * @param measures Die Kennzahlen pro Messgrösse, in der Reihenfolge von {@link Measure}.
+     * @return Die Kennzahlen.
+     */
+    public static WeatherStats of(long count, MeasureStats... measures) {
+        if (measures.length != MEASURES.length) {
+            throw new IllegalArgumentException("Expected " + MEASURES.length + " measures, got " + measures.length);
+        }
+        return new WeatherStats(count, measures.clone());
+    }
+
+    /**
+     * Berechnet die Kennzahlen aller Messgrössen in einem Durchlauf.
+     *
+     * @param weather Die Wetterdaten.
+     * @return Die Kennzahlen, ohne Werte einer Messgrösse sind deren Minimum, Maximum und Durchschnitt NaN.
+     */
+    public static WeatherStats of(Iterable<Weather> weather) {
+
+        int n = MEASURES.length;
+        double[] min = new double[n];
+        double[] max = new double[n];
+        double[] sum = new double[n];
+        long[] counts = new long[n];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        long count = 0;
+
+        for (Weather w : weather) {
+            for (int i = 0; i < n; i++) {
+                double v = MEASURES[i].of(w);
+                if (Double.isNaN(v)) {
+                    continue;
+                }
+                if (v < min[i]) {
+                    min[i] = v;
+                }
+                if (v > max[i]) {
+                    max[i] = v;
+                }
+                sum[i] += v;
+                counts[i]++;
+            }
+            count++;
+        }
+
+        MeasureStats[] stats = new MeasureStats[n];
+        for (int i = 0; i < n; i++) {
+            stats[i] = counts[i] == 0
+                    ? new MeasureStats(0, Double.NaN, Double.NaN, 0)
+                    : new MeasureStats(counts[i], min[i], max[i], sum[i]);
+        }
+        return new WeatherStats(count, stats);
+    }
+
+    /**
+     * Berechnet die Kennzahlen aller Messgrössen einer Zeitreihe mit den beim Start gewählten {@link Kernels},
+     * Summen können sich daher im Rahmen der Rundungsfehler von denen der Wetter-Objekte unterscheiden.
+     *
+     * @param series Die Zeitreihe.
+     * @return Die Kennzahlen, ohne Werte einer Messgrösse sind deren Minimum, Maximum und Durchschnitt NaN.
+     */
+    public static WeatherStats of(WeatherSeries series) {
+
+        SeriesKernels kernels = Kernels.get();
+        MeasureStats[] stats = new MeasureStats[MEASURES.length];
+        int from = series.offset();
+        int to = from + series.size();
+
+        for (int m = 0; m < MEASURES.length; m++) {
+            stats[m] = kernels.summarize(series.column(MEASURES[m].column()), from, to);
+        }
+        return new WeatherStats(series.size(), stats);
+    }
+
+    /**
+     * @return Die Anzahl Wetter-Objekte.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return true, falls keine Wetterdaten vorhanden waren.
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @param measure Die Messgrösse.
+     * @return Die Kennzahlen der Messgrösse.
+     */
+    public MeasureStats get(Measure measure) {
+        return stats[measure.ordinal()];
+    }
+}
@@ -0,0 +1,122 @@
+package ch.hslu.informatik.swde.wda.calc.bucket;
+
+import ch.hslu.informatik.swde.wda.calc.online.Moments;
+import ch.hslu.informatik.swde.wda.domain.WeatherBucket;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diese Klasse fasst die Messungen einer Zeitreihe in Kalender-Intervallen zusammen, z.B. pro Tag oder pro Monat.
+ * <p>
+ * Die Zeitreihe wird einmal der Reihe nach durchlaufen. Jeder Zeitstempel wird aus der Zeitzone der gespeicherten
+ * Wetterdaten in die gewünschte Zeitzone umgerechnet und seinem Intervall zugeordnet, die Grenzen des Intervalls
+ * werden nur berechnet, wenn ein Zeitstempel das aktuelle Intervall verlässt. Pro Intervall und Messgrösse werden
+ * Anzahl, Minimum, Maximum, Durchschnitt und Varianz mit {@link Moments} nachgeführt. Die Intervalle folgen der Uhr
+ * der gewünschten Zeitzone, wie {@code date_trunc} in PostgreSQL, so liefern Berechnung im Speicher und in der
+ * Datenbank dieselben Intervalle. Intervalle ohne Messungen werden ausgelassen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public final class BucketAggregator {
+
+    private static final WeatherSeries.Column[] COLUMNS = WeatherSeries.Column.values();
+
+    private BucketAggregator() {
+    }
+
+    /**
+     * Fasst die Messungen einer Zeitreihe in Intervallen zusammen.
+     *
+     * @param series      Die Zeitreihe, mit lokalen Zeitstempeln der Zeitzone {@code source}.
+     * @param granularity Die Länge der Intervalle.
+     * @param source      Die Zeitzone der Zeitstempel der Zeitreihe.
+     * @param zone        Die Zeitzone, in der die Intervalle gebildet werden.
+     * @return Die Intervalle mit Messungen, aufsteigend sortiert, mit Grenzen in lokaler Zeit der Zeitzone {@code zone}.
+     */
+    public static List<WeatherBucket> aggregate(WeatherSeries series, WeatherBucket.Granularity granularity, ZoneId source, ZoneId zone) {
+
+        ZoneShift shift = new ZoneShift(source, zone);
+        long[] stamps = series.epochSeconds();
+        double[][] values = new double[COLUMNS.length][];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            values[c] = series.column(COLUMNS[c]);
+        }
+
+        List<Accumulator> buckets = new ArrayList<>();
+        Accumulator current = null;
+        int from = series.offset();
+        int to = from + series.size();
+
+        for (int i = from; i < to; i++) {
+            long local = shift.apply(stamps[i]);
+            if (current == null || local < current.start || local >= current.end) {
+                current = bucket(buckets, granularity, local);
+            }
+            current.count++;
+            for (int c = 0; c < COLUMNS.length; c++) {
+                current.moments[c].add(values[c][i]);
+            }
+        }
+
+        List<WeatherBucket> res = new ArrayList<>(buckets.size());
+        for (Accumulator bucket : buckets) {
+            res.add(bucket.toBucket());
+        }
+        return res;
+    }
+
+    /**
+     * Returns the bucket of a timestamp. Usually it is a new bucket after the last one, only when the clocks of the target zone
+     * go back, a timestamp can fall into an earlier bucket again.
+     */
+    private static Accumulator bucket(List<Accumulator> buckets, WeatherBucket.Granularity granularity, long local) {
+
+        LocalDateTime start = granularity.truncate(LocalDateTime.ofEpochSecond(local, 0, ZoneOffset.UTC));
+        long startSecond = start.toEpochSecond(ZoneOffset.UTC);
+
+        int i = buckets.size();
+        while (i > 0 && buckets.get(i - 1).start > startSecond) {
+            i--;
+        }
+        if (i > 0 && buckets.get(i - 1).start == startSecond) {
+            return buckets.get(i - 1);
+        }
+
+        Accumulator bucket = new Accumulator(startSecond, granularity.next(start).toEpochSecond(ZoneOffset.UTC));
+        buckets.add(i, bucket);
+        return bucket;
+    }
+
+    private static final class Accumulator {
+
+        private final long start;
+        private final long end;
+        private final Moments[] moments = new Moments[COLUMNS.length];
+        private long count;
+
+        private Accumulator(long start, long end) {
+            this.start = start;
+            this.end = end;
+            for (int c = 0; c < COLUMNS.length; c++) {
+                moments[c] = new Moments();
+            }
+        }
+
+        private WeatherBucket toBucket() {
+            WeatherBucket.Stats[] stats = new WeatherBucket.Stats[COLUMNS.length];
+            for (int c = 0; c < COLUMNS.length; c++) {
+                Moments m = moments[c];
+                stats[c] = new WeatherBucket.Stats(m.count(), m.min(), m.max(), m.mean(), m.variance());
+            }
+            return new WeatherBucket(LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC),
+                    LocalDateTime.ofEpochSecond(end, 0, ZoneOffset.UTC), count, stats);
+        }
+    }
+}
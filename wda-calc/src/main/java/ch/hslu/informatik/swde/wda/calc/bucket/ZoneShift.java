@@ -0,0 +1,76 @@
+package ch.hslu.informatik.swde.wda.calc.bucket;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Diese Klasse rechnet die lokalen Zeitstempel einer Zeitzone in die lokalen Zeitstempel einer anderen Zeitzone um,
+ * beide als Epochensekunden der lokalen Zeit wie in einer WeatherSeries.
+ * <p>
+ * Die Verschiebung zwischen den Zeitzonen ändert sich nur bei einem Wechsel der Sommerzeit in einer der beiden Zonen.
+ * Sie wird deshalb nur neu berechnet, wenn ein Zeitstempel nach dem nächsten Wechsel liegt, sonst kostet die Umrechnung
+ * eine Addition. Zeitstempel in der Stunde, die sich beim Zurückstellen der Uhren wiederholt, gelten wie bei PostgreSQL
+ * als Winterzeit. Die Zeitstempel müssen aufsteigend umgerechnet werden.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+final class ZoneShift {
+
+    private final ZoneId source;
+    private final ZoneRules sourceRules;
+    private final ZoneRules targetRules;
+    private final boolean identity;
+
+    private long validFrom = Long.MAX_VALUE;
+    private long validUntil = Long.MIN_VALUE;
+    private long shift;
+
+    ZoneShift(ZoneId source, ZoneId target) {
+        this.source = source;
+        this.sourceRules = source.getRules();
+        this.targetRules = target.getRules();
+        this.identity = source.normalized().equals(target.normalized());
+    }
+
+    /**
+     * @param local a local timestamp of the source zone in epoch seconds
+     * @return the same instant as local timestamp of the target zone in epoch seconds
+     */
+    long apply(long local) {
+        if (identity) {
+            return local;
+        }
+        if (local < validFrom || local >= validUntil) {
+            update(local);
+        }
+        return local + shift;
+    }
+
+    private void update(long local) {
+
+        LocalDateTime time = LocalDateTime.ofEpochSecond(local, 0, ZoneOffset.UTC);
+        Instant instant = time.atZone(source).withLaterOffsetAtOverlap().toInstant();
+        ZoneOffset sourceOffset = sourceRules.getOffset(instant);
+        ZoneOffset targetOffset = targetRules.getOffset(instant);
+        shift = targetOffset.getTotalSeconds() - sourceOffset.getTotalSeconds();
+
+        // Valid until the next transition of either zone, expressed as local time of the source zone
+        long until = Long.MAX_VALUE;
+        ZoneOffsetTransition next = sourceRules.nextTransition(instant);
+        if (next != null) {
+            until = Math.min(next.getDateTimeBefore().toEpochSecond(ZoneOffset.UTC), next.getDateTimeAfter().toEpochSecond(ZoneOffset.UTC));
+        }
+        next = targetRules.nextTransition(instant);
+        if (next != null) {
+            until = Math.min(until, next.getInstant().getEpochSecond() + sourceOffset.getTotalSeconds());
+        }
+        validFrom = local;
+        validUntil = Math.max(until, local + 1);
+    }
+}
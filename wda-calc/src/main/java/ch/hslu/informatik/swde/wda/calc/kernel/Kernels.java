@@ -0,0 +1,59 @@
+package ch.hslu.informatik.swde.wda.calc.kernel;
+
+/**
+ * Diese Klasse wählt beim Start die Implementierung der Aggregationen.
+ * <p>
+ * Die Vector API wird verwendet, wenn die JVM mit {@code --add-modules jdk.incubator.vector} gestartet wurde,
+ * die CPU mehr als einen Wert pro Vektor verarbeitet und sie nicht mit {@code -Dwda.calc.vector=false}
+ * ausgeschaltet ist. Sonst, oder wenn das Laden fehlschlägt, wird die skalare Implementierung verwendet.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public final class Kernels {
+
+    private static final SeriesKernels SCALAR = new ScalarKernels();
+    private static final SeriesKernels SELECTED = select();
+
+    private Kernels() {
+    }
+
+    /**
+     * @return Die beim Start gewählte Implementierung.
+     */
+    public static SeriesKernels get() {
+        return SELECTED;
+    }
+
+    /**
+     * @return Die skalare Implementierung.
+     */
+    public static SeriesKernels scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * @return true, falls die Vector API verwendet wird.
+     */
+    public static boolean isVectorized() {
+        return SELECTED != SCALAR;
+    }
+
+    private static SeriesKernels select() {
+
+        if (!Boolean.parseBoolean(System.getProperty("wda.calc.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return SCALAR;
+        }
+
+        try {
+            // Loaded by name, so the class is only linked against the incubator module if it is present
+            Class<?> type = Class.forName(Kernels.class.getPackageName() + ".VectorKernels");
+            SeriesKernels vector = (SeriesKernels) type.getDeclaredConstructor().newInstance();
+            return (int) type.getDeclaredMethod("lanes").invoke(null) > 1 ? vector : SCALAR;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ch.hslu.informatik.swde.wda.calc.kernel;
+
+import ch.hslu.informatik.swde.wda.calc.MeasureStats;
+
+/**
+ * Diese Klasse implementiert die Aggregationen mit einer einfachen Schleife. Sie wird verwendet,
+ * wenn die Vector API nicht verfügbar ist, und dient als Referenz für die anderen Implementierungen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public final class ScalarKernels implements SeriesKernels {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public double sum(double[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            if (!Double.isNaN(values[i])) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public double min(double[] values, int from, int to) {
+        return summarize(values, from, to).min();
+    }
+
+    @Override
+    public double max(double[] values, int from, int to) {
+        return summarize(values, from, to).max();
+    }
+
+    @Override
+    public MeasureStats summarize(double[] values, int from, int to) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            double v = values[i];
+            if (Double.isNaN(v)) {
+                continue;
+            }
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+            sum += v;
+            count++;
+        }
+        if (count == 0) {
+            return new MeasureStats(0, Double.NaN, Double.NaN, 0);
+        }
+        return new MeasureStats(count, min, max, sum);
+    }
+}
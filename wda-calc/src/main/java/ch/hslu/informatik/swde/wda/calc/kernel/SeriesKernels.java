@@ -0,0 +1,58 @@
+package ch.hslu.informatik.swde.wda.calc.kernel;
+
+import ch.hslu.informatik.swde.wda.calc.MeasureStats;
+
+/**
+ * Diese Schnittstelle gibt die Aggregationen über einen Ausschnitt eines primitiven Arrays vor,
+ * z.B. über eine Spalte einer WeatherSeries.
+ * <p>
+ * Alle Implementierungen liefern für Minimum und Maximum exakt dieselben Werte. NaN steht für einen fehlenden Messwert
+ * und wird wie bei {@code Moments}, {@code BucketAggregator} und {@code SlidingWindow} übersprungen, gezählt werden nur
+ * die übrigen Werte. Summen dürfen sich durch eine andere Reihenfolge der Additionen
+ * um Rundungsfehler unterscheiden, höchstens um {@code n * ulp(Summe der Beträge)} bei {@code n} Werten.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public interface SeriesKernels {
+
+    /**
+     * @return Den Namen der Implementierung, z.B. für Logs und Benchmarks.
+     */
+    String name();
+
+    /**
+     * @param values Die Werte.
+     * @param from   Der erste Index, inklusiv.
+     * @param to     Der letzte Index, exklusiv.
+     * @return Die Summe der Werte ohne NaN, 0 ohne Werte.
+     */
+    double sum(double[] values, int from, int to);
+
+    /**
+     * @param values Die Werte.
+     * @param from   Der erste Index, inklusiv.
+     * @param to     Der letzte Index, exklusiv.
+     * @return Den niedrigsten Wert ohne NaN, NaN ohne Werte.
+     */
+    double min(double[] values, int from, int to);
+
+    /**
+     * @param values Die Werte.
+     * @param from   Der erste Index, inklusiv.
+     * @param to     Der letzte Index, exklusiv.
+     * @return Den höchsten Wert ohne NaN, NaN ohne Werte.
+     */
+    double max(double[] values, int from, int to);
+
+    /**
+     * Berechnet Anzahl, Minimum, Maximum und Summe der Werte ohne NaN in einem Durchlauf.
+     *
+     * @param values Die Werte.
+     * @param from   Der erste Index, inklusiv.
+     * @param to     Der letzte Index, exklusiv.
+     * @return Die Kennzahlen der Werte.
+     */
+    MeasureStats summarize(double[] values, int from, int to);
+}
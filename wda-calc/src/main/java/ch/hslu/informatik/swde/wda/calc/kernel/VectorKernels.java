@@ -0,0 +1,109 @@
+package ch.hslu.informatik.swde.wda.calc.kernel;
+
+import ch.hslu.informatik.swde.wda.calc.MeasureStats;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Diese Klasse implementiert die Aggregationen mit der Vector API, so verarbeitet die CPU mehrere Werte pro Instruktion.
+ * <p>
+ * Die Werte werden in Blöcken der bevorzugten Vektorlänge der CPU verarbeitet, jede Spur des Vektors führt
+ * ein eigenes Minimum, Maximum und eine eigene Teilsumme, die am Schluss zusammengefasst werden.
+ * NaN-Spuren werden über eine Maske durch neutrale Werte ersetzt und nicht gezählt.
+ * Der Rest, der keinen ganzen Block füllt, wird skalar verarbeitet.
+ * Benötigt das Modul {@code jdk.incubator.vector}, ausgewählt wird die Klasse von {@link Kernels}.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public final class VectorKernels implements SeriesKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.length() + "x" + Double.SIZE;
+    }
+
+    /**
+     * @return Die Anzahl Werte pro Vektor.
+     */
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public double sum(double[] values, int from, int to) {
+        int upper = from + SPECIES.loopBound(to - from);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = from;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            acc = acc.add(v.blend(0, v.test(VectorOperators.IS_NAN)));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            if (!Double.isNaN(values[i])) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public double min(double[] values, int from, int to) {
+        return summarize(values, from, to).min();
+    }
+
+    @Override
+    public double max(double[] values, int from, int to) {
+        return summarize(values, from, to).max();
+    }
+
+    @Override
+    public MeasureStats summarize(double[] values, int from, int to) {
+        int upper = from + SPECIES.loopBound(to - from);
+        DoubleVector min = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        DoubleVector max = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        long missing = 0;
+        int i = from;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            VectorMask<Double> nan = v.test(VectorOperators.IS_NAN);
+            if (nan.anyTrue()) {
+                missing += nan.trueCount();
+                min = min.min(v.blend(Double.POSITIVE_INFINITY, nan));
+                max = max.max(v.blend(Double.NEGATIVE_INFINITY, nan));
+                sum = sum.add(v.blend(0, nan));
+            } else {
+                min = min.min(v);
+                max = max.max(v);
+                sum = sum.add(v);
+            }
+        }
+
+        double lo = min.reduceLanes(VectorOperators.MIN);
+        double hi = max.reduceLanes(VectorOperators.MAX);
+        double total = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            double v = values[i];
+            if (Double.isNaN(v)) {
+                missing++;
+                continue;
+            }
+            lo = Math.min(lo, v);
+            hi = Math.max(hi, v);
+            total += v;
+        }
+
+        long count = Math.max(0, to - from) - missing;
+        if (count == 0) {
+            return new MeasureStats(0, Double.NaN, Double.NaN, 0);
+        }
+        return new MeasureStats(count, lo, hi, total);
+    }
+}
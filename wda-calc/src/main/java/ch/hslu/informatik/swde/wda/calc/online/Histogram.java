@@ -0,0 +1,175 @@
+package ch.hslu.informatik.swde.wda.calc.online;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Diese Klasse zählt die Werte einer Messgrösse in Klassen gleicher Breite, z.B. die Temperatur in Schritten von 1 °C.
+ * <p>
+ * Werte unterhalb der ersten Klasse und ab dem Ende der letzten Klasse werden separat gezählt,
+ * so geht kein Wert verloren und der Speicher ist fest. Histogramme mit denselben Klassen werden zusammengeführt,
+ * indem die Zähler addiert werden. NaN-Werte werden ignoriert. Nicht thread-safe.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public final class Histogram {
+
+    /**
+     * Die grösste Anzahl Klassen. Die Histogramme der Messgrössen brauchen höchstens 100,
+     * eine grössere Anzahl in gelesenen Bytes stammt aus beschädigten Daten.
+     */
+    public static final int MAX_BINS = 10_000;
+
+    private final double lowerBound;
+    private final double width;
+    private final long[] counts;
+    private long underflow;
+    private long overflow;
+
+    /**
+     * Erstellt ein leeres Histogramm.
+     *
+     * @param lowerBound Die untere Grenze der ersten Klasse, inklusiv.
+     * @param width      Die Breite einer Klasse.
+     * @param bins       Die Anzahl Klassen, zwischen 1 und {@link #MAX_BINS}.
+     */
+    public Histogram(double lowerBound, double width, int bins) {
+        if (!(width > 0) || bins < 1 || bins > MAX_BINS || !Double.isFinite(lowerBound)) {
+            throw new IllegalArgumentException("Invalid histogram: " + bins + " bins of " + width + " from " + lowerBound);
+        }
+        this.lowerBound = lowerBound;
+        this.width = width;
+        this.counts = new long[bins];
+    }
+
+    /**
+     * Zählt einen Wert.
+     *
+     * @param value Der Wert, NaN wird ignoriert.
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value < lowerBound) {
+            underflow++;
+            return;
+        }
+        double bin = Math.floor((value - lowerBound) / width);
+        if (bin >= counts.length) {
+            overflow++;
+        } else {
+            counts[(int) bin]++;
+        }
+    }
+
+    /**
+     * Addiert die Zähler eines anderen Histogramms mit denselben Klassen.
+     *
+     * @param other Das andere Histogramm.
+     * @throws IllegalArgumentException falls die Klassen nicht übereinstimmen.
+     */
+    public void merge(Histogram other) {
+        if (!hasSameBins(other)) {
+            throw new IllegalArgumentException("Histograms with different bins cannot be merged");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        underflow += other.underflow;
+        overflow += other.overflow;
+    }
+
+    /**
+     * @return Die Anzahl Klassen.
+     */
+    public int bins() {
+        return counts.length;
+    }
+
+    /**
+     * @param bin Die Klasse, von 0 bis bins() - 1.
+     * @return Die untere Grenze der Klasse, inklusiv.
+     */
+    public double lowerBound(int bin) {
+        return lowerBound + bin * width;
+    }
+
+    /**
+     * @param bin Die Klasse, von 0 bis bins() - 1.
+     * @return Die obere Grenze der Klasse, exklusiv.
+     */
+    public double upperBound(int bin) {
+        return lowerBound + (bin + 1) * width;
+    }
+
+    /**
+     * @param bin Die Klasse, von 0 bis bins() - 1.
+     * @return Die Anzahl Werte in der Klasse.
+     */
+    public long count(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * @return Die Anzahl Werte unterhalb der ersten Klasse.
+     */
+    public long underflow() {
+        return underflow;
+    }
+
+    /**
+     * @return Die Anzahl Werte ab dem Ende der letzten Klasse.
+     */
+    public long overflow() {
+        return overflow;
+    }
+
+    /**
+     * @return Die Anzahl aller gezählten Werte.
+     */
+    public long total() {
+        return Arrays.stream(counts).sum() + underflow + overflow;
+    }
+
+    /**
+     * @param other Das andere Histogramm.
+     * @return true, falls beide Histogramme dieselben Klassen haben und zusammengeführt werden können.
+     */
+    public boolean hasSameBins(Histogram other) {
+        return other.lowerBound == lowerBound && other.width == width && other.counts.length == counts.length;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeDouble(lowerBound);
+        out.writeDouble(width);
+        out.writeInt(counts.length);
+        for (long c : counts) {
+            out.writeLong(c);
+        }
+        out.writeLong(underflow);
+        out.writeLong(overflow);
+    }
+
+    /**
+     * Reads a histogram written by {@link #writeTo}. The number of bins is checked before the counters are allocated,
+     * so damaged bytes cannot allocate an arbitrarily large array.
+     *
+     * @throws IllegalArgumentException if the bins are not valid
+     */
+    static Histogram readFrom(DataInput in) throws IOException {
+        double lowerBound = in.readDouble();
+        double width = in.readDouble();
+        Histogram histogram = new Histogram(lowerBound, width, in.readInt());
+        for (int i = 0; i < histogram.counts.length; i++) {
+            histogram.counts[i] = in.readLong();
+        }
+        histogram.underflow = in.readLong();
+        histogram.overflow = in.readLong();
+        return histogram;
+    }
+}
@@ -0,0 +1,148 @@
+package ch.hslu.informatik.swde.wda.calc.online;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Diese Klasse berechnet Anzahl, Minimum, Maximum, Durchschnitt und Varianz einer Messgrösse fortlaufend,
+ * ohne die Werte zu speichern.
+ * <p>
+ * Durchschnitt und Varianz werden nach Welford nachgeführt, so gehen bei grossen Werten wie dem Luftdruck
+ * keine Stellen verloren wie bei der Summe der Quadrate. Zwei Akkumulatoren werden nach Chan et al. zusammengeführt,
+ * das Ergebnis ist bis auf Rundungsfehler dasselbe, wie wenn alle Werte einem Akkumulator hinzugefügt worden wären.
+ * NaN-Werte sind fehlende Messungen und werden ignoriert. Nicht thread-safe.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public final class Moments {
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Fügt einen Wert hinzu.
+     *
+     * @param value Der Wert, NaN wird ignoriert.
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Fügt die Werte eines anderen Akkumulators hinzu, der andere bleibt unverändert.
+     *
+     * @param other Der andere Akkumulator.
+     */
+    public void merge(Moments other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+        long n = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / n;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / n);
+        count = n;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return Die Anzahl Werte.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return Den niedrigsten Wert, NaN ohne Werte.
+     */
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return Den höchsten Wert, NaN ohne Werte.
+     */
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @return Den Durchschnitt, NaN ohne Werte.
+     */
+    public double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return Die Summe der Werte.
+     */
+    public double sum() {
+        return mean * count;
+    }
+
+    /**
+     * @return Die Varianz der Werte als Grundgesamtheit, NaN ohne Werte.
+     */
+    public double variance() {
+        return count == 0 ? Double.NaN : m2 / count;
+    }
+
+    /**
+     * @return Die Varianz der Werte als Stichprobe, NaN mit weniger als zwei Werten.
+     */
+    public double sampleVariance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    /**
+     * @return Die Standardabweichung der Werte als Grundgesamtheit, NaN ohne Werte.
+     */
+    public double stdDev() {
+        return Math.sqrt(variance());
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(mean);
+        out.writeDouble(m2);
+        out.writeDouble(min);
+        out.writeDouble(max);
+    }
+
+    static Moments readFrom(DataInput in) throws IOException {
+        Moments moments = new Moments();
+        moments.count = in.readLong();
+        moments.mean = in.readDouble();
+        moments.m2 = in.readDouble();
+        moments.min = in.readDouble();
+        moments.max = in.readDouble();
+        return moments;
+    }
+}
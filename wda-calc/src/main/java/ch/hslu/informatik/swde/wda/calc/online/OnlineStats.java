@@ -0,0 +1,227 @@
+package ch.hslu.informatik.swde.wda.calc.online;
+
+import ch.hslu.informatik.swde.wda.calc.Measure;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Diese Klasse berechnet die Kennzahlen aller Messgrössen fortlaufend: Durchschnitt und Varianz mit {@link Moments},
+ * Quantile mit einem {@link QuantileDigest} und die Verteilung mit einem {@link Histogram}.
+ * <p>
+ * Der Speicher ist pro Messgrösse fest, unabhängig von der Anzahl Werte. So können die Kennzahlen beim Speichern
+ * der Wetterdaten nachgeführt werden, Akkumulatoren mehrerer Städte oder Zeiträume mit {@link #merge} zusammengeführt
+ * und mit {@link #toBytes()} für einen Cache serialisiert werden. Die Klassen der Histogramme sind pro Messgrösse fest,
+ * damit alle Akkumulatoren zusammengeführt werden können. NaN-Werte sind fehlende Messungen und werden ignoriert.
+ * Nicht thread-safe.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public final class OnlineStats {
+
+    private static final Measure[] MEASURES = Measure.values();
+    private static final int FORMAT = 1;
+
+    private final Moments[] moments = new Moments[MEASURES.length];
+    private final QuantileDigest[] digests = new QuantileDigest[MEASURES.length];
+    private final Histogram[] histograms = new Histogram[MEASURES.length];
+
+    /**
+     * Erstellt leere Akkumulatoren mit der Kompression {@link QuantileDigest#DEFAULT_COMPRESSION}.
+     */
+    public OnlineStats() {
+        this(QuantileDigest.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Erstellt leere Akkumulatoren.
+     *
+     * @param compression Die Kompression der Quantil-Schätzungen.
+     */
+    public OnlineStats(double compression) {
+        for (int m = 0; m < MEASURES.length; m++) {
+            moments[m] = new Moments();
+            digests[m] = new QuantileDigest(compression);
+            histograms[m] = bins(MEASURES[m]);
+        }
+    }
+
+    private OnlineStats(Moments[] moments, QuantileDigest[] digests, Histogram[] histograms) {
+        System.arraycopy(moments, 0, this.moments, 0, MEASURES.length);
+        System.arraycopy(digests, 0, this.digests, 0, MEASURES.length);
+        System.arraycopy(histograms, 0, this.histograms, 0, MEASURES.length);
+    }
+
+    /**
+     * Fügt die Messgrössen eines Wetter-Objekts hinzu.
+     *
+     * @param weather Das Wetter-Objekt.
+     */
+    public void add(Weather weather) {
+        for (int m = 0; m < MEASURES.length; m++) {
+            double value = MEASURES[m].of(weather);
+            moments[m].add(value);
+            digests[m].add(value);
+            histograms[m].add(value);
+        }
+    }
+
+    /**
+     * Fügt die Messgrössen mehrerer Wetter-Objekte hinzu, z.B. die beim Laden gespeicherten.
+     *
+     * @param weather Die Wetter-Objekte.
+     */
+    public void addAll(Iterable<Weather> weather) {
+        for (Weather w : weather) {
+            add(w);
+        }
+    }
+
+    /**
+     * Fügt alle Werte einer Zeitreihe hinzu, Spalte für Spalte.
+     *
+     * @param series Die Zeitreihe.
+     */
+    public void addAll(WeatherSeries series) {
+        int from = series.offset();
+        int to = from + series.size();
+        for (int m = 0; m < MEASURES.length; m++) {
+            double[] values = series.column(MEASURES[m].column());
+            for (int i = from; i < to; i++) {
+                moments[m].add(values[i]);
+                digests[m].add(values[i]);
+                histograms[m].add(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Fügt die Werte anderer Akkumulatoren hinzu, z.B. einer anderen Stadt oder eines anderen Zeitraums.
+     *
+     * @param other Die anderen Akkumulatoren, sie bleiben unverändert.
+     */
+    public void merge(OnlineStats other) {
+        for (int m = 0; m < MEASURES.length; m++) {
+            moments[m].merge(other.moments[m]);
+            digests[m].merge(other.digests[m]);
+            histograms[m].merge(other.histograms[m]);
+        }
+    }
+
+    /**
+     * @param measure Die Messgrösse.
+     * @return Anzahl, Minimum, Maximum, Durchschnitt und Varianz der Messgrösse.
+     */
+    public Moments moments(Measure measure) {
+        return moments[measure.ordinal()];
+    }
+
+    /**
+     * @param measure Die Messgrösse.
+     * @param q       Das Quantil zwischen 0 und 1, z.B. 0.9 für das 90. Perzentil.
+     * @return Den geschätzten Wert, NaN ohne Werte.
+     */
+    public double quantile(Measure measure, double q) {
+        return digests[measure.ordinal()].quantile(q);
+    }
+
+    /**
+     * @param measure Die Messgrösse.
+     * @return Das Histogramm der Messgrösse.
+     */
+    public Histogram histogram(Measure measure) {
+        return histograms[measure.ordinal()];
+    }
+
+    /**
+     * Schreibt die Akkumulatoren in einem kompakten binären Format.
+     *
+     * @param out Das Ziel.
+     * @throws IOException falls nicht geschrieben werden kann.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(FORMAT);
+        out.writeByte(MEASURES.length);
+        for (int m = 0; m < MEASURES.length; m++) {
+            moments[m].writeTo(out);
+            digests[m].writeTo(out);
+            histograms[m].writeTo(out);
+        }
+    }
+
+    /**
+     * Liest mit {@link #writeTo} geschriebene Akkumulatoren.
+     *
+     * @param in Die Quelle.
+     * @return Die Akkumulatoren.
+     * @throws IOException falls nicht gelesen werden kann, das Format nicht bekannt ist
+     *                     oder die Klassen eines Histogramms nicht denen der Messgrösse entsprechen.
+     */
+    public static OnlineStats readFrom(DataInput in) throws IOException {
+        int format = in.readByte();
+        int measures = in.readByte();
+        if (format != FORMAT || measures != MEASURES.length) {
+            throw new IOException("Unknown format of online statistics: " + format + "/" + measures);
+        }
+        Moments[] moments = new Moments[measures];
+        QuantileDigest[] digests = new QuantileDigest[measures];
+        Histogram[] histograms = new Histogram[measures];
+        for (int m = 0; m < measures; m++) {
+            moments[m] = Moments.readFrom(in);
+            digests[m] = QuantileDigest.readFrom(in);
+            histograms[m] = Histogram.readFrom(in);
+            if (!histograms[m].hasSameBins(bins(MEASURES[m]))) {
+                throw new IOException("Unknown bins of online statistics for " + MEASURES[m]);
+            }
+        }
+        return new OnlineStats(moments, digests, histograms);
+    }
+
+    /**
+     * @return Die Akkumulatoren im Format von {@link #writeTo}.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param bytes Die mit {@link #toBytes()} geschriebenen Akkumulatoren.
+     * @return Die Akkumulatoren.
+     * @throws IllegalArgumentException falls die Bytes keine gültigen Akkumulatoren enthalten.
+     */
+    public static OnlineStats fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return readFrom(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid online statistics", e);
+        }
+    }
+
+    /**
+     * The bins of a measurement, wide enough for the weather of all cities, values outside are counted as under- or overflow.
+     */
+    private static Histogram bins(Measure measure) {
+        return switch (measure) {
+            case TEMPERATURE -> new Histogram(-50, 1, 100);
+            case PRESSURE -> new Histogram(900, 2, 100);
+            case HUMIDITY -> new Histogram(0, 5, 21);
+            case WIND_SPEED -> new Histogram(0, 1, 50);
+        };
+    }
+}
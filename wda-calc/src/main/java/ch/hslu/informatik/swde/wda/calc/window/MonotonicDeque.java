@@ -0,0 +1,83 @@
+package ch.hslu.informatik.swde.wda.calc.window;
+
+/**
+ * Diese Klasse hält das Minimum oder Maximum eines gleitenden Zeitfensters in amortisiert konstanter Zeit nach.
+ * <p>
+ * Die Deque enthält nur Werte, die noch Minimum bzw. Maximum werden können: Ein neuer Wert entfernt am Ende alle Werte,
+ * die er übertrifft, weil diese vor ihm aus dem Fenster fallen. Die Werte sind deshalb von vorne nach hinten monoton,
+ * der vorderste ist das Minimum bzw. Maximum des Fensters. Jeder Wert wird höchstens einmal eingefügt und einmal entfernt.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+final class MonotonicDeque {
+
+    private final boolean max;
+    private long[] seqs = new long[16];
+    private double[] values = new double[16];
+    private int head;
+    private int size;
+
+    /**
+     * @param max true für das Maximum, false für das Minimum.
+     */
+    MonotonicDeque(boolean max) {
+        this.max = max;
+    }
+
+    /**
+     * Fügt den neuesten Wert des Fensters hinzu.
+     *
+     * @param seq   Die fortlaufende Nummer des Werts im Fenster.
+     * @param value Der Wert, nicht NaN.
+     */
+    void push(long seq, double value) {
+        while (size > 0) {
+            double last = values[(head + size - 1) & (values.length - 1)];
+            if (max ? last > value : last < value) {
+                break;
+            }
+            size--;
+        }
+        if (size == values.length) {
+            grow();
+        }
+        int i = (head + size) & (values.length - 1);
+        seqs[i] = seq;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Entfernt die Werte, die aus dem Fenster gefallen sind.
+     *
+     * @param firstSeq Die Nummer des ältesten Werts, der noch im Fenster liegt.
+     */
+    void evict(long firstSeq) {
+        while (size > 0 && seqs[head] < firstSeq) {
+            head = (head + 1) & (values.length - 1);
+            size--;
+        }
+    }
+
+    /**
+     * @return Das Minimum bzw. Maximum des Fensters, NaN ohne Werte.
+     */
+    double peek() {
+        return size == 0 ? Double.NaN : values[head];
+    }
+
+    private void grow() {
+        long[] s = new long[seqs.length * 2];
+        double[] v = new double[values.length * 2];
+        for (int i = 0; i < size; i++) {
+            int j = (head + i) & (values.length - 1);
+            s[i] = seqs[j];
+            v[i] = values[j];
+        }
+        seqs = s;
+        values = v;
+        head = 0;
+    }
+}
@@ -0,0 +1,228 @@
+package ch.hslu.informatik.swde.wda.calc.window;
+
+import ch.hslu.informatik.swde.wda.calc.Measure;
+import ch.hslu.informatik.swde.wda.calc.MeasureStats;
+import ch.hslu.informatik.swde.wda.calc.WeatherStats;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Diese Klasse hält die Kennzahlen aller Messgrössen der letzten Tage einer Stadt nach, während neue Messungen eintreffen,
+ * z.B. für die Abfrage der letzten 30 Tage.
+ * <p>
+ * Das Fenster umfasst alle Messungen ab {@code jetzt - Länge}. Neue Messungen werden hinten angefügt, mit {@link #evict}
+ * fallen die ältesten heraus, statt das ganze Fenster neu zu lesen und zu berechnen. Minimum und Maximum werden mit je einer
+ * {@link MonotonicDeque} pro Messgrösse nachgeführt, die Summe mit einer kompensierten laufenden Summe (Neumaier),
+ * damit sich die Rundungsfehler des Addierens und Abziehens nicht aufsummieren. Einfügen und Entfernen kosten amortisiert
+ * O(1), die Kennzahlen abzufragen O(1). Der Speicher wächst mit der Anzahl Messungen im Fenster.
+ * <p>
+ * Messungen müssen in aufsteigender Reihenfolge der Zeitstempel eintreffen, eine ältere Messung wird mit {@code false}
+ * abgelehnt, dann muss das Fenster neu aufgebaut werden. NaN-Werte sind fehlende Messungen und zählen für die Messgrösse nicht.
+ * Zeitstempel sind Epochensekunden der lokalen Zeit wie in einer WeatherSeries. Nicht thread-safe.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+public final class SlidingWindow {
+
+    private static final Measure[] MEASURES = Measure.values();
+
+    private final long length;
+
+    private long[] stamps = new long[16];
+    private double[][] values = new double[MEASURES.length][16];
+    private long head;
+    private long tail;
+
+    private final MonotonicDeque[] mins = new MonotonicDeque[MEASURES.length];
+    private final MonotonicDeque[] maxs = new MonotonicDeque[MEASURES.length];
+    private final long[] counts = new long[MEASURES.length];
+    private final double[] sums = new double[MEASURES.length];
+    private final double[] compensations = new double[MEASURES.length];
+
+    /**
+     * Erstellt ein leeres Fenster.
+     *
+     * @param length Die Länge des Fensters, z.B. 30 Tage.
+     */
+    public SlidingWindow(Duration length) {
+        this.length = length.toSeconds();
+        for (int m = 0; m < MEASURES.length; m++) {
+            mins[m] = new MonotonicDeque(false);
+            maxs[m] = new MonotonicDeque(true);
+        }
+    }
+
+    /**
+     * Erstellt ein Fenster aus den Messungen einer Zeitreihe, z.B. beim ersten Zugriff aus der Datenbank.
+     *
+     * @param series Die Zeitreihe, sortiert wie jede WeatherSeries.
+     * @param length Die Länge des Fensters.
+     * @return Das Fenster mit allen Messungen der Zeitreihe, ältere fallen erst mit {@link #evict} heraus.
+     */
+    public static SlidingWindow of(WeatherSeries series, Duration length) {
+        SlidingWindow window = new SlidingWindow(length);
+        int from = series.offset();
+        long[] epochSeconds = series.epochSeconds();
+        double[][] columns = new double[MEASURES.length][];
+        for (int m = 0; m < MEASURES.length; m++) {
+            columns[m] = series.column(MEASURES[m].column());
+        }
+        for (int i = from; i < from + series.size(); i++) {
+            window.add(epochSeconds[i], columns[0][i], columns[1][i], columns[2][i], columns[3][i]);
+        }
+        return window;
+    }
+
+    /**
+     * Fügt eine Messung hinten an.
+     *
+     * @param weather Die Messung.
+     * @return false, falls die Messung älter als die neueste Messung im Fenster ist und nicht angefügt wurde.
+     */
+    public boolean add(Weather weather) {
+        return add(weather.getDTstamp().toEpochSecond(ZoneOffset.UTC), Measure.TEMPERATURE.of(weather),
+                Measure.PRESSURE.of(weather), Measure.HUMIDITY.of(weather), Measure.WIND_SPEED.of(weather));
+    }
+
+    /**
+     * Fügt eine Messung hinten an.
+     *
+     * @param epochSecond Der Zeitstempel in Epochensekunden.
+     * @param temperature Die Temperatur in Grad Celsius.
+     * @param pressure    Der Luftdruck.
+     * @param humidity    Die Luftfeuchtigkeit.
+     * @param windSpeed   Die Windgeschwindigkeit.
+     * @return false, falls die Messung älter als die neueste Messung im Fenster ist und nicht angefügt wurde.
+     */
+    public boolean add(long epochSecond, double temperature, double pressure, double humidity, double windSpeed) {
+
+        if (tail > head && epochSecond < stamps[index(tail - 1)]) {
+            return false;
+        }
+        if (tail - head == stamps.length) {
+            grow();
+        }
+
+        int i = index(tail);
+        stamps[i] = epochSecond;
+        values[0][i] = temperature;
+        values[1][i] = pressure;
+        values[2][i] = humidity;
+        values[3][i] = windSpeed;
+
+        for (int m = 0; m < MEASURES.length; m++) {
+            double v = values[m][i];
+            if (!Double.isNaN(v)) {
+                mins[m].push(tail, v);
+                maxs[m].push(tail, v);
+                counts[m]++;
+                accumulate(m, v);
+            }
+        }
+        tail++;
+        return true;
+    }
+
+    /**
+     * Entfernt die Messungen, die vor dem Beginn des Fensters liegen.
+     *
+     * @param now Die aktuelle Zeit, das Fenster beginnt bei {@code now - Länge}.
+     */
+    public void evict(LocalDateTime now) {
+
+        long start = now.toEpochSecond(ZoneOffset.UTC) - length;
+        while (head < tail && stamps[index(head)] < start) {
+            int i = index(head);
+            for (int m = 0; m < MEASURES.length; m++) {
+                double v = values[m][i];
+                if (!Double.isNaN(v)) {
+                    counts[m]--;
+                    accumulate(m, -v);
+                }
+            }
+            head++;
+        }
+
+        for (int m = 0; m < MEASURES.length; m++) {
+            mins[m].evict(head);
+            maxs[m].evict(head);
+            if (counts[m] == 0) {
+                // Nothing left to subtract, start the sum again without the rounding errors of the removed values
+                sums[m] = 0;
+                compensations[m] = 0;
+            }
+        }
+    }
+
+    /**
+     * @return Die Anzahl Messungen im Fenster.
+     */
+    public long size() {
+        return tail - head;
+    }
+
+    /**
+     * @return Die Länge des Fensters.
+     */
+    public Duration length() {
+        return Duration.ofSeconds(length);
+    }
+
+    /**
+     * @return Den Zeitstempel der neuesten Messung in Epochensekunden, Long.MIN_VALUE ohne Messungen.
+     */
+    public long lastEpochSecond() {
+        return tail > head ? stamps[index(tail - 1)] : Long.MIN_VALUE;
+    }
+
+    /**
+     * @return Die Kennzahlen der Messungen im Fenster, ohne Messungen sind Minimum, Maximum und Durchschnitt NaN.
+     */
+    public WeatherStats stats() {
+        MeasureStats[] measures = new MeasureStats[MEASURES.length];
+        for (int m = 0; m < MEASURES.length; m++) {
+            measures[m] = new MeasureStats(counts[m], mins[m].peek(), maxs[m].peek(), sums[m] + compensations[m]);
+        }
+        return WeatherStats.of(size(), measures);
+    }
+
+    private int index(long seq) {
+        return (int) (seq & (stamps.length - 1));
+    }
+
+    /**
+     * Neumaier's compensated summation, the compensation collects the low-order bits lost by each addition.
+     */
+    private void accumulate(int m, double v) {
+        double s = sums[m];
+        double t = s + v;
+        if (Math.abs(s) >= Math.abs(v)) {
+            compensations[m] += (s - t) + v;
+        } else {
+            compensations[m] += (v - t) + s;
+        }
+        sums[m] = t;
+    }
+
+    private void grow() {
+        int n = stamps.length;
+        long[] s = new long[n * 2];
+        double[][] v = new double[MEASURES.length][n * 2];
+        for (long seq = head; seq < tail; seq++) {
+            int from = (int) (seq & (n - 1));
+            int to = (int) (seq & (n * 2 - 1));
+            s[to] = stamps[from];
+            for (int m = 0; m < MEASURES.length; m++) {
+                v[m][to] = values[m][from];
+            }
+        }
+        stamps = s;
+        values = v;
+    }
+}
@@ -0,0 +1,125 @@
+package ch.hslu.informatik.swde.wda.calc;
+
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherStatsTest {
+
+    private static Weather weather(double temperature, double pressure, double humidity, double windSpeed) {
+        return weather(LocalDateTime.of(2024, 1, 1, 0, 0), temperature, pressure, humidity, windSpeed);
+    }
+
+    private static Weather weather(LocalDateTime time, double temperature, double pressure, double humidity, double windSpeed) {
+        Weather w = new Weather();
+        w.setDTstamp(time);
+        w.setCurrTempCelsius(temperature);
+        w.setPressure(pressure);
+        w.setHumidity(humidity);
+        w.setWindSpeed(windSpeed);
+        return w;
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Of_ShouldComputeAllMeasuresInOnePass() {
+
+        WeatherStats stats = new CalcImpl().getStatistics(List.of(
+                weather(10.0, 1010.0, 80.0, 2.0),
+                weather(20.0, 1000.0, 90.0, 6.0),
+                weather(15.0, 1020.0, 70.0, 4.0)));
+
+        assertEquals(3, stats.count());
+        MeasureStats temperature = stats.get(Measure.TEMPERATURE);
+        assertEquals(10.0, temperature.min());
+        assertEquals(20.0, temperature.max());
+        assertEquals(15.0, temperature.mean(), 1e-9);
+        assertEquals(1000.0, stats.get(Measure.PRESSURE).min());
+        assertEquals(90.0, stats.get(Measure.HUMIDITY).max());
+        assertEquals(12.0, stats.get(Measure.WIND_SPEED).sum(), 1e-9);
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Of_ShouldFindMaxOfNegativeTemperatures() {
+
+        WeatherStats stats = WeatherStats.of(List.of(weather(-12.5, 1000.0, 80.0, 1.0), weather(-3.0, 1000.0, 80.0, 1.0)));
+
+        assertEquals(-3.0, stats.get(Measure.TEMPERATURE).max(), "Das Maximum negativer Temperaturen darf nicht 0 sein");
+        assertEquals(-12.5, stats.get(Measure.TEMPERATURE).min());
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Of_ShouldReturnNaNWithoutWeather() {
+
+        WeatherStats stats = WeatherStats.of(List.of());
+
+        assertTrue(stats.isEmpty());
+        assertTrue(Double.isNaN(stats.get(Measure.HUMIDITY).max()));
+        assertTrue(Double.isNaN(stats.get(Measure.HUMIDITY).mean()));
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Of_ShouldSkipMissingValuesPerMeasure() {
+
+        List<Weather> weather = List.of(
+                weather(10.0, 1010.0, Double.NaN, 2.0),
+                weather(20.0, 1000.0, 90.0, 6.0),
+                weather(15.0, Double.NaN, Double.NaN, 4.0));
+
+        for (WeatherStats stats : List.of(WeatherStats.of(weather), WeatherStats.of(WeatherSeries.of(weather)))) {
+            assertEquals(3, stats.count());
+            assertEquals(3, stats.get(Measure.TEMPERATURE).count());
+            assertEquals(2, stats.get(Measure.PRESSURE).count(), "Fehlende Messwerte dürfen nicht gezählt werden");
+            assertEquals(1005.0, stats.get(Measure.PRESSURE).mean(), "Fehlende Messwerte dürfen den Durchschnitt nicht verfälschen");
+            assertEquals(90.0, stats.get(Measure.HUMIDITY).min(), "NaN muss übersprungen werden");
+            assertEquals(90.0, stats.get(Measure.HUMIDITY).max(), "NaN muss übersprungen werden");
+        }
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_OfSeries_ShouldMatchStatisticsOfEntities() {
+
+        LocalDateTime t = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Weather> weather = List.of(
+                weather(t.plusHours(2), -4.0, 1010.0, 80.0, 2.0),
+                weather(t, -8.0, 1000.0, 90.0, 6.0),
+                weather(t.plusHours(1), -1.5, 1020.0, 70.0, 4.0));
+
+        WeatherStats expected = WeatherStats.of(weather);
+        WeatherStats actual = new CalcImpl().getStatistics(WeatherSeries.of(weather));
+
+        assertEquals(expected.count(), actual.count());
+        for (Measure measure : Measure.values()) {
+            assertEquals(expected.get(measure), actual.get(measure), "Kennzahlen von " + measure + " stimmen nicht überein");
+        }
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Slice_ShouldIncludeBothBounds() {
+
+        LocalDateTime t = LocalDateTime.of(2024, 1, 1, 0, 0);
+        WeatherSeries.Builder builder = WeatherSeries.builder(0);
+        for (int h = 0; h < 48; h++) {
+            builder.add(t.plusHours(h), h, 1000.0, 50.0, 1.0);
+        }
+        WeatherSeries series = builder.build();
+
+        WeatherSeries day = series.slice(t.plusHours(10), t.plusHours(20));
+        assertEquals(11, day.size(), "Anfang und Ende gehören zum Zeitraum");
+        assertEquals(t.plusHours(10), day.time(0));
+        assertEquals(20.0, WeatherStats.of(day).get(Measure.TEMPERATURE).max());
+        assertEquals(0, series.slice(t.minusDays(2), t.minusDays(1)).size(), "Vor der Zeitreihe gibt es keine Messungen");
+        assertEquals(3, day.slice(t.plusHours(18), t.plusDays(5)).size(), "Ein Ausschnitt muss sich weiter einschränken lassen");
+    }
+}
@@ -0,0 +1,82 @@
+package ch.hslu.informatik.swde.wda.calc.bench;
+
+import ch.hslu.informatik.swde.wda.calc.MeasureStats;
+import ch.hslu.informatik.swde.wda.calc.kernel.Kernels;
+import ch.hslu.informatik.swde.wda.calc.kernel.SeriesKernels;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht die skalaren Kernels mit den Kernels der Vector API über eine Spalte einer Zeitreihe.
+ * <p>
+ * Die Vector API ist ein Incubator-Modul, die Forks werden deshalb mit {@code --add-modules jdk.incubator.vector}
+ * gestartet. Ohne das Modul liefert {@link Kernels#get()} die skalaren Kernels und beide Varianten messen dasselbe.
+ * <p>
+ * Ausführen mit:
+ * <pre>
+ * mvn -pl wda-calc test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="--add-modules jdk.incubator.vector -cp %classpath org.openjdk.jmh.Main KernelBenchmark"
+ * </pre>
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "--add-modules", "jdk.incubator.vector"})
+public class KernelBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private double[] values;
+    private SeriesKernels scalar;
+    private SeriesKernels vector;
+
+    @Setup
+    public void setUp() {
+
+        Random random = new Random(42);
+        values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextGaussian() * 10;
+        }
+        scalar = Kernels.scalar();
+        vector = Kernels.get();
+    }
+
+    @Benchmark
+    public MeasureStats summarizeScalar() {
+        return scalar.summarize(values, 0, size);
+    }
+
+    @Benchmark
+    public MeasureStats summarizeVector() {
+        return vector.summarize(values, 0, size);
+    }
+
+    @Benchmark
+    public double sumScalar() {
+        return scalar.sum(values, 0, size);
+    }
+
+    @Benchmark
+    public double sumVector() {
+        return vector.sum(values, 0, size);
+    }
+
+    @Benchmark
+    public double maxScalar() {
+        return scalar.max(values, 0, size);
+    }
+
+    @Benchmark
+    public double maxVector() {
+        return vector.max(values, 0, size);
+    }
+}
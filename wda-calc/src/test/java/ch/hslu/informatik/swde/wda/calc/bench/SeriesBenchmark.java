@@ -0,0 +1,116 @@
+package ch.hslu.informatik.swde.wda.calc.bench;
+
+import ch.hslu.informatik.swde.wda.calc.WeatherStats;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht die spaltenweise WeatherSeries mit der bisherigen {@code TreeMap<LocalDateTime, Weather>}.
+ * <p>
+ * Gemessen werden das Aufbauen aus den Zeilen einer Abfrage, das Berechnen aller Kennzahlen und das Berechnen
+ * der Kennzahlen eines Monats aus der ganzen Reihe. Der Speicherbedarf pro Messung ergibt sich aus den build-Benchmarks
+ * mit dem GC-Profiler: {@code gc.alloc.rate.norm} geteilt durch {@code size}.
+ * <p>
+ * Ausführen mit:
+ * <pre>
+ * mvn -pl wda-calc test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main SeriesBenchmark -prof gc"
+ * </pre>
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SeriesBenchmark {
+
+    /**
+     * Stündliche Messungen: ein Monat, ein Jahr, zehn Jahre.
+     */
+    @Param({"720", "8760", "87600"})
+    private int size;
+
+    private long[] stamps;
+    private double[][] rows;
+
+    private TreeMap<LocalDateTime, Weather> map;
+    private WeatherSeries series;
+    private LocalDateTime monthFrom;
+    private LocalDateTime monthTo;
+
+    @Setup
+    public void setUp() {
+
+        Random random = new Random(42);
+        long start = LocalDateTime.of(2014, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        stamps = new long[size];
+        rows = new double[size][];
+        for (int i = 0; i < size; i++) {
+            stamps[i] = start + i * 3600L;
+            rows[i] = new double[]{random.nextGaussian() * 10, 1000 + random.nextGaussian() * 10,
+                    random.nextDouble() * 100, random.nextDouble() * 20};
+        }
+
+        map = buildTreeMap();
+        series = buildSeries();
+
+        int middle = size / 2;
+        monthFrom = LocalDateTime.ofEpochSecond(stamps[Math.max(0, middle - 360)], 0, ZoneOffset.UTC);
+        monthTo = LocalDateTime.ofEpochSecond(stamps[Math.min(size - 1, middle + 359)], 0, ZoneOffset.UTC);
+    }
+
+    @Benchmark
+    public TreeMap<LocalDateTime, Weather> buildTreeMap() {
+        TreeMap<LocalDateTime, Weather> res = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            Weather w = new Weather();
+            w.setDTstamp(LocalDateTime.ofEpochSecond(stamps[i], 0, ZoneOffset.UTC));
+            w.setCurrTempCelsius(rows[i][0]);
+            w.setPressure(rows[i][1]);
+            w.setHumidity(rows[i][2]);
+            w.setWindSpeed(rows[i][3]);
+            res.put(w.getDTstamp(), w);
+        }
+        return res;
+    }
+
+    @Benchmark
+    public WeatherSeries buildSeries() {
+        WeatherSeries.Builder builder = WeatherSeries.builder(size);
+        for (int i = 0; i < size; i++) {
+            builder.add(stamps[i], rows[i][0], rows[i][1], rows[i][2], rows[i][3]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public WeatherStats statsTreeMap() {
+        return WeatherStats.of(map.values());
+    }
+
+    @Benchmark
+    public WeatherStats statsSeries() {
+        return WeatherStats.of(series);
+    }
+
+    @Benchmark
+    public WeatherStats monthTreeMap() {
+        return WeatherStats.of(map.subMap(monthFrom, true, monthTo, true).values());
+    }
+
+    @Benchmark
+    public WeatherStats monthSeries() {
+        return WeatherStats.of(series.slice(monthFrom, monthTo));
+    }
+}
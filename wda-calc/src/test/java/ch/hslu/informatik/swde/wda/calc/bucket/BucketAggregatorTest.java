@@ -0,0 +1,83 @@
+package ch.hslu.informatik.swde.wda.calc.bucket;
+
+import ch.hslu.informatik.swde.wda.domain.WeatherBucket;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BucketAggregatorTest {
+
+    private static final ZoneId ZURICH = ZoneId.of("Europe/Zurich");
+
+    /**
+     * Hourly readings as stored, local time of Zurich, the temperature is the hour of the day.
+     */
+    private static WeatherSeries hourly(String fromUtc, int hours) {
+        WeatherSeries.Builder builder = WeatherSeries.builder(hours);
+        Instant start = Instant.parse(fromUtc);
+        for (int i = 0; i < hours; i++) {
+            LocalDateTime local = LocalDateTime.ofInstant(start.plusSeconds(i * 3600L), ZURICH);
+            builder.add(local, local.getHour(), 1000, 50, Double.NaN);
+        }
+        return builder.build();
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Aggregate_ShouldFollowDaylightSavingTimeOfTheZone() {
+
+        List<WeatherBucket> spring = BucketAggregator.aggregate(hourly("2024-03-29T23:00:00Z", 71), WeatherBucket.Granularity.DAY, ZURICH, ZURICH);
+        assertEquals(3, spring.size());
+        assertEquals(LocalDateTime.of(2024, 3, 31, 0, 0), spring.get(1).start());
+        assertEquals(23, spring.get(1).count(), "Der 31. März hat nur 23 Stunden");
+        assertEquals(0.0, spring.get(1).get(WeatherSeries.Column.TEMPERATURE).min());
+        assertEquals(23.0, spring.get(1).get(WeatherSeries.Column.TEMPERATURE).max());
+        assertEquals(0, spring.get(1).get(WeatherSeries.Column.WIND_SPEED).count(), "Fehlende Werte dürfen nicht gezählt werden");
+
+        List<WeatherBucket> autumn = BucketAggregator.aggregate(hourly("2024-10-25T22:00:00Z", 73), WeatherBucket.Granularity.DAY, ZURICH, ZURICH);
+        assertEquals(25, autumn.get(1).count(), "Der 27. Oktober hat 25 Stunden");
+
+        List<WeatherBucket> utc = BucketAggregator.aggregate(hourly("2024-03-30T00:00:00Z", 72), WeatherBucket.Granularity.DAY, ZURICH, ZoneOffset.UTC);
+        assertEquals(3, utc.size());
+        for (WeatherBucket bucket : utc) {
+            assertEquals(24, bucket.count(), "Jeder Tag in UTC hat 24 Stunden: " + bucket);
+        }
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Aggregate_ShouldMergeRepeatedHourOfTargetZone() {
+
+        WeatherSeries.Builder builder = WeatherSeries.builder(8);
+        LocalDateTime start = LocalDateTime.of(2024, 10, 26, 23, 0);
+        for (int i = 0; i < 8; i++) {
+            builder.add(start.plusMinutes(i * 30L), i, 1000, 50, 3);
+        }
+
+        List<WeatherBucket> buckets = BucketAggregator.aggregate(builder.build(), WeatherBucket.Granularity.HOUR, ZoneOffset.UTC, ZURICH);
+
+        assertEquals(3, buckets.size(), "Die Stunde 02:00 darf nur einmal vorkommen: " + buckets);
+        assertEquals(LocalDateTime.of(2024, 10, 27, 2, 0), buckets.get(1).start());
+        assertEquals(4, buckets.get(1).count());
+        assertEquals(LocalDateTime.of(2024, 10, 27, 3, 0), buckets.get(2).start());
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Granularity_ShouldStartWeeksOnMondayAndMonthsOnTheFirst() {
+
+        LocalDateTime sunday = LocalDateTime.of(2024, 3, 31, 18, 45);
+        assertEquals(LocalDateTime.of(2024, 3, 25, 0, 0), WeatherBucket.Granularity.WEEK.truncate(sunday));
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), WeatherBucket.Granularity.MONTH.truncate(sunday));
+        assertEquals(LocalDateTime.of(2024, 4, 1, 0, 0), WeatherBucket.Granularity.MONTH.next(LocalDateTime.of(2024, 3, 1, 0, 0)));
+        assertEquals(LocalDateTime.of(2024, 3, 31, 18, 0), WeatherBucket.Granularity.HOUR.truncate(sunday));
+    }
+}
@@ -0,0 +1,67 @@
+package ch.hslu.informatik.swde.wda.calc.kernel;
+
+import ch.hslu.informatik.swde.wda.calc.MeasureStats;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class KernelsTest {
+
+    @Test
+    @Tag("unittest")
+    void test_VectorKernels_ShouldMatchScalarKernels() {
+
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "Vector API nicht verfügbar");
+
+        SeriesKernels scalar = new ScalarKernels();
+        SeriesKernels vector = new VectorKernels();
+        Random random = new Random(7);
+        double[] values = new double[1_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(20) == 0 ? Double.NaN : random.nextGaussian() * 30 - 10;
+        }
+
+        // All lengths up to several vectors and unaligned offsets, so the vector loop and the scalar tail are both covered, with missing values in both
+        for (int from = 0; from < 9; from++) {
+            for (int to = from; to < from + 70; to++) {
+                MeasureStats expected = scalar.summarize(values, from, to);
+                MeasureStats actual = vector.summarize(values, from, to);
+                assertEquals(expected.count(), actual.count());
+                assertEquals(expected.min(), actual.min(), "Minimum von " + from + " bis " + to);
+                assertEquals(expected.max(), actual.max(), "Maximum von " + from + " bis " + to);
+                assertEquals(expected.sum(), actual.sum(), 1e-9, "Summe von " + from + " bis " + to);
+                assertEquals(scalar.min(values, from, to), vector.min(values, from, to));
+                assertEquals(scalar.max(values, from, to), vector.max(values, from, to));
+                assertEquals(scalar.sum(values, from, to), vector.sum(values, from, to), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_Summarize_ShouldHandleEmptyRangesAndNaN() {
+
+        SeriesKernels kernels = Kernels.get();
+
+        MeasureStats empty = kernels.summarize(new double[8], 3, 3);
+        assertEquals(0, empty.count());
+        assertTrue(Double.isNaN(empty.min()) && Double.isNaN(empty.max()), "Ohne Werte sind Minimum und Maximum NaN");
+        assertEquals(0.0, empty.sum());
+
+        double[] values = {-3.0, -1.0, Double.NaN, -7.0, -2.0, -5.0, -4.0, -6.0, -8.0, -9.0};
+        MeasureStats stats = kernels.summarize(values, 0, values.length);
+        assertEquals(9, stats.count(), "Fehlende Messwerte dürfen nicht gezählt werden");
+        assertEquals(-1.0, stats.max(), "NaN muss übersprungen werden");
+        assertEquals(-9.0, stats.min(), "NaN muss übersprungen werden");
+        assertEquals(-45.0, stats.sum(), 1e-9, "NaN muss übersprungen werden");
+        assertEquals(-1.0, kernels.max(values, 0, 2), "Das Maximum negativer Werte darf nicht 0 sein");
+
+        MeasureStats missing = kernels.summarize(new double[]{Double.NaN, Double.NaN}, 0, 2);
+        assertEquals(0, missing.count());
+        assertTrue(Double.isNaN(missing.min()) && Double.isNaN(missing.mean()), "Ohne Messwerte sind Minimum und Durchschnitt NaN");
+    }
+}
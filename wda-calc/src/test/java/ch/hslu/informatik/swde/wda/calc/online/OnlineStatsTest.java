@@ -0,0 +1,149 @@
+package ch.hslu.informatik.swde.wda.calc.online;
+
+import ch.hslu.informatik.swde.wda.calc.Measure;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OnlineStatsTest {
+
+    @Test
+    @Tag("unittest")
+    void test_Moments_ShouldMatchTwoPassVarianceWhenMerged() {
+
+        Random random = new Random(3);
+        double[] values = new double[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1013 + random.nextGaussian() * 8;
+        }
+        double mean = Arrays.stream(values).average().orElseThrow();
+        double variance = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum() / values.length;
+
+        Moments left = new Moments();
+        Moments right = new Moments();
+        for (int i = 0; i < values.length; i++) {
+            (i < 3_000 ? left : right).add(values[i]);
+        }
+        left.add(Double.NaN);
+        left.merge(right);
+
+        assertEquals(values.length, left.count(), "NaN-Werte dürfen nicht gezählt werden");
+        assertEquals(mean, left.mean(), 1e-9);
+        assertEquals(variance, left.variance(), 1e-6);
+        assertEquals(Arrays.stream(values).min().orElseThrow(), left.min());
+        assertEquals(Arrays.stream(values).max().orElseThrow(), left.max());
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_QuantileDigest_ShouldEstimatePercentilesWithBoundedCentroids() {
+
+        Random random = new Random(5);
+        QuantileDigest digest = new QuantileDigest();
+        QuantileDigest other = new QuantileDigest();
+        double[] values = new double[200_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble();
+            (i % 3 == 0 ? other : digest).add(values[i]);
+        }
+        digest.merge(other);
+
+        assertEquals(200_000, digest.count());
+        assertEquals(0.5, digest.quantile(0.5), 0.01, "Median ungenau");
+        assertEquals(0.9, digest.quantile(0.9), 0.01, "90. Perzentil ungenau");
+        assertEquals(0.99, digest.quantile(0.99), 0.002, "99. Perzentil ungenau");
+        assertTrue(digest.centroids() <= 2 * QuantileDigest.DEFAULT_COMPRESSION, "Zu viele Zentroide: " + digest.centroids());
+
+        // The rank of the estimate among the values may differ from the quantile by at most 0.1 %, as documented
+        Arrays.sort(values);
+        for (double q : new double[]{0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999}) {
+            int rank = Arrays.binarySearch(values, digest.quantile(q));
+            double actual = (double) (rank < 0 ? -rank - 1 : rank) / values.length;
+            assertEquals(q, actual, 0.001, "Rangfehler beim Quantil " + q + " zu gross");
+        }
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_QuantileDigest_ShouldRejectInvalidNumberOfCentroids() throws IOException {
+
+        QuantileDigest digest = new QuantileDigest();
+        for (int i = 0; i < 1000; i++) {
+            digest.add(i);
+        }
+
+        for (int n : new int[]{-1, 201, Integer.MAX_VALUE}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeDouble(digest.compression());
+            out.writeLong(digest.count());
+            out.writeDouble(0);
+            out.writeDouble(999);
+            out.writeInt(n);
+            assertThrows(IllegalArgumentException.class,
+                    () -> QuantileDigest.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))),
+                    "Ungültige Anzahl Zentroide " + n + " muss abgelehnt werden");
+        }
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_OnlineStats_ShouldSurviveSerialization() {
+
+        WeatherSeries.Builder builder = WeatherSeries.builder(500);
+        for (int i = 0; i < 500; i++) {
+            builder.add(i * 3600L, i % 40 - 10, 1000 + i % 20, i % 101, i % 15);
+        }
+        OnlineStats stats = new OnlineStats();
+        stats.addAll(builder.build());
+
+        OnlineStats copy = OnlineStats.fromBytes(stats.toBytes());
+
+        for (Measure measure : Measure.values()) {
+            assertEquals(stats.moments(measure).mean(), copy.moments(measure).mean());
+            assertEquals(stats.moments(measure).variance(), copy.moments(measure).variance());
+            assertEquals(stats.quantile(measure, 0.9), copy.quantile(measure, 0.9));
+            assertEquals(500, copy.histogram(measure).total());
+        }
+        assertEquals(0, copy.histogram(Measure.HUMIDITY).overflow(), "100 % Luftfeuchtigkeit muss in eine Klasse fallen");
+
+        copy.merge(stats);
+        assertEquals(1000, copy.moments(Measure.TEMPERATURE).count());
+        assertThrows(IllegalArgumentException.class, () -> OnlineStats.fromBytes(new byte[]{9}));
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_ReadFrom_ShouldRejectDamagedHistogramBins() throws IOException {
+
+        for (int bins : new int[]{0, Histogram.MAX_BINS + 1, Integer.MAX_VALUE}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeDouble(-50);
+            out.writeDouble(1);
+            out.writeInt(bins);
+            assertThrows(IllegalArgumentException.class,
+                    () -> Histogram.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))),
+                    "Ungültige Anzahl Klassen " + bins + " muss abgelehnt werden");
+        }
+
+        // Valid histograms whose bins do not match the layout of the measurement could not be merged later
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(1);
+        out.writeByte(Measure.values().length);
+        for (Measure measure : Measure.values()) {
+            new Moments().writeTo(out);
+            new QuantileDigest().writeTo(out);
+            new Histogram(-50, 1, measure == Measure.TEMPERATURE ? 99 : 100).writeTo(out);
+        }
+        assertThrows(IllegalArgumentException.class, () -> OnlineStats.fromBytes(bytes.toByteArray()),
+                "Histogramm mit fremden Klassen muss abgelehnt werden");
+    }
+}
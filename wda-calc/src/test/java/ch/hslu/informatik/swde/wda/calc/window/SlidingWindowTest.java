@@ -0,0 +1,76 @@
+package ch.hslu.informatik.swde.wda.calc.window;
+
+import ch.hslu.informatik.swde.wda.calc.Measure;
+import ch.hslu.informatik.swde.wda.calc.MeasureStats;
+import ch.hslu.informatik.swde.wda.calc.WeatherStats;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowTest {
+
+    @Test
+    @Tag("unittest")
+    void test_SlidingWindow_ShouldMatchStatsOfWindowWhileSliding() {
+
+        Random random = new Random(11);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        WeatherSeries.Builder builder = WeatherSeries.builder(24 * 60);
+        for (int i = 0; i < 24 * 60; i++) {
+            builder.add(start.plusHours(i), random.nextGaussian() * 10, 1000 + random.nextGaussian() * 10,
+                    random.nextDouble() * 100, random.nextDouble() * 20);
+        }
+        WeatherSeries all = builder.build();
+
+        SlidingWindow window = SlidingWindow.of(all.slice(start, start.plusDays(7)), Duration.ofDays(7));
+        int next = (int) window.size();
+        while (next < all.size()) {
+            int steps = 1 + random.nextInt(30);
+            for (int i = 0; i < steps && next < all.size(); i++, next++) {
+                assertTrue(window.add(all.epochSecond(next), all.get(WeatherSeries.Column.TEMPERATURE, next),
+                        all.get(WeatherSeries.Column.PRESSURE, next), all.get(WeatherSeries.Column.HUMIDITY, next),
+                        all.get(WeatherSeries.Column.WIND_SPEED, next)));
+            }
+            LocalDateTime now = all.time(next - 1);
+            window.evict(now);
+
+            WeatherStats expected = WeatherStats.of(all.slice(now.minusDays(7), now));
+            WeatherStats actual = window.stats();
+            assertEquals(expected.count(), actual.count());
+            for (Measure measure : Measure.values()) {
+                MeasureStats e = expected.get(measure);
+                MeasureStats a = actual.get(measure);
+                assertEquals(e.count(), a.count(), measure.label());
+                assertEquals(e.min(), a.min(), measure.label());
+                assertEquals(e.max(), a.max(), measure.label());
+                assertEquals(e.mean(), a.mean(), 1e-9, measure.label());
+            }
+        }
+    }
+
+    @Test
+    @Tag("unittest")
+    void test_SlidingWindow_ShouldRejectOlderReadingAndEmptyAfterEviction() {
+
+        LocalDateTime start = LocalDateTime.of(2024, 6, 1, 12, 0);
+        SlidingWindow window = new SlidingWindow(Duration.ofDays(1));
+
+        assertTrue(window.add(start.plusHours(2).toEpochSecond(ZoneOffset.UTC), 20, 1010, 50, 3));
+        assertFalse(window.add(start.plusHours(1).toEpochSecond(ZoneOffset.UTC), 25, 1010, 50, 3),
+                "Ältere Messungen dürfen nicht angefügt werden");
+        assertEquals(1, window.size());
+        assertEquals(20, window.stats().get(Measure.TEMPERATURE).max());
+
+        window.evict(start.plusDays(2));
+        assertEquals(0, window.size());
+        assertTrue(Double.isNaN(window.stats().get(Measure.TEMPERATURE).min()));
+        assertEquals(0, window.stats().get(Measure.TEMPERATURE).sum());
+    }
+}
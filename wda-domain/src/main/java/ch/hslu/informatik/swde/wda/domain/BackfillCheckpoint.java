@@ -0,0 +1,132 @@
+/**
+ * Diese Klasse repräsentiert den Stand des Nachladens der Wetterdaten
+ * einer Stadt für ein bestimmtes Jahr.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"cityId", "year"}))
+public class BackfillCheckpoint implements Serializable {
+
+    /**
+     * The states of a checkpoint.
+     */
+    public enum State {
+        PENDING,
+        DONE,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(nullable = false)
+    private int cityId;
+
+    @Column(nullable = false)
+    private int year;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private State state = State.PENDING;
+
+    private long rowsWritten;
+
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime updatedAt;
+
+    public BackfillCheckpoint() {
+
+    }
+
+    public BackfillCheckpoint(int cityId, int year) {
+        this.cityId = cityId;
+        this.year = year;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getCityId() {
+        return cityId;
+    }
+
+    public void setCityId(int cityId) {
+        this.cityId = cityId;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public void setYear(int year) {
+        this.year = year;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public void setRowsWritten(long rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "BackfillCheckpoint{" +
+                "cityId=" + cityId +
+                ", year=" + year +
+                ", state=" + state +
+                ", rowsWritten=" + rowsWritten +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Diese Klasse repräsentiert die Kennzahlen der Wetterdaten einer Stadt in einem Kalender-Intervall,
+ * z.B. in einer Stunde, an einem Tag, in einer Woche oder in einem Monat.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.domain;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+
+/**
+ * Immutable aggregate of the readings of one calendar bucket.
+ * <p>
+ * The bounds are local date and time in the time zone the buckets were computed for, the bucket includes its start
+ * and ends before its end. Buckets follow the wall clock of the zone, so the day of a change to daylight saving time
+ * has 23 or 25 hours, and the hour repeated when the clocks go back holds the readings of both real hours.
+ * Missing values are not counted, so the count of a measurement can be lower than the count of the bucket.
+ */
+public final class WeatherBucket {
+
+    /**
+     * The calendar intervals readings can be bucketed by.
+     */
+    public enum Granularity {
+        HOUR,
+        DAY,
+        WEEK,
+        MONTH;
+
+        /**
+         * @param time a local date and time
+         * @return the start of the bucket containing the time, weeks start on Monday as in ISO 8601
+         */
+        public LocalDateTime truncate(LocalDateTime time) {
+            return switch (this) {
+                case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+                case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+                case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            };
+        }
+
+        /**
+         * @param start the start of a bucket
+         * @return the start of the next bucket
+         */
+        public LocalDateTime next(LocalDateTime start) {
+            return switch (this) {
+                case HOUR -> start.plusHours(1);
+                case DAY -> start.plusDays(1);
+                case WEEK -> start.plusWeeks(1);
+                case MONTH -> start.plusMonths(1);
+            };
+        }
+    }
+
+    /**
+     * Aggregates of one measurement in a bucket.
+     *
+     * @param count    the number of values
+     * @param min      the lowest value, NaN without values
+     * @param max      the highest value, NaN without values
+     * @param mean     the mean, NaN without values
+     * @param variance the population variance, NaN without values
+     */
+    public record Stats(long count, double min, double max, double mean, double variance) {
+
+        /**
+         * @return the population standard deviation, NaN without values
+         */
+        public double stdDev() {
+            return Math.sqrt(variance);
+        }
+    }
+
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final long count;
+    private final Stats[] stats;
+
+    /**
+     * Creates a bucket.
+     *
+     * @param start the start of the bucket
+     * @param end   the start of the next bucket
+     * @param count the number of readings
+     * @param stats the aggregates per measurement, in the order of {@link WeatherSeries.Column}
+     */
+    public WeatherBucket(LocalDateTime start, LocalDateTime end, long count, Stats... stats) {
+        if (stats.length != WeatherSeries.Column.values().length) {
+            throw new IllegalArgumentException("Expected " + WeatherSeries.Column.values().length + " measurements, got " + stats.length);
+        }
+        this.start = start;
+        this.end = end;
+        this.count = count;
+        this.stats = stats.clone();
+    }
+
+    /**
+     * @return the start of the bucket, included
+     */
+    public LocalDateTime start() {
+        return start;
+    }
+
+    /**
+     * @return the start of the next bucket, excluded
+     */
+    public LocalDateTime end() {
+        return end;
+    }
+
+    /**
+     * @return the number of readings
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @param column the measurement
+     * @return the aggregates of the measurement
+     */
+    public Stats get(WeatherSeries.Column column) {
+        return stats[column.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return "WeatherBucket{" + start + " - " + end + ", count=" + count + ", stats=" + Arrays.toString(stats) + "}";
+    }
+}
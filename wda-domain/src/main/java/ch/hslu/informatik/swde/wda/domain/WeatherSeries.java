@@ -0,0 +1,294 @@
+/**
+ * Diese Klasse repräsentiert die Wetterdaten einer Stadt in einem Zeitraum als Zeitreihe,
+ * spaltenweise in primitiven Arrays gespeichert, damit sie schnell ausgewertet werden können.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.domain;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable, column-oriented series of weather readings, sorted by timestamp.
+ * <p>
+ * Every reading costs one {@code long} and one {@code double} per column, instead of a map entry,
+ * a {@code LocalDateTime} and a Weather entity in a {@code TreeMap<LocalDateTime, Weather>}.
+ * Timestamps are stored as epoch seconds of the local date and time, i.e. {@code toEpochSecond(ZoneOffset.UTC)},
+ * the same local time the database stores.
+ * <p>
+ * A {@link #slice} is a view on the same arrays, found with a binary search, so slicing takes O(log n) and copies nothing.
+ * Kernels that need the raw arrays read {@link #epochSeconds()} and {@link #column} from {@link #offset()}
+ * for {@link #size()} elements, the arrays must not be modified.
+ */
+public final class WeatherSeries {
+
+    /**
+     * The measurements stored per reading.
+     */
+    public enum Column {
+        TEMPERATURE,
+        PRESSURE,
+        HUMIDITY,
+        WIND_SPEED
+    }
+
+    private static final WeatherSeries EMPTY = new WeatherSeries(new long[0], new double[Column.values().length][0], 0, 0);
+
+    private final long[] epochSeconds;
+    private final double[][] columns;
+    private final int offset;
+    private final int size;
+
+    private WeatherSeries(long[] epochSeconds, double[][] columns, int offset, int size) {
+        this.epochSeconds = epochSeconds;
+        this.columns = columns;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * @return an empty series
+     */
+    public static WeatherSeries empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a series from Weather entities, e.g. the values of a {@code TreeMap<LocalDateTime, Weather>}.
+     *
+     * @param weather the readings, in any order
+     * @return the series sorted by timestamp
+     */
+    public static WeatherSeries of(Collection<Weather> weather) {
+        Builder builder = builder(weather.size());
+        for (Weather w : weather) {
+            builder.add(w.getDTstamp(), w.getCurrTempCelsius(), w.getPressure(), w.getHumidity(), w.getWindSpeed());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param capacity the expected number of readings
+     * @return a builder to append readings to
+     */
+    public static Builder builder(int capacity) {
+        return new Builder(capacity);
+    }
+
+    /**
+     * @return the number of readings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the series has no readings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param i the index of a reading, from 0 to size() - 1
+     * @return the timestamp of the reading in epoch seconds
+     */
+    public long epochSecond(int i) {
+        return epochSeconds[offset + checkIndex(i)];
+    }
+
+    /**
+     * @param i the index of a reading, from 0 to size() - 1
+     * @return the timestamp of the reading
+     */
+    public LocalDateTime time(int i) {
+        return LocalDateTime.ofEpochSecond(epochSecond(i), 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * @param column the measurement
+     * @param i      the index of a reading, from 0 to size() - 1
+     * @return the value of the measurement
+     */
+    public double get(Column column, int i) {
+        return columns[column.ordinal()][offset + checkIndex(i)];
+    }
+
+    /**
+     * Returns the readings between two timestamps, both included, like {@code BETWEEN} in a query.
+     *
+     * @param from the first timestamp
+     * @param to   the last timestamp
+     * @return a view on the readings of the range, found in O(log n)
+     */
+    public WeatherSeries slice(LocalDateTime from, LocalDateTime to) {
+        return sliceEpoch(from.toEpochSecond(ZoneOffset.UTC), to.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    /**
+     * Returns the readings between two timestamps in epoch seconds, both included.
+     *
+     * @param from the first timestamp
+     * @param to   the last timestamp
+     * @return a view on the readings of the range, found in O(log n)
+     */
+    public WeatherSeries sliceEpoch(long from, long to) {
+        if (from > to) {
+            return EMPTY;
+        }
+        int start = search(from, false);
+        int end = search(to, true);
+        return start == offset && end == offset + size ? this : new WeatherSeries(epochSeconds, columns, start, end - start);
+    }
+
+    /**
+     * @return the backing array of the timestamps, valid from offset() for size() elements
+     */
+    public long[] epochSeconds() {
+        return epochSeconds;
+    }
+
+    /**
+     * @param column the measurement
+     * @return the backing array of the measurement, valid from offset() for size() elements
+     */
+    public double[] column(Column column) {
+        return columns[column.ordinal()];
+    }
+
+    /**
+     * @return the index of the first reading in the backing arrays
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * Binary search in the view.
+     *
+     * @return the index of the first reading at or after the timestamp, or strictly after it if {@code after} is true
+     */
+    private int search(long epochSecond, boolean after) {
+        int lo = offset;
+        int hi = offset + size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (epochSeconds[mid] < epochSecond || after && epochSeconds[mid] == epochSecond) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        }
+        return i;
+    }
+
+    /**
+     * Collects readings into growing arrays. Readings are expected in ascending order of their timestamps,
+     * otherwise they are sorted once when the series is built.
+     */
+    public static final class Builder {
+
+        private long[] epochSeconds;
+        private double[][] columns;
+        private int size;
+        private boolean sorted = true;
+
+        private Builder(int capacity) {
+            int n = Math.max(capacity, 16);
+            epochSeconds = new long[n];
+            columns = new double[Column.values().length][n];
+        }
+
+        /**
+         * Appends a reading.
+         *
+         * @param time        the timestamp
+         * @param temperature the temperature in degrees Celsius
+         * @param pressure    the pressure
+         * @param humidity    the humidity
+         * @param windSpeed   the wind speed
+         * @return this builder
+         */
+        public Builder add(LocalDateTime time, double temperature, double pressure, double humidity, double windSpeed) {
+            return add(time.toEpochSecond(ZoneOffset.UTC), temperature, pressure, humidity, windSpeed);
+        }
+
+        /**
+         * Appends a reading.
+         *
+         * @param epochSecond the timestamp in epoch seconds
+         * @param temperature the temperature in degrees Celsius
+         * @param pressure    the pressure
+         * @param humidity    the humidity
+         * @param windSpeed   the wind speed
+         * @return this builder
+         */
+        public Builder add(long epochSecond, double temperature, double pressure, double humidity, double windSpeed) {
+            if (size == epochSeconds.length) {
+                grow();
+            }
+            if (size > 0 && epochSecond < epochSeconds[size - 1]) {
+                sorted = false;
+            }
+            epochSeconds[size] = epochSecond;
+            columns[Column.TEMPERATURE.ordinal()][size] = temperature;
+            columns[Column.PRESSURE.ordinal()][size] = pressure;
+            columns[Column.HUMIDITY.ordinal()][size] = humidity;
+            columns[Column.WIND_SPEED.ordinal()][size] = windSpeed;
+            size++;
+            return this;
+        }
+
+        /**
+         * @return the series, the builder must not be used afterwards
+         */
+        public WeatherSeries build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            if (!sorted) {
+                sort();
+            }
+            return new WeatherSeries(epochSeconds, columns, 0, size);
+        }
+
+        private void grow() {
+            int n = epochSeconds.length * 2;
+            epochSeconds = Arrays.copyOf(epochSeconds, n);
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = Arrays.copyOf(columns[c], n);
+            }
+        }
+
+        private void sort() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(epochSeconds[a], epochSeconds[b]));
+
+            long[] stamps = new long[size];
+            double[][] values = new double[columns.length][size];
+            for (int i = 0; i < size; i++) {
+                stamps[i] = epochSeconds[order[i]];
+                for (int c = 0; c < columns.length; c++) {
+                    values[c][i] = columns[c][order[i]];
+                }
+            }
+            epochSeconds = stamps;
+            columns = values;
+        }
+    }
+}
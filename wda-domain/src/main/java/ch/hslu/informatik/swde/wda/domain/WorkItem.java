@@ -0,0 +1,145 @@
+/**
+ * Diese Klasse repräsentiert eine Aufgabe der Warteschlange, z.B. das Laden der Wetterdaten
+ * einer Stadt für ein bestimmtes Jahr, die jeweils von genau einer Instanz der Applikation bearbeitet wird.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.domain;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"cityId", "task"}))
+public class WorkItem implements Serializable {
+
+    /**
+     * The states of a work item.
+     */
+    public enum State {
+        PENDING,
+        LEASED,
+        DONE,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(nullable = false)
+    private int cityId;
+
+    @Column(nullable = false, length = 64)
+    private String task;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private State state = State.PENDING;
+
+    @Column(length = 128)
+    private String owner;
+
+    private LocalDateTime leaseUntil;
+
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime updatedAt;
+
+    public WorkItem() {
+
+    }
+
+    public WorkItem(int cityId, String task) {
+        this.cityId = cityId;
+        this.task = task;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getCityId() {
+        return cityId;
+    }
+
+    public void setCityId(int cityId) {
+        this.cityId = cityId;
+    }
+
+    public String getTask() {
+        return task;
+    }
+
+    public void setTask(String task) {
+        this.task = task;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkItem{" +
+                "cityId=" + cityId +
+                ", task='" + task + '\'' +
+                ", state=" + state +
+                ", owner='" + owner + '\'' +
+                ", leaseUntil=" + leaseUntil +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Diese Schnittstelle ergänzt die generische Persister-Schnittstelle
+ * mit zusätzlichen Funktionalitäten für die Persistierung der Checkpoints beim Nachladen von Wetterdaten.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.persister.DAO;
+
+import ch.hslu.informatik.swde.wda.domain.BackfillCheckpoint;
+
+import java.util.List;
+
+public interface CheckpointDAO extends GenericDAO<BackfillCheckpoint> {
+
+    /**
+     * Holt alle Checkpoints der angegebenen Jahre.
+     *
+     * @param fromYear Das erste Jahr.
+     * @param toYear   Das letzte Jahr.
+     * @return Eine Liste der Checkpoints; leer, wenn keine vorhanden sind.
+     */
+    List<BackfillCheckpoint> findCheckpointsByYearRange(int fromYear, int toYear);
+
+    /**
+     * Holt alle Checkpoints, die noch nicht abgeschlossen sind.
+     *
+     * @return Eine Liste der Checkpoints, das neueste Jahr zuerst; leer, wenn alle abgeschlossen sind.
+     */
+    List<BackfillCheckpoint> findUnfinishedCheckpoints();
+
+    /**
+     * Speichert neue Checkpoints in einer Transaktion ab.
+     *
+     * @param checkpoints Die neuen Checkpoints.
+     */
+    void saveCheckpoints(List<BackfillCheckpoint> checkpoints);
+
+    /**
+     * Aktualisiert Zustand, Anzahl Zeilen, Versuche und Fehler mehrerer Checkpoints in einer Transaktion.
+     *
+     * @param checkpoints Die Checkpoints, identifiziert über Ortschaft und Jahr.
+     */
+    void updateCheckpoints(List<BackfillCheckpoint> checkpoints);
+}
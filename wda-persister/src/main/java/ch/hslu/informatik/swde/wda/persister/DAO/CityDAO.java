@@ -12,6 +12,7 @@ import ch.hslu.informatik.swde.wda.domain.City;
 
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface CityDAO extends GenericDAO<City> {
@@ -62,4 +63,18 @@ public interface CityDAO extends GenericDAO<City> {
      * @param cityMap mit allen Städten
      */
     void saveAllCities(LinkedHashMap<Integer, City> cityMap);
+
+    /**
+     * Sucht alle Städte, deren Land noch nicht bekannt ist.
+     *
+     * @return eine Liste aller Städte ohne Land
+     */
+    List<City> findCitiesWithoutCountry();
+
+    /**
+     * Setzt das Land mehrerer Städte in einer Transaktion.
+     *
+     * @param countryByCityId Map mit der City ID als Schlüssel und dem Land als Wert
+     */
+    void updateCountries(Map<Integer, String> countryByCityId);
 }
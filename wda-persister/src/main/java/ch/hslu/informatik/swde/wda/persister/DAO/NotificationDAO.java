@@ -0,0 +1,33 @@
+/**
+ * Diese Schnittstelle gibt die Funktionalitäten vor, um Benachrichtigungen über die Datenbank
+ * an alle Instanzen der Applikation zu senden und zu empfangen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.persister.DAO;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface NotificationDAO {
+
+    /**
+     * Sendet Benachrichtigungen in einer Transaktion an alle Empfänger eines Kanals.
+     *
+     * @param channel  Der Name des Kanals.
+     * @param payloads Die Inhalte der Benachrichtigungen, je höchstens 8000 Bytes.
+     */
+    void notify(String channel, List<String> payloads);
+
+    /**
+     * Empfängt die Benachrichtigungen eines Kanals im Hintergrund, bis der zurückgegebene Empfänger geschlossen wird.
+     *
+     * @param channel     Der Name des Kanals.
+     * @param onPayload   Wird mit dem Inhalt jeder Benachrichtigung aufgerufen.
+     * @param onReconnect Wird aufgerufen, nachdem die Verbindung wiederhergestellt wurde und Benachrichtigungen verloren gegangen sein können.
+     * @return Der Empfänger.
+     */
+    AutoCloseable listen(String channel, Consumer<String> onPayload, Runnable onReconnect);
+}
@@ -9,11 +9,16 @@
 package ch.hslu.informatik.swde.wda.persister.DAO;
 
 import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherBucket;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 
 public interface WeatherDAO extends GenericDAO<Weather> {
@@ -31,6 +36,14 @@ public interface WeatherDAO extends GenericDAO<Weather> {
      */
     Weather findLatestWeatherByCity(int cityId);
 
+    /**
+     * Holt das neueste Weather mehrerer Ortschaften mit einer einzigen Abfrage.
+     *
+     * @param cityIds Die IDs der Ortschaften.
+     * @return Das neueste Weather-Objekt pro Ortschafts-ID; Ortschaften ohne Wetterdaten fehlen.
+     */
+    Map<Integer, Weather> findLatestWeatherOfCities(Collection<Integer> cityIds);
+
     /**
      * Holt das älteste Weather für eine bestimmte Ortschaft basierend auf der Ortschafts-ID.
      *
@@ -48,6 +61,31 @@ public interface WeatherDAO extends GenericDAO<Weather> {
      */
     Weather findWeatherFromCityByDateTime(LocalDateTime date, int cityId);
 
+    /**
+     * Holt die Zeitpunkte aller Wetterdaten einer bestimmten Ortschaft.
+     *
+     * @param cityId Die ID der Ortschaft.
+     * @return Eine Liste von Zeitpunkten; leer, wenn keine Daten gefunden werden.
+     */
+    List<LocalDateTime> findWeatherDatesFromCity(int cityId);
+
+    /**
+     * Holt die Zeitpunkte der Wetterdaten einer bestimmten Ortschaft in einem Zeitraum.
+     *
+     * @param cityId Die ID der Ortschaft.
+     * @param from   Der erste Zeitpunkt, inklusive.
+     * @param to     Der letzte Zeitpunkt, inklusive.
+     * @return Eine Liste von Zeitpunkten; leer, wenn keine Daten gefunden werden.
+     */
+    List<LocalDateTime> findWeatherDatesFromCityBetween(int cityId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Zählt die Wetterdaten aller Ortschaften mit einer einzigen Abfrage.
+     *
+     * @return Die Anzahl Wetterdaten pro Ortschafts-ID; Ortschaften ohne Wetterdaten fehlen.
+     */
+    Map<Integer, Long> countWeatherPerCity();
+
     /**
      * Holt Wetterdaten für eine bestimmte Ortschaft zu ein bestimmtes Jahr.
      *
@@ -109,6 +147,41 @@ public interface WeatherDAO extends GenericDAO<Weather> {
      * @return Eine Liste von Weather-Objekten; leer, wenn keine Daten gefunden werden.
      */
     TreeMap<LocalDateTime, Weather> findWeatherFromCityByTimeSpan(int ortschaftId, LocalDateTime von, LocalDateTime bis);
+
+    /**
+     * Holt die Wetterdaten einer Ortschaft innerhalb eines Zeitraums als spaltenweise Zeitreihe, ohne Weather-Objekte zu erzeugen.
+     *
+     * @param cityId Die ID der Ortschaft.
+     * @param von    Anfangsdatum des Zeitraums.
+     * @param bis    Enddatum des Zeitraums.
+     * @return Die nach Zeitpunkt sortierte Zeitreihe; leer, wenn keine Daten gefunden werden.
+     */
+    WeatherSeries findWeatherSeriesFromCityByTimeSpan(int cityId, LocalDateTime von, LocalDateTime bis);
+
+    /**
+     * Holt die Wetterdaten einer Ortschaft in einem Zeitfenster als spaltenweise Zeitreihe, z.B. in einem Monat,
+     * der vor dem Beginn des nächsten Monats endet.
+     *
+     * @param cityId Die ID der Ortschaft.
+     * @param von    Der Beginn des Zeitfensters, inklusive.
+     * @param bis    Das Ende des Zeitfensters, exklusive.
+     * @return Die nach Zeitpunkt sortierte Zeitreihe; leer, wenn keine Daten gefunden werden.
+     */
+    WeatherSeries findWeatherSeriesFromCityByWindow(int cityId, LocalDateTime von, LocalDateTime bis);
+
+    /**
+     * Fasst die Wetterdaten einer Ortschaft innerhalb eines Zeitraums in der Datenbank pro Kalender-Intervall zusammen.
+     *
+     * @param cityId      Die ID der Ortschaft.
+     * @param von         Anfangsdatum des Zeitraums, in der Zeitzone der gespeicherten Wetterdaten.
+     * @param bis         Enddatum des Zeitraums, exklusive.
+     * @param granularity Die Länge der Intervalle.
+     * @param source      Die Zeitzone der gespeicherten Wetterdaten.
+     * @param zone        Die Zeitzone, in der die Intervalle gebildet werden.
+     * @return Die nach Beginn sortierten Intervalle mit Messungen; leer, wenn keine Daten gefunden werden.
+     */
+    List<WeatherBucket> findWeatherBucketsFromCityByTimeSpan(int cityId, LocalDateTime von, LocalDateTime bis,
+                                                            WeatherBucket.Granularity granularity, ZoneId source, ZoneId zone);
 //
 //    /**
 //     * Holt die minimale und maximale Temperatur für einen bestimmten Zeitpunkt.
@@ -141,6 +214,13 @@ public interface WeatherDAO extends GenericDAO<Weather> {
      */
     void saveAllWeather(TreeMap<LocalDateTime, Weather> weatherMap);
 
+    /**
+     * Speichert die Wetterdaten mehrerer Ortschaften in einer Transaktion ab.
+     *
+     * @param weatherList Die Wetterdaten, die Ortschaft muss bereits gesetzt sein.
+     */
+    void saveWeatherBatch(List<Weather> weatherList);
+
     /**
      * Gibt an obe eine Tabelle leer oder voll ist
      *
@@ -0,0 +1,112 @@
+/**
+ * Diese Schnittstelle ergänzt die generische Persister-Schnittstelle
+ * mit zusätzlichen Funktionalitäten für die Warteschlange, über die mehrere Instanzen der Applikation
+ * die Aufgaben untereinander aufteilen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.persister.DAO;
+
+import ch.hslu.informatik.swde.wda.domain.WorkItem;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface WorkQueueDAO extends GenericDAO<WorkItem> {
+
+    /**
+     * Fügt Aufgaben hinzu, die noch nicht vorhanden sind. Fehlgeschlagene Aufgaben werden wieder geöffnet,
+     * alle anderen vorhandenen Aufgaben bleiben unverändert.
+     *
+     * @param items Die Aufgaben.
+     */
+    void enqueue(List<WorkItem> items);
+
+    /**
+     * Übernimmt offene Aufgaben oder Aufgaben, deren Reservation abgelaufen ist. Aufgaben, die gerade
+     * von einer anderen Instanz übernommen werden, werden übersprungen.
+     *
+     * @param taskPrefix Der Anfang des Namens der Aufgaben, z.B. {@code init:}.
+     * @param owner      Die ID der übernehmenden Instanz.
+     * @param limit      Die maximale Anzahl Aufgaben.
+     * @param lease      Die Dauer der Reservation.
+     * @return Die übernommenen Aufgaben, in der Reihenfolge, in der sie hinzugefügt wurden; leer, wenn keine offen sind.
+     */
+    List<WorkItem> claim(String taskPrefix, String owner, int limit, Duration lease);
+
+    /**
+     * Verlängert die Reservation aller Aufgaben einer Instanz.
+     *
+     * @param owner Die ID der Instanz.
+     * @param lease Die neue Dauer der Reservation.
+     * @return Die Anzahl verlängerter Aufgaben.
+     */
+    int heartbeat(String owner, Duration lease);
+
+    /**
+     * Schliesst eine Aufgabe ab, sofern sie noch von der Instanz reserviert ist.
+     *
+     * @param id    Die ID der Aufgabe.
+     * @param owner Die ID der Instanz.
+     * @param state DONE oder FAILED.
+     * @param error Die Fehlermeldung oder null.
+     * @return true, falls die Aufgabe abgeschlossen wurde, false, falls die Reservation verloren ging.
+     */
+    boolean complete(long id, String owner, WorkItem.State state, String error);
+
+    /**
+     * Gibt Aufgaben einer Instanz wieder frei, damit andere Instanzen sie übernehmen können.
+     *
+     * @param owner Die ID der Instanz.
+     * @param ids   Die IDs der Aufgaben.
+     * @return Die Anzahl freigegebener Aufgaben.
+     */
+    int release(String owner, Collection<Long> ids);
+
+    /**
+     * Holt die Aufgaben, deren Reservation eine Instanz noch hält.
+     *
+     * @param owner      Die ID der Instanz.
+     * @param taskPrefix Der Anfang des Namens der Aufgaben.
+     * @return Eine Liste der Aufgaben; leer, wenn keine vorhanden sind.
+     */
+    List<WorkItem> findLeased(String owner, String taskPrefix);
+
+    /**
+     * Holt die Aufgaben in einem Zustand.
+     *
+     * @param taskPrefix Der Anfang des Namens der Aufgaben.
+     * @param state      Der Zustand.
+     * @return Eine Liste der Aufgaben; leer, wenn keine vorhanden sind.
+     */
+    List<WorkItem> findByState(String taskPrefix, WorkItem.State state);
+
+    /**
+     * Zählt die Aufgaben pro Zustand.
+     *
+     * @param taskPrefix Der Anfang des Namens der Aufgaben.
+     * @return Die Anzahl Aufgaben pro Zustand, Zustände ohne Aufgaben fehlen.
+     */
+    Map<WorkItem.State, Long> countByState(String taskPrefix);
+
+    /**
+     * Zählt die Aufgaben mit gültiger Reservation.
+     *
+     * @param taskPrefix Der Anfang des Namens der Aufgaben.
+     * @return Die Anzahl Aufgaben, deren Reservation noch nicht abgelaufen ist.
+     */
+    long countActiveLeases(String taskPrefix);
+
+    /**
+     * Löscht Aufgaben.
+     *
+     * @param taskPrefix  Der Anfang des Namens der Aufgaben.
+     * @param expiredOnly true, um nur Aufgaben mit abgelaufener Reservation zu löschen.
+     * @return Die Anzahl gelöschter Aufgaben.
+     */
+    int delete(String taskPrefix, boolean expiredOnly);
+}
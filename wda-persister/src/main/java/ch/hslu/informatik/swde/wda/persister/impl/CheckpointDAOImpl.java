@@ -0,0 +1,178 @@
+/**
+ * Diese Klasse stellt eine konkrete Implementierung der Schnittstelle
+ * 'CheckpointDAO' dar.
+ * Die Persistierung wird dabei mithilfe von ORM realisiert.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.persister.impl;
+
+import ch.hslu.informatik.swde.wda.domain.BackfillCheckpoint;
+import ch.hslu.informatik.swde.wda.persister.DAO.CheckpointDAO;
+import ch.hslu.informatik.swde.wda.persister.exception.CheckpointPersistenceException;
+import ch.hslu.informatik.swde.wda.persister.util.JpaUtil;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+public class CheckpointDAOImpl extends GenericDAOImpl<BackfillCheckpoint> implements CheckpointDAO {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CheckpointDAOImpl.class);
+
+    private String persistenceUnitName;
+
+    public CheckpointDAOImpl() {
+        super(BackfillCheckpoint.class);
+    }
+
+    public CheckpointDAOImpl(String persistenceUnitName) {
+        super(BackfillCheckpoint.class, persistenceUnitName);
+        this.persistenceUnitName = persistenceUnitName;
+    }
+
+    /**
+     * Retrieves the checkpoints of all cities for a range of years.
+     * <p>
+     * This method creates an EntityManager instance and constructs a query to find the checkpoints
+     * whose year lies between the provided years, both included.
+     * The EntityManager is closed in the "finally" block to ensure that resources are always properly released.
+     *
+     * @param fromYear the first year of the range
+     * @param toYear   the last year of the range
+     * @return a list of the checkpoints in the range, or an empty list if there are none
+     */
+    @Override
+    public List<BackfillCheckpoint> findCheckpointsByYearRange(int fromYear, int toYear) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            return em.createQuery("SELECT c FROM BackfillCheckpoint c WHERE c.year >= :fromYear AND c.year <= :toYear", BackfillCheckpoint.class)
+                    .setParameter("fromYear", fromYear)
+                    .setParameter("toYear", toYear)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Retrieves all checkpoints that are not done yet, i.e. pending or failed.
+     * <p>
+     * This method creates an EntityManager instance and constructs a query to find the checkpoints
+     * whose state is not DONE. The checkpoints are sorted by year in descending order,
+     * so the most recent data is loaded first when a backfill is resumed.
+     * The EntityManager is closed in the "finally" block to ensure that resources are always properly released.
+     *
+     * @return a list of the unfinished checkpoints, or an empty list if all checkpoints are done
+     */
+    @Override
+    public List<BackfillCheckpoint> findUnfinishedCheckpoints() {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            return em.createQuery("SELECT c FROM BackfillCheckpoint c WHERE c.state <> :done ORDER BY c.year DESC, c.cityId", BackfillCheckpoint.class)
+                    .setParameter("done", BackfillCheckpoint.State.DONE)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Saves new checkpoints in one transaction.
+     * <p>
+     * This method creates an EntityManager instance and starts a transaction.
+     * The checkpoints are persisted one after the other and the transaction is committed.
+     * If an exception occurs during the execution of the method, it rolls back the transaction, logs an error message,
+     * and throws a CheckpointPersistenceException.
+     * The EntityManager is closed in the "finally" block to ensure that resources are always properly released.
+     *
+     * @param checkpoints the new checkpoints to be saved
+     * @throws CheckpointPersistenceException if an exception occurs during the execution of the method
+     */
+    @Override
+    public void saveCheckpoints(List<BackfillCheckpoint> checkpoints) {
+
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            em.getTransaction().begin();
+
+            for (BackfillCheckpoint checkpoint : checkpoints) {
+                em.persist(checkpoint);
+            }
+
+            em.getTransaction().commit();
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            LOG.error("Error while saving checkpoints", e);
+            throw new CheckpointPersistenceException("Error while saving checkpoints", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Updates the state of several checkpoints in one transaction.
+     * <p>
+     * This method creates an EntityManager instance and starts a transaction.
+     * For every checkpoint it executes an update query that sets the state, the number of rows written,
+     * the number of attempts, the last error and the time of the update of the checkpoint with the same city and year.
+     * After all updates have been executed, the transaction is committed.
+     * If an exception occurs during the execution of the method, it rolls back the transaction, logs an error message,
+     * and throws a CheckpointPersistenceException.
+     * The EntityManager is closed in the "finally" block to ensure that resources are always properly released.
+     *
+     * @param checkpoints the checkpoints to be updated, identified by city ID and year
+     * @throws CheckpointPersistenceException if an exception occurs during the execution of the method
+     */
+    @Override
+    public void updateCheckpoints(List<BackfillCheckpoint> checkpoints) {
+
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            em.getTransaction().begin();
+
+            for (BackfillCheckpoint c : checkpoints) {
+                em.createQuery("UPDATE BackfillCheckpoint c SET c.state = :state, c.rowsWritten = :rowsWritten, " +
+                                "c.attempts = :attempts, c.lastError = :lastError, c.updatedAt = :updatedAt " +
+                                "WHERE c.cityId = :cityId AND c.year = :year")
+                        .setParameter("state", c.getState())
+                        .setParameter("rowsWritten", c.getRowsWritten())
+                        .setParameter("attempts", c.getAttempts())
+                        .setParameter("lastError", c.getLastError())
+                        .setParameter("updatedAt", c.getUpdatedAt())
+                        .setParameter("cityId", c.getCityId())
+                        .setParameter("year", c.getYear())
+                        .executeUpdate();
+            }
+
+            em.getTransaction().commit();
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            LOG.error("Error while updating checkpoints", e);
+            throw new CheckpointPersistenceException("Error while updating checkpoints", e);
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -230,4 +230,69 @@ public class CityDAOImpl extends GenericDAOImpl<City> implements CityDAO {
             em.close();
         }
     }
+
+    /**
+     * Retrieves all cities whose country is not known yet.
+     * <p>
+     * This method creates an EntityManager instance and a TypedQuery to find all cities
+     * whose country is null or empty, e.g. because they were saved from the city catalog only.
+     * The EntityManager is closed in the "finally" block to ensure that resources are always properly released.
+     *
+     * @return a list of all cities without country, or an empty list if all countries are known
+     */
+    @Override
+    public List<City> findCitiesWithoutCountry() {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            return em.createQuery("SELECT c FROM City c WHERE c.country IS NULL OR c.country = ''", City.class).getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Sets the country of several cities in one transaction.
+     * <p>
+     * This method creates an EntityManager instance and starts a transaction.
+     * For every entry of the map it executes an update query that sets the country of the city with the given ID.
+     * After all updates have been executed, the transaction is committed.
+     * If an exception occurs during the execution of the method, it rolls back the transaction, logs an error message,
+     * and throws a CityPersistenceException.
+     * The EntityManager is closed in the "finally" block to ensure that resources are always properly released.
+     *
+     * @param countryByCityId a map with the city ID as key and the country as value
+     * @throws CityPersistenceException if an exception occurs during the execution of the method
+     */
+    @Override
+    public void updateCountries(Map<Integer, String> countryByCityId) {
+
+        if (countryByCityId.isEmpty()) {
+            return;
+        }
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            em.getTransaction().begin();
+
+            for (Map.Entry<Integer, String> entry : countryByCityId.entrySet()) {
+                em.createQuery("UPDATE City c SET c.country = :country WHERE c.id = :id")
+                        .setParameter("country", entry.getValue())
+                        .setParameter("id", entry.getKey())
+                        .executeUpdate();
+            }
+
+            em.getTransaction().commit();
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            LOG.error("Error while updating countries", e);
+            throw new CityPersistenceException("Error while updating countries", e);
+        } finally {
+            em.close();
+        }
+    }
 }
@@ -0,0 +1,201 @@
+/**
+ * Diese Klasse stellt eine konkrete Implementierung der Schnittstelle
+ * 'NotificationDAO' dar.
+ * Die Benachrichtigungen werden dabei mithilfe von LISTEN/NOTIFY von PostgreSQL realisiert.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.persister.impl;
+
+import ch.hslu.informatik.swde.wda.persister.DAO.NotificationDAO;
+import ch.hslu.informatik.swde.wda.persister.exception.NotificationPersistenceException;
+import ch.hslu.informatik.swde.wda.persister.util.JpaUtil;
+import jakarta.persistence.EntityManager;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+public class NotificationDAOImpl implements NotificationDAO {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationDAOImpl.class);
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    private static final int POLL_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 30_000L;
+
+    private final String persistenceUnitName;
+
+    public NotificationDAOImpl(String persistenceUnitName) {
+        this.persistenceUnitName = persistenceUnitName;
+    }
+
+    /**
+     * Sends notifications to all listeners of a channel.
+     * <p>
+     * This method creates an EntityManager instance and calls pg_notify once per payload within one transaction.
+     * PostgreSQL delivers the notifications when the transaction commits, in the order they were sent,
+     * and only once if the same payload is sent several times in the transaction.
+     * If an exception occurs, the transaction is rolled back and no notification is delivered.
+     *
+     * @param channel  the name of the channel
+     * @param payloads the payloads, at most 8000 bytes each
+     * @throws NotificationPersistenceException if the notifications could not be sent
+     */
+    @Override
+    public void notify(String channel, List<String> payloads) {
+
+        checkChannel(channel);
+        if (payloads.isEmpty()) {
+            return;
+        }
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            em.getTransaction().begin();
+            for (String payload : payloads) {
+                em.createNativeQuery("SELECT pg_notify(?1, ?2)")
+                        .setParameter(1, channel)
+                        .setParameter(2, payload)
+                        .getSingleResult();
+            }
+            em.getTransaction().commit();
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            LOG.error("Error while sending notifications on " + channel, e);
+            throw new NotificationPersistenceException("Error while sending notifications on " + channel, e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Receives the notifications of a channel on a background thread.
+     * <p>
+     * This method starts a daemon thread that opens its own JDBC connection with the settings of the persistence unit,
+     * executes LISTEN on the channel and waits for notifications. A connection is needed per listener,
+     * since a connection of the pool would stop listening as soon as it is returned.
+     * If the connection breaks, the thread reconnects with a growing delay of up to 30 seconds
+     * and calls onReconnect, because notifications sent in the meantime are lost.
+     *
+     * @param channel     the name of the channel
+     * @param onPayload   called on the listener thread with the payload of every notification
+     * @param onReconnect called on the listener thread after the connection was restored
+     * @return the listener, closing it stops the thread and closes the connection
+     */
+    @Override
+    public AutoCloseable listen(String channel, Consumer<String> onPayload, Runnable onReconnect) {
+
+        checkChannel(channel);
+        Listener listener = new Listener(channel, onPayload, onReconnect);
+        listener.thread.start();
+        return listener;
+    }
+
+    private final class Listener implements AutoCloseable {
+
+        private final String channel;
+        private final Consumer<String> onPayload;
+        private final Runnable onReconnect;
+        private final Thread thread;
+        private volatile boolean closed;
+
+        private Listener(String channel, Consumer<String> onPayload, Runnable onReconnect) {
+            this.channel = channel;
+            this.onPayload = onPayload;
+            this.onReconnect = onReconnect;
+            this.thread = Thread.ofPlatform().name("wda-listen-" + channel).daemon(true).unstarted(this::run);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            thread.interrupt();
+        }
+
+        private void run() {
+
+            boolean connectedBefore = false;
+            long backoff = 1000;
+
+            while (!closed) {
+                try (Connection con = connect()) {
+                    try (Statement st = con.createStatement()) {
+                        st.execute("LISTEN " + channel);
+                    }
+                    if (connectedBefore) {
+                        LOG.info("Listening on " + channel + " again, notifications may have been lost");
+                        onReconnect.run();
+                    }
+                    connectedBefore = true;
+                    backoff = 1000;
+
+                    PGConnection pg = con.unwrap(PGConnection.class);
+                    while (!closed) {
+                        PGNotification[] notifications = pg.getNotifications(POLL_MILLIS);
+                        if (notifications == null) {
+                            continue;
+                        }
+                        for (PGNotification n : notifications) {
+                            try {
+                                onPayload.accept(n.getParameter());
+                            } catch (RuntimeException e) {
+                                LOG.error("Error while handling a notification on " + channel + ": ", e);
+                            }
+                        }
+                    }
+                } catch (SQLException e) {
+                    if (closed) {
+                        return;
+                    }
+                    LOG.info("Listening on " + channel + " failed, retrying in " + backoff + " ms: " + e.getMessage());
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens a JDBC connection with the URL, user and password of the persistence unit.
+     */
+    private Connection connect() throws SQLException {
+
+        Map<String, Object> properties;
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+        try {
+            properties = em.getEntityManagerFactory().getProperties();
+        } finally {
+            em.close();
+        }
+
+        return DriverManager.getConnection(
+                String.valueOf(properties.get("jakarta.persistence.jdbc.url")),
+                String.valueOf(properties.get("jakarta.persistence.jdbc.user")),
+                String.valueOf(properties.get("jakarta.persistence.jdbc.password")));
+    }
+
+    private static void checkChannel(String channel) {
+        if (channel == null || !CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid channel name: " + channel);
+        }
+    }
+}
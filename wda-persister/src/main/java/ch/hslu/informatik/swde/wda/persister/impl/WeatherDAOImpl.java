@@ -10,7 +10,10 @@
 package ch.hslu.informatik.swde.wda.persister.impl;
 
 import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherBucket;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
 import ch.hslu.informatik.swde.wda.persister.DAO.WeatherDAO;
+import ch.hslu.informatik.swde.wda.persister.exception.WeatherPersistenceException;
 import ch.hslu.informatik.swde.wda.persister.util.JpaUtil;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
@@ -27,6 +30,10 @@ public class WeatherDAOImpl extends GenericDAOImpl<Weather> implements WeatherDA
 
     private static final Logger LOG = LoggerFactory.getLogger(WeatherDAOImpl.class);
 
+    private static final String BUCKETS = "SELECT date_trunc(?4, timezone(?6, timezone(?5, dtstamp))), COUNT(*), "
+            + aggregates("currtempcelsius") + ", " + aggregates("pressure") + ", " + aggregates("humidity") + ", " + aggregates("windspeed")
+            + " FROM weather WHERE cityid = ?1 AND dtstamp >= ?2 AND dtstamp < ?3 GROUP BY 1 ORDER BY 1";
+
     private String persistenceUnitName;
 
     public WeatherDAOImpl() {
@@ -111,6 +118,41 @@ public class WeatherDAOImpl extends GenericDAOImpl<Weather> implements WeatherDA
         return objFromDb;
     }
 
+    /**
+     * Retrieves the latest Weather entity of several cities with a single query.
+     * <p>
+     * This method creates an EntityManager instance and constructs a query to find, for every provided city ID,
+     * the Weather entity with the latest timestamp of the city, using a correlated subquery.
+     * The EntityManager is closed after the list is retrieved to ensure that resources are always properly released.
+     * The retrieved Weather entities are then returned in a map with the city ID as the key.
+     *
+     * @param cityIds the IDs of the cities for which the latest Weather entity is to be retrieved
+     * @return the latest Weather entity per city ID, cities without weather data are missing
+     */
+    @Override
+    public Map<Integer, Weather> findLatestWeatherOfCities(Collection<Integer> cityIds) {
+
+        Map<Integer, Weather> latest = new HashMap<>();
+        if (cityIds.isEmpty()) {
+            return latest;
+        }
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            TypedQuery<Weather> tQry = em.createQuery("SELECT w FROM Weather w WHERE w.cityId IN :cityIds" +
+                    " AND w.DTstamp = (SELECT MAX(w2.DTstamp) FROM Weather w2 WHERE w2.cityId = w.cityId)", Weather.class);
+            tQry.setParameter("cityIds", cityIds);
+
+            for (Weather w : tQry.getResultList()) {
+                latest.put(w.getCityId(), w);
+            }
+        } finally {
+            em.close();
+        }
+        return latest;
+    }
+
     /**
      * Retrieves the oldest Weather entity associated with a specific city.
      * <p>
@@ -216,10 +258,11 @@ public class WeatherDAOImpl extends GenericDAOImpl<Weather> implements WeatherDA
         LocalDateTime DTstamp = LocalDateTime.of(year, 1, 1, 0, 0, 0);
 
         TypedQuery<LocalDateTime> tQry = em.createQuery("SELECT w.DTstamp FROM Weather" + " w " +
-                        "WHERE w.cityId = :cityId AND w.DTstamp >= :DTstamp"
+                        "WHERE w.cityId = :cityId AND w.DTstamp >= :DTstamp AND w.DTstamp < :end"
                 , LocalDateTime.class);
 
         tQry.setParameter("DTstamp", DTstamp);
+        tQry.setParameter("end", DTstamp.plusYears(1));
         tQry.setParameter("cityId", cityId);
 
         List<LocalDateTime> objListe = tQry.getResultList();
@@ -229,6 +272,84 @@ public class WeatherDAOImpl extends GenericDAOImpl<Weather> implements WeatherDA
         return objListe != null ? objListe : new ArrayList<>();
     }
 
+    /**
+     * Retrieves the timestamps of all Weather entities associated with a specific city.
+     * <p>
+     * This method creates an EntityManager instance and constructs a query that selects only the timestamps,
+     * so no Weather entities are created.
+     * The EntityManager is closed after the list is retrieved to ensure that resources are always properly released.
+     *
+     * @param cityId the ID of the city for which the timestamps are to be retrieved
+     * @return a list of timestamps associated with the provided city ID, or an empty list if no timestamps are found
+     */
+    @Override
+    public List<LocalDateTime> findWeatherDatesFromCity(int cityId) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            TypedQuery<LocalDateTime> tQry = em.createQuery("SELECT w.DTstamp FROM Weather w WHERE w.cityId = :cityId", LocalDateTime.class);
+            tQry.setParameter("cityId", cityId);
+            return tQry.getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Retrieves the timestamps of the Weather entities of a specific city within a time range.
+     * <p>
+     * This method creates an EntityManager instance and constructs a query that selects only the timestamps
+     * between the provided timestamps, both included, so no Weather entities are created.
+     * The EntityManager is closed after the list is retrieved to ensure that resources are always properly released.
+     *
+     * @param cityId the ID of the city for which the timestamps are to be retrieved
+     * @param from   the first timestamp of the range
+     * @param to     the last timestamp of the range
+     * @return a list of timestamps within the range, or an empty list if no timestamps are found
+     */
+    @Override
+    public List<LocalDateTime> findWeatherDatesFromCityBetween(int cityId, LocalDateTime from, LocalDateTime to) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            TypedQuery<LocalDateTime> tQry = em.createQuery("SELECT w.DTstamp FROM Weather w WHERE w.cityId = :cityId AND w.DTstamp BETWEEN :from AND :to", LocalDateTime.class);
+            tQry.setParameter("cityId", cityId);
+            tQry.setParameter("from", from);
+            tQry.setParameter("to", to);
+            return tQry.getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Counts the Weather entities of all cities with a single query.
+     * <p>
+     * This method creates an EntityManager instance and constructs a query that groups the Weather entities by city ID.
+     * The EntityManager is closed after the counts are retrieved to ensure that resources are always properly released.
+     *
+     * @return the number of Weather entities per city ID, cities without weather data are missing
+     */
+    @Override
+    public Map<Integer, Long> countWeatherPerCity() {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            TypedQuery<Object[]> tQry = em.createQuery("SELECT w.cityId, COUNT(w) FROM Weather w GROUP BY w.cityId", Object[].class);
+
+            Map<Integer, Long> counts = new HashMap<>();
+            for (Object[] row : tQry.getResultList()) {
+                counts.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+            }
+            return counts;
+        } finally {
+            em.close();
+        }
+    }
+
     /**
      * Retrieves a map of Weather entities associated with a specific city and year.
      * <p>
@@ -458,6 +579,128 @@ public class WeatherDAOImpl extends GenericDAOImpl<Weather> implements WeatherDA
         return weatherMap != null ? weatherMap : new TreeMap<>();
     }
 
+    /**
+     * Retrieves the weather data of a specific city within a specific time span as a column-oriented series.
+     * <p>
+     * This method creates an EntityManager instance and constructs a query that selects only the timestamp and the measurements
+     * between the provided timestamps, both included, ordered by the timestamp, so no Weather entities are created
+     * and nothing is added to the persistence context.
+     * The rows are appended to a WeatherSeries, which stores them in primitive arrays.
+     * The EntityManager is closed after the rows are retrieved to ensure that resources are always properly released.
+     *
+     * @param cityId the ID of the city for which the weather data is to be retrieved
+     * @param von    the start of the time span
+     * @param bis    the end of the time span
+     * @return the series sorted by timestamp, or an empty series if no weather data is found
+     */
+    @Override
+    public WeatherSeries findWeatherSeriesFromCityByTimeSpan(int cityId, LocalDateTime von, LocalDateTime bis) {
+        return findWeatherSeries(cityId, von, bis, "w.DTstamp BETWEEN :von AND :bis");
+    }
+
+    /**
+     * This method reads the series like findWeatherSeriesFromCityByTimeSpan, but excludes the end of the window,
+     * so a reading at exactly the start of the next window is not part of the series.
+     * The end is compared with {@code <} instead of being moved back by a nanosecond, since PostgreSQL stores microseconds
+     * and the JDBC driver rounds such a bound up to the end again.
+     *
+     * @param cityId the ID of the city for which the weather data is to be retrieved
+     * @param von    the start of the window, included
+     * @param bis    the end of the window, excluded
+     * @return the series sorted by timestamp, or an empty series if no weather data is found
+     */
+    @Override
+    public WeatherSeries findWeatherSeriesFromCityByWindow(int cityId, LocalDateTime von, LocalDateTime bis) {
+        return findWeatherSeries(cityId, von, bis, "w.DTstamp >= :von AND w.DTstamp < :bis");
+    }
+
+    private WeatherSeries findWeatherSeries(int cityId, LocalDateTime von, LocalDateTime bis, String span) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            TypedQuery<Object[]> tQry = em.createQuery(
+                    "SELECT w.DTstamp, w.currTempCelsius, w.pressure, w.humidity, w.windSpeed FROM Weather w " +
+                            "WHERE w.cityId = :cityId AND " + span + " ORDER BY w.DTstamp", Object[].class);
+            tQry.setParameter("cityId", cityId);
+            tQry.setParameter("von", von);
+            tQry.setParameter("bis", bis);
+
+            List<Object[]> rows = tQry.getResultList();
+            WeatherSeries.Builder builder = WeatherSeries.builder(rows.size());
+            for (Object[] row : rows) {
+                builder.add((LocalDateTime) row[0], value(row[1]), value(row[2]), value(row[3]), value(row[4]));
+            }
+            return builder.build();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static double value(Object column) {
+        return column != null ? ((Number) column).doubleValue() : Double.NaN;
+    }
+
+    /**
+     * Aggregates the weather data of a specific city within a specific time span per calendar bucket in the database.
+     * <p>
+     * This method creates an EntityManager instance and runs a native query that converts every timestamp from the time zone
+     * of the stored weather data to the requested time zone, truncates it to the start of its bucket with date_trunc
+     * and groups by the bucket, so only one row per bucket is transferred instead of every reading.
+     * For every measurement the query returns the count, minimum, maximum, mean and population variance,
+     * missing values are ignored by the aggregate functions.
+     * The EntityManager is closed after the rows are retrieved to ensure that resources are always properly released.
+     *
+     * @param cityId      the ID of the city for which the weather data is to be aggregated
+     * @param von         the start of the time span, local time of the stored weather data
+     * @param bis         the end of the time span, excluded, local time of the stored weather data
+     * @param granularity the length of the buckets
+     * @param source      the time zone of the stored weather data
+     * @param zone        the time zone the buckets are formed in
+     * @return the buckets with readings sorted by their start, local time of the requested time zone
+     * @throws WeatherPersistenceException if the query fails
+     */
+    @Override
+    public List<WeatherBucket> findWeatherBucketsFromCityByTimeSpan(int cityId, LocalDateTime von, LocalDateTime bis,
+                                                                   WeatherBucket.Granularity granularity, ZoneId source, ZoneId zone) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = em.createNativeQuery(BUCKETS)
+                    .setParameter(1, cityId)
+                    .setParameter(2, Timestamp.valueOf(von))
+                    .setParameter(3, Timestamp.valueOf(bis))
+                    .setParameter(4, granularity.name().toLowerCase())
+                    .setParameter(5, source.getId())
+                    .setParameter(6, zone.getId())
+                    .getResultList();
+
+            List<WeatherBucket> buckets = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                LocalDateTime start = row[0] instanceof Timestamp ts ? ts.toLocalDateTime() : (LocalDateTime) row[0];
+                WeatherBucket.Stats[] stats = new WeatherBucket.Stats[WeatherSeries.Column.values().length];
+                for (int c = 0; c < stats.length; c++) {
+                    int i = 2 + c * 5;
+                    long count = ((Number) row[i]).longValue();
+                    stats[c] = new WeatherBucket.Stats(count, value(row[i + 1]), value(row[i + 2]), value(row[i + 3]), value(row[i + 4]));
+                }
+                buckets.add(new WeatherBucket(start, granularity.next(start), ((Number) row[1]).longValue(), stats));
+            }
+            return buckets;
+        } catch (Exception e) {
+            LOG.error("Error while aggregating the weather of city " + cityId, e);
+            throw new WeatherPersistenceException("Error while aggregating the weather of city " + cityId, e);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static String aggregates(String column) {
+        return "COUNT(" + column + "), MIN(" + column + "), MAX(" + column + "), AVG(" + column + "), VAR_POP(" + column + ")";
+    }
+
     /**
      * Retrieves a map of Weather entities associated with a specific city and within a specific time span.
      * <p>
@@ -623,6 +866,57 @@ public class WeatherDAOImpl extends GenericDAOImpl<Weather> implements WeatherDA
         }
     }
 
+    /**
+     * Saves Weather entities of several cities in one transaction.
+     * <p>
+     * Unlike saveAllWeather, the entities are passed as a list, so entities of different cities
+     * with the same timestamp can be saved together.
+     * This method creates an EntityManager instance and starts a transaction.
+     * The entities are persisted one after the other, the persistence context is flushed and cleared
+     * every 50 entities to keep it small and to let the JDBC driver send them as batches.
+     * After all entities have been persisted, the transaction is committed.
+     * If an exception occurs during the execution of the method, it rolls back the transaction, logs an error message,
+     * and throws a WeatherPersistenceException, so the caller knows that none of the entities were saved.
+     * The EntityManager is closed in the "finally" block to ensure that resources are always properly released.
+     *
+     * @param weatherList the Weather entities to be saved, the city ID must already be set
+     * @throws WeatherPersistenceException if an exception occurs during the execution of the method
+     */
+    @Override
+    public void saveWeatherBatch(List<Weather> weatherList) {
+
+        if (weatherList.isEmpty()) {
+            return;
+        }
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            em.getTransaction().begin();
+
+            int i = 0;
+            for (Weather weather : weatherList) {
+
+                em.persist(weather);
+                i++;
+                if (i % 50 == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+
+            em.getTransaction().commit();
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            LOG.error("Error while saving weather batch", e);
+            throw new WeatherPersistenceException("Error while saving weather batch", e);
+        } finally {
+            em.close();
+        }
+    }
+
     /**
      * Checks if any Weather entities associated with a specific city exist in the database.
      * <p>
@@ -0,0 +1,409 @@
+/**
+ * Diese Klasse stellt eine konkrete Implementierung der Schnittstelle
+ * 'WorkQueueDAO' dar.
+ * Die Persistierung wird dabei mithilfe von ORM und, wo PostgreSQL-spezifische Sperren nötig sind, mit SQL realisiert.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.persister.impl;
+
+import ch.hslu.informatik.swde.wda.domain.WorkItem;
+import ch.hslu.informatik.swde.wda.persister.DAO.WorkQueueDAO;
+import ch.hslu.informatik.swde.wda.persister.exception.WorkQueuePersistenceException;
+import ch.hslu.informatik.swde.wda.persister.util.JpaUtil;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+public class WorkQueueDAOImpl extends GenericDAOImpl<WorkItem> implements WorkQueueDAO {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WorkQueueDAOImpl.class);
+
+    private static final String ENQUEUE = "INSERT INTO workitem (cityid, task, state, attempts, updatedat) "
+            + "VALUES (?1, ?2, 'PENDING', 0, LOCALTIMESTAMP) "
+            + "ON CONFLICT (cityid, task) DO UPDATE SET state = 'PENDING', owner = NULL, leaseuntil = NULL, lasterror = NULL, updatedat = LOCALTIMESTAMP "
+            + "WHERE workitem.state = 'FAILED'";
+
+    private static final String CLAIM = "WITH next AS ("
+            + "SELECT id FROM workitem WHERE task LIKE ?1 "
+            + "AND (state = 'PENDING' OR (state = 'LEASED' AND leaseuntil < LOCALTIMESTAMP)) "
+            + "ORDER BY id LIMIT ?2 FOR UPDATE SKIP LOCKED) "
+            + "UPDATE workitem w SET state = 'LEASED', owner = ?3, leaseuntil = LOCALTIMESTAMP + make_interval(secs => ?4), "
+            + "attempts = w.attempts + 1, updatedat = LOCALTIMESTAMP "
+            + "FROM next WHERE w.id = next.id RETURNING w.id";
+
+    private static final String HEARTBEAT = "UPDATE workitem SET leaseuntil = LOCALTIMESTAMP + make_interval(secs => ?2) "
+            + "WHERE owner = ?1 AND state = 'LEASED'";
+
+    private String persistenceUnitName;
+
+    public WorkQueueDAOImpl() {
+        super(WorkItem.class);
+    }
+
+    public WorkQueueDAOImpl(String persistenceUnitName) {
+        super(WorkItem.class, persistenceUnitName);
+        this.persistenceUnitName = persistenceUnitName;
+    }
+
+    /**
+     * Adds work items that do not exist yet, in one transaction.
+     * <p>
+     * This method creates an EntityManager instance and inserts every item with INSERT ... ON CONFLICT on (cityId, task),
+     * so several nodes can enqueue the same items at the same time without duplicates or errors.
+     * An existing FAILED item is reopened, existing PENDING, LEASED and DONE items are left unchanged.
+     * If an exception occurs, the transaction is rolled back.
+     *
+     * @param items the work items
+     * @throws WorkQueuePersistenceException if the items could not be saved
+     */
+    @Override
+    public void enqueue(List<WorkItem> items) {
+
+        if (items.isEmpty()) {
+            return;
+        }
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            em.getTransaction().begin();
+            for (WorkItem item : items) {
+                em.createNativeQuery(ENQUEUE)
+                        .setParameter(1, item.getCityId())
+                        .setParameter(2, item.getTask())
+                        .executeUpdate();
+            }
+            em.getTransaction().commit();
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            LOG.error("Error while enqueueing work items", e);
+            throw new WorkQueuePersistenceException("Error while enqueueing work items", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Leases open work items to a node.
+     * <p>
+     * This method creates an EntityManager instance and selects the oldest PENDING items and the LEASED items whose lease expired
+     * with FOR UPDATE SKIP LOCKED, so items another node is claiming at the same time are skipped instead of waited for,
+     * and no item is leased to two nodes. The selected items are updated to LEASED with the owner and the lease in the same statement.
+     * The lease is computed with the clock of the database, so the clocks of the nodes do not have to agree.
+     * The leased items are then read again, bypassing the cache. If an exception occurs, the transaction is rolled back.
+     *
+     * @param taskPrefix the beginning of the task of the items, e.g. {@code init:}
+     * @param owner      the ID of the node
+     * @param limit      the maximum number of items
+     * @param lease      the duration of the lease
+     * @return the leased items in the order they were enqueued, or an empty list if there are no open items
+     * @throws WorkQueuePersistenceException if the items could not be leased
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<WorkItem> claim(String taskPrefix, String owner, int limit, Duration lease) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            em.getTransaction().begin();
+            List<Object> rows = em.createNativeQuery(CLAIM)
+                    .setParameter(1, taskPrefix + "%")
+                    .setParameter(2, limit)
+                    .setParameter(3, owner)
+                    .setParameter(4, lease.toMillis() / 1000.0)
+                    .getResultList();
+            em.getTransaction().commit();
+
+            if (rows.isEmpty()) {
+                return List.of();
+            }
+
+            List<Long> ids = new ArrayList<>();
+            for (Object row : rows) {
+                ids.add(((Number) row).longValue());
+            }
+            return em.createQuery("SELECT w FROM WorkItem w WHERE w.id IN :ids ORDER BY w.id", WorkItem.class)
+                    .setParameter("ids", ids)
+                    .setHint("eclipselink.refresh", "true")
+                    .getResultList();
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            LOG.error("Error while claiming work items", e);
+            throw new WorkQueuePersistenceException("Error while claiming work items", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Renews the leases of all items of a node.
+     * <p>
+     * This method creates an EntityManager instance and moves the lease of every LEASED item of the node
+     * the given duration past the current time of the database. Items leased by another node in the meantime are not affected.
+     *
+     * @param owner the ID of the node
+     * @param lease the new duration of the leases
+     * @return the number of renewed items
+     * @throws WorkQueuePersistenceException if the leases could not be renewed
+     */
+    @Override
+    public int heartbeat(String owner, Duration lease) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            em.getTransaction().begin();
+            int renewed = em.createNativeQuery(HEARTBEAT)
+                    .setParameter(1, owner)
+                    .setParameter(2, lease.toMillis() / 1000.0)
+                    .executeUpdate();
+            em.getTransaction().commit();
+            return renewed;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            LOG.error("Error while renewing the leases of " + owner, e);
+            throw new WorkQueuePersistenceException("Error while renewing the leases of " + owner, e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Completes a work item, if the node still holds its lease.
+     * <p>
+     * This method creates an EntityManager instance and updates the item only if it is LEASED by the node,
+     * so a node whose lease expired and was taken over by another node cannot overwrite the state set by the other node.
+     *
+     * @param id    the ID of the item
+     * @param owner the ID of the node
+     * @param state DONE or FAILED
+     * @param error the error message, or null
+     * @return true if the item was completed, false if the lease was lost
+     * @throws WorkQueuePersistenceException if the item could not be updated
+     */
+    @Override
+    public boolean complete(long id, String owner, WorkItem.State state, String error) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            em.getTransaction().begin();
+            int updated = em.createQuery("UPDATE WorkItem w SET w.state = :state, w.leaseUntil = NULL, w.lastError = :error, w.updatedAt = :now "
+                            + "WHERE w.id = :id AND w.owner = :owner AND w.state = :leased")
+                    .setParameter("state", state)
+                    .setParameter("error", error)
+                    .setParameter("now", LocalDateTime.now())
+                    .setParameter("id", id)
+                    .setParameter("owner", owner)
+                    .setParameter("leased", WorkItem.State.LEASED)
+                    .executeUpdate();
+            em.getTransaction().commit();
+            return updated == 1;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            LOG.error("Error while completing work item " + id, e);
+            throw new WorkQueuePersistenceException("Error while completing work item " + id, e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Releases work items of a node, so other nodes can lease them immediately.
+     * <p>
+     * This method creates an EntityManager instance and sets the items that are still LEASED by the node back to PENDING.
+     *
+     * @param owner the ID of the node
+     * @param ids   the IDs of the items
+     * @return the number of released items
+     * @throws WorkQueuePersistenceException if the items could not be updated
+     */
+    @Override
+    public int release(String owner, Collection<Long> ids) {
+
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            em.getTransaction().begin();
+            int released = em.createQuery("UPDATE WorkItem w SET w.state = :pending, w.owner = NULL, w.leaseUntil = NULL, w.updatedAt = :now "
+                            + "WHERE w.id IN :ids AND w.owner = :owner AND w.state = :leased")
+                    .setParameter("pending", WorkItem.State.PENDING)
+                    .setParameter("now", LocalDateTime.now())
+                    .setParameter("ids", new ArrayList<>(ids))
+                    .setParameter("owner", owner)
+                    .setParameter("leased", WorkItem.State.LEASED)
+                    .executeUpdate();
+            em.getTransaction().commit();
+            return released;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            LOG.error("Error while releasing work items of " + owner, e);
+            throw new WorkQueuePersistenceException("Error while releasing work items of " + owner, e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Retrieves the work items a node holds the lease of.
+     * <p>
+     * This method creates an EntityManager instance and constructs a query to find the LEASED items of the node,
+     * bypassing the cache, since other nodes change the items.
+     * The EntityManager is closed in the "finally" block to ensure that resources are always properly released.
+     *
+     * @param owner      the ID of the node
+     * @param taskPrefix the beginning of the task of the items
+     * @return a list of the items, or an empty list if the node holds none
+     */
+    @Override
+    public List<WorkItem> findLeased(String owner, String taskPrefix) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            return em.createQuery("SELECT w FROM WorkItem w WHERE w.owner = :owner AND w.state = :leased AND w.task LIKE :prefix ORDER BY w.id", WorkItem.class)
+                    .setParameter("owner", owner)
+                    .setParameter("leased", WorkItem.State.LEASED)
+                    .setParameter("prefix", taskPrefix + "%")
+                    .setHint("eclipselink.refresh", "true")
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Retrieves the work items in a state.
+     * <p>
+     * This method creates an EntityManager instance and constructs a query to find the items in the state,
+     * bypassing the cache, since other nodes change the items.
+     * The EntityManager is closed in the "finally" block to ensure that resources are always properly released.
+     *
+     * @param taskPrefix the beginning of the task of the items
+     * @param state      the state of the items
+     * @return a list of the items, or an empty list if there are none
+     */
+    @Override
+    public List<WorkItem> findByState(String taskPrefix, WorkItem.State state) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            return em.createQuery("SELECT w FROM WorkItem w WHERE w.state = :state AND w.task LIKE :prefix ORDER BY w.id", WorkItem.class)
+                    .setParameter("state", state)
+                    .setParameter("prefix", taskPrefix + "%")
+                    .setHint("eclipselink.refresh", "true")
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Counts the work items per state with a single query.
+     * <p>
+     * This method creates an EntityManager instance and constructs a query that groups the items by state.
+     * The EntityManager is closed after the counts are retrieved to ensure that resources are always properly released.
+     *
+     * @param taskPrefix the beginning of the task of the items
+     * @return the number of items per state, states without items are missing
+     */
+    @Override
+    public Map<WorkItem.State, Long> countByState(String taskPrefix) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            List<Object[]> rows = em.createQuery("SELECT w.state, COUNT(w) FROM WorkItem w WHERE w.task LIKE :prefix GROUP BY w.state", Object[].class)
+                    .setParameter("prefix", taskPrefix + "%")
+                    .getResultList();
+
+            Map<WorkItem.State, Long> counts = new EnumMap<>(WorkItem.State.class);
+            for (Object[] row : rows) {
+                counts.put((WorkItem.State) row[0], (Long) row[1]);
+            }
+            return counts;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Counts the work items whose lease has not expired, using the clock of the database.
+     *
+     * @param taskPrefix the beginning of the task of the items
+     * @return the number of items with a valid lease
+     */
+    @Override
+    public long countActiveLeases(String taskPrefix) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            Object count = em.createNativeQuery("SELECT COUNT(*) FROM workitem WHERE task LIKE ?1 AND state = 'LEASED' AND leaseuntil >= LOCALTIMESTAMP")
+                    .setParameter(1, taskPrefix + "%")
+                    .getSingleResult();
+            return ((Number) count).longValue();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Deletes work items.
+     * <p>
+     * This method creates an EntityManager instance and deletes the items of the task prefix,
+     * or only those without a valid lease, using the clock of the database.
+     * If an exception occurs, the transaction is rolled back.
+     *
+     * @param taskPrefix  the beginning of the task of the items
+     * @param expiredOnly true to delete only items without a valid lease
+     * @return the number of deleted items
+     * @throws WorkQueuePersistenceException if the items could not be deleted
+     */
+    @Override
+    public int delete(String taskPrefix, boolean expiredOnly) {
+
+        EntityManager em = JpaUtil.createEntityManager(persistenceUnitName);
+
+        try {
+            em.getTransaction().begin();
+            int deleted = em.createNativeQuery("DELETE FROM workitem WHERE task LIKE ?1"
+                            + (expiredOnly ? " AND (leaseuntil IS NULL OR leaseuntil < LOCALTIMESTAMP)" : ""))
+                    .setParameter(1, taskPrefix + "%")
+                    .executeUpdate();
+            em.getTransaction().commit();
+            return deleted;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            LOG.error("Error while deleting work items", e);
+            throw new WorkQueuePersistenceException("Error while deleting work items", e);
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ch.hslu.informatik.swde.wda.persister.impl;
+
+import ch.hslu.informatik.swde.wda.domain.BackfillCheckpoint;
+import ch.hslu.informatik.swde.wda.persister.DAO.CheckpointDAO;
+import ch.hslu.informatik.swde.wda.persister.util.Util;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointDAOImplTest {
+
+    private static final String puTEST = "testPU";
+
+    @BeforeEach
+    void setUp() {
+        Util.cleanDatabase();
+    }
+
+    @AfterEach
+    void clearUp() {
+        Util.cleanDatabase();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        Util.cleanDatabase();
+    }
+
+    @Tag("integration")
+    @Test
+    void test_FindUnfinishedCheckpoints_ShouldReturnMostRecentYearFirst() {
+
+        CheckpointDAO dao = new CheckpointDAOImpl(puTEST);
+        dao.saveCheckpoints(List.of(new BackfillCheckpoint(1, 2019), new BackfillCheckpoint(1, 2021), new BackfillCheckpoint(2, 2020)));
+
+        List<BackfillCheckpoint> res = dao.findUnfinishedCheckpoints();
+
+        assertEquals(3, res.size());
+        assertEquals(2021, res.get(0).getYear(), "Das neueste Jahr muss zuerst geladen werden");
+        assertEquals(2019, res.get(2).getYear());
+    }
+
+    @Tag("integration")
+    @Test
+    void test_UpdateCheckpoints_ShouldExcludeDoneCheckpoints() {
+
+        CheckpointDAO dao = new CheckpointDAOImpl(puTEST);
+        dao.saveCheckpoints(List.of(new BackfillCheckpoint(1, 2020), new BackfillCheckpoint(2, 2020)));
+
+        BackfillCheckpoint done = new BackfillCheckpoint(1, 2020);
+        done.setState(BackfillCheckpoint.State.DONE);
+        done.setRowsWritten(17520);
+        done.setAttempts(1);
+        dao.updateCheckpoints(List.of(done));
+
+        List<BackfillCheckpoint> unfinished = dao.findUnfinishedCheckpoints();
+        assertEquals(1, unfinished.size());
+        assertEquals(2, unfinished.get(0).getCityId());
+        assertEquals(2, dao.findCheckpointsByYearRange(2020, 2020).size());
+    }
+}
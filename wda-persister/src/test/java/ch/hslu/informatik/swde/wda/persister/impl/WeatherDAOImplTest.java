@@ -2,6 +2,8 @@ package ch.hslu.informatik.swde.wda.persister.impl;
 
 import ch.hslu.informatik.swde.wda.domain.City;
 import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherBucket;
+import ch.hslu.informatik.swde.wda.domain.WeatherSeries;
 import ch.hslu.informatik.swde.wda.persister.DAO.CityDAO;
 import ch.hslu.informatik.swde.wda.persister.DAO.WeatherDAO;
 import ch.hslu.informatik.swde.wda.persister.util.Util;
@@ -13,7 +15,10 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 import java.util.stream.Stream;
 
@@ -227,6 +232,111 @@ public class WeatherDAOImplTest {
         }
     }
 
+    @Tag("unittest")
+    @ParameterizedTest
+    @MethodSource("cityListProvider")
+    void test_FindLatestWeatherOfCities_ShouldReturnLatestPerCity(List<City> cityList) {
+
+        WeatherDAO daoW = new WeatherDAOImpl(puTEST);
+        CityDAO daoO = new CityDAOImpl(puTEST);
+
+        for (City c : cityList) {
+            daoO.speichern(c);
+        }
+
+        daoW.saveWeatherBatch(Util.createWetterList());
+
+        List<Integer> cityIds = new ArrayList<>();
+        for (City c : cityList) {
+            cityIds.add(daoO.findCityByName(c.getName()).getId());
+        }
+
+        Map<Integer, Weather> latest = daoW.findLatestWeatherOfCities(cityIds);
+
+        assertEquals(cityIds.size(), latest.size(), "Es sollte pro Stadt ein Wetter geben");
+        for (Integer cityId : cityIds) {
+            assertEquals(daoW.findLatestWeatherByCity(cityId).getDTstamp(), latest.get(cityId).getDTstamp(), "Das neueste Wetter sollte gleich sein");
+        }
+        assertTrue(daoW.findLatestWeatherOfCities(List.of()).isEmpty(), "Ohne Städte sollte das Ergebnis leer sein");
+    }
+
+    @Tag("unittest")
+    @ParameterizedTest
+    @MethodSource("cityListProvider")
+    void test_FindWeatherSeriesByWindow_ShouldExcludeReadingAtEnd(List<City> cityList) {
+
+        WeatherDAO daoW = new WeatherDAOImpl(puTEST);
+        CityDAO daoO = new CityDAOImpl(puTEST);
+
+        for (City c : cityList) {
+            daoO.speichern(c);
+        }
+        daoW.saveWeatherBatch(Util.createWetterList());
+
+        int cityId = daoO.findCityByName(cityList.get(0).getName()).getId();
+        LocalDateTime von = LocalDateTime.of(2023, 12, 3, 22, 30, 19);
+        LocalDateTime bis = LocalDateTime.of(2023, 12, 3, 23, 30, 19);
+
+        WeatherSeries series = daoW.findWeatherSeriesFromCityByWindow(cityId, von, bis);
+
+        assertEquals(1, series.size(), "Die Messung am Ende des Fensters darf nicht enthalten sein");
+        assertEquals(von, series.time(0), "Die Messung am Beginn des Fensters muss enthalten sein");
+        assertEquals(2, daoW.findWeatherSeriesFromCityByTimeSpan(cityId, von, bis).size(), "Der Zeitraum schliesst das Ende ein");
+    }
+
+    @Tag("unittest")
+    @ParameterizedTest
+    @MethodSource("cityListProvider")
+    void test_FindWeatherBuckets_ShouldGroupByDayOfTheRequestedZone(List<City> cityList) {
+
+        WeatherDAO daoW = new WeatherDAOImpl(puTEST);
+        CityDAO daoO = new CityDAOImpl(puTEST);
+
+        for (City c : cityList) {
+            daoO.speichern(c);
+        }
+        daoW.saveWeatherBatch(Util.createWetterList());
+
+        int cityId = daoO.findCityByName(cityList.get(0).getName()).getId();
+        LocalDateTime von = LocalDateTime.of(2023, 12, 1, 0, 0);
+        LocalDateTime bis = LocalDateTime.of(2023, 12, 31, 0, 0);
+
+        // 22:30 and 23:30 in Zurich are 06:30 and 07:30 of the next day in Tokyo
+        List<WeatherBucket> buckets = daoW.findWeatherBucketsFromCityByTimeSpan(cityId, von, bis,
+                WeatherBucket.Granularity.DAY, ZoneId.of("Europe/Zurich"), ZoneId.of("Asia/Tokyo"));
+
+        assertEquals(1, buckets.size(), "Beide Messungen sollten am selben Tag liegen");
+        assertEquals(LocalDateTime.of(2023, 12, 4, 0, 0), buckets.get(0).start(), "Der Tag sollte in der Zeitzone Tokyo liegen");
+        assertEquals(2, buckets.get(0).count());
+        assertEquals(23.0, buckets.get(0).get(WeatherSeries.Column.TEMPERATURE).mean(), 1e-9);
+        assertEquals(0.0, buckets.get(0).get(WeatherSeries.Column.TEMPERATURE).variance(), 1e-9);
+    }
+
+    @Tag("unittest")
+    @ParameterizedTest
+    @MethodSource("cityListProvider")
+    void test_FindWeatherBuckets_ShouldExcludeReadingAtEnd(List<City> cityList) {
+
+        WeatherDAO daoW = new WeatherDAOImpl(puTEST);
+        CityDAO daoO = new CityDAOImpl(puTEST);
+
+        for (City c : cityList) {
+            daoO.speichern(c);
+        }
+        daoW.saveWeatherBatch(Util.createWetterList());
+
+        int cityId = daoO.findCityByName(cityList.get(0).getName()).getId();
+        LocalDateTime von = LocalDateTime.of(2023, 12, 3, 0, 0);
+        LocalDateTime bis = LocalDateTime.of(2023, 12, 3, 23, 30, 19);
+
+        List<WeatherBucket> buckets = daoW.findWeatherBucketsFromCityByTimeSpan(cityId, von, bis,
+                WeatherBucket.Granularity.HOUR, ZoneId.of("Europe/Zurich"), ZoneId.of("Europe/Zurich"));
+
+        assertEquals(1, buckets.size(), "Die Messung am Ende des Zeitraums darf keinen eigenen Bucket bilden");
+        assertEquals(LocalDateTime.of(2023, 12, 3, 22, 0), buckets.get(0).start());
+        assertEquals(1, buckets.get(0).count());
+    }
+
     static Stream<List<City>> cityListProvider() {
         List<City> cities = Util.createCityList();
         return Stream.of(cities);
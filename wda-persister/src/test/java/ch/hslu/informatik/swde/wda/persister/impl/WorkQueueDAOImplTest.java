@@ -0,0 +1,86 @@
+package ch.hslu.informatik.swde.wda.persister.impl;
+
+import ch.hslu.informatik.swde.wda.domain.WorkItem;
+import ch.hslu.informatik.swde.wda.persister.DAO.WorkQueueDAO;
+import ch.hslu.informatik.swde.wda.persister.util.Util;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkQueueDAOImplTest {
+
+    private static final String puTEST = "testPU";
+
+    @BeforeEach
+    void setUp() {
+        Util.cleanDatabase();
+    }
+
+    @AfterEach
+    void clearUp() {
+        Util.cleanDatabase();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        Util.cleanDatabase();
+    }
+
+    @Tag("integration")
+    @Test
+    void test_Claim_ShouldLeaseEveryItemToOneOwnerOnly() {
+
+        WorkQueueDAO dao = new WorkQueueDAOImpl(puTEST);
+        dao.enqueue(List.of(new WorkItem(1, "init:2024"), new WorkItem(2, "init:2024"), new WorkItem(3, "init:2024")));
+        dao.enqueue(List.of(new WorkItem(1, "init:2024")));
+
+        List<WorkItem> a = dao.claim("init:", "node-a", 2, Duration.ofMinutes(1));
+        List<WorkItem> b = dao.claim("init:", "node-b", 2, Duration.ofMinutes(1));
+
+        assertEquals(2, a.size());
+        assertEquals(1, b.size(), "Bereits reservierte Aufgaben dürfen nicht erneut vergeben werden");
+
+        Set<Integer> cities = new HashSet<>();
+        a.forEach(item -> cities.add(item.getCityId()));
+        b.forEach(item -> cities.add(item.getCityId()));
+        assertEquals(Set.of(1, 2, 3), cities, "Jede Aufgabe muss genau einmal vergeben werden");
+        assertEquals(WorkItem.State.LEASED, b.get(0).getState());
+        assertEquals("node-b", b.get(0).getOwner());
+    }
+
+    @Tag("integration")
+    @Test
+    void test_Complete_ShouldRejectOtherOwner() {
+
+        WorkQueueDAO dao = new WorkQueueDAOImpl(puTEST);
+        dao.enqueue(List.of(new WorkItem(1, "init:2024")));
+        WorkItem item = dao.claim("init:", "node-a", 1, Duration.ofMinutes(1)).get(0);
+
+        assertFalse(dao.complete(item.getId(), "node-b", WorkItem.State.DONE, null), "Nur der Besitzer darf eine Aufgabe abschliessen");
+        assertTrue(dao.complete(item.getId(), "node-a", WorkItem.State.DONE, null));
+        assertEquals(1L, dao.countByState("init:").get(WorkItem.State.DONE));
+        assertTrue(dao.claim("init:", "node-b", 1, Duration.ofMinutes(1)).isEmpty(), "Erledigte Aufgaben dürfen nicht erneut vergeben werden");
+    }
+
+    @Tag("integration")
+    @Test
+    void test_FindByState_ShouldOnlyReturnItemsOfTask() {
+
+        WorkQueueDAO dao = new WorkQueueDAOImpl(puTEST);
+        dao.enqueue(List.of(new WorkItem(1, "init:2024"), new WorkItem(2, "init:2023")));
+
+        for (WorkItem item : dao.claim("init:", "node-a", 2, Duration.ofMinutes(1))) {
+            dao.complete(item.getId(), "node-a", WorkItem.State.FAILED, "invalid JSON");
+        }
+
+        List<WorkItem> failed = dao.findByState("init:2024", WorkItem.State.FAILED);
+        assertEquals(1, failed.size(), "Nur Aufgaben des Jahres erwartet");
+        assertEquals(1, failed.get(0).getCityId());
+        assertTrue(dao.findByState("init:2024", WorkItem.State.DONE).isEmpty());
+    }
+}
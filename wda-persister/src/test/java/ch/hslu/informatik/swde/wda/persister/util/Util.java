@@ -28,6 +28,8 @@ public class Util {
         em.createQuery("DELETE FROM Weather e").executeUpdate();
         em.createQuery("DELETE FROM City e").executeUpdate();
         em.createQuery("DELETE FROM Init e").executeUpdate();
+        em.createQuery("DELETE FROM BackfillCheckpoint e").executeUpdate();
+        em.createQuery("DELETE FROM WorkItem e").executeUpdate();
 
         em.getTransaction().commit();
 
@@ -10,6 +10,7 @@ package ch.hslu.informatik.swde.wda.reader;
 
 import ch.hslu.informatik.swde.wda.domain.City;
 import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.reader.transport.ResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
@@ -48,6 +49,22 @@ public interface ApiReader {
      */
     LinkedHashMap<Integer, City> readCities();
 
+    /**
+     * Liest den Katalog aller Städte mit einer einzigen Anfrage von einem externen Wetterdienst.
+     * Das Land der Städte ist nicht gesetzt, es wird bei Bedarf mit readCityCountry nachgeladen.
+     *
+     * @return Eine LinkedHashMap von City-Objekten mit Name und PLZ, mit der PLZ als Schlüssel.
+     */
+    LinkedHashMap<Integer, City> readCityCatalog();
+
+    /**
+     * Liest das Land einer bestimmten Stadt von einem externen Wetterdienst.
+     *
+     * @param cityName Der Name der Stadt.
+     * @return Der Ländercode der Stadt, oder null, falls der Wetterdienst die Stadt nicht kennt.
+     */
+    String readCityCountry(String cityName);
+
     /**
      * Liest die aktuellen Wetterdaten für eine bestimmte Stadt von einem externen Wetterdienst.
      *
@@ -65,6 +82,26 @@ public interface ApiReader {
      */
     TreeMap<LocalDateTime, Weather> readWeatherByCityAndYear(String cityName, int jahr);
 
+    /**
+     * Liest die Wetterdaten für eine bestimmte Stadt und ein bestimmtes Jahr von einem externen Wetterdienst,
+     * ohne sie zu dekodieren.
+     *
+     * @param cityName Der Name der Stadt.
+     * @param jahr     Das angegebene Jahr.
+     * @return Die Antwort des Wetterdienstes als JSON, so wie sie empfangen wurde (ggf. noch komprimiert),
+     * oder null, falls keine Daten vorhanden sind.
+     */
+    ResponseBody fetchWeatherByCityAndYear(String cityName, int jahr);
+
+    /**
+     * Dekodiert eine Antwort des Wetterdienstes, wie sie von fetchWeatherByCityAndYear geliefert wird.
+     * Die Antwort wird beim Lesen dekomprimiert und direkt geparst.
+     *
+     * @param body Die Antwort des Wetterdienstes als JSON, darf null sein.
+     * @return Ein TreeMap von Weather-Objekten, mit dem Datum und der Uhrzeit als Schlüssel.
+     */
+    TreeMap<LocalDateTime, Weather> decodeWeather(ResponseBody body);
+
     /**
      * Liest die Wetterdaten für eine bestimmte Stadt und ein bestimmtes Jahr von einem externen Wetterdienst.
      *
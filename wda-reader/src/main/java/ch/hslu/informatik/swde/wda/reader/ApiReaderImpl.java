@@ -10,32 +10,141 @@ package ch.hslu.informatik.swde.wda.reader;
 
 import ch.hslu.informatik.swde.wda.domain.City;
 import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.reader.cache.CachePolicy;
+import ch.hslu.informatik.swde.wda.reader.cache.CachedResponse;
+import ch.hslu.informatik.swde.wda.reader.cache.DiskResponseCache;
+import ch.hslu.informatik.swde.wda.reader.replay.RecordingTransport;
+import ch.hslu.informatik.swde.wda.reader.replay.ReplayTransport;
+import ch.hslu.informatik.swde.wda.reader.replay.TrafficArchive;
+import ch.hslu.informatik.swde.wda.reader.metrics.LatencyTimer;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import ch.hslu.informatik.swde.wda.reader.resilience.AdaptiveLimiter;
+import ch.hslu.informatik.swde.wda.reader.resilience.CircuitBreaker;
+import ch.hslu.informatik.swde.wda.reader.resilience.LimitedTransport;
+import ch.hslu.informatik.swde.wda.reader.resilience.ResilientTransport;
+import ch.hslu.informatik.swde.wda.reader.resilience.RetryPolicy;
+import ch.hslu.informatik.swde.wda.reader.transport.CountingInputStream;
+import ch.hslu.informatik.swde.wda.reader.transport.HttpClientTransport;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderResponse;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderTransport;
+import ch.hslu.informatik.swde.wda.reader.transport.ResponseBody;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.LocalDateTime;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Diese Klasse stellt eine konkrete Implementierung der Schnittstelle 'ApiReader' dar.
+ * Die Antworten des Wetterdienstes werden in einem {@link DiskResponseCache} zwischengespeichert,
+ * die Anfragen laufen über einen {@link ResilientTransport} mit Deadline, Wiederholungen und Circuit Breaker.
  */
 
 public class ApiReaderImpl implements ApiReader {
 
     private static final Logger LOG = LoggerFactory.getLogger(ApiReaderImpl.class);
-    private static final HttpClient client = HttpClient.newHttpClient();
-    private static final String BASE_URI = "http://eee-03318.simple.eee.intern:8080/";
     private static final ObjectMapper mapper = new ObjectMapper();
     private static final String format = "application/json";
+    private static final LatencyTimer DECODE = Metrics.timer("reader.decode");
+
+    private final String baseUri;
+    private final ProviderTransport transport;
+    private final DiskResponseCache cache;
+
+    /**
+     * Creates a reader with the transport and disk cache configured by the system properties.
+     */
+    public ApiReaderImpl() {
+        this(DiskResponseCache.fromSystemProperties());
+    }
+
+    /**
+     * Creates a reader with the given disk cache and the transport configured by the system properties.
+     *
+     * @param cache the cache for provider responses, or null to always ask the provider
+     */
+    public ApiReaderImpl(DiskResponseCache cache) {
+        this(ReaderConfig.fromSystemProperties(), cache);
+    }
+
+    private ApiReaderImpl(ReaderConfig config, DiskResponseCache cache) {
+        this(config.baseUri(), defaultTransport(config), cache);
+    }
+
+    /**
+     * Creates a reader for the provider at the given base URI, e.g. a {@code StubWeatherProvider}.
+     *
+     * @param baseUri   the base URI of the provider, e.g. {@code http://localhost:9090/}
+     * @param transport the transport used to send the requests to the provider
+     * @param cache     the cache for provider responses, or null to always ask the provider
+     */
+    public ApiReaderImpl(String baseUri, ProviderTransport transport, DiskResponseCache cache) {
+        this.baseUri = ReaderConfig.normalizeBaseUri(baseUri);
+        this.transport = transport;
+        this.cache = cache;
+    }
+
+    /**
+     * Builds the default transport chain: the JDK HttpClient (HTTP/2 and compression as configured)
+     * behind an adaptive concurrency limiter,
+     * wrapped in the resilience layer. Every attempt, retry and hedge takes a permit of the limiter.
+     * <p>
+     * If a replay archive is configured, the recorded responses are served instead of using the network.
+     * If a record archive is configured, every response of the provider is appended to it.
+     *
+     * @param config the settings of the provider client
+     * @return the transport
+     * @throws RuntimeException if the record or replay archive cannot be opened
+     */
+    public static ProviderTransport defaultTransport(ReaderConfig config) {
+        try {
+            ProviderTransport transport = config.replayArchive() != null
+                    ? ReplayTransport.fromArchive(config.replayArchive(), config.replaySpeed())
+                    : new HttpClientTransport(config.connectTimeout(), config.attemptTimeout(), config.http2(), config.compression());
+
+            if (config.recordArchive() != null) {
+                TrafficArchive archive = TrafficArchive.openForAppend(config.recordArchive());
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        archive.close();
+                    } catch (IOException e) {
+                        LOG.error("Error occurred while closing " + config.recordArchive() + ": " + e);
+                    }
+                }));
+                transport = new RecordingTransport(transport, archive);
+            }
+
+            return new ResilientTransport(
+                    new LimitedTransport(
+                            transport,
+                            new AdaptiveLimiter("reader.limiter", config.limiterInitial(), config.limiterMin(), config.limiterMax()),
+                            config.attemptTimeout()),
+                    new RetryPolicy(config.maxAttempts(), config.retryBaseDelay(), config.retryMaxDelay()),
+                    new CircuitBreaker("reader.breaker", config.breakerFailureThreshold(), config.breakerOpenDuration()),
+                    config.attemptTimeout(),
+                    config.callDeadline(),
+                    config.hedgeDelay());
+
+        } catch (IOException e) {
+            LOG.error("Error occurred: " + e);
+            throw new RuntimeException(e);
+        }
+    }
 
     /*-----------------------------------------------CITY API REQUEST-----------------------------------------------*/
 
@@ -57,14 +166,13 @@ public class ApiReaderImpl implements ApiReader {
     @Override
     public LinkedList<String> readCityNames() {
         try {
-            URI uri = URI.create(BASE_URI + "weatherdata-provider/rest/weatherdata/cities/");
-            HttpRequest req = HttpRequest.newBuilder(uri).header("Accept", format).build();
-            HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
+            URI uri = URI.create(baseUri + "weatherdata-provider/rest/weatherdata/cities/");
+            ResponseBody body = fetch(uri, CachePolicy.CATALOG);
 
             LinkedList<String> cityNames = new LinkedList<>();
-            if (res.statusCode() == 200) {
+            if (body != null) {
 
-                JsonNode node = mapper.readTree(res.body());
+                JsonNode node = parse(uri.toString(), body);
                 for (JsonNode n : node) {
 
                     String name = n.get("name").asText();
@@ -74,8 +182,6 @@ public class ApiReaderImpl implements ApiReader {
                 }
 
             } else {
-                // Log-Eintrag machen
-                LOG.info("Error occurred, Status code: " + res.statusCode());
                 return new LinkedList<>();
             }
 
@@ -115,14 +221,13 @@ public class ApiReaderImpl implements ApiReader {
     @Override
     public City readCityDetails(String cityName) {
         try {
-            URI uri = URI.create(BASE_URI + "weatherdata-provider/rest/weatherdata?city=" + cityName);
-            HttpRequest req = HttpRequest.newBuilder(uri).header("Accept", format).build();
-            HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
+            URI uri = URI.create(baseUri + "weatherdata-provider/rest/weatherdata?city=" + cityName);
+            ResponseBody body = fetch(uri, CachePolicy.CATALOG);
 
             City city = new City();
-            if (res.statusCode() == 200) {
+            if (body != null) {
 
-                JsonNode node = mapper.readTree(res.body());
+                JsonNode node = parse(uri.toString(), body);
 
                 int zip = node.get("city").get("zip").asInt();
                 String data = node.get("data").asText();
@@ -134,8 +239,6 @@ public class ApiReaderImpl implements ApiReader {
                 city.setCountry(country);
 
             } else {
-                // Log-Eintrag machen
-                LOG.info("Error occurred, Status code: " + res.statusCode());
                 return new City();
             }
 
@@ -182,12 +285,11 @@ public class ApiReaderImpl implements ApiReader {
             LinkedHashMap<Integer, City> cityMap = new LinkedHashMap<>();
 
             for (String cityName : cityNames) {
-                URI uri = URI.create(BASE_URI + "weatherdata-provider/rest/weatherdata?city=" + cityName);
-                HttpRequest req = HttpRequest.newBuilder(uri).GET().header("Accept", format).build();
-                HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
+                URI uri = URI.create(baseUri + "weatherdata-provider/rest/weatherdata?city=" + cityName);
+                ResponseBody body = fetch(uri, CachePolicy.CATALOG);
 
-                if (res.statusCode() == 200) {
-                    JsonNode node = mapper.readTree(res.body());
+                if (body != null) {
+                    JsonNode node = parse(uri.toString(), body);
 
                     int zip = node.get("city").get("zip").asInt();
                     String data = node.get("data").asText();
@@ -202,8 +304,6 @@ public class ApiReaderImpl implements ApiReader {
                     cityMap.put(zip, city);
 
                 } else {
-                    // Log-Eintrag machen
-                    LOG.info("Error occurred, Status code: " + res.statusCode());
                     return new LinkedHashMap<Integer, City>();
                 }
 
@@ -228,17 +328,17 @@ public class ApiReaderImpl implements ApiReader {
     /**
      * Retrieves detailed information about all cities from the weather data provider.
      * <p>
-     * This method sends a GET request to the weather data provider's API endpoint for cities.
-     * If the response status code is 200, it reads the JSON response body and extracts the city names and zip codes.
-     * For each city, it sends another GET request to the weather data provider's API endpoint for the specific city.
-     * If the response status code is 200, it reads the JSON response body and extracts the city details.
-     * The city details are then used to create a new City object,
-     * which is added to a LinkedHashMap with the city's zip code as the key.
-     * If the response status code is not 200 for a city, it logs an error message and returns an empty LinkedHashMap.
-     * If the created LinkedHashMap is empty after processing all cities,
-     * it logs a message and returns an empty LinkedHashMap.
+     * This method first reads the city catalog with a single request by calling readCityCatalog.
+     * It then reads the country of every city with readCityCountry.
+     * The provider has no endpoint that returns the countries of several cities, the country is only part of the weather data
+     * of a single city, so one request per city cannot be avoided.
+     * These requests are sent concurrently, the adaptive limiter of the transport bounds how many are in flight,
+     * and they fall under the catalog cache policy, so repeated calls are answered from the disk cache.
+     * If the country of a city cannot be read, it returns an empty LinkedHashMap.
      * If an exception occurs during the execution of the method,
      * it logs an error message and throws a RuntimeException.
+     * <p>
+     * Callers that only need names and zip codes should use readCityCatalog, which needs a single request.
      *
      * @return a LinkedHashMap of City objects containing the details of the cities, with the city's zip code as the key, or an empty LinkedHashMap if no details are found or an error occurs
      * @throws RuntimeException if an exception occurs during the execution of the method
@@ -246,62 +346,112 @@ public class ApiReaderImpl implements ApiReader {
     @Override
     public LinkedHashMap<Integer, City> readCities() {
         try {
-            URI uri = URI.create(BASE_URI + "weatherdata-provider/rest/weatherdata/cities/");
-            HttpRequest req = HttpRequest.newBuilder(uri).header("Accept", format).build();
-            HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
+            LinkedHashMap<Integer, City> cityMap = readCityCatalog();
 
-            LinkedHashMap<Integer, City> cityMap = new LinkedHashMap<>();
-            if (res.statusCode() == 200) {
+            // Request the countries of all cities concurrently, the limiter of the transport decides how many are in flight
+            List<Map.Entry<City, Future<String>>> countries = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (City city : cityMap.values()) {
+                    countries.add(Map.entry(city, executor.submit(() -> readCityCountry(city.getName()))));
+                }
+            }
 
-                JsonNode node = mapper.readTree(res.body());
-                for (JsonNode n : node) {
+            for (Map.Entry<City, Future<String>> entry : countries) {
+                String country = entry.getValue().get();
+                if (country == null) {
+                    return new LinkedHashMap<Integer, City>();
+                }
+                entry.getKey().setCountry(country);
+            }
 
-                    String name = n.get("name").asText();
-                    String encodedCityName = name.replace(" ", "+");
-                    int zip = n.get("zip").asInt();
+            return cityMap;
 
-                    uri = URI.create(BASE_URI + "weatherdata-provider/rest/weatherdata?city=" + encodedCityName);
-                    req = HttpRequest.newBuilder(uri).GET().header("Accept", format).build();
-                    res = client.send(req, HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            // Log-Eintrag machen
+            // return new ArrayList<Message>();
+            LOG.error("Error occurred: " + e);
+            throw new RuntimeException(e);
+        }
+    }
 
-                    if (res.statusCode() == 200) {
-                        node = mapper.readTree(res.body());
-                        String data = node.get("data").asText();
-                        String[] parts = data.split("#");
+    /**
+     * Retrieves the catalog of all cities from the weather data provider with a single request.
+     * <p>
+     * This method sends a GET request to the weather data provider's API endpoint for cities.
+     * If the provider answers with a body, it reads the JSON response body and extracts the city names and zip codes.
+     * For each city, a new City object without country is created,
+     * which is added to a LinkedHashMap with the city's zip code as the key.
+     * If the provider answers with an error status code or the catalog is empty,
+     * it logs a message and returns an empty LinkedHashMap.
+     * If an exception occurs during the execution of the method,
+     * it logs an error message and throws a RuntimeException.
+     *
+     * @return a LinkedHashMap of City objects with name and zip code, with the city's zip code as the key, or an empty LinkedHashMap if no cities are found
+     * @throws RuntimeException if an exception occurs during the execution of the method
+     */
+    @Override
+    public LinkedHashMap<Integer, City> readCityCatalog() {
+        try {
+            URI uri = URI.create(baseUri + "weatherdata-provider/rest/weatherdata/cities/");
+            ResponseBody body = fetch(uri, CachePolicy.CATALOG);
 
-                        City city = new City();
-                        city.setName(name);
-                        city.setZip(zip);
+            LinkedHashMap<Integer, City> cityMap = new LinkedHashMap<>();
+            if (body != null) {
 
-                        String country = parts[1].substring(8);
-                        city.setCountry(country);
+                JsonNode node = parse(uri.toString(), body);
+                for (JsonNode n : node) {
 
-                        cityMap.put(zip, city);
+                    City city = new City();
+                    city.setName(n.get("name").asText());
+                    city.setZip(n.get("zip").asInt());
 
-                    } else {
-                        // Log-Eintrag machen
-                        LOG.info("Error occurred, Status code: " + res.statusCode());
-                        return new LinkedHashMap<Integer, City>();
-                    }
+                    cityMap.put(city.getZip(), city);
                 }
 
                 if (cityMap.isEmpty()) {
                     // No data found in JSON response, log message and return empty List
                     LOG.info("No data found for" + uri);
-                    return new LinkedHashMap<Integer, City>();
                 }
+            }
 
-                return cityMap;
+            return cityMap;
 
-            } else {
-                // Log-Eintrag machen
-                LOG.info("Error occurred, Status code: " + res.statusCode());
-                return new LinkedHashMap<Integer, City>();
+        } catch (Exception e) {
+            LOG.error("Error occurred: " + e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Retrieves the country of a specific city from the weather data provider.
+     * <p>
+     * The provider only reports the country as part of the current weather of a city,
+     * so this method sends a GET request to the weather data provider's API endpoint for the city
+     * and extracts the country from the data String.
+     * The response is cached with the catalog policy, the country of a city never changes.
+     * If the provider answers with an error status code, it returns null.
+     * If an exception occurs during the execution of the method,
+     * it logs an error message and throws a RuntimeException.
+     *
+     * @param cityName the name of the city for which to retrieve the country
+     * @return the country code of the city, or null if the provider does not know the city
+     * @throws RuntimeException if an exception occurs during the execution of the method
+     */
+    @Override
+    public String readCityCountry(String cityName) {
+        try {
+            URI uri = URI.create(baseUri + "weatherdata-provider/rest/weatherdata?city=" + cityName.replace(" ", "+"));
+            ResponseBody body = fetch(uri, CachePolicy.CATALOG);
+
+            if (body == null) {
+                return null;
             }
 
+            String data = parse(uri.toString(), body).get("data").asText();
+            String[] parts = data.split("#");
+            return parts[1].substring(8);
+
         } catch (Exception e) {
-            // Log-Eintrag machen
-            // return new ArrayList<Message>();
             LOG.error("Error occurred: " + e);
             throw new RuntimeException(e);
         }
@@ -330,13 +480,12 @@ public class ApiReaderImpl implements ApiReader {
 
             String encodedCityName = cityName.replace(" ", "+");
 
-            URI uri = URI.create(BASE_URI + "weatherdata-provider/rest/weatherdata?city=" + encodedCityName);
-            HttpRequest req = HttpRequest.newBuilder(uri).GET().header("Accept", format).build();
-            HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
+            URI uri = URI.create(baseUri + "weatherdata-provider/rest/weatherdata?city=" + encodedCityName);
+            ResponseBody body = fetch(uri, CachePolicy.REVALIDATE);
 
             LocalDateTime formatDateTime;
-            if (res.statusCode() == 200) {
-                JsonNode node = mapper.readTree(res.body());
+            if (body != null) {
+                JsonNode node = parse(uri.toString(), body);
 
                 String data = node.get("data").asText();
                 String[] parts = data.split("#");
@@ -348,8 +497,6 @@ public class ApiReaderImpl implements ApiReader {
                 return getWeather(formatDateTime, parts);
 
             } else {
-                // Log-Eintrag machen
-                LOG.info("Error occurred, Status code: " + res.statusCode());
                 return new Weather();
             }
 
@@ -364,11 +511,9 @@ public class ApiReaderImpl implements ApiReader {
     /**
      * Retrieves weather data for a specific city and year from the weather data provider.
      * <p>
-     * This method sends a GET request to the weather data provider's API endpoint for the provided city name and year.
-     * If the response status code is 200, it reads the JSON response body and extracts the weather details.
-     * The weather details are then used to create a new Weather object, which is added to a TreeMap with the date and time as the key.
-     * If the response status code is not 200, it logs an error message and returns an empty TreeMap.
-     * If the created TreeMap is empty after processing the JSON response, it logs a message and returns the empty TreeMap.
+     * This method fetches the raw response with fetchWeatherByCityAndYear and decodes it with decodeWeather,
+     * so the result is the same as if both steps were called one after the other.
+     * If the provider has no data for the city and year, it returns an empty TreeMap.
      * If an exception occurs during the execution of the method, it logs an error message and throws a RuntimeException.
      *
      * @param cityName the name of the city for which to retrieve the weather data
@@ -378,52 +523,82 @@ public class ApiReaderImpl implements ApiReader {
      */
     @Override
     public TreeMap<LocalDateTime, Weather> readWeatherByCityAndYear(String cityName, int jahr) {
+        return decodeWeather(fetchWeatherByCityAndYear(cityName, jahr));
+    }
+
+    /**
+     * Fetches the weather data for a specific city and year from the weather data provider, without decoding it.
+     * <p>
+     * This method sends a GET request to the weather data provider's API endpoint for the provided city name and year,
+     * using the cache policy of the year, i.e. a closed year is served from the disk cache without a request.
+     * If the response status code is 200, it returns the JSON response body as it was received, possibly still compressed.
+     * If the response status code is not 200, it logs an error message and returns null.
+     * If an exception occurs during the execution of the method, it logs an error message and throws a RuntimeException.
+     *
+     * @param cityName the name of the city for which to retrieve the weather data
+     * @param jahr     the year for which to retrieve the weather data
+     * @return the JSON response body, or null if the provider has no data for the city and year
+     * @throws RuntimeException if an exception occurs during the execution of the method
+     */
+    @Override
+    public ResponseBody fetchWeatherByCityAndYear(String cityName, int jahr) {
         try {
 
             String encodedCityName = cityName.replace(" ", "+");
 
-            URI uri = URI.create(BASE_URI + "weatherdata-provider/rest/weatherdata/cityandyear?city=" + encodedCityName + "&year=" + jahr);
-            HttpRequest req = HttpRequest.newBuilder(uri).header("Accept", format).build();
-            HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
-
-            TreeMap<LocalDateTime, Weather> weatherMap = new TreeMap<>();
-            LocalDateTime formatDateTime;
-            if (res.statusCode() == 200) {
+            URI uri = URI.create(baseUri + "weatherdata-provider/rest/weatherdata/cityandyear?city=" + encodedCityName + "&year=" + jahr);
+            return fetch(uri, yearPolicy(jahr));
 
-                JsonNode node = mapper.readTree(res.body());
-                for (JsonNode n : node) {
+        } catch (Exception e) {
+            LOG.error("Error occurred");
+            throw new RuntimeException(e);
+        }
+    }
 
-                    String data = n.get("data").asText();
-                    String[] parts = data.split("#");
+    /**
+     * Decodes a response body of the weather data provider into Weather objects.
+     * <p>
+     * This method parses the JSON array while the body is decompressed, so the decompressed payload is never held in memory,
+     * and extracts the weather details of every element.
+     * The weather details are then used to create a new Weather object, which is added to a TreeMap with the date and time as the key.
+     * If the body is null or contains no data, it returns an empty TreeMap.
+     * The method does not access the network, so it can run on a different thread than the fetch.
+     * If an exception occurs during the execution of the method, it logs an error message and throws a RuntimeException.
+     *
+     * @param body the JSON response body as returned by fetchWeatherByCityAndYear, may be null
+     * @return a TreeMap of Weather objects with the date and time as the key, or an empty TreeMap if the body contains no data
+     * @throws RuntimeException if the body is not valid JSON
+     */
+    @Override
+    public TreeMap<LocalDateTime, Weather> decodeWeather(ResponseBody body) {
+        try {
 
-                    String dateTime = parts[0].substring(17);
-                    DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                    formatDateTime = LocalDateTime.parse(dateTime, format);
+            TreeMap<LocalDateTime, Weather> weatherMap = new TreeMap<>();
+            if (body == null) {
+                return weatherMap;
+            }
 
-                    // Create a new Weather object
-                    Weather weather = getWeather(formatDateTime, parts);
+            DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            JsonNode node = parse("weather data by city and year", body);
+            for (JsonNode n : node) {
 
-                    // Add the Weather object to the TreeMap
-                    weatherMap.put(formatDateTime, weather);
-                }
+                String data = n.get("data").asText();
+                String[] parts = data.split("#");
 
-                if (weatherMap.isEmpty()) {
-                    // No data found in JSON response, log message and return empty List
-                    LOG.info("No data found for" + uri);
-                    return new TreeMap<>();
-                }
+                String dateTime = parts[0].substring(17);
+                LocalDateTime formatDateTime = LocalDateTime.parse(dateTime, format);
 
-                return weatherMap;
+                // Create a new Weather object and add it to the TreeMap
+                weatherMap.put(formatDateTime, getWeather(formatDateTime, parts));
+            }
 
-            } else {
-                // Log-Eintrag machen
-                LOG.info("Error occurred, Status code: " + res.statusCode());
-                return new TreeMap<>();
+            if (weatherMap.isEmpty()) {
+                LOG.info("No data found in response");
             }
 
+            return weatherMap;
+
         } catch (Exception e) {
-            // Log-Eintrag machen
-            // return new ArrayList<Message>();
             LOG.error("Error occurred");
             throw new RuntimeException(e);
         }
@@ -453,19 +628,18 @@ public class ApiReaderImpl implements ApiReader {
             String encodedCityName = cityName.replace(" ", "+");
 
             // Create the URI for the GET request
-            URI uri = URI.create(BASE_URI + "weatherdata-provider/rest/weatherdata/cityandyear?city=" + encodedCityName + "&year=" + jahr);
+            URI uri = URI.create(baseUri + "weatherdata-provider/rest/weatherdata/cityandyear?city=" + encodedCityName + "&year=" + jahr);
 
-            // Build and send the GET request
-            HttpRequest req = HttpRequest.newBuilder(uri).header("Accept", format).build();
-            HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
+            // Send the GET request, a completed past year is served from the cache
+            ResponseBody body = fetch(uri, yearPolicy(jahr));
 
             // Initialize the TreeMap to store the weather data
             TreeMap<LocalDateTime, Weather> weatherMap = new TreeMap<>();
 
-            // If the response status code is 200, process the JSON response
-            if (res.statusCode() == 200) {
+            // If the provider answered with a body, process the JSON response
+            if (body != null) {
                 // Parse the JSON response
-                JsonNode node = mapper.readTree(res.body());
+                JsonNode node = parse(uri.toString(), body);
 
                 // Iterate over each node in the JSON response
                 for (JsonNode n : node) {
@@ -498,8 +672,7 @@ public class ApiReaderImpl implements ApiReader {
                 return weatherMap;
 
             } else {
-                // If the response status code is not 200, log an error message and return an empty TreeMap
-                LOG.info("Error occurred, Status code: " + res.statusCode());
+                // If the provider did not answer with a body, return an empty TreeMap
                 return new TreeMap<>();
             }
 
@@ -510,6 +683,113 @@ public class ApiReaderImpl implements ApiReader {
         }
     }
 
+    /*-------------------------------------------------HTTP + CACHE-------------------------------------------------*/
+
+    /**
+     * Sends a GET request to the weather data provider and returns the response body.
+     * <p>
+     * If a cache is configured, this method first looks up the URI in the cache.
+     * A cached body that is still fresh according to the given policy is returned without contacting the provider.
+     * Otherwise, the request is sent with the stored ETag and Last-Modified validators,
+     * so the provider can answer with 304 (Not Modified) instead of sending the body again.
+     * A 200 response is stored in the cache before it is returned.
+     * If the provider is not reachable or the circuit breaker is open,
+     * a cached catalog or past-year body is returned instead of failing.
+     * If the response status code is neither 200 nor 304, it logs an error message and returns null.
+     *
+     * @param uri    the URI to request
+     * @param policy how long a cached body may be used for this request
+     * @return the response body as received, or null if the provider answered with an error status code
+     * @throws IOException          if the provider is not reachable and no cached body is available
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the response
+     */
+    private ResponseBody fetch(URI uri, CachePolicy policy) throws IOException, InterruptedException {
+
+        CachedResponse cached = cache != null ? cache.get(uri) : null;
+        if (cached != null && cache.isFresh(cached, policy)) {
+            return cached.body();
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).GET().header("Accept", format);
+        if (cached != null && cached.etag() != null) {
+            builder.header("If-None-Match", cached.etag());
+        }
+        if (cached != null && cached.lastModified() != null) {
+            builder.header("If-Modified-Since", cached.lastModified());
+        }
+
+        ProviderResponse res;
+        try {
+            res = transport.send(builder.build());
+        } catch (IOException e) {
+            if (cached != null && policy != CachePolicy.REVALIDATE) {
+                LOG.info("Provider not reachable, using cached response for " + uri);
+                return cached.body();
+            }
+            throw e;
+        }
+
+        if (res.statusCode() == 304 && cached != null) {
+            cache.touch(uri, cached, policy == CachePolicy.IMMUTABLE);
+            return cached.body();
+        }
+
+        if (res.statusCode() == 200) {
+            if (cache != null) {
+                cache.put(uri, res.body(),
+                        res.header("ETag"),
+                        res.header("Last-Modified"),
+                        policy == CachePolicy.IMMUTABLE);
+            }
+            return res.body();
+        }
+
+        // Log-Eintrag machen
+        LOG.info("Error occurred, Status code: " + res.statusCode());
+        return null;
+    }
+
+    /**
+     * Parses a response body while it is decompressed.
+     * <p>
+     * The JSON parser reads directly from the decompressing stream, so neither the decompressed bytes nor a String
+     * of the whole payload are held in memory. The decompressed bytes are counted on the way to the parser,
+     * and the time spent reading from a compressed body is recorded as decompression time.
+     *
+     * @param source the URI or description of the body, for the log
+     * @param body   the response body as received
+     * @return the parsed JSON tree
+     * @throws IOException if the body is not valid JSON or its compression is corrupt
+     */
+    private static JsonNode parse(String source, ResponseBody body) throws IOException {
+
+        try (CountingInputStream in = new CountingInputStream(body.open())) {
+
+            JsonNode node = mapper.readTree(in);
+
+            Metrics.counter("reader.bytes.decoded").add(in.bytes());
+            if (body.compressed()) {
+                DECODE.record(in.readNanos());
+            }
+            LOG.debug(source + ": " + body.size() + " bytes " + body.encoding() + ", " + in.bytes() + " bytes decoded in "
+                    + in.readNanos() / 1_000 + " us");
+
+            return node;
+        }
+    }
+
+    /**
+     * Completed past years never change on the provider side and are cached forever,
+     * the current year is revalidated on every request. A body cached while its year was the current one
+     * is revalidated once after New Year before it is cached forever.
+     *
+     * @param jahr the requested year
+     * @return the cache policy for the year
+     */
+    private static CachePolicy yearPolicy(int jahr) {
+        return jahr < Year.now().getValue() ? CachePolicy.IMMUTABLE : CachePolicy.REVALIDATE;
+    }
+
     private static Weather getWeather(LocalDateTime formatDateTime, String[] parts) {
         Weather weather = new Weather();
 
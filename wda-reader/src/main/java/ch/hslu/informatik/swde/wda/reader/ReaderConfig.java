@@ -0,0 +1,110 @@
+/**
+ * Diese Klasse enthält die Einstellungen für die Verbindung zum Wetterdienst.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the provider client.
+ *
+ * @param baseUri                 the base URI of the weather data provider, ending with a slash
+ * @param connectTimeout          the maximum time to establish a connection
+ * @param http2                   true to prefer HTTP/2 where the provider supports it
+ * @param compression             true to request gzip or deflate compressed responses
+ * @param attemptTimeout          the maximum time for a single request attempt
+ * @param callDeadline            the maximum time for one call including all retries
+ * @param maxAttempts             the maximum number of attempts for idempotent requests
+ * @param retryBaseDelay          the backoff cap of the first retry
+ * @param retryMaxDelay           the upper bound of the backoff cap
+ * @param breakerFailureThreshold the number of consecutive failures that opens the circuit breaker
+ * @param breakerOpenDuration     the time the circuit breaker stays open before a probe is let through
+ * @param hedgeDelay              the delay after which a hedged request is sent, or null if hedging is disabled
+ * @param limiterInitial          the initial number of concurrent requests of the adaptive limiter
+ * @param limiterMin              the lowest number of concurrent requests of the adaptive limiter
+ * @param limiterMax              the highest number of concurrent requests of the adaptive limiter
+ * @param recordArchive           the archive all provider traffic is recorded to, or null
+ * @param replayArchive           the archive provider traffic is replayed from instead of using the network, or null
+ * @param replaySpeed             the replay speed, 1 for the recorded latency, 0 for no delay
+ */
+public record ReaderConfig(String baseUri,
+                           Duration connectTimeout,
+                           boolean http2,
+                           boolean compression,
+                           Duration attemptTimeout,
+                           Duration callDeadline,
+                           int maxAttempts,
+                           Duration retryBaseDelay,
+                           Duration retryMaxDelay,
+                           int breakerFailureThreshold,
+                           Duration breakerOpenDuration,
+                           Duration hedgeDelay,
+                           int limiterInitial,
+                           int limiterMin,
+                           int limiterMax,
+                           Path recordArchive,
+                           Path replayArchive,
+                           double replaySpeed) {
+
+    private static final String PREFIX = "wda.reader.";
+
+    /**
+     * The base URI of the weather data provider of the school.
+     */
+    public static final String DEFAULT_BASE_URI = "http://eee-03318.simple.eee.intern:8080/";
+
+    /**
+     * Reads the settings from the system properties with the prefix {@code wda.reader.},
+     * e.g. {@code -Dwda.reader.baseUri=http://localhost:9090/}, {@code -Dwda.reader.attemptTimeoutMs=10000}
+     * or {@code -Dwda.reader.replay=provider.wdarec.gz -Dwda.reader.replaySpeed=10}.
+     * Missing properties fall back to the defaults.
+     *
+     * @return the settings
+     */
+    public static ReaderConfig fromSystemProperties() {
+        long hedgeMs = millis("hedgeDelayMs", 0);
+        return new ReaderConfig(
+                normalizeBaseUri(System.getProperty(PREFIX + "baseUri", DEFAULT_BASE_URI)),
+                Duration.ofMillis(millis("connectTimeoutMs", 5_000)),
+                Boolean.parseBoolean(System.getProperty(PREFIX + "http2", "true")),
+                Boolean.parseBoolean(System.getProperty(PREFIX + "compression", "true")),
+                Duration.ofMillis(millis("attemptTimeoutMs", 30_000)),
+                Duration.ofMillis(millis("callDeadlineMs", 60_000)),
+                (int) millis("maxAttempts", 3),
+                Duration.ofMillis(millis("retryBaseDelayMs", 200)),
+                Duration.ofMillis(millis("retryMaxDelayMs", 5_000)),
+                (int) millis("breakerFailureThreshold", 5),
+                Duration.ofMillis(millis("breakerOpenMs", 30_000)),
+                hedgeMs > 0 ? Duration.ofMillis(hedgeMs) : null,
+                (int) millis("limiterInitial", 4),
+                (int) millis("limiterMin", 1),
+                (int) millis("limiterMax", 32),
+                path("record"),
+                path("replay"),
+                Double.parseDouble(System.getProperty(PREFIX + "replaySpeed", "1")));
+    }
+
+    /**
+     * Appends the trailing slash the request paths are resolved against, if it is missing.
+     *
+     * @param baseUri the base URI
+     * @return the base URI ending with a slash
+     */
+    public static String normalizeBaseUri(String baseUri) {
+        return baseUri.endsWith("/") ? baseUri : baseUri + "/";
+    }
+
+    private static Path path(String key) {
+        String value = System.getProperty(PREFIX + key);
+        return value == null || value.isBlank() ? null : Path.of(value);
+    }
+
+    private static long millis(String key, long defaultValue) {
+        return Long.parseLong(System.getProperty(PREFIX + key, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * Diese Aufzählung beschreibt, wie lange eine Antwort des Wetterdienstes
+ * aus dem lokalen Cache verwendet werden darf.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.cache;
+
+public enum CachePolicy {
+
+    /**
+     * The cached body is only used after the provider confirmed it with a 304 (Not Modified),
+     * or as a fallback when the provider is not reachable.
+     */
+    REVALIDATE,
+
+    /**
+     * The cached body is used without contacting the provider as long as it is younger than the catalog TTL.
+     * Used for the city catalog, which almost never changes.
+     */
+    CATALOG,
+
+    /**
+     * The cached body never expires. Used for completed past years, which the provider no longer changes.
+     */
+    IMMUTABLE
+}
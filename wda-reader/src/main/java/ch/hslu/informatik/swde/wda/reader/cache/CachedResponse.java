@@ -0,0 +1,33 @@
+/**
+ * Diese Klasse repräsentiert eine im Cache abgelegte Antwort des Wetterdienstes.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.cache;
+
+import ch.hslu.informatik.swde.wda.reader.transport.ResponseBody;
+
+import java.time.Instant;
+
+/**
+ * A response body together with the validators the provider sent for it.
+ *
+ * @param body         the response body, gzip compressed as it is stored on disk
+ * @param etag         the ETag header of the response, or null if the provider did not send one
+ * @param lastModified the Last-Modified header of the response, or null if the provider did not send one
+ * @param storedAt     the point in time the body was stored or last confirmed by the provider
+ * @param immutable    true if the body never expires
+ */
+public record CachedResponse(ResponseBody body, String etag, String lastModified, Instant storedAt, boolean immutable) {
+
+    /**
+     * Checks if the provider sent any validator that can be used for a conditional request.
+     *
+     * @return true if an ETag or a Last-Modified value is available
+     */
+    public boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+}
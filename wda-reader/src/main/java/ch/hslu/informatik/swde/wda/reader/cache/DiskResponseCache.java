@@ -0,0 +1,204 @@
+/**
+ * Diese Klasse speichert Antworten des Wetterdienstes komprimiert auf der Festplatte,
+ * damit sie nach einem Neustart nicht erneut heruntergeladen werden müssen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.cache;
+
+import ch.hslu.informatik.swde.wda.reader.transport.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Disk backed cache for provider responses, keyed by request URI.
+ * <p>
+ * Every entry consists of two files named after the SHA-256 hash of the URI:
+ * the gzip compressed body ({@code <hash>.gz}) and a small properties file with the validators
+ * ({@code <hash>.properties}). Both files are written to a temporary file first and then moved into place,
+ * so a crash never leaves a half written entry behind.
+ */
+public class DiskResponseCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DiskResponseCache.class);
+
+    public static final String PROP_DIR = "wda.reader.cache.dir";
+    public static final String PROP_ENABLED = "wda.reader.cache.enabled";
+    public static final String PROP_CATALOG_TTL_HOURS = "wda.reader.cache.catalogTtlHours";
+
+    private final Path directory;
+    private final Duration catalogTtl;
+
+    public DiskResponseCache(Path directory, Duration catalogTtl) {
+        this.directory = directory;
+        this.catalogTtl = catalogTtl;
+    }
+
+    /**
+     * Creates the cache from the system properties.
+     * <p>
+     * The directory defaults to {@code ~/.wda/http-cache} and the catalog TTL to 24 hours.
+     * If the property {@code wda.reader.cache.enabled} is set to false, no cache is created.
+     *
+     * @return the configured cache, or null if the cache is disabled
+     */
+    public static DiskResponseCache fromSystemProperties() {
+        if (!Boolean.parseBoolean(System.getProperty(PROP_ENABLED, "true"))) {
+            return null;
+        }
+        Path dir = Path.of(System.getProperty(PROP_DIR, System.getProperty("user.home") + "/.wda/http-cache"));
+        long ttlHours = Long.parseLong(System.getProperty(PROP_CATALOG_TTL_HOURS, "24"));
+        return new DiskResponseCache(dir, Duration.ofHours(ttlHours));
+    }
+
+    /**
+     * Retrieves the cached response for a URI.
+     * <p>
+     * The body is returned gzip compressed as it is stored and only decompressed when it is read.
+     * If no entry exists or the entry cannot be read, null is returned and the request has to go to the provider.
+     *
+     * @param uri the request URI
+     * @return the cached response, or null if there is no usable entry
+     */
+    public CachedResponse get(URI uri) {
+        String key = keyOf(uri);
+        Path metaFile = directory.resolve(key + ".properties");
+        Path bodyFile = directory.resolve(key + ".gz");
+
+        if (!Files.exists(metaFile) || !Files.exists(bodyFile)) {
+            return null;
+        }
+
+        try {
+            Properties meta = new Properties();
+            try (Reader r = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+                meta.load(r);
+            }
+
+            return new CachedResponse(
+                    new ResponseBody(Files.readAllBytes(bodyFile), ResponseBody.GZIP),
+                    meta.getProperty("etag"),
+                    meta.getProperty("lastModified"),
+                    Instant.ofEpochMilli(Long.parseLong(meta.getProperty("storedAt", "0"))),
+                    Boolean.parseBoolean(meta.getProperty("immutable", "false")));
+
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Unreadable cache entry for " + uri + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Checks if a cached response may be used without contacting the provider.
+     * <p>
+     * Only a body stored as immutable is used without revalidation under the IMMUTABLE policy.
+     * A body of the current year is stored as mutable and its URI falls under the IMMUTABLE policy after New Year,
+     * it is revalidated once and then stored again as immutable.
+     *
+     * @param cached the cached response
+     * @param policy the cache policy of the request
+     * @return true if the cached body can be returned directly
+     */
+    public boolean isFresh(CachedResponse cached, CachePolicy policy) {
+        return switch (policy) {
+            case IMMUTABLE -> cached.immutable();
+            case CATALOG -> cached.immutable() || cached.storedAt().plus(catalogTtl).isAfter(Instant.now());
+            case REVALIDATE -> cached.immutable();
+        };
+    }
+
+    /**
+     * Stores a response body together with its validators.
+     * <p>
+     * A gzip compressed body is written as it was received, any other body is compressed while it is written.
+     * Errors while writing are logged and otherwise ignored, the cache is only an optimisation.
+     *
+     * @param uri          the request URI
+     * @param body         the response body as received
+     * @param etag         the ETag header, or null
+     * @param lastModified the Last-Modified header, or null
+     * @param immutable    true if the body never expires
+     */
+    public void put(URI uri, ResponseBody body, String etag, String lastModified, boolean immutable) {
+        String key = keyOf(uri);
+
+        try {
+            Files.createDirectories(directory);
+
+            Path bodyTmp = Files.createTempFile(directory, key, ".gz.tmp");
+            if (ResponseBody.GZIP.equals(body.encoding())) {
+                Files.write(bodyTmp, body.content());
+            } else {
+                try (InputStream in = body.open(); OutputStream out = new GZIPOutputStream(Files.newOutputStream(bodyTmp))) {
+                    in.transferTo(out);
+                }
+            }
+            Files.move(bodyTmp, directory.resolve(key + ".gz"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            writeMeta(uri, key, etag, lastModified, Instant.now(), immutable);
+
+        } catch (IOException e) {
+            LOG.warn("Could not write cache entry for " + uri + ": " + e);
+        }
+    }
+
+    /**
+     * Marks a cached response as confirmed by the provider (HTTP 304), which restarts its TTL.
+     *
+     * @param uri       the request URI
+     * @param cached    the cached response that was confirmed
+     * @param immutable true if the body never expires from now on, e.g. because its year is completed
+     */
+    public void touch(URI uri, CachedResponse cached, boolean immutable) {
+        try {
+            writeMeta(uri, keyOf(uri), cached.etag(), cached.lastModified(), Instant.now(), cached.immutable() || immutable);
+        } catch (IOException e) {
+            LOG.warn("Could not update cache entry for " + uri + ": " + e);
+        }
+    }
+
+    private void writeMeta(URI uri, String key, String etag, String lastModified, Instant storedAt, boolean immutable) throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty("uri", uri.toString());
+        if (etag != null) meta.setProperty("etag", etag);
+        if (lastModified != null) meta.setProperty("lastModified", lastModified);
+        meta.setProperty("storedAt", String.valueOf(storedAt.toEpochMilli()));
+        meta.setProperty("immutable", String.valueOf(immutable));
+
+        Files.createDirectories(directory);
+        Path metaTmp = Files.createTempFile(directory, key, ".properties.tmp");
+        try (Writer w = Files.newBufferedWriter(metaTmp, StandardCharsets.UTF_8)) {
+            meta.store(w, null);
+        }
+        Files.move(metaTmp, directory.resolve(key + ".properties"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String keyOf(URI uri) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(uri.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Diese Klasse misst Latenzen in einem logarithmischen Histogramm,
+ * um Perzentile wie p50 und p99 ohne Speicherung aller Messwerte zu berechnen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free latency histogram with microsecond resolution.
+ * <p>
+ * Values are sorted into power-of-two buckets, each split into 8 linear sub-buckets,
+ * which bounds the relative error of a reported percentile to 12.5%.
+ */
+public class LatencyTimer {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64 << SUB_BITS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records one measurement.
+     *
+     * @param nanos the measured duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        buckets.incrementAndGet(indexOf(micros));
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * @return the number of recorded measurements
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the upper bound of the bucket that contains the given percentile.
+     *
+     * @param percentile the percentile between 0 and 1, e.g. 0.99
+     * @return the percentile in milliseconds, or 0 if nothing was recorded
+     */
+    public double percentileMillis(double percentile) {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            total += buckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return (lowerBoundOf(i + 1) - 1) / 1000.0;
+            }
+        }
+        return maxMicros.get() / 1000.0;
+    }
+
+    /**
+     * @return the count, mean, p50, p90, p99 and max of the recorded measurements in milliseconds
+     */
+    public Map<String, Object> snapshot() {
+        long n = count.sum();
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("count", n);
+        res.put("meanMs", n == 0 ? 0.0 : totalMicros.sum() / 1000.0 / n);
+        res.put("p50Ms", percentileMillis(0.50));
+        res.put("p90Ms", percentileMillis(0.90));
+        res.put("p99Ms", percentileMillis(0.99));
+        res.put("maxMs", maxMicros.get() / 1000.0);
+        return res;
+    }
+
+    private static int indexOf(long value) {
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        if (exp < SUB_BITS) {
+            return (int) value;
+        }
+        int sub = (int) ((value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1));
+        return ((exp - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+
+    private static long lowerBoundOf(int index) {
+        if (index < 2 * SUB_COUNT) {
+            return index;
+        }
+        int exp = (index >> SUB_BITS) + SUB_BITS - 1;
+        int sub = index & (SUB_COUNT - 1);
+        return (long) (SUB_COUNT + sub) << (exp - SUB_BITS);
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Diese Klasse sammelt einfache Kennzahlen (Zähler, Messwerte und Latenzen)
+ * der Applikation, ohne eine zusätzliche Bibliothek zu benötigen.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Process wide registry of named counters, gauges and latency timers.
+ * <p>
+ * Names are dot separated and start with the component, e.g. {@code reader.retries}.
+ * The registry is read through {@link #snapshot()}, which is exposed by the REST service.
+ */
+public final class Metrics {
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Supplier<? extends Number>> GAUGES = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyTimer> TIMERS = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the counter with the given name, creating it on first use.
+     *
+     * @param name the name of the counter
+     * @return the counter
+     */
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Registers a gauge, whose value is read from the supplier each time a snapshot is taken.
+     * A gauge registered again under the same name replaces the previous one.
+     *
+     * @param name     the name of the gauge
+     * @param supplier the supplier of the current value
+     */
+    public static void gauge(String name, Supplier<? extends Number> supplier) {
+        GAUGES.put(name, supplier);
+    }
+
+    /**
+     * Returns the latency timer with the given name, creating it on first use.
+     *
+     * @param name the name of the timer
+     * @return the timer
+     */
+    public static LatencyTimer timer(String name) {
+        return TIMERS.computeIfAbsent(name, n -> new LatencyTimer());
+    }
+
+    /**
+     * Takes a snapshot of all registered metrics, sorted by name.
+     *
+     * @return a map from metric name to its current value; timers are represented as a nested map
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> res = new LinkedHashMap<>();
+        COUNTERS.forEach((name, counter) -> res.put(name, counter.sum()));
+        GAUGES.forEach((name, gauge) -> res.put(name, gauge.get()));
+        TIMERS.forEach((name, timer) -> res.put(name, timer.snapshot()));
+        return res;
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Diese Klasse repräsentiert eine aufgezeichnete Anfrage an den Wetterdienst
+ * zusammen mit dessen Antwort.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.replay;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One recorded request/response pair.
+ *
+ * @param method       the HTTP method of the request
+ * @param target       the path and query of the request, without scheme and host
+ * @param offsetMillis the time the request was sent, relative to the start of the recording
+ * @param latencyNanos the time the provider took to answer
+ * @param statusCode   the HTTP status code of the response
+ * @param headers      the response headers
+ * @param body         the response body
+ */
+public record RecordedExchange(String method,
+                               String target,
+                               long offsetMillis,
+                               long latencyNanos,
+                               int statusCode,
+                               Map<String, List<String>> headers,
+                               String body) {
+}
@@ -0,0 +1,76 @@
+/**
+ * Diese Klasse dekoriert einen 'ProviderTransport' und zeichnet jede Anfrage
+ * samt Antwort in einem {@link TrafficArchive} auf.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.replay;
+
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderResponse;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+
+/**
+ * Recording transport.
+ * <p>
+ * Every response of the delegate, including error status codes, is appended to the archive together with
+ * its latency. Requests that fail with an IOException are not recorded.
+ * The recording should be done with the disk cache disabled, so that the archive contains full 200 responses
+ * instead of 304 revalidations.
+ */
+public class RecordingTransport implements ProviderTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RecordingTransport.class);
+
+    private final ProviderTransport delegate;
+    private final TrafficArchive archive;
+    private final long startMillis = System.currentTimeMillis();
+
+    /**
+     * Creates the recording transport.
+     *
+     * @param delegate the transport that actually sends the requests
+     * @param archive  the archive to append the exchanges to
+     */
+    public RecordingTransport(ProviderTransport delegate, TrafficArchive archive) {
+        this.delegate = delegate;
+        this.archive = archive;
+    }
+
+    @Override
+    public ProviderResponse send(HttpRequest request) throws IOException, InterruptedException {
+
+        long sentAt = System.currentTimeMillis();
+        long start = System.nanoTime();
+        ProviderResponse res = delegate.send(request);
+        long latency = System.nanoTime() - start;
+
+        try {
+            archive.append(new RecordedExchange(request.method(), target(request.uri()), sentAt - startMillis, latency,
+                    res.statusCode(), res.headers().map(), res.body().text()));
+            Metrics.counter("reader.record.exchanges").increment();
+        } catch (IOException e) {
+            // A broken archive must not break the reader
+            LOG.error("Error occurred while recording " + request.uri() + ": " + e);
+        }
+        return res;
+    }
+
+    /**
+     * Returns the part of the URI that identifies the request independently of the provider host.
+     *
+     * @param uri the request URI
+     * @return the raw path and query
+     */
+    static String target(URI uri) {
+        return uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+    }
+}
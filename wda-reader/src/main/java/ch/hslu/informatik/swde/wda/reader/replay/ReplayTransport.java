@@ -0,0 +1,137 @@
+/**
+ * Diese Klasse stellt eine konkrete Implementierung der Schnittstelle 'ProviderTransport' dar,
+ * welche aufgezeichnete Antworten des Wetterdienstes wiedergibt, ohne das Netzwerk zu verwenden.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.replay;
+
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderResponse;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replaying transport.
+ * <p>
+ * Requests are matched by method, path and query, so an archive recorded against the school provider
+ * can be replayed with any base URI. If the same request was recorded several times, the recordings are
+ * served in their original order and the last one is repeated afterwards.
+ * A recorded 304 is only served to a conditional request.
+ * <p>
+ * The recorded timing is reproduced divided by the speed factor: 1 replays the provider at its original speed,
+ * 10 ten times faster and 0 flat out without any delay. Timing covers both the latency of each response and
+ * its offset in the recording: the replay clock starts with the first request, and a response is not served
+ * before the time it was received in the recording, so a client that sends faster than the recorded one is
+ * held back to the recorded request rate. A response is always delayed by at least its latency.
+ * Requests that were not recorded are answered with 404.
+ */
+public class ReplayTransport implements ProviderTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplayTransport.class);
+
+    private final Map<String, List<RecordedExchange>> exchanges = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new HashMap<>();
+    private final double speed;
+    private final AtomicLong startNanos = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Creates a replaying transport from recorded exchanges.
+     *
+     * @param recorded the recorded exchanges in their original order
+     * @param speed    the replay speed, 1 for the original latency, 0 for no delay
+     */
+    public ReplayTransport(List<RecordedExchange> recorded, double speed) {
+        for (RecordedExchange exchange : recorded) {
+            String key = key(exchange.method(), exchange.target());
+            exchanges.computeIfAbsent(key, k -> new ArrayList<>()).add(exchange);
+            cursors.putIfAbsent(key, new AtomicInteger());
+        }
+        this.speed = speed;
+    }
+
+    /**
+     * Creates a replaying transport from an archive file.
+     *
+     * @param archive the archive file
+     * @param speed   the replay speed, 1 for the original latency, 0 for no delay
+     * @return the transport
+     * @throws IOException if the archive cannot be read
+     */
+    public static ReplayTransport fromArchive(Path archive, double speed) throws IOException {
+        List<RecordedExchange> recorded = TrafficArchive.readAll(archive);
+        LOG.info("Replaying " + recorded.size() + " recorded exchanges from " + archive + " at speed " + speed);
+        return new ReplayTransport(recorded, speed);
+    }
+
+    @Override
+    public ProviderResponse send(HttpRequest request) throws IOException, InterruptedException {
+
+        String key = key(request.method(), RecordingTransport.target(request.uri()));
+        List<RecordedExchange> candidates = exchanges.get(key);
+
+        if (candidates == null) {
+            Metrics.counter("reader.replay.misses").increment();
+            LOG.info("No recorded response for " + request.method() + " " + request.uri());
+            return new ProviderResponse(404, "", HttpHeaders.of(Map.of(), (name, value) -> true));
+        }
+
+        boolean conditional = request.headers().firstValue("If-None-Match").isPresent()
+                || request.headers().firstValue("If-Modified-Since").isPresent();
+        RecordedExchange exchange = next(key, candidates, conditional);
+
+        if (speed > 0) {
+            TimeUnit.NANOSECONDS.sleep(delayNanos(exchange));
+        }
+
+        Metrics.counter("reader.replay.hits").increment();
+        return new ProviderResponse(exchange.statusCode(), exchange.body(),
+                HttpHeaders.of(exchange.headers(), (name, value) -> true));
+    }
+
+    /**
+     * The time to wait before the exchange is served: its latency, or longer if the replay is still ahead of
+     * the time the response was received in the recording.
+     */
+    private long delayNanos(RecordedExchange exchange) {
+        long now = System.nanoTime();
+        startNanos.compareAndSet(Long.MIN_VALUE, now);
+        long latency = (long) (exchange.latencyNanos() / speed);
+        long due = startNanos.get() + (long) ((TimeUnit.MILLISECONDS.toNanos(exchange.offsetMillis()) + exchange.latencyNanos()) / speed);
+        return Math.max(latency, due - now);
+    }
+
+    private RecordedExchange next(String key, List<RecordedExchange> candidates, boolean conditional) {
+        int start = Math.min(cursors.get(key).getAndUpdate(i -> Math.min(i + 1, candidates.size())), candidates.size() - 1);
+        for (int i = start; i < candidates.size(); i++) {
+            if (conditional || candidates.get(i).statusCode() != 304) {
+                return candidates.get(i);
+            }
+        }
+        for (int i = start - 1; i >= 0; i--) {
+            if (conditional || candidates.get(i).statusCode() != 304) {
+                return candidates.get(i);
+            }
+        }
+        return candidates.get(start);
+    }
+
+    private static String key(String method, String target) {
+        return method + " " + target;
+    }
+}
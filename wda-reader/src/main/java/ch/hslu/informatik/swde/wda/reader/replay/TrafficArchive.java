@@ -0,0 +1,183 @@
+/**
+ * Diese Klasse liest und schreibt Archive mit aufgezeichnetem Verkehr zum Wetterdienst.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Compressed on-disk archive of {@link RecordedExchange}s.
+ * <p>
+ * The archive is a gzip stream of length-prefixed binary records. Every recording session appends
+ * a new gzip member, and every record is sync-flushed, so an archive stays readable even if
+ * the recording process is killed. Reading stops at the first incomplete record,
+ * so sessions appended after a killed session are not read back.
+ */
+public final class TrafficArchive implements AutoCloseable {
+
+    private static final int MAGIC = 0x57444152; // "WDAR"
+    private static final int VERSION = 1;
+
+    private final DataOutputStream out;
+
+    private TrafficArchive(DataOutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Opens an archive for appending, creating the file and its directory if necessary.
+     *
+     * @param file the archive file, e.g. {@code provider-2024.wdarec.gz}
+     * @return the archive, ready to append records
+     * @throws IOException if the file cannot be opened
+     */
+    public static TrafficArchive openForAppend(Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        GZIPOutputStream gzip = new GZIPOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024, true);
+        return new TrafficArchive(new DataOutputStream(new BufferedOutputStream(gzip, 64 * 1024)));
+    }
+
+    /**
+     * Appends a record and flushes it to disk.
+     *
+     * @param exchange the record to append
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void append(RecordedExchange exchange) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeUTF(exchange.method());
+        writeString(exchange.target());
+        out.writeLong(exchange.offsetMillis());
+        out.writeLong(exchange.latencyNanos());
+        out.writeShort(exchange.statusCode());
+
+        out.writeShort(exchange.headers().size());
+        for (Map.Entry<String, List<String>> header : exchange.headers().entrySet()) {
+            writeString(header.getKey());
+            out.writeShort(header.getValue().size());
+            for (String value : header.getValue()) {
+                writeString(value);
+            }
+        }
+
+        writeString(exchange.body());
+        out.flush();
+    }
+
+    /**
+     * Finishes the gzip member and closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Reads all records of an archive in the order they were recorded.
+     *
+     * @param file the archive file
+     * @return the records
+     * @throws IOException if the file cannot be read or is not an archive
+     */
+    public static List<RecordedExchange> readAll(Path file) throws IOException {
+        List<RecordedExchange> res = new ArrayList<>();
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(raw, 64 * 1024)))) {
+
+            while (true) {
+                int magic;
+                try {
+                    magic = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (magic != MAGIC) {
+                    throw new IOException("Not a traffic archive or corrupt record in " + file);
+                }
+                try {
+                    res.add(readRecord(in));
+                } catch (EOFException e) {
+                    // The recording was interrupted in the middle of a record
+                    break;
+                }
+            }
+        } catch (EOFException | ZipException e) {
+            // A gzip member without trailer, e.g. of a killed recording, the records read so far are complete
+        }
+        return res;
+    }
+
+    private static RecordedExchange readRecord(DataInputStream in) throws IOException {
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported traffic archive version " + version);
+        }
+        String method = in.readUTF();
+        String target = readString(in);
+        long offsetMillis = in.readLong();
+        long latencyNanos = in.readLong();
+        int statusCode = in.readUnsignedShort();
+
+        int headerCount = in.readUnsignedShort();
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            String name = readString(in);
+            int valueCount = in.readUnsignedShort();
+            List<String> values = new ArrayList<>(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                values.add(readString(in));
+            }
+            headers.put(name, values);
+        }
+
+        String body = readString(in);
+        return new RecordedExchange(method, target, offsetMillis, latencyNanos, statusCode, headers, body);
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Diese Klasse begrenzt die Anzahl gleichzeitiger Anfragen an den Wetterdienst
+ * und passt die Grenze laufend an die gemessene Latenz an.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.resilience;
+
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive concurrency limit in the style of a gradient limiter with multiplicative decrease.
+ * <p>
+ * The limiter keeps a slowly moving estimate of the unloaded round trip time (RTT).
+ * After every successful request the ratio {@code baselineRtt / sampleRtt} (the gradient, clamped to [0.5, 1])
+ * is applied to the current limit and a small headroom of {@code sqrt(limit)} is added.
+ * As long as the provider answers as fast as usual the limit grows, as soon as requests start queueing
+ * on the provider side the RTT rises and the limit shrinks.
+ * A dropped request (timeout, connection error, 429 or 503) reduces the limit by 10 percent.
+ * The limit only grows while at least half of it is used, so an idle client does not inflate it.
+ * <p>
+ * The current limit, the number of requests in flight and the number of waiting callers
+ * are registered as gauges under the given name.
+ */
+public class AdaptiveLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double BASELINE_DECAY = 0.01;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private double limit;
+    private double baselineRttNanos;
+    private int inFlight;
+    private int queued;
+
+    /**
+     * Creates a limiter.
+     *
+     * @param name         the metric name prefix, e.g. {@code reader.limiter}
+     * @param initialLimit the limit to start with
+     * @param minLimit     the lowest limit, at least 1
+     * @param maxLimit     the highest limit
+     */
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+
+        Metrics.gauge(name + ".limit", this::getLimit);
+        Metrics.gauge(name + ".inflight", this::getInFlight);
+        Metrics.gauge(name + ".queued", this::getQueued);
+    }
+
+    /**
+     * Waits until a request may be sent.
+     * Every acquired permit must be released by exactly one call of {@link #onSuccess(long)}, {@link #onDropped()} or {@link #onIgnore()}.
+     *
+     * @param maxWait the maximum time to wait for a permit
+     * @return true if a permit was acquired, false if the time elapsed
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public boolean acquire(Duration maxWait) throws InterruptedException {
+        long remaining = maxWait.toNanos();
+        lock.lock();
+        try {
+            if (inFlight < getLimit()) {
+                inFlight++;
+                return true;
+            }
+            queued++;
+            try {
+                while (inFlight >= getLimit()) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = permitReleased.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the permit of a request the provider answered normally and adapts the limit to its RTT.
+     *
+     * @param rttNanos the round trip time of the request
+     */
+    public void onSuccess(long rttNanos) {
+        lock.lock();
+        try {
+            int used = inFlight;
+            release();
+
+            if (baselineRttNanos == 0 || rttNanos < baselineRttNanos) {
+                baselineRttNanos = rttNanos;
+            } else {
+                baselineRttNanos += (rttNanos - baselineRttNanos) * BASELINE_DECAY;
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, baselineRttNanos / Math.max(1, rttNanos)));
+            double target = limit * gradient + Math.sqrt(limit);
+            if (target > limit && used < limit / 2) {
+                return;
+            }
+            setLimit(limit * (1 - SMOOTHING) + target * SMOOTHING);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the permit of a request that timed out, failed or was throttled by the provider
+     * and decreases the limit.
+     */
+    public void onDropped() {
+        lock.lock();
+        try {
+            release();
+            setLimit(limit * BACKOFF_RATIO);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the permit of a request without adapting the limit, e.g. if it was cancelled.
+     */
+    public void onIgnore() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        inFlight--;
+        permitReleased.signalAll();
+    }
+
+    private void setLimit(double newLimit) {
+        limit = Math.min(maxLimit, Math.max(minLimit, newLimit));
+    }
+
+    /**
+     * @return the current limit, rounded down
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests currently in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of callers currently waiting for a permit
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Diese Klasse implementiert einen Circuit Breaker, der Anfragen an den Wetterdienst
+ * sofort abweist, solange dieser wiederholt fehlschlägt.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.resilience;
+
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Consecutive failure circuit breaker.
+ * <p>
+ * The breaker opens after {@code failureThreshold} consecutive failures and rejects all calls for {@code openDuration}.
+ * Afterwards exactly one probe call is let through (half open). If the probe succeeds the breaker closes,
+ * otherwise it opens again for another {@code openDuration}.
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        Metrics.gauge(name + ".state", () -> state().ordinal());
+    }
+
+    /**
+     * Checks if a call may be sent.
+     * <p>
+     * A rejected call must not be reported with {@link #onSuccess()} or {@link #onFailure()},
+     * a permitted call must report exactly one of them however it ends, otherwise the probe of the half open breaker is never released.
+     *
+     * @return true if the call may be sent, false if the breaker is open
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+
+        boolean permitted = switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (probeInFlight) {
+                    yield false;
+                }
+                probeInFlight = true;
+                yield true;
+            }
+        };
+
+        if (!permitted) {
+            Metrics.counter(name + ".rejected").increment();
+        }
+        return permitted;
+    }
+
+    /**
+     * Reports a successful call, which closes the breaker.
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            LOG.info("Circuit " + name + " closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    /**
+     * Reports a failed call, which opens the breaker after too many consecutive failures or a failed probe.
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            LOG.warn("Circuit " + name + " opened after " + consecutiveFailures + " consecutive failures");
+            Metrics.counter(name + ".opened").increment();
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            probeInFlight = false;
+        }
+    }
+
+    /**
+     * @return the current state of the breaker
+     */
+    public synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * This class extends the IOException class and is thrown when a request is rejected because the circuit breaker is open.
+ * As an IOException it is handled like an unreachable provider, e.g. a cached response is used instead.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.resilience;
+
+import java.io.IOException;
+
+public class CircuitOpenException extends IOException {
+
+    /**
+     * Constructor for the CircuitOpenException class.
+     *
+     * @param message the detail message, saved for later retrieval by the Throwable.getMessage() method
+     */
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
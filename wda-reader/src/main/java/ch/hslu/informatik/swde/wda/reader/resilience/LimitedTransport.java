@@ -0,0 +1,91 @@
+/**
+ * Diese Klasse dekoriert einen 'ProviderTransport' mit einem {@link AdaptiveLimiter},
+ * damit nie mehr Anfragen gleichzeitig an den Wetterdienst gehen, als dieser verkraftet.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.resilience;
+
+import ch.hslu.informatik.swde.wda.reader.metrics.LatencyTimer;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderResponse;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderTransport;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+
+/**
+ * Concurrency limiting transport.
+ * <p>
+ * This transport sits below the {@link ResilientTransport}, so every single attempt, retry and hedge
+ * takes a permit and reports its own round trip time to the limiter.
+ * A caller waits for a permit at most as long as the timeout of its request.
+ */
+public class LimitedTransport implements ProviderTransport {
+
+    private static final LatencyTimer WAIT = Metrics.timer("reader.limiter.wait");
+
+    private final ProviderTransport delegate;
+    private final AdaptiveLimiter limiter;
+    private final Duration defaultMaxWait;
+
+    /**
+     * Creates the limiting transport.
+     *
+     * @param delegate       the transport that actually sends the requests
+     * @param limiter        the limiter shared by all requests to the provider
+     * @param defaultMaxWait the maximum time to wait for a permit, if the request does not define a timeout
+     */
+    public LimitedTransport(ProviderTransport delegate, AdaptiveLimiter limiter, Duration defaultMaxWait) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.defaultMaxWait = defaultMaxWait;
+    }
+
+    /**
+     * Waits for a permit, sends the request and reports the outcome to the limiter.
+     *
+     * @param request the request to send
+     * @return the response of the provider
+     * @throws HttpTimeoutException if no permit became available in time
+     * @throws IOException          if the provider is not reachable or does not answer in time
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    @Override
+    public ProviderResponse send(HttpRequest request) throws IOException, InterruptedException {
+
+        long waitStart = System.nanoTime();
+        boolean acquired = limiter.acquire(request.timeout().orElse(defaultMaxWait));
+        WAIT.record(System.nanoTime() - waitStart);
+
+        if (!acquired) {
+            Metrics.counter("reader.limiter.rejected").increment();
+            throw new HttpTimeoutException("No permit for " + request.uri() + " within the request timeout, limit " + limiter.getLimit());
+        }
+
+        long start = System.nanoTime();
+        boolean reported = false;
+        try {
+            ProviderResponse res = delegate.send(request);
+            if (res.statusCode() == 429 || res.statusCode() == 503) {
+                limiter.onDropped();
+            } else {
+                limiter.onSuccess(System.nanoTime() - start);
+            }
+            reported = true;
+            return res;
+        } catch (IOException e) {
+            limiter.onDropped();
+            reported = true;
+            throw e;
+        } finally {
+            if (!reported) {
+                limiter.onIgnore();
+            }
+        }
+    }
+}
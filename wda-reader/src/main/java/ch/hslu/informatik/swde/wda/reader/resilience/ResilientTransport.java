@@ -0,0 +1,224 @@
+/**
+ * Diese Klasse dekoriert einen 'ProviderTransport' mit Deadline, Wiederholungen,
+ * Circuit Breaker und optionalen Hedged Requests.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.resilience;
+
+import ch.hslu.informatik.swde.wda.reader.metrics.LatencyTimer;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderResponse;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resilience layer around the provider transport.
+ * <p>
+ * Every call gets a deadline, which bounds the time spent in all attempts together.
+ * Idempotent GET requests that fail with an IOException or a transient status code are retried
+ * according to the {@link RetryPolicy}, as long as the backoff still fits into the deadline.
+ * The {@link CircuitBreaker} rejects calls immediately while the provider is unhealthy. Every permitted attempt reports its outcome,
+ * an attempt that ends with an InterruptedException or a RuntimeException counts as a failure.
+ * If a hedge delay is configured, a second identical request is sent when the first one did not answer
+ * within that delay, and the faster of both responses is used.
+ */
+public class ResilientTransport implements ProviderTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResilientTransport.class);
+
+    private static final LatencyTimer LATENCY = Metrics.timer("reader.latency");
+
+    private final ProviderTransport delegate;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker breaker;
+    private final Duration attemptTimeout;
+    private final Duration deadline;
+    private final Duration hedgeDelay;
+    private final ExecutorService hedgeExecutor;
+
+    /**
+     * Creates the resilience layer.
+     *
+     * @param delegate       the transport that actually sends the requests
+     * @param retryPolicy    the retry policy for idempotent requests
+     * @param breaker        the circuit breaker guarding the provider
+     * @param attemptTimeout the maximum time for a single attempt
+     * @param deadline       the maximum time for one call including all retries
+     * @param hedgeDelay     the delay after which a hedged request is sent, or null to disable hedging
+     */
+    public ResilientTransport(ProviderTransport delegate, RetryPolicy retryPolicy, CircuitBreaker breaker,
+                              Duration attemptTimeout, Duration deadline, Duration hedgeDelay) {
+        this.delegate = delegate;
+        this.retryPolicy = retryPolicy;
+        this.breaker = breaker;
+        this.attemptTimeout = attemptTimeout;
+        this.deadline = deadline;
+        this.hedgeDelay = hedgeDelay;
+        this.hedgeExecutor = hedgeDelay != null ? Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "wda-reader-hedge");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    /**
+     * Sends the request with deadline, retries, circuit breaker and hedging.
+     * <p>
+     * If the last attempt ends with a transient status code, that response is returned,
+     * so the caller can handle it like any other error status code.
+     *
+     * @param request the request to send
+     * @return the response of the provider
+     * @throws CircuitOpenException if the circuit breaker is open
+     * @throws IOException          if the last attempt failed or the deadline was exceeded
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    @Override
+    public ProviderResponse send(HttpRequest request) throws IOException, InterruptedException {
+
+        long start = System.nanoTime();
+        long deadlineAt = start + deadline.toNanos();
+        Metrics.counter("reader.requests").increment();
+
+        try {
+            for (int attempt = 1; ; attempt++) {
+
+                long remaining = deadlineAt - System.nanoTime();
+                if (remaining <= 0) {
+                    Metrics.counter("reader.deadline.exceeded").increment();
+                    throw new HttpTimeoutException("Deadline of " + deadline.toMillis() + " ms exceeded for " + request.uri());
+                }
+
+                if (!breaker.tryAcquire()) {
+                    throw new CircuitOpenException("Circuit open, request rejected: " + request.uri());
+                }
+
+                Duration backoff = retryPolicy.backoff(attempt);
+                boolean canRetry = attempt < retryPolicy.maxAttempts()
+                        && "GET".equals(request.method())
+                        && System.nanoTime() + backoff.toNanos() < deadlineAt;
+
+                boolean reported = false;
+                try {
+                    ProviderResponse res = sendAttempt(withTimeout(request, Duration.ofNanos(remaining)));
+                    reported = true;
+
+                    if (!RetryPolicy.isRetryableStatus(res.statusCode())) {
+                        breaker.onSuccess();
+                        return res;
+                    }
+
+                    breaker.onFailure();
+                    if (!canRetry) {
+                        Metrics.counter("reader.failures").increment();
+                        return res;
+                    }
+                    LOG.debug("Status " + res.statusCode() + " for " + request.uri() + ", retrying in " + backoff.toMillis() + " ms");
+
+                } catch (IOException e) {
+                    reported = true;
+                    breaker.onFailure();
+                    if (!canRetry) {
+                        Metrics.counter("reader.failures").increment();
+                        throw e;
+                    }
+                    LOG.debug("Attempt " + attempt + " failed for " + request.uri() + ": " + e + ", retrying in " + backoff.toMillis() + " ms");
+                } finally {
+                    if (!reported) {
+                        // Interrupted or failed with a RuntimeException, a probe of the half open breaker would otherwise stay in flight forever
+                        breaker.onFailure();
+                    }
+                }
+
+                Metrics.counter("reader.retries").increment();
+                Thread.sleep(backoff.toMillis());
+            }
+        } finally {
+            LATENCY.record(System.nanoTime() - start);
+        }
+    }
+
+    private ProviderResponse sendAttempt(HttpRequest request) throws IOException, InterruptedException {
+        if (hedgeExecutor == null || !"GET".equals(request.method())) {
+            return delegate.send(request);
+        }
+        return sendHedged(request);
+    }
+
+    /**
+     * Sends the request and, if it did not complete within the hedge delay, a second identical request.
+     * The first successful response wins and the other request is cancelled.
+     * Only if both requests fail, the failure of the last one is thrown.
+     */
+    private ProviderResponse sendHedged(HttpRequest request) throws IOException, InterruptedException {
+
+        CompletableFuture<ProviderResponse> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+
+        Future<?> primary = submit(request, result, pending, false);
+        Future<?> hedge = null;
+
+        try {
+            try {
+                return result.get(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (pending.incrementAndGet() > 1) {
+                    Metrics.counter("reader.hedges").increment();
+                    hedge = submit(request, result, pending, true);
+                }
+            }
+
+            return result.get();
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private Future<?> submit(HttpRequest request, CompletableFuture<ProviderResponse> result, AtomicInteger pending, boolean isHedge) {
+        return hedgeExecutor.submit(() -> {
+            try {
+                if (result.complete(delegate.send(request)) && isHedge) {
+                    Metrics.counter("reader.hedges.won").increment();
+                }
+            } catch (Exception e) {
+                if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    private HttpRequest withTimeout(HttpRequest request, Duration remaining) {
+        Duration timeout = attemptTimeout.compareTo(remaining) < 0 ? attemptTimeout : remaining;
+        if (request.timeout().isPresent() && request.timeout().get().compareTo(timeout) < 0) {
+            timeout = request.timeout().get();
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true).timeout(timeout).build();
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Diese Klasse beschreibt, wie oft und mit welcher Wartezeit eine fehlgeschlagene
+ * Anfrage an den Wetterdienst wiederholt wird.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded retry with exponential backoff and full jitter.
+ *
+ * @param maxAttempts the maximum number of attempts including the first one
+ * @param baseDelay   the backoff cap of the first retry, doubled for every further retry
+ * @param maxDelay    the upper bound of the backoff cap
+ */
+public record RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+
+    /**
+     * Computes the time to wait before the next attempt.
+     * <p>
+     * The delay is drawn uniformly from {@code [0, min(maxDelay, baseDelay * 2^(attempt - 1))]},
+     * so that many clients retrying at the same time do not hit the provider in lockstep.
+     *
+     * @param attempt the number of the attempt that just failed, starting at 1
+     * @return the delay before the next attempt
+     */
+    public Duration backoff(int attempt) {
+        long cap = Math.min(maxDelay.toMillis(), baseDelay.toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(cap + 1));
+    }
+
+    /**
+     * Checks if a status code indicates a transient error worth retrying.
+     * <p>
+     * A 500 is not retried, because the provider answers with 500 for unknown cities.
+     *
+     * @param statusCode the HTTP status code
+     * @return true for 429, 502, 503 and 504
+     */
+    public static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Diese Klasse misst den Durchsatz des Readers gegen den simulierten Wetterdienst.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.stub;
+
+import ch.hslu.informatik.swde.wda.domain.City;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.reader.ApiReader;
+import ch.hslu.informatik.swde.wda.reader.ApiReaderImpl;
+import ch.hslu.informatik.swde.wda.reader.ReaderConfig;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Standalone load test of the reader.
+ * <p>
+ * Starts a {@link StubWeatherProvider} with the settings from the {@code wda.stub.*} system properties,
+ * reads the city catalog and then all years of all cities concurrently through the normal transport chain
+ * (resilience layer and adaptive limiter, no disk cache), and prints the throughput and the reader metrics.
+ */
+public class StubLoadRunner {
+
+    /**
+     * Runs the load test.
+     *
+     * @param args not used
+     * @throws Exception if the stub cannot be started or a download fails
+     */
+    public static void main(String[] args) throws Exception {
+
+        StubSettings settings = StubSettings.fromSystemProperties();
+
+        try (StubWeatherProvider stub = StubWeatherProvider.start(settings, 0)) {
+
+            ApiReader reader = new ApiReaderImpl(stub.baseUri(), ApiReaderImpl.defaultTransport(ReaderConfig.fromSystemProperties()), null);
+            System.out.println("Load test against " + stub.baseUri() + " with " + settings);
+
+            long start = System.nanoTime();
+            LinkedHashMap<Integer, City> cities = reader.readCities();
+            long catalogNanos = System.nanoTime() - start;
+
+            int currentYear = Year.now().getValue();
+            long readings = 0;
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+                List<Future<TreeMap<LocalDateTime, Weather>>> downloads = new ArrayList<>();
+                for (City c : cities.values()) {
+                    for (int year = currentYear - settings.years() + 1; year <= currentYear; year++) {
+                        int y = year;
+                        downloads.add(executor.submit(() -> reader.readWeatherByCityAndYear(c.getName(), y)));
+                    }
+                }
+                for (Future<TreeMap<LocalDateTime, Weather>> download : downloads) {
+                    readings += download.get().size();
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("Catalog: %d cities in %.1f ms%n", cities.size(), catalogNanos / 1e6);
+            System.out.printf("Total: %d readings in %.2f s, %.0f readings/s, %d requests (%d injected errors)%n",
+                    readings, seconds, readings / seconds, stub.requestCount(), stub.errorCount());
+            Metrics.snapshot().forEach((name, value) -> System.out.println("  " + name + " = " + value));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Diese Klasse enthält die Einstellungen des simulierten Wetterdienstes.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.stub;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link StubWeatherProvider}.
+ *
+ * @param cities         the number of cities in the catalog
+ * @param years          the number of years with data, ending with the current year
+ * @param readingsPerDay the number of weather readings per city and day, e.g. 48 for one every 30 minutes
+ * @param latency        the minimum time before every response
+ * @param jitter         the maximum additional random time before every response
+ * @param errorRate      the probability between 0 and 1 that a request is answered with 503
+ * @param paddingBytes   the number of filler characters added to every weather entry, to simulate larger payloads
+ */
+public record StubSettings(int cities,
+                           int years,
+                           int readingsPerDay,
+                           Duration latency,
+                           Duration jitter,
+                           double errorRate,
+                           int paddingBytes) {
+
+    private static final String PREFIX = "wda.stub.";
+
+    /**
+     * @return 40 cities with two years of half-hourly readings, answered immediately and without errors
+     */
+    public static StubSettings defaults() {
+        return new StubSettings(40, 2, 48, Duration.ZERO, Duration.ZERO, 0.0, 0);
+    }
+
+    /**
+     * Reads the settings from the system properties with the prefix {@code wda.stub.},
+     * e.g. {@code -Dwda.stub.cities=200 -Dwda.stub.latencyMs=50 -Dwda.stub.errorRate=0.01}.
+     * Missing properties fall back to the {@link #defaults()}.
+     *
+     * @return the settings
+     */
+    public static StubSettings fromSystemProperties() {
+        StubSettings d = defaults();
+        return new StubSettings(
+                Integer.getInteger(PREFIX + "cities", d.cities()),
+                Integer.getInteger(PREFIX + "years", d.years()),
+                Integer.getInteger(PREFIX + "readingsPerDay", d.readingsPerDay()),
+                Duration.ofMillis(Long.getLong(PREFIX + "latencyMs", d.latency().toMillis())),
+                Duration.ofMillis(Long.getLong(PREFIX + "jitterMs", d.jitter().toMillis())),
+                Double.parseDouble(System.getProperty(PREFIX + "errorRate", String.valueOf(d.errorRate()))),
+                Integer.getInteger(PREFIX + "paddingBytes", d.paddingBytes()));
+    }
+}
@@ -0,0 +1,359 @@
+/**
+ * Diese Klasse simuliert den Wetterdienst im selben Prozess, damit der Reader
+ * ohne Netzwerk getestet und die Leistung des Imports gemessen werden kann.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embeddable stub of the weather data provider.
+ * <p>
+ * The stub serves the same three endpoints as the real provider below {@code /weatherdata-provider/rest/weatherdata}:
+ * the city catalog ({@code /cities/}), the current weather of a city ({@code ?city=}) and all readings of a city
+ * in a year ({@code /cityandyear?city=&year=}). Unknown cities are answered with 500 like the real provider.
+ * <p>
+ * The weather data is synthetic but deterministic: the same city and timestamp always yield the same reading,
+ * so repeated runs are comparable. Latency, jitter, error rate and payload size are set by the {@link StubSettings}.
+ * Bodies larger than 1 KB are gzip compressed if the request accepts it.
+ * <p>
+ * Usage from JUnit:
+ * <pre>{@code
+ * try (StubWeatherProvider stub = StubWeatherProvider.start(settings, 0)) {
+ *     ApiReader reader = new ApiReaderImpl(stub.baseUri(), transport, null);
+ *     ...
+ * }
+ * }</pre>
+ * Standalone it is started with {@link #main(String[])}.
+ */
+public class StubWeatherProvider implements AutoCloseable {
+
+    private static final String PATH = "/weatherdata-provider/rest/weatherdata";
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] SWISS_CITIES = {
+            "Zuerich", "Genf", "Basel", "Lausanne", "Bern", "Winterthur", "Luzern", "St. Gallen", "Lugano", "Biel",
+            "Thun", "Koeniz", "La Chaux-de-Fonds", "Fribourg", "Schaffhausen", "Chur", "Vernier", "Neuchatel", "Uster", "Sion",
+            "Lancy", "Emmen", "Yverdon-les-Bains", "Zug", "Kriens", "Rapperswil-Jona", "Duebendorf", "Montreux", "Dietikon", "Frauenfeld",
+            "Wetzikon", "Baar", "Meyrin", "Wil", "Bulle", "Carouge", "Kreuzlingen", "Aarau", "Riehen", "Davos"};
+
+    private static final String[][] CONDITIONS = {
+            {"Clear", "clear sky"}, {"Clouds", "few clouds"}, {"Clouds", "broken clouds"},
+            {"Rain", "light rain"}, {"Rain", "moderate rain"}, {"Snow", "light snow"}, {"Mist", "mist"}};
+
+    private final StubSettings settings;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Integer> cityIndex = new HashMap<>();
+    private final String[] cityNames;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private StubWeatherProvider(StubSettings settings, int port) throws IOException {
+        this.settings = settings;
+        this.cityNames = new String[settings.cities()];
+        for (int i = 0; i < cityNames.length; i++) {
+            cityNames[i] = i < SWISS_CITIES.length ? SWISS_CITIES[i] : "Stadt " + (i + 1);
+            cityIndex.put(cityNames[i], i);
+        }
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 512);
+        this.server.setExecutor(executor);
+        this.server.createContext(PATH, this::handle);
+    }
+
+    /**
+     * Starts a stub provider.
+     *
+     * @param settings the settings of the stub
+     * @param port     the port to listen on, or 0 for any free port
+     * @return the running stub
+     * @throws IOException if the port cannot be bound
+     */
+    public static StubWeatherProvider start(StubSettings settings, int port) throws IOException {
+        StubWeatherProvider stub = new StubWeatherProvider(settings, port);
+        stub.server.start();
+        return stub;
+    }
+
+    /**
+     * @return the base URI to pass to the reader, e.g. {@code http://localhost:53421/}
+     */
+    public String baseUri() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * @return the names of the cities in the catalog
+     */
+    public String[] cityNames() {
+        return cityNames.clone();
+    }
+
+    /**
+     * @return the number of requests received so far
+     */
+    public long requestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @return the number of requests answered with an injected 503 so far
+     */
+    public long errorCount() {
+        return errors.get();
+    }
+
+    /**
+     * Computes how many readings the stub serves for one city and year.
+     *
+     * @param year the year
+     * @return the number of readings, 0 if the year is outside the served range
+     */
+    public int readingsInYear(int year) {
+        int current = Year.now().getValue();
+        if (year > current || year <= current - settings.years()) {
+            return 0;
+        }
+        LocalDateTime end = year == current ? latestReading() : LocalDateTime.of(year, 12, 31, 23, 59, 59);
+        long minutes = Duration.between(LocalDateTime.of(year, 1, 1, 0, 0), end).toMinutes();
+        return (int) (minutes / intervalMinutes()) + 1;
+    }
+
+    /**
+     * Stops the stub immediately.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /*---------------------------------------------------HANDLER---------------------------------------------------*/
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            simulateLatency();
+
+            if (settings.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < settings.errorRate()) {
+                errors.incrementAndGet();
+                respond(exchange, 503, "Service Unavailable");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            if (path.startsWith(PATH + "/cities")) {
+                respond(exchange, 200, cities());
+                return;
+            }
+
+            Integer city = query.get("city") != null ? cityIndex.get(query.get("city")) : null;
+            if (city == null) {
+                respond(exchange, 500, "City not found");
+                return;
+            }
+
+            if (path.startsWith(PATH + "/cityandyear") && query.get("year") != null) {
+                respond(exchange, 200, year(city, Integer.parseInt(query.get("year"))));
+            } else if (path.equals(PATH) || path.equals(PATH + "/")) {
+                respond(exchange, 200, current(city));
+            } else {
+                respond(exchange, 404, "Not found");
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void simulateLatency() throws InterruptedException {
+        long millis = settings.latency().toMillis();
+        if (!settings.jitter().isZero()) {
+            millis += ThreadLocalRandom.current().nextLong(settings.jitter().toMillis() + 1);
+        }
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", status == 200 ? "application/json" : "text/plain");
+
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip") && bytes.length > 1024) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(status, 0);
+            try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody(), 16 * 1024)) {
+                out.write(bytes);
+            }
+            return;
+        }
+
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> res = new LinkedHashMap<>();
+        if (rawQuery == null) {
+            return res;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                res.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return res;
+    }
+
+    /*------------------------------------------------PAYLOADS-----------------------------------------------------*/
+
+    private String cities() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < cityNames.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"name\":\"").append(cityNames[i]).append("\",\"zip\":").append(zip(i)).append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    private String current(int city) {
+        StringBuilder sb = new StringBuilder();
+        appendEntry(sb, city, latestReading());
+        return sb.toString();
+    }
+
+    private String year(int city, int year) {
+        int count = readingsInYear(year);
+        StringBuilder sb = new StringBuilder(count * (300 + settings.paddingBytes())).append('[');
+        LocalDateTime t = LocalDateTime.of(year, 1, 1, 0, 0);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(',');
+            appendEntry(sb, city, t);
+            t = t.plusMinutes(intervalMinutes());
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Appends one weather entry in the format of the provider, where the reading is a '#' separated String
+     * of 'KEY:value' fields.
+     */
+    private void appendEntry(StringBuilder sb, int city, LocalDateTime t) {
+
+        long h = mix(city * 1_000_003L + t.toLocalDate().toEpochDay() * 1440 + t.getHour() * 60 + t.getMinute());
+        double season = Math.cos(2 * Math.PI * (t.getDayOfYear() - 200) / 365.0);
+        double day = Math.cos(2 * Math.PI * (t.getHour() - 15) / 24.0);
+
+        double temp = round1(8 + 9 * season + 4 * day - city % 7 + noise(h, 0) * 2);
+        double pressure = round1(1013 + noise(h, 1) * 12);
+        double humidity = round1(Math.max(20, Math.min(100, 75 - 10 * day + noise(h, 2) * 15)));
+        double wind = round1(Math.abs(noise(h, 3)) * 12);
+        double direction = round1((h >>> 11) % 3600 / 10.0);
+        String[] condition = CONDITIONS[(int) ((h >>> 3) % CONDITIONS.length)];
+
+        sb.append("{\"city\":{\"name\":\"").append(cityNames[city]).append("\",\"zip\":").append(zip(city))
+                .append(",\"country\":\"CH\"},\"data\":\"")
+                .append("LAST_UPDATE_TIME:").append(FORMAT.format(t))
+                .append("#COUNTRY:CH")
+                .append("#CITY:").append(cityNames[city])
+                .append("#ZIP:").append(zip(city))
+                .append("#LATITUDE:").append(round1(46 + city % 10 * 0.2))
+                .append("#LONGITUDE:").append(round1(6 + city % 13 * 0.3))
+                .append("#STATION_ID:").append(city + 1)
+                .append("#WEATHER_SUMMARY:").append(condition[0])
+                .append("#WEATHER_DESCRIPTION:").append(condition[1])
+                .append("#CURRENT_TEMPERATURE_CELSIUS:").append(temp)
+                .append("#PRESSURE:").append(pressure)
+                .append("#HUMIDITY:").append(humidity)
+                .append("#WIND_SPEED:").append(wind)
+                .append("#WIND_DIRECTION:").append(direction)
+                .append('"');
+        if (settings.paddingBytes() > 0) {
+            sb.append(",\"padding\":\"").append("x".repeat(settings.paddingBytes())).append('"');
+        }
+        sb.append('}');
+    }
+
+    private LocalDateTime latestReading() {
+        LocalDateTime now = LocalDateTime.now().withSecond(0).withNano(0);
+        int minuteOfDay = now.getHour() * 60 + now.getMinute();
+        return now.toLocalDate().atStartOfDay().plusMinutes(minuteOfDay - minuteOfDay % intervalMinutes());
+    }
+
+    private int intervalMinutes() {
+        return Math.max(1, 1440 / Math.max(1, settings.readingsPerDay()));
+    }
+
+    private static int zip(int city) {
+        return 1000 + city * 10;
+    }
+
+    private static double noise(long h, int channel) {
+        return (mix(h + channel) >>> 11) * 0x1.0p-53 * 2 - 1;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    /*---------------------------------------------------MAIN------------------------------------------------------*/
+
+    /**
+     * Starts the stub on the port {@code wda.stub.port} (default 9090) with the settings from the system properties.
+     * The reader is pointed to it with {@code -Dwda.reader.baseUri=http://localhost:9090/}.
+     *
+     * @param args not used
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+
+        StubSettings settings = StubSettings.fromSystemProperties();
+
+        try (StubWeatherProvider stub = start(settings, Integer.getInteger("wda.stub.port", 9090))) {
+
+            System.out.println("Stub provider running at " + stub.baseUri() + " with " + settings);
+            System.out.println("Press ENTER to shut down ...");
+            System.in.read();
+        }
+        System.out.println("Execution stopped ...");
+    }
+}
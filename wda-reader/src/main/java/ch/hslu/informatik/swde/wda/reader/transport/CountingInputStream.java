@@ -0,0 +1,57 @@
+/**
+ * Diese Klasse zählt die gelesenen Bytes und die Wartezeit eines Datenstroms.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that counts the bytes read from the underlying stream and the time spent waiting for them.
+ * Placed above a decompressing stream of an in-memory body it measures the decompressed bytes,
+ * and its read time is the time spent decompressing them.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private long bytes;
+    private long readNanos;
+
+    public CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = super.read();
+        readNanos += System.nanoTime() - start;
+        if (b >= 0) {
+            bytes++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        int n = super.read(buf, off, len);
+        readNanos += System.nanoTime() - start;
+        if (n > 0) {
+            bytes += n;
+        }
+        return n;
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    public long readNanos() {
+        return readNanos;
+    }
+}
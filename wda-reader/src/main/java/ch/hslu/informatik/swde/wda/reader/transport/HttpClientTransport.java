@@ -0,0 +1,114 @@
+/**
+ * Diese Klasse stellt eine konkrete Implementierung der Schnittstelle 'ProviderTransport' dar,
+ * welche die Anfragen mit dem {@link HttpClient} des JDK sendet.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.transport;
+
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HttpClientTransport implements ProviderTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpClientTransport.class);
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final boolean compression;
+
+    /**
+     * Creates a transport with its own HttpClient, using HTTP/1.1 and no compression.
+     *
+     * @param connectTimeout the maximum time to establish a connection
+     * @param requestTimeout the maximum time to wait for a response, if the request does not define its own timeout
+     */
+    public HttpClientTransport(Duration connectTimeout, Duration requestTimeout) {
+        this(connectTimeout, requestTimeout, false, false);
+    }
+
+    /**
+     * Creates a transport with its own HttpClient.
+     * <p>
+     * The client runs on a dedicated pool of daemon threads, so response handling never competes
+     * with the common fork join pool. With HTTP/2 enabled the client negotiates HTTP/2 where the provider
+     * supports it and multiplexes all requests over one connection, otherwise it falls back to HTTP/1.1.
+     *
+     * @param connectTimeout the maximum time to establish a connection
+     * @param requestTimeout the maximum time to wait for a response, if the request does not define its own timeout
+     * @param http2          true to prefer HTTP/2
+     * @param compression    true to request gzip or deflate compressed responses
+     */
+    public HttpClientTransport(Duration connectTimeout, Duration requestTimeout, boolean http2, boolean compression) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "wda-reader-http-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.client = HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.compression = compression;
+    }
+
+    /**
+     * Sends the request and reads the whole body as it is received.
+     * <p>
+     * If the request has no timeout, the default request timeout of this transport is applied,
+     * so a slow provider can never block the calling thread forever.
+     * If compression is enabled, the request announces {@code Accept-Encoding: gzip, deflate}.
+     * A compressed body is kept compressed: it is decompressed only while a consumer reads it from
+     * {@link ResponseBody#open()}, so the decompressed payload is never held in memory as a whole.
+     * The bytes on the wire are recorded in the metrics.
+     *
+     * @param request the request to send
+     * @return the response of the provider
+     * @throws IOException          if the provider is not reachable or does not answer in time
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the response
+     */
+    @Override
+    public ProviderResponse send(HttpRequest request) throws IOException, InterruptedException {
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        if (request.timeout().isEmpty()) {
+            builder.timeout(requestTimeout);
+        }
+        if (compression && request.headers().firstValue("Accept-Encoding").isEmpty()) {
+            builder.header("Accept-Encoding", "gzip, deflate");
+        }
+
+        HttpResponse<InputStream> res = client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+
+        ResponseBody body;
+        try (InputStream in = res.body()) {
+            body = new ResponseBody(in.readAllBytes(), res.headers().firstValue("Content-Encoding").orElse(null));
+        }
+
+        Metrics.counter("reader.bytes.wire").add(body.size());
+        if (body.compressed()) {
+            Metrics.counter("reader.responses.compressed").increment();
+        }
+        LOG.debug(request.uri() + ": " + res.version() + ", " + body.encoding() + ", " + body.size() + " bytes on the wire");
+
+        return new ProviderResponse(res.statusCode(), body, res.headers());
+    }
+}
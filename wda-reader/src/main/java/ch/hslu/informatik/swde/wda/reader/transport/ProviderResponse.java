@@ -0,0 +1,42 @@
+/**
+ * Diese Klasse repräsentiert eine Antwort des Wetterdienstes, unabhängig davon,
+ * über welchen Transport sie bezogen wurde.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.transport;
+
+import java.net.http.HttpHeaders;
+
+/**
+ * A fully read response of the weather data provider.
+ *
+ * @param statusCode the HTTP status code
+ * @param body       the response body as received, possibly still compressed
+ * @param headers    the response headers
+ */
+public record ProviderResponse(int statusCode, ResponseBody body, HttpHeaders headers) {
+
+    /**
+     * Creates a response with an uncompressed body, e.g. a replayed one.
+     *
+     * @param statusCode the HTTP status code
+     * @param body       the response body as text
+     * @param headers    the response headers
+     */
+    public ProviderResponse(int statusCode, String body, HttpHeaders headers) {
+        this(statusCode, ResponseBody.of(body), headers);
+    }
+
+    /**
+     * Returns the first value of a header.
+     *
+     * @param name the case-insensitive name of the header
+     * @return the first value of the header, or null if the header is not present
+     */
+    public String header(String name) {
+        return headers.firstValue(name).orElse(null);
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Diese Schnittstelle gibt vor, wie eine Anfrage an den Wetterdienst
+ * gesendet wird. Implementierungen können sich gegenseitig dekorieren.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.transport;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+
+public interface ProviderTransport {
+
+    /**
+     * Sendet eine Anfrage an den Wetterdienst und liest die Antwort vollständig.
+     *
+     * @param request Die zu sendende Anfrage.
+     * @return Die Antwort des Wetterdienstes, auch bei einem Fehler-Statuscode.
+     * @throws IOException          falls der Wetterdienst nicht erreichbar ist oder nicht rechtzeitig antwortet.
+     * @throws InterruptedException falls der aufrufende Thread unterbrochen wird.
+     */
+    ProviderResponse send(HttpRequest request) throws IOException, InterruptedException;
+}
@@ -0,0 +1,122 @@
+/**
+ * Diese Klasse repräsentiert den Inhalt einer Antwort des Wetterdienstes so, wie er übertragen wurde.
+ *
+ * @author Kevin Forter
+ * @version 1.0
+ */
+
+package ch.hslu.informatik.swde.wda.reader.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A response body in the encoding it was received in, e.g. still gzip compressed.
+ * <p>
+ * The body is never decompressed as a whole. Consumers read it with {@link #open()}, which decompresses
+ * the bytes while they are read, so a JSON parser can process a large year response without the decompressed
+ * payload ever being held in memory. Retries, the disk cache and the traffic archive keep the compact
+ * received bytes instead of the decompressed text.
+ */
+public final class ResponseBody {
+
+    public static final String IDENTITY = "identity";
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private final byte[] content;
+    private final String encoding;
+
+    /**
+     * Creates a body from the received bytes.
+     *
+     * @param content  the bytes as received, not decompressed
+     * @param encoding the Content-Encoding of the bytes; null, blank or unknown encodings are treated as identity
+     */
+    public ResponseBody(byte[] content, String encoding) {
+        this.content = content;
+        this.encoding = normalize(encoding);
+    }
+
+    /**
+     * Creates an uncompressed body from a text, e.g. a replayed or cached one.
+     *
+     * @param text the body as text
+     * @return the body as UTF-8 bytes
+     */
+    public static ResponseBody of(String text) {
+        return new ResponseBody(text.getBytes(StandardCharsets.UTF_8), IDENTITY);
+    }
+
+    /**
+     * Opens the body for reading. Compressed bytes are decompressed while they are read.
+     *
+     * @return a new stream of the decompressed body, the caller has to close it
+     * @throws IOException if the compressed bytes have no valid header
+     */
+    public InputStream open() throws IOException {
+        InputStream in = new ByteArrayInputStream(content);
+        return switch (encoding) {
+            case GZIP -> new GZIPInputStream(in, 16 * 1024);
+            case DEFLATE -> new InflaterInputStream(in);
+            default -> in;
+        };
+    }
+
+    /**
+     * Decompresses the whole body into a text. Only meant for small bodies and for the traffic archive,
+     * the readers parse the body from {@link #open()}.
+     *
+     * @return the body as text
+     * @throws IOException if the compressed bytes are corrupt
+     */
+    public String text() throws IOException {
+        try (InputStream in = open()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @return the bytes as received, not decompressed
+     */
+    public byte[] content() {
+        return content;
+    }
+
+    /**
+     * @return the encoding of the bytes: gzip, deflate or identity
+     */
+    public String encoding() {
+        return encoding;
+    }
+
+    /**
+     * @return true if the bytes have to be decompressed
+     */
+    public boolean compressed() {
+        return !IDENTITY.equals(encoding);
+    }
+
+    /**
+     * @return the number of bytes as received
+     */
+    public int size() {
+        return content.length;
+    }
+
+    private static String normalize(String encoding) {
+        if (encoding == null) {
+            return IDENTITY;
+        }
+        return switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip" -> GZIP;
+            case "deflate" -> DEFLATE;
+            default -> IDENTITY;
+        };
+    }
+}
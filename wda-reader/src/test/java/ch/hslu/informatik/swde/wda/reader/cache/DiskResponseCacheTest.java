@@ -0,0 +1,100 @@
+package ch.hslu.informatik.swde.wda.reader.cache;
+
+import ch.hslu.informatik.swde.wda.reader.transport.ResponseBody;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskResponseCacheTest {
+
+    private static final URI CITIES = URI.create("http://localhost:8080/weatherdata-provider/rest/weatherdata/cities/");
+
+    @TempDir
+    Path dir;
+
+    @Tag("unittest")
+    @Test
+    void test_PutAndGet_ShouldSurviveNewCacheInstance() throws IOException {
+
+        new DiskResponseCache(dir, Duration.ofHours(24)).put(CITIES, ResponseBody.of("[{\"name\":\"Luzern\"}]"), "\"v1\"", null, false);
+
+        CachedResponse cached = new DiskResponseCache(dir, Duration.ofHours(24)).get(CITIES);
+
+        assertNotNull(cached);
+        assertEquals("[{\"name\":\"Luzern\"}]", cached.body().text());
+        assertEquals("\"v1\"", cached.etag());
+        assertTrue(cached.hasValidators());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Put_ShouldStoreGzipBodyAsReceived() throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write("[{\"name\":\"Luzern\"}]".getBytes(StandardCharsets.UTF_8));
+        }
+        DiskResponseCache cache = new DiskResponseCache(dir, Duration.ofHours(24));
+        cache.put(CITIES, new ResponseBody(bytes.toByteArray(), "gzip"), null, null, false);
+
+        CachedResponse cached = cache.get(CITIES);
+
+        assertArrayEquals(bytes.toByteArray(), cached.body().content(), "Komprimierte Antwort wurde nicht unverändert gespeichert");
+        assertEquals("[{\"name\":\"Luzern\"}]", cached.body().text());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_IsFresh_ShouldRespectPolicy() {
+
+        DiskResponseCache cache = new DiskResponseCache(dir, Duration.ZERO);
+        cache.put(CITIES, ResponseBody.of("[]"), null, null, false);
+        CachedResponse cached = cache.get(CITIES);
+
+        assertFalse(cache.isFresh(cached, CachePolicy.IMMUTABLE), "Veränderliche Antwort muss erneut geprüft werden");
+        assertFalse(cache.isFresh(cached, CachePolicy.CATALOG), "TTL 0 darf nicht frisch sein");
+        assertFalse(cache.isFresh(cached, CachePolicy.REVALIDATE));
+
+        cache.put(CITIES, ResponseBody.of("[]"), null, null, true);
+        CachedResponse immutable = cache.get(CITIES);
+
+        assertTrue(cache.isFresh(immutable, CachePolicy.IMMUTABLE));
+        assertTrue(cache.isFresh(immutable, CachePolicy.CATALOG));
+        assertTrue(cache.isFresh(immutable, CachePolicy.REVALIDATE));
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Touch_ShouldStoreRevalidatedBodyAsImmutable() {
+
+        DiskResponseCache cache = new DiskResponseCache(dir, Duration.ZERO);
+        cache.put(CITIES, ResponseBody.of("[]"), "\"v1\"", null, false);
+
+        // The year of the body was the current one when it was stored and is completed now
+        cache.touch(CITIES, cache.get(CITIES), true);
+
+        CachedResponse cached = cache.get(CITIES);
+        assertTrue(cached.immutable(), "Bestätigte Antwort eines abgeschlossenen Jahres muss unveränderlich sein");
+        assertTrue(cache.isFresh(cached, CachePolicy.IMMUTABLE));
+        assertEquals("\"v1\"", cached.etag());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Get_ShouldReturnNullForUnknownUri() {
+
+        DiskResponseCache cache = new DiskResponseCache(dir, Duration.ofHours(24));
+
+        assertNull(cache.get(URI.create("http://localhost:8080/unknown")));
+    }
+}
@@ -0,0 +1,91 @@
+package ch.hslu.informatik.swde.wda.reader.replay;
+
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficArchiveTest {
+
+    private static final String CITIES = "/weatherdata-provider/rest/weatherdata/cities/";
+
+    @TempDir
+    Path dir;
+
+    @Tag("unittest")
+    @Test
+    void test_AppendAndReadAll_ShouldKeepAllSessionsInOrder() throws Exception {
+
+        Path file = dir.resolve("provider.wdarec.gz");
+        try (TrafficArchive archive = TrafficArchive.openForAppend(file)) {
+            archive.append(new RecordedExchange("GET", CITIES, 0, 1_000_000, 200, Map.of("ETag", List.of("\"v1\"")), "[]"));
+        }
+        try (TrafficArchive archive = TrafficArchive.openForAppend(file)) {
+            archive.append(new RecordedExchange("GET", "/weatherdata-provider/rest/weatherdata?city=Berlin", 5, 2_000_000, 500, Map.of(), null));
+        }
+
+        List<RecordedExchange> recorded = TrafficArchive.readAll(file);
+
+        assertEquals(2, recorded.size(), "Beide Sitzungen müssen gelesen werden");
+        assertEquals("\"v1\"", recorded.get(0).headers().get("ETag").get(0));
+        assertEquals(500, recorded.get(1).statusCode());
+        assertNull(recorded.get(1).body());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Replay_ShouldServeRecordedResponseForAnyHost() throws Exception {
+
+        ReplayTransport replay = new ReplayTransport(List.of(
+                new RecordedExchange("GET", CITIES, 0, 1_000_000, 200, Map.of(), "[{\"name\":\"Luzern\"}]")), 0);
+
+        ProviderResponse hit = replay.send(HttpRequest.newBuilder(URI.create("http://localhost:9090" + CITIES)).GET().build());
+        ProviderResponse miss = replay.send(HttpRequest.newBuilder(URI.create("http://localhost:9090/unknown")).GET().build());
+
+        assertEquals(200, hit.statusCode());
+        assertEquals("[{\"name\":\"Luzern\"}]", hit.body().text());
+        assertEquals(404, miss.statusCode());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Replay_ShouldKeepRecordedOffsetsScaledBySpeed() throws Exception {
+
+        ReplayTransport replay = new ReplayTransport(List.of(
+                new RecordedExchange("GET", CITIES, 0, 0, 200, Map.of(), "[]"),
+                new RecordedExchange("GET", CITIES, 400, 0, 200, Map.of(), "[]")), 2);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:9090" + CITIES)).GET().build();
+
+        long start = System.nanoTime();
+        replay.send(request);
+        replay.send(request);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 190, "Zweite Antwort darf nicht vor ihrem aufgezeichneten Zeitpunkt geliefert werden: " + elapsedMillis + " ms");
+        assertTrue(elapsedMillis < 390, "Zeitpunkt muss durch die Geschwindigkeit geteilt werden: " + elapsedMillis + " ms");
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Replay_ShouldRunFlatOutAtSpeedZero() throws Exception {
+
+        ReplayTransport replay = new ReplayTransport(List.of(
+                new RecordedExchange("GET", CITIES, 0, 0, 200, Map.of(), "[]"),
+                new RecordedExchange("GET", CITIES, 60_000, 1_000_000_000, 200, Map.of(), "[]")), 0);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:9090" + CITIES)).GET().build();
+
+        long start = System.nanoTime();
+        replay.send(request);
+        replay.send(request);
+
+        assertTrue(System.nanoTime() - start < 500_000_000L, "Ohne Geschwindigkeit darf nicht gewartet werden");
+    }
+}
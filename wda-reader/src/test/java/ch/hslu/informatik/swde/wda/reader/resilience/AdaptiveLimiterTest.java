@@ -0,0 +1,100 @@
+package ch.hslu.informatik.swde.wda.reader.resilience;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveLimiterTest {
+
+    private static final long FAST = 1_000_000;
+    private static final long SLOW = 10_000_000;
+
+    /**
+     * Uses all permits and completes one request with the given RTT, as under sustained load.
+     */
+    private static void loaded(AdaptiveLimiter limiter, long rttNanos, int requests) throws InterruptedException {
+        for (int i = 0; i < requests; i++) {
+            while (limiter.acquire(Duration.ZERO)) {
+                // take every free permit
+            }
+            limiter.onSuccess(rttNanos);
+        }
+        while (limiter.getInFlight() > 0) {
+            limiter.onIgnore();
+        }
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_OnSuccess_ShouldGrowLimitUnderLoad() throws InterruptedException {
+
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.limiter.grow", 4, 1, 64);
+
+        loaded(limiter, FAST, 50);
+
+        assertTrue(limiter.getLimit() > 4, "Grenze muss bei schnellen Antworten wachsen: " + limiter.getLimit());
+        assertTrue(limiter.getLimit() <= 64, "Grenze darf das Maximum nicht überschreiten");
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_OnSuccess_ShouldNotGrowLimitWhenIdle() throws InterruptedException {
+
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.limiter.idle", 10, 1, 64);
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.acquire(Duration.ZERO));
+            limiter.onSuccess(FAST);
+        }
+
+        assertEquals(10, limiter.getLimit(), "Grenze darf ohne Last nicht wachsen");
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_OnSuccess_ShouldShrinkLimitWhenLatencyRises() throws InterruptedException {
+
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.limiter.latency", 4, 1, 64);
+        loaded(limiter, FAST, 50);
+        int grown = limiter.getLimit();
+
+        loaded(limiter, SLOW, 20);
+
+        assertTrue(limiter.getLimit() < grown, "Grenze muss bei steigender Latenz sinken: " + grown + " -> " + limiter.getLimit());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_OnDropped_ShouldBackOffToMinimum() throws InterruptedException {
+
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.limiter.drop", 20, 2, 64);
+
+        assertTrue(limiter.acquire(Duration.ZERO));
+        limiter.onDropped();
+        assertEquals(18, limiter.getLimit(), "Grenze muss um 10 % sinken");
+        assertEquals(0, limiter.getInFlight(), "Erlaubnis wurde nicht freigegeben");
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.acquire(Duration.ZERO));
+            limiter.onDropped();
+        }
+        assertEquals(2, limiter.getLimit(), "Grenze darf das Minimum nicht unterschreiten");
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Acquire_ShouldTimeOutWhenLimitReached() throws InterruptedException {
+
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.limiter.full", 1, 1, 1);
+
+        assertTrue(limiter.acquire(Duration.ZERO));
+        assertFalse(limiter.acquire(Duration.ofMillis(20)), "Keine Erlaubnis über der Grenze erwartet");
+        assertEquals(0, limiter.getQueued(), "Wartender Aufrufer wurde nicht entfernt");
+
+        limiter.onIgnore();
+        assertTrue(limiter.acquire(Duration.ZERO), "Freigegebene Erlaubnis muss wieder verfügbar sein");
+    }
+}
@@ -0,0 +1,84 @@
+package ch.hslu.informatik.swde.wda.reader.resilience;
+
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderResponse;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderTransport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitedTransportTest {
+
+    private static final HttpRequest REQUEST = HttpRequest.newBuilder(URI.create("http://localhost:8080/weatherdata-provider/rest/weatherdata/cities/"))
+            .timeout(Duration.ofMillis(50)).GET().build();
+
+    private static ProviderResponse response(int status) {
+        return new ProviderResponse(status, "[]", HttpHeaders.of(Map.of(), (n, v) -> true));
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Send_ShouldReleasePermitOnException() throws Exception {
+
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.limited.release", 1, 1, 1);
+        LimitedTransport unreachable = new LimitedTransport(request -> {
+            throw new IOException("connection refused");
+        }, limiter, Duration.ofSeconds(1));
+        LimitedTransport broken = new LimitedTransport(request -> {
+            throw new IllegalStateException("bug");
+        }, limiter, Duration.ofSeconds(1));
+
+        assertThrows(IOException.class, () -> unreachable.send(REQUEST));
+        assertEquals(0, limiter.getInFlight(), "Erlaubnis wurde nach IOException nicht freigegeben");
+
+        assertThrows(IllegalStateException.class, () -> broken.send(REQUEST));
+        assertEquals(0, limiter.getInFlight(), "Erlaubnis wurde nach RuntimeException nicht freigegeben");
+
+        ProviderResponse res = new LimitedTransport(request -> response(200), limiter, Duration.ofSeconds(1)).send(REQUEST);
+        assertEquals(200, res.statusCode());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Send_ShouldBackOffOnThrottlingAndErrors() throws Exception {
+
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.limited.backoff", 10, 1, 100);
+
+        new LimitedTransport(request -> response(503), limiter, Duration.ofSeconds(1)).send(REQUEST);
+        assertEquals(9, limiter.getLimit(), "503 muss die Grenze senken");
+
+        new LimitedTransport(request -> response(429), limiter, Duration.ofSeconds(1)).send(REQUEST);
+        assertEquals(8, limiter.getLimit(), "429 muss die Grenze senken");
+
+        ProviderTransport unreachable = request -> {
+            throw new IOException("timeout");
+        };
+        assertThrows(IOException.class, () -> new LimitedTransport(unreachable, limiter, Duration.ofSeconds(1)).send(REQUEST));
+        assertEquals(7, limiter.getLimit(), "Fehler muss die Grenze senken");
+
+        new LimitedTransport(request -> response(500), limiter, Duration.ofSeconds(1)).send(REQUEST);
+        assertEquals(7, limiter.getLimit(), "Beantwortete Anfrage darf die Grenze nicht senken");
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Send_ShouldRejectWhenNoPermitWithinTimeout() throws Exception {
+
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.limited.reject", 1, 1, 1);
+        assertTrue(limiter.acquire(Duration.ZERO));
+
+        LimitedTransport transport = new LimitedTransport(request -> response(200), limiter, Duration.ofSeconds(1));
+
+        assertThrows(HttpTimeoutException.class, () -> transport.send(REQUEST), "Anfrage ohne Erlaubnis muss abgelehnt werden");
+        assertEquals(1, limiter.getInFlight(), "Abgelehnte Anfrage darf keine Erlaubnis freigeben");
+    }
+}
@@ -0,0 +1,99 @@
+package ch.hslu.informatik.swde.wda.reader.resilience;
+
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderResponse;
+import ch.hslu.informatik.swde.wda.reader.transport.ProviderTransport;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientTransportTest {
+
+    private static final HttpRequest REQUEST = HttpRequest.newBuilder(URI.create("http://localhost:8080/weatherdata-provider/rest/weatherdata/cities/")).GET().build();
+
+    private static ProviderResponse response(int status) {
+        return new ProviderResponse(status, "[]", HttpHeaders.of(Map.of(), (n, v) -> true));
+    }
+
+    private static ResilientTransport resilient(ProviderTransport delegate, CircuitBreaker breaker) {
+        return new ResilientTransport(delegate, new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5)),
+                breaker, Duration.ofSeconds(1), Duration.ofSeconds(5), null);
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Send_ShouldRetryTransientStatus() throws Exception {
+
+        AtomicInteger calls = new AtomicInteger();
+        ProviderTransport flaky = request -> calls.incrementAndGet() < 3 ? response(503) : response(200);
+
+        ProviderResponse res = resilient(flaky, new CircuitBreaker("test.retry", 10, Duration.ofSeconds(30))).send(REQUEST);
+
+        assertEquals(200, res.statusCode());
+        assertEquals(3, calls.get(), "Zwei Wiederholungen erwartet");
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Send_ShouldNotRetryServerError() throws Exception {
+
+        AtomicInteger calls = new AtomicInteger();
+        ProviderTransport unknownCity = request -> {
+            calls.incrementAndGet();
+            return response(500);
+        };
+
+        assertEquals(500, resilient(unknownCity, new CircuitBreaker("test.500", 10, Duration.ofSeconds(30))).send(REQUEST).statusCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Send_ShouldRejectWhenCircuitOpen() {
+
+        AtomicInteger calls = new AtomicInteger();
+        ProviderTransport down = request -> {
+            calls.incrementAndGet();
+            throw new IOException("Connection refused");
+        };
+        ResilientTransport transport = resilient(down, new CircuitBreaker("test.open", 2, Duration.ofSeconds(30)));
+
+        assertThrows(IOException.class, () -> transport.send(REQUEST));
+        assertThrows(CircuitOpenException.class, () -> transport.send(REQUEST));
+        assertEquals(2, calls.get(), "Offener Circuit darf den Wetterdienst nicht mehr aufrufen");
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Send_ShouldReleaseProbeThatFailsWithRuntimeException() throws Exception {
+
+        AtomicInteger calls = new AtomicInteger();
+        ProviderTransport broken = request -> {
+            if (calls.incrementAndGet() <= 2) {
+                throw new IllegalStateException("Unexpected failure");
+            }
+            return response(200);
+        };
+        CircuitBreaker breaker = new CircuitBreaker("test.probe", 1, Duration.ofMillis(20));
+        ResilientTransport transport = resilient(broken, breaker);
+
+        assertThrows(IllegalStateException.class, () -> transport.send(REQUEST));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state(), "Fehler muss als Fehlschlag gezählt werden");
+
+        Thread.sleep(50);
+        assertThrows(IllegalStateException.class, () -> transport.send(REQUEST));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state(), "Fehlgeschlagener Probe muss den Circuit wieder öffnen");
+
+        Thread.sleep(50);
+        assertEquals(200, transport.send(REQUEST).statusCode(), "Nächster Probe muss wieder zugelassen werden");
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+}
@@ -0,0 +1,120 @@
+package ch.hslu.informatik.swde.wda.reader.stub;
+
+import ch.hslu.informatik.swde.wda.domain.City;
+import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.reader.ApiReader;
+import ch.hslu.informatik.swde.wda.reader.ApiReaderImpl;
+import ch.hslu.informatik.swde.wda.reader.ReaderConfig;
+import ch.hslu.informatik.swde.wda.reader.cache.DiskResponseCache;
+import ch.hslu.informatik.swde.wda.reader.transport.HttpClientTransport;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StubWeatherProviderTest {
+
+    private static StubWeatherProvider stub;
+    private static ApiReader reader;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        stub = StubWeatherProvider.start(new StubSettings(3, 2, 24, Duration.ZERO, Duration.ZERO, 0.0, 0), 0);
+        reader = new ApiReaderImpl(stub.baseUri(), ApiReaderImpl.defaultTransport(ReaderConfig.fromSystemProperties()), null);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_ReadCities_ShouldReturnAllStubCities() {
+
+        LinkedHashMap<Integer, City> cities = reader.readCities();
+
+        assertEquals(3, cities.size(), "Nicht alle Städte vorhanden");
+        cities.values().forEach(c -> assertEquals("CH", c.getCountry(), "Country Code CH fehlt"));
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_ReadCityCatalog_ShouldNeedSingleRequest() {
+
+        long before = stub.requestCount();
+
+        LinkedHashMap<Integer, City> cities = reader.readCityCatalog();
+
+        assertEquals(3, cities.size(), "Nicht alle Städte vorhanden");
+        assertEquals(before + 1, stub.requestCount(), "Katalog muss mit einer Anfrage gelesen werden");
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_ReadCities_ShouldServeCountriesFromCacheOnSecondCall() throws IOException {
+
+        ApiReader cached = new ApiReaderImpl(stub.baseUri(), ApiReaderImpl.defaultTransport(ReaderConfig.fromSystemProperties()),
+                new DiskResponseCache(Files.createTempDirectory("wda-cache"), Duration.ofHours(24)));
+
+        long before = stub.requestCount();
+        LinkedHashMap<Integer, City> first = cached.readCities();
+
+        // The provider has no batch endpoint for the countries: one request for the catalog and one per city
+        assertEquals(before + 1 + first.size(), stub.requestCount());
+        first.values().forEach(c -> assertEquals("CH", c.getCountry(), "Country Code CH fehlt"));
+
+        LinkedHashMap<Integer, City> second = cached.readCities();
+
+        assertEquals(before + 1 + first.size(), stub.requestCount(), "Katalog und Länder müssen aus dem Cache kommen");
+        assertEquals(first.keySet(), second.keySet());
+        second.values().forEach(c -> assertEquals("CH", c.getCountry(), "Country Code CH fehlt"));
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_ReadWeatherByCityAndYear_ShouldReturnEveryReadingOfPastYear() {
+
+        int lastYear = Year.now().getValue() - 1;
+
+        TreeMap<LocalDateTime, Weather> weather = reader.readWeatherByCityAndYear(stub.cityNames()[0], lastYear);
+
+        assertEquals(stub.readingsInYear(lastYear), weather.size());
+        assertEquals(LocalDateTime.of(lastYear, 1, 1, 0, 0), weather.firstKey());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_ReadWeatherByCityAndYear_ShouldDecodeCompressedResponse() {
+
+        int lastYear = Year.now().getValue() - 1;
+        ApiReader compressed = new ApiReaderImpl(stub.baseUri(),
+                new HttpClientTransport(Duration.ofSeconds(2), Duration.ofSeconds(10), false, true), null);
+
+        TreeMap<LocalDateTime, Weather> weather = compressed.readWeatherByCityAndYear(stub.cityNames()[0], lastYear);
+
+        TreeMap<LocalDateTime, Weather> plain = reader.readWeatherByCityAndYear(stub.cityNames()[0], lastYear);
+
+        assertEquals(plain.keySet(), weather.keySet(), "Komprimierte Antwort wurde anders dekodiert");
+        assertEquals(plain.lastEntry().getValue().getCurrTempCelsius(), weather.lastEntry().getValue().getCurrTempCelsius());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_ReadCurrentWeather_ShouldReturnEmptyWeatherForUnknownCity() {
+
+        Weather weather = reader.readCurrentWeatherByCity("Berlin");
+
+        assertNull(weather.getDTstamp(), "Unbekannte Stadt darf keine Wetterdaten liefern");
+    }
+}
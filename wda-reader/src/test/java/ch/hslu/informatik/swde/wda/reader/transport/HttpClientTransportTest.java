@@ -0,0 +1,87 @@
+package ch.hslu.informatik.swde.wda.reader.transport;
+
+import ch.hslu.informatik.swde.wda.reader.stub.StubSettings;
+import ch.hslu.informatik.swde.wda.reader.stub.StubWeatherProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Year;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpClientTransportTest {
+
+    private static StubWeatherProvider stub;
+    private static URI yearUri;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        stub = StubWeatherProvider.start(new StubSettings(1, 2, 24, Duration.ZERO, Duration.ZERO, 0.0, 0), 0);
+        yearUri = URI.create(stub.baseUri() + "weatherdata-provider/rest/weatherdata/cityandyear?city="
+                + stub.cityNames()[0].replace(" ", "+") + "&year=" + (Year.now().getValue() - 1));
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    private static ProviderResponse send(boolean compression) throws Exception {
+        HttpClientTransport transport = new HttpClientTransport(Duration.ofSeconds(2), Duration.ofSeconds(10), false, compression);
+        return transport.send(HttpRequest.newBuilder(yearUri).GET().build());
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Send_ShouldKeepCompressedBodyAsReceived() throws Exception {
+
+        ProviderResponse plain = send(false);
+        ProviderResponse gzip = send(true);
+
+        assertEquals(200, gzip.statusCode());
+        assertFalse(plain.body().compressed(), "Unkomprimierte Antwort erwartet");
+        assertTrue(gzip.body().compressed(), "Komprimierte Antwort erwartet");
+        assertEquals(ResponseBody.GZIP, gzip.body().encoding());
+        assertTrue(gzip.body().size() < plain.body().size(), "Komprimierte Antwort muss kleiner sein");
+        assertEquals(plain.body().text(), gzip.body().text(), "Dekomprimierte Antwort weicht ab");
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Open_ShouldParseCompressedBodyWhileDecompressing() throws Exception {
+
+        ResponseBody body = send(true).body();
+
+        try (CountingInputStream in = new CountingInputStream(body.open())) {
+            JsonNode node = new ObjectMapper().readTree(in);
+
+            assertEquals(stub.readingsInYear(Year.now().getValue() - 1), node.size(), "Nicht alle Messungen gelesen");
+            assertEquals(body.text().getBytes(StandardCharsets.UTF_8).length, in.bytes(), "Dekomprimierte Bytes falsch gezählt");
+            assertTrue(in.bytes() > body.size(), "Dekomprimierte Bytes müssen die Bytes auf der Leitung übersteigen");
+            assertTrue(in.readNanos() > 0, "Dekomprimierungszeit fehlt");
+        }
+    }
+
+    @Tag("unittest")
+    @Test
+    void test_Open_ShouldReturnUnknownEncodingAsIs() throws Exception {
+
+        ResponseBody body = new ResponseBody("[]".getBytes(StandardCharsets.UTF_8), "br, unknown");
+
+        assertFalse(body.compressed());
+        try (InputStream in = body.open()) {
+            assertEquals("[]", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(ResponseBody.GZIP, new ResponseBody(new byte[0], " X-GZIP ").encoding());
+    }
+}
@@ -17,8 +17,13 @@ package ch.hslu.informatik.swde.wda.rws.resources;
 
 import ch.hslu.informatik.swde.wda.business.BusinessAPI;
 import ch.hslu.informatik.swde.wda.business.BusinessImpl;
+import ch.hslu.informatik.swde.wda.business.job.JobStatus;
+import ch.hslu.informatik.swde.wda.business.stats.StatsMetrics;
+import ch.hslu.informatik.swde.wda.business.stats.StatsWindow;
 import ch.hslu.informatik.swde.wda.domain.City;
 import ch.hslu.informatik.swde.wda.domain.Weather;
+import ch.hslu.informatik.swde.wda.domain.WeatherBucket;
+import ch.hslu.informatik.swde.wda.reader.metrics.Metrics;
 
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -26,7 +31,10 @@ import jakarta.ws.rs.core.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 
 
@@ -235,6 +243,39 @@ public class WdaResource {
         }
     }
 
+    /**
+     * Refreshes the current weather of several cities, or of all cities, in one request.
+     * <p>
+     * This method calls the refreshCurrentWeather method of the service object with the city names from the query parameters,
+     * e.g. {@code POST wda/weather/current?city=Davos&city=Chur}, without city parameter all cities are refreshed.
+     * The service fetches the current weather of all cities at the same time and saves the new readings in one transaction.
+     * If the operation is successful, it returns a Response object with an HTTP status code of 200 (OK)
+     * and the summary with the result per city as the entity.
+     * If an exception occurs during the operation,
+     * it logs an error message and returns a Response object with an HTTP status code of 500
+     * (Internal Server Error) and an entity containing a message describing the error.
+     *
+     * @param cities the names of the cities to refresh, empty for all cities
+     * @return a Response object with an HTTP status code of 200 (OK) and the summary if the operation is successful,
+     * or a Response object with an HTTP status code of 500 (Internal Server Error)
+     * and an entity containing a message describing the error if an exception occurs
+     */
+    @POST
+    @Path("weather/current")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response refreshCurrentWeather(@QueryParam("city") List<String> cities) {
+
+        try {
+            return Response.ok(service.refreshCurrentWeather(cities)).build();
+        } catch (Exception e) {
+            LOG.error("Error while refreshing weather: ", e);
+            return Response
+                    .status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error while refreshing weather")
+                    .build();
+        }
+    }
+
     /**
      * Retrieves the current weather of a specific city from the Weather Data Application (WDA).
      * <p>
@@ -454,6 +495,57 @@ public class WdaResource {
         }
     }
 
+    /**
+     * This method is a RESTful web service endpoint that retrieves the weather data of a specific city within a given timespan
+     * aggregated per hour, day, week or month, e.g. for a chart of the daily minimum and maximum temperature.
+     * The client specifies the city through a path parameter and the timespan, the granularity and the time zone through query parameters.
+     *
+     * @param name        The name of the city. This is passed as a path parameter in the request.
+     * @param von         The start of the timespan, included, local time of the time zone. This is passed as a query parameter in the request.
+     * @param bis         The end of the timespan, excluded, local time of the time zone. This is passed as a query parameter in the request.
+     * @param granularity The length of the buckets: hour, day, week or month. This is passed as a query parameter in the request.
+     * @param zone        The time zone of the buckets, e.g. Europe/Zurich, optional.
+     *                    Without it, the time zone of the stored weather data is used. This is passed as a query parameter in the request.
+     * @return A Response object containing a JSON array with one object per bucket that has weather data,
+     * with its start, its end, its number of readings and the count, minimum, maximum, mean and standard deviation of every measurement.
+     * If the operation is successful and weather data exists for the specified city and timespan, the HTTP status code of the response is 200 (OK).
+     * If no weather data exists for the specified city and timespan, the HTTP status code of the response is 404 (Not Found).
+     * If the timespan, the granularity or the time zone is invalid, the HTTP status code of the response is 400 (Bad Request).
+     * If an error occurs during the operation, the HTTP status code of the response is 500 (Internal Server Error), and the response body contains a message describing the error.
+     */
+    @GET
+    @Path("weather/buckets/{name}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getWeatherBucketsByCityAndTimeSpan(@PathParam("name") String name, @QueryParam("von") LocalDateTime von,
+                                                       @QueryParam("bis") LocalDateTime bis, @QueryParam("granularity") String granularity,
+                                                       @QueryParam("zone") String zone) {
+
+        if (granularity == null || granularity.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("The query parameter granularity is required").build();
+        }
+
+        try {
+            WeatherBucket.Granularity unit = WeatherBucket.Granularity.valueOf(granularity.trim().toUpperCase(Locale.ROOT));
+            ZoneId zoneId = zone == null || zone.isBlank() ? null : ZoneId.of(zone);
+
+            String res = service.getWeatherBucketsOfCity(name, von, bis, unit, zoneId);
+
+            if (!res.isEmpty()) {
+                return Response.ok(res).build();
+            } else {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.error("Error while getting weather buckets: ", e);
+            return Response
+                    .status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error while getting weather buckets")
+                    .build();
+        }
+    }
+
     /**
      * Retrieves weather data for a specific city and month from the Weather Data Application (WDA).
      * <p>
@@ -519,10 +611,7 @@ public class WdaResource {
     public Response getMinMaxDataOfCityByMonth(@QueryParam("name") String name, @QueryParam("month") int month) {
 
         try {
-            TreeMap<LocalDateTime, Weather> weatherMap = service.getWeatherOfCityByMonth(month, name);
-
-            if (weatherMap.isEmpty()) return Response.status(Response.Status.NOT_FOUND).build();
-            String res = service.getWeatherMinMaxDataOfCity(weatherMap);
+            String res = service.getWeatherStatisticsOfCity(name, StatsWindow.month(month), StatsMetrics.MIN_MAX);
 
             if (!res.isEmpty()) {
                 return Response.ok(res).build();
@@ -562,10 +651,49 @@ public class WdaResource {
     public Response getMeanDataOfCityByMonth(@QueryParam("name") String name, @QueryParam("month") int month) {
 
         try {
-            TreeMap<LocalDateTime, Weather> weatherMap = service.getWeatherOfCityByMonth(month, name);
+            String res = service.getWeatherStatisticsOfCity(name, StatsWindow.month(month), StatsMetrics.MEAN);
+
+            if (!res.isEmpty()) {
+                return Response.ok(res).build();
+            } else {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+        } catch (Exception e) {
+            LOG.error("Error while getting weather: ", e);
+            return Response
+                    .status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error while getting weather")
+                    .build();
+        }
+    }
 
-            if (weatherMap.isEmpty()) return Response.status(Response.Status.NOT_FOUND).build();
-            String res = service.getWeatherMeanDataOfCity(weatherMap);
+    /**
+     * This method is a RESTful web service endpoint
+     * that retrieves the distribution of the weather data for a specific city within a given month of the year.
+     * The client specifies the city and the month through query parameters in the request.
+     * For every measurement, the response contains the mean, the standard deviation and the 50th, 90th and 99th percentile,
+     * the percentiles are estimated and accurate to 0.1 percent of the rank.
+     *
+     * @param name  The name of the city for which the distribution of the weather data is to be retrieved.
+     *              This is passed as a query parameter in the request.
+     * @param month The month of the year for which the distribution of the weather data is to be retrieved.
+     *              This is passed as a query parameter in the request.
+     * @return A Response object containing the distribution of the weather data for the specified city within the given month of the year.
+     * The weather data is represented as a String object in the response body.
+     * If the operation is successful and weather data exists for the specified city and month,
+     * the HTTP status code of the response is 200
+     * (OK).
+     * If no weather data exists for the specified city and month, the HTTP status code of the response is 404 (Not Found).
+     * If an error occurs during the operation, the HTTP status code of the response is 500 (Internal Server Error),
+     * and the response body contains a message describing the error.
+     */
+    @GET
+    @Path("weather/{year}/byCityAndMonth/distribution")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getDistributionOfCityByMonth(@QueryParam("name") String name, @QueryParam("month") int month) {
+
+        try {
+            String res = service.getWeatherStatisticsOfCity(name, StatsWindow.month(month), StatsMetrics.DISTRIBUTION);
 
             if (!res.isEmpty()) {
                 return Response.ok(res).build();
@@ -646,10 +774,7 @@ public class WdaResource {
     public Response getMinMaxDataOfCityByWeek(@QueryParam("name") String name, @QueryParam("week") int week) {
 
         try {
-            TreeMap<LocalDateTime, Weather> weatherMap = service.getWeatherOfCityByWeek(week, name);
-            if (weatherMap.isEmpty()) return Response.status(Response.Status.NOT_FOUND).build();
-
-            String res = service.getWeatherMinMaxDataOfCity(weatherMap);
+            String res = service.getWeatherStatisticsOfCity(name, StatsWindow.week(week), StatsMetrics.MIN_MAX);
 
             if (!res.isEmpty()) {
                 return Response.ok(res).build();
@@ -689,10 +814,7 @@ public class WdaResource {
     public Response getMeanDataOfCityByWeek(@QueryParam("name") String name, @QueryParam("week") int week) {
 
         try {
-            TreeMap<LocalDateTime, Weather> weatherMap = service.getWeatherOfCityByWeek(week, name);
-            if (weatherMap.isEmpty()) return Response.status(Response.Status.NOT_FOUND).build();
-
-            String res = service.getWeatherMeanDataOfCity(weatherMap);
+            String res = service.getWeatherStatisticsOfCity(name, StatsWindow.week(week), StatsMetrics.MEAN);
 
             if (!res.isEmpty()) {
                 return Response.ok(res).build();
@@ -773,12 +895,8 @@ public class WdaResource {
     public Response getMinMaxDataOfCityByDayDifference(@QueryParam("name") String name, @QueryParam("days") int days) {
 
         try {
-            // Retrieve the weather data for the specified city within the given number of past days
-            TreeMap<LocalDateTime, Weather> weatherMap = service.getWeatherByDayDifference(days, name);
-            if (weatherMap.isEmpty()) return Response.status(Response.Status.NOT_FOUND).build();
-
-            // Calculate the minimum and maximum weather data from the retrieved weather data
-            String res = service.getWeatherMinMaxDataOfCity(weatherMap);
+            // Compute the statistics for the specified city and window, cached until new weather data in the window is saved
+            String res = service.getWeatherStatisticsOfCity(name, StatsWindow.days(days), StatsMetrics.MIN_MAX);
 
             // If the minimum and maximum weather data is not empty, return it with an HTTP status code of 200 (OK)
             if (!res.isEmpty()) {
@@ -822,12 +940,8 @@ public class WdaResource {
     public Response getMinMeanOfCityByDayDifference(@QueryParam("name") String name, @QueryParam("days") int days) {
 
         try {
-            // Retrieve the weather data for the specified city within the given number of past days
-            TreeMap<LocalDateTime, Weather> weatherMap = service.getWeatherByDayDifference(days, name);
-            if (weatherMap.isEmpty()) return Response.status(Response.Status.NOT_FOUND).build();
-
-            // Calculate the mean weather data from the retrieved weather data
-            String res = service.getWeatherMeanDataOfCity(weatherMap);
+            // Compute the statistics for the specified city and window, cached until new weather data in the window is saved
+            String res = service.getWeatherStatisticsOfCity(name, StatsWindow.days(days), StatsMetrics.MEAN);
 
             // If the mean weather data is not empty, return it with an HTTP status code of 200 (OK)
             if (!res.isEmpty()) {
@@ -849,31 +963,34 @@ public class WdaResource {
     /*----------------------------------------------UTIL RESOURCES---------------------------------------------*/
 
     /**
-     * Initializes the Weather Data Application (WDA) by adding all cities and their current year's weather data.
+     * Starts the initialization of the Weather Data Application (WDA) in the background.
      * <p>
-     * This method first calls the addAllCities method of the service object,
-     * which is an instance of the BusinessAPI interface, to add all cities to the WDA.
-     * It then retrieves a list of all cities from the service object,
-     * and for each city in the list,
-     * it calls the addWeatherOfCityByYear method of the service object with the city's name and the current year.
-     * If the operation is successful, it returns a Response object with an HTTP status code of 200 (OK).
+     * This method calls the startInit method of the service object,
+     * which is an instance of the BusinessAPI interface.
+     * The init job adds all cities and their current year's weather data to the WDA.
+     * The request does not wait for the job, it returns an HTTP status code of 202 (Accepted)
+     * with the status of the job and the location of the status resource, which can be polled for the progress.
+     * If the init job is already running, the status of the running job is returned.
+     * If the WDA is already initialized, it returns an HTTP status code of 418 (I'm a teapot).
      * If an exception occurs during the operation,
      * it logs an error message and returns a Response object with an HTTP status code of 500
      * (Internal Server Error) and an entity containing a message describing the error.
      *
-     * @return a Response object with an HTTP status code of 200 (OK) if the operation is successful,
+     * @return a Response object with an HTTP status code of 202 (Accepted) and the status of the init job,
+     * a Response object with an HTTP status code of 418 (I'm a teapot) if the WDA is already initialized,
      * or a Response object with an HTTP status code of 500 (Internal Server Error)
      * and an entity containing a message describing the error if an exception occurs
      */
     @POST
     @Path("init")
+    @Produces(MediaType.APPLICATION_JSON)
     public Response initApp() {
 
         try {
-            boolean status = service.init();
+            JobStatus status = service.startInit();
 
-            if (!status) {
-                return Response.ok("Init executed").build();
+            if (status != null) {
+                return Response.accepted(status).location(URI.create(BASE_URI + "init/status")).build();
             } else {
                 return Response.status(418).entity("Init already used once 🥳").build();
             }
@@ -886,6 +1003,232 @@ public class WdaResource {
         }
     }
 
+    /**
+     * Retrieves the status of the init job started last.
+     * <p>
+     * This method calls the getInitStatus method of the service object,
+     * which is an instance of the BusinessAPI interface.
+     * The status contains the state of the job, the number of cities done, the rows written per second
+     * and the estimated remaining time.
+     * If no init job was started since the application started, it returns an HTTP status code of 404 (Not Found).
+     * If an exception occurs during the operation,
+     * it logs an error message and returns a Response object with an HTTP status code of 500
+     * (Internal Server Error) and an entity containing a message describing the error.
+     *
+     * @return a Response object with an HTTP status code of 200 (OK) and the status of the init job,
+     * a Response object with an HTTP status code of 404 (Not Found) if no init job was started,
+     * or a Response object with an HTTP status code of 500 (Internal Server Error)
+     * and an entity containing a message describing the error if an exception occurs
+     */
+    @GET
+    @Path("init/status")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getInitStatus() {
+
+        try {
+            JobStatus status = service.getInitStatus();
+
+            if (status != null) {
+                return Response.ok(status).build();
+            } else {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+        } catch (Exception e) {
+            LOG.error("Error while retrieving init status: ", e);
+            return Response
+                    .status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error while retrieving init status")
+                    .build();
+        }
+    }
+
+    /**
+     * Finds the gaps in the stored weather data of several cities in a year.
+     * <p>
+     * This method calls the findGaps method of the service object with the given cities and year.
+     * Nothing is changed, the report lists the gaps per city with the number of readings expected in them.
+     * If the year is not valid, it returns an HTTP status code of 400 (Bad Request).
+     * If an exception occurs during the operation,
+     * it logs an error message and returns a Response object with an HTTP status code of 500
+     * (Internal Server Error) and an entity containing a message describing the error.
+     *
+     * @param cities the names of the cities, all cities if none is given
+     * @param year   the year to analyze
+     * @return a Response object with an HTTP status code of 200 (OK) and the gap report,
+     * a Response object with an HTTP status code of 400 (Bad Request) if the year is not valid,
+     * or a Response object with an HTTP status code of 500 (Internal Server Error)
+     * and an entity containing a message describing the error if an exception occurs
+     */
+    @GET
+    @Path("gaps")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response findGaps(@QueryParam("city") List<String> cities, @QueryParam("year") int year) {
+
+        try {
+            return Response.ok(service.findGaps(cities, year)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.error("Error while finding gaps: ", e);
+            return Response
+                    .status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error while finding gaps")
+                    .build();
+        }
+    }
+
+    /**
+     * Finds the gaps in the stored weather data of several cities in a year and loads only the missing readings.
+     * <p>
+     * This method calls the repairGaps method of the service object with the given cities and year.
+     * Only the cities with gaps are loaded from the provider, and only readings inside the gaps are saved.
+     * If the year is not valid, it returns an HTTP status code of 400 (Bad Request).
+     * If an exception occurs during the operation,
+     * it logs an error message and returns a Response object with an HTTP status code of 500
+     * (Internal Server Error) and an entity containing a message describing the error.
+     *
+     * @param cities the names of the cities, all cities if none is given
+     * @param year   the year to repair
+     * @return a Response object with an HTTP status code of 200 (OK) and the report of the gaps found and filled,
+     * a Response object with an HTTP status code of 400 (Bad Request) if the year is not valid,
+     * or a Response object with an HTTP status code of 500 (Internal Server Error)
+     * and an entity containing a message describing the error if an exception occurs
+     */
+    @POST
+    @Path("gaps/repair")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response repairGaps(@QueryParam("city") List<String> cities, @QueryParam("year") int year) {
+
+        try {
+            return Response.ok(service.repairGaps(cities, year)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.error("Error while repairing gaps: ", e);
+            return Response
+                    .status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error while repairing gaps")
+                    .build();
+        }
+    }
+
+    /**
+     * Starts loading the weather data of several cities and years in the background.
+     * <p>
+     * This method calls the startBackfill method of the service object,
+     * which is an instance of the BusinessAPI interface, with the given cities and year range.
+     * The most recent year is loaded first. The progress is saved per city and year,
+     * so the years already loaded are skipped and a stopped backfill can be continued.
+     * The request does not wait for the job, it returns an HTTP status code of 202 (Accepted)
+     * with the status of the job and the location of the status resource.
+     * If the year range is not valid, it returns an HTTP status code of 400 (Bad Request).
+     * If an exception occurs during the operation,
+     * it logs an error message and returns a Response object with an HTTP status code of 500
+     * (Internal Server Error) and an entity containing a message describing the error.
+     *
+     * @param cities   the names of the cities, all cities if none is given
+     * @param fromYear the first year to load
+     * @param toYear   the last year to load
+     * @return a Response object with an HTTP status code of 202 (Accepted) and the status of the backfill job,
+     * a Response object with an HTTP status code of 400 (Bad Request) if the year range is not valid,
+     * or a Response object with an HTTP status code of 500 (Internal Server Error)
+     * and an entity containing a message describing the error if an exception occurs
+     */
+    @POST
+    @Path("backfill")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response startBackfill(@QueryParam("city") List<String> cities, @QueryParam("from") int fromYear, @QueryParam("to") int toYear) {
+
+        try {
+            JobStatus status = service.startBackfill(cities, fromYear, toYear);
+
+            return Response.accepted(status).location(URI.create(BASE_URI + "backfill/status")).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            LOG.error("Error while starting backfill: ", e);
+            return Response
+                    .status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error while starting backfill")
+                    .build();
+        }
+    }
+
+    /**
+     * Continues all backfill jobs that were not finished.
+     * <p>
+     * This method calls the resumeBackfill method of the service object,
+     * which is an instance of the BusinessAPI interface.
+     * If there is something to continue, it returns an HTTP status code of 202 (Accepted) with the status of the job.
+     * If all backfill jobs are finished, it returns an HTTP status code of 204 (No Content).
+     * If an exception occurs during the operation,
+     * it logs an error message and returns a Response object with an HTTP status code of 500
+     * (Internal Server Error) and an entity containing a message describing the error.
+     *
+     * @return a Response object with an HTTP status code of 202 (Accepted) and the status of the backfill job,
+     * a Response object with an HTTP status code of 204 (No Content) if there is nothing to continue,
+     * or a Response object with an HTTP status code of 500 (Internal Server Error)
+     * and an entity containing a message describing the error if an exception occurs
+     */
+    @POST
+    @Path("backfill/resume")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response resumeBackfill() {
+
+        try {
+            JobStatus status = service.resumeBackfill();
+
+            if (status != null) {
+                return Response.accepted(status).location(URI.create(BASE_URI + "backfill/status")).build();
+            } else {
+                return Response.noContent().build();
+            }
+        } catch (Exception e) {
+            LOG.error("Error while resuming backfill: ", e);
+            return Response
+                    .status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error while resuming backfill")
+                    .build();
+        }
+    }
+
+    /**
+     * Retrieves the status of the backfill job started last.
+     * <p>
+     * This method calls the getBackfillStatus method of the service object,
+     * which is an instance of the BusinessAPI interface.
+     * If no backfill job was started since the application started, it returns an HTTP status code of 404 (Not Found).
+     * If an exception occurs during the operation,
+     * it logs an error message and returns a Response object with an HTTP status code of 500
+     * (Internal Server Error) and an entity containing a message describing the error.
+     *
+     * @return a Response object with an HTTP status code of 200 (OK) and the status of the backfill job,
+     * a Response object with an HTTP status code of 404 (Not Found) if no backfill job was started,
+     * or a Response object with an HTTP status code of 500 (Internal Server Error)
+     * and an entity containing a message describing the error if an exception occurs
+     */
+    @GET
+    @Path("backfill/status")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getBackfillStatus() {
+
+        try {
+            JobStatus status = service.getBackfillStatus();
+
+            if (status != null) {
+                return Response.ok(status).build();
+            } else {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+        } catch (Exception e) {
+            LOG.error("Error while retrieving backfill status: ", e);
+            return Response
+                    .status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error while retrieving backfill status")
+                    .build();
+        }
+    }
+
     /**
      * This method is a RESTful web service endpoint that destroys the Weather Data Application (WDA).
      * It calls the destroy method of the service object, which is an instance of the BusinessAPI interface.
@@ -924,4 +1267,34 @@ public class WdaResource {
                     .build();
         }
     }
+
+    /**
+     * Retrieves the runtime metrics of the Weather Data Application (WDA).
+     * <p>
+     * This method returns a snapshot of all counters, gauges and latency timers,
+     * e.g. the number of requests, retries and failures of the provider client,
+     * the state of the circuit breaker and the latency percentiles.
+     * If an exception occurs during the operation,
+     * it logs an error message and returns a Response object with an HTTP status code of 500
+     * (Internal Server Error) and an entity containing a message describing the error.
+     *
+     * @return a Response object with an HTTP status code of 200 (OK) and the metrics as JSON,
+     * or a Response object with an HTTP status code of 500 (Internal Server Error)
+     * and an entity containing a message describing the error if an exception occurs
+     */
+    @GET
+    @Path("metrics")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getMetrics() {
+
+        try {
+            return Response.ok(Metrics.snapshot()).build();
+        } catch (Exception e) {
+            LOG.error("Error while retrieving metrics: ", e);
+            return Response
+                    .status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("Error while retrieving metrics")
+                    .build();
+        }
+    }
 }
\ No newline at end of file
@@ -16,6 +16,10 @@
 
 package ch.hslu.informatik.swde.wda.rws.server;
 
+import ch.hslu.informatik.swde.wda.business.BusinessImpl;
+import ch.hslu.informatik.swde.wda.business.cluster.ClusterSettings;
+import ch.hslu.informatik.swde.wda.business.poll.PollerSettings;
+import ch.hslu.informatik.swde.wda.business.queue.QueueSettings;
 import ch.hslu.informatik.swde.wda.rws.resources.WdaResource;
 import ch.hslu.informatik.swde.wda.rws.util.LocalDateTimeConverterProvider;
 import ch.hslu.informatik.swde.wda.rws.util.SQLServerChecker;
@@ -39,8 +43,15 @@ public class ServerApp {
 
 		check();
 
+		loadObservationIndex();
+
 		HttpServer srv = JdkHttpServerFactory.createHttpServer(uri, resConf);
 
+		startClusterSync();
+		startWorkQueue();
+		resumeBackfill();
+		startPolling();
+
 		System.out.println("Server running at " + URI_BASE);
 		System.out.println("Press ENTER to shut down ...");
 
@@ -50,10 +61,84 @@ public class ServerApp {
 			e.printStackTrace();
 		}
 
+		new BusinessImpl("postgresPU").stopPolling();
 		srv.stop(1);
+		new BusinessImpl("postgresPU").stopWorkQueue();
+		new BusinessImpl("postgresPU").stopClusterSync();
+		new BusinessImpl("postgresPU").saveObservationIndex();
 		System.out.println("Execution stopped ...");
 	}
 
+	/**
+	 * Loads the index of the stored observations before any weather data is written.
+	 */
+	private static void loadObservationIndex() {
+		try {
+			int rebuilt = new BusinessImpl("postgresPU").loadObservationIndex();
+			System.out.println("Observation index loaded, " + rebuilt + " cities rebuilt");
+		} catch (Exception e) {
+			System.out.println("Observation index could not be loaded: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Continues the backfill jobs that were interrupted by the last shutdown, in the background.
+	 */
+	private static void resumeBackfill() {
+		try {
+			if (new BusinessImpl("postgresPU").resumeBackfill() != null) {
+				System.out.println("Backfill resumed, status at " + URI_BASE + "wda/backfill/status");
+			}
+		} catch (Exception e) {
+			System.out.println("Backfill could not be resumed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Starts the cache synchronisation with the other servers on the same database, if it is enabled with -Dwda.cluster.enabled=true.
+	 */
+	private static void startClusterSync() {
+		if (!ClusterSettings.fromSystemProperties().enabled()) {
+			return;
+		}
+		try {
+			new BusinessImpl("postgresPU").startClusterSync();
+			System.out.println("Cluster sync started");
+		} catch (Exception e) {
+			System.out.println("Cluster sync could not be started: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Joins the work queue shared with the other servers on the same database, if it is enabled with -Dwda.queue.enabled=true.
+	 */
+	private static void startWorkQueue() {
+		if (!QueueSettings.fromSystemProperties().enabled()) {
+			return;
+		}
+		try {
+			new BusinessImpl("postgresPU").startWorkQueue();
+			System.out.println("Work queue started");
+		} catch (Exception e) {
+			System.out.println("Work queue could not be started: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Starts polling the current weather of all cities if it is enabled with -Dwda.poller.enabled=true.
+	 */
+	private static void startPolling() {
+		if (!PollerSettings.fromSystemProperties().enabled()) {
+			return;
+		}
+		try {
+			new BusinessImpl("postgresPU").startPolling();
+			System.out.println("Current weather poller started");
+		} catch (Exception e) {
+			System.out.println("Current weather poller could not be started: " + e.getMessage());
+		}
+	}
+
 	private static void check() {
 		ServerChecker.checkServer("eee-03317.simple.eee.intern", 8080);
 		ServerChecker.checkServer("localhost", 5432);